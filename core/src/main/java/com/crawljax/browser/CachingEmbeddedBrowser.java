@@ -0,0 +1,301 @@
+package com.crawljax.browser;
+
+import java.io.File;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.List;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Identification;
+import com.crawljax.forms.FormInput;
+import com.crawljax.metrics.MetricsModule;
+import com.google.common.base.MoreObjects;
+
+/**
+ * An {@link EmbeddedBrowser} that remembers the URL and the DOMs of the page between the
+ * operations that may change them, so asking for them again during a crawl step does not go to
+ * the browser. The operations that may change the page are {@link #goToUrl(URI)},
+ * {@link #goBack()}, {@link #fireEventAndWait(Eventable)}, {@link #input(Identification, String)},
+ * {@link #executeJavaScript(String)}, {@link #getInputWithRandomValue(FormInput)} and
+ * {@link #getWebElement(Identification)}, because the element it returns can be used to change the
+ * page. A page that changes by itself, for example from a timer, is only noticed when
+ * {@link #isDomChangedSinceLastSnapshot()} is asked and the delegate tracks the DOM changes, so
+ * this browser is only used when it is asked for in the configuration.
+ * <p>
+ * It also installs a hook for <code>window.open</code> and for links and forms with a target in
+ * the page, so {@link #closeOtherWindows()} only asks the browser for its windows when the page
+ * may have opened one.
+ * <p>
+ * The number of commands that were not sent to the browser are counted in the
+ * {@link MetricRegistry}, in total and per DOM that was transferred from the browser.
+ */
+@NotThreadSafe
+public class CachingEmbeddedBrowser implements EmbeddedBrowser {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CachingEmbeddedBrowser.class);
+
+	/**
+	 * The number of commands {@link WebDriverBackedEmbeddedBrowser#closeOtherWindows()} sends
+	 * when there is only one window, minus the one to check the hook.
+	 */
+	private static final int CLOSE_OTHER_WINDOWS_COMMANDS = 2;
+
+	/**
+	 * Returns whether the page may have opened a window since the last call, because the hook
+	 * was not installed yet, the page has frames, a link or form with a target was used or
+	 * <code>window.open</code> was called. Installs the hook when it is not installed yet.
+	 */
+	private static final String POPUP_HOOK_SCRIPT = "var w=window,d=document,"
+	        + "h=w.__crawljaxPopupHook,opened=!h||h.opened||w.frames.length>0"
+	        + "||d.querySelector('base[target]')!==null;"
+	        + "if(!h){h={opened:false};var open=w.open;"
+	        + "w.open=function(){h.opened=true;return open.apply(w,arguments);};"
+	        + "var mark=function(e){for(var n=e.target;n&&n.nodeType===1;n=n.parentNode){"
+	        + "var t=n.getAttribute('target');"
+	        + "if(t&&!/^_(self|top|parent)$/i.test(t)&&/^(A|AREA|FORM)$/i.test(n.tagName)){"
+	        + "h.opened=true;return;}}};"
+	        + "d.addEventListener('click',mark,true);d.addEventListener('submit',mark,true);"
+	        + "w.__crawljaxPopupHook=h;}"
+	        + "h.opened=false;return opened;";
+
+	private final EmbeddedBrowser delegate;
+	private final Counter savedCommands;
+	private final Histogram savedCommandsPerDom;
+
+	private String currentUrl;
+	private String strippedDom;
+	private String unStrippedDom;
+	private String strippedDomWithoutIframeContent;
+	private long savedSinceLastDom;
+
+	/**
+	 * @param delegate
+	 *            the browser that executes the commands.
+	 * @param registry
+	 *            the registry for the number of saved commands.
+	 */
+	public CachingEmbeddedBrowser(EmbeddedBrowser delegate, MetricRegistry registry) {
+		this.delegate = delegate;
+		this.savedCommands = registry.counter(MetricsModule.BROWSER_PREFIX + "saved_commands");
+		this.savedCommandsPerDom =
+		        registry.histogram(MetricsModule.BROWSER_PREFIX + "saved_commands_per_dom");
+	}
+
+	/**
+	 * @return the browser that executes the commands.
+	 */
+	public EmbeddedBrowser getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @return the number of commands this browser did not send to the delegate.
+	 */
+	public long getSavedCommands() {
+		return savedCommands.getCount();
+	}
+
+	private void save(long commands) {
+		savedCommands.inc(commands);
+		savedSinceLastDom += commands;
+	}
+
+	private void domTransferred() {
+		savedCommandsPerDom.update(savedSinceLastDom);
+		savedSinceLastDom = 0;
+	}
+
+	/**
+	 * Forgets the URL and the DOMs, because the page may have changed.
+	 */
+	private void invalidate() {
+		currentUrl = null;
+		invalidateDom();
+	}
+
+	private void invalidateDom() {
+		strippedDom = null;
+		unStrippedDom = null;
+		strippedDomWithoutIframeContent = null;
+	}
+
+	@Override
+	public void goToUrl(URI url) {
+		invalidate();
+		delegate.goToUrl(url);
+	}
+
+	@Override
+	public boolean fireEventAndWait(Eventable event) throws ElementNotInteractableException,
+	        InterruptedException {
+		invalidate();
+		return delegate.fireEventAndWait(event);
+	}
+
+	@Override
+	public String getStrippedDom() {
+		if (strippedDom == null) {
+			strippedDom = delegate.getStrippedDom();
+			domTransferred();
+		} else {
+			save(1);
+		}
+		return strippedDom;
+	}
+
+	@Override
+	public String getUnStrippedDom() {
+		if (unStrippedDom == null) {
+			unStrippedDom = delegate.getUnStrippedDom();
+		} else {
+			save(1);
+		}
+		return unStrippedDom;
+	}
+
+	@Override
+	@Deprecated
+	public String getDom() {
+		return getStrippedDom();
+	}
+
+	@Override
+	public String getStrippedDomWithoutIframeContent() {
+		if (strippedDomWithoutIframeContent == null) {
+			strippedDomWithoutIframeContent = delegate.getStrippedDomWithoutIframeContent();
+		} else {
+			save(1);
+		}
+		return strippedDomWithoutIframeContent;
+	}
+
+	/**
+	 * Asks the delegate, and forgets the DOMs when the page changed by itself.
+	 */
+	@Override
+	public boolean isDomChangedSinceLastSnapshot() {
+		boolean changed = delegate.isDomChangedSinceLastSnapshot();
+		if (changed) {
+			invalidateDom();
+		}
+		return changed;
+	}
+
+	@Override
+	public void markSnapshot() {
+		delegate.markSnapshot();
+	}
+
+	@Override
+	public void close() {
+		invalidate();
+		delegate.close();
+	}
+
+	@Override
+	public void closeOtherWindows() {
+		if (mayHaveOpenedWindows()) {
+			delegate.closeOtherWindows();
+		} else {
+			save(CLOSE_OTHER_WINDOWS_COMMANDS);
+		}
+	}
+
+	private boolean mayHaveOpenedWindows() {
+		try {
+			return !Boolean.FALSE.equals(delegate.executeJavaScript(POPUP_HOOK_SCRIPT));
+		} catch (CrawljaxException e) {
+			LOG.debug("Could not check for opened windows: {}", e.getMessage());
+			return true;
+		}
+	}
+
+	@Override
+	public void goBack() {
+		invalidate();
+		delegate.goBack();
+	}
+
+	@Override
+	public boolean input(Identification identification, String text) throws CrawljaxException {
+		invalidate();
+		return delegate.input(identification, text);
+	}
+
+	@Override
+	public Object executeJavaScript(String script) throws CrawljaxException {
+		invalidate();
+		return delegate.executeJavaScript(script);
+	}
+
+	@Override
+	public boolean isVisible(Identification identification) {
+		return delegate.isVisible(identification);
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		if (currentUrl == null) {
+			currentUrl = delegate.getCurrentUrl();
+		} else {
+			save(1);
+		}
+		return currentUrl;
+	}
+
+	@Override
+	public List<HttpCookie> getCookies() {
+		return delegate.getCookies();
+	}
+
+	@Override
+	public FormInput getInputWithRandomValue(FormInput inputForm) {
+		invalidate();
+		return delegate.getInputWithRandomValue(inputForm);
+	}
+
+	@Override
+	public String getFrameDom(String iframeIdentification) {
+		return delegate.getFrameDom(iframeIdentification);
+	}
+
+	@Override
+	public boolean elementExists(Identification identification) {
+		return delegate.elementExists(identification);
+	}
+
+	@Override
+	public WebElement getWebElement(Identification identification) {
+		invalidate();
+		return delegate.getWebElement(identification);
+	}
+
+	@Override
+	public void saveScreenShot(File file) throws CrawljaxException {
+		delegate.saveScreenShot(file);
+	}
+
+	@Override
+	public byte[] getScreenShot() throws CrawljaxException {
+		return delegate.getScreenShot();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("delegate", delegate)
+		        .add("savedCommands", savedCommands.getCount())
+		        .toString();
+	}
+}
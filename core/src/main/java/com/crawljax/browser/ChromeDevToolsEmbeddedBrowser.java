@@ -0,0 +1,297 @@
+package com.crawljax.browser;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Identification;
+import com.crawljax.forms.FormInput;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.io.Files;
+
+/**
+ * An {@link EmbeddedBrowser} for a local Chrome that also talks to the browser through the Chrome
+ * DevTools Protocol. Instead of sleeping for a fixed time after loading a URL or firing an event,
+ * it waits until the network of the page is idle, at most for the configured time. The page source
+ * is serialized by the browser itself in one DevTools round trip, and screenshots are captured
+ * through DevTools as well. Everything else is done by a {@link WebDriverBackedEmbeddedBrowser},
+ * including the tracking of the DOM changes in the page.
+ * <p>
+ * The protocol is used without the version specific bindings of Selenium, so it works with any
+ * version of Chrome.
+ */
+public final class ChromeDevToolsEmbeddedBrowser implements EmbeddedBrowser {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChromeDevToolsEmbeddedBrowser.class);
+
+	/**
+	 * The default time without requests in flight after which the network of the page is idle.
+	 */
+	public static final long DEFAULT_NETWORK_QUIET_MILLIS = 100;
+
+	private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(10);
+
+	private static final String PAGE_SOURCE_EXPRESSION = "(document.doctype ? "
+	        + "new XMLSerializer().serializeToString(document.doctype) : '') "
+	        + "+ document.documentElement.outerHTML";
+
+	/**
+	 * @param driver
+	 *            the driver of a local Chrome.
+	 * @param filterAttributes
+	 *            the attributes to be filtered from DOM.
+	 * @param crawlWaitEvent
+	 *            the maximum period to wait for the network after an event is fired.
+	 * @param crawlWaitReload
+	 *            the maximum period to wait for the network after a reload.
+	 * @return The EmbeddedBrowser.
+	 * @throws org.openqa.selenium.devtools.DevToolsException
+	 *             if the DevTools of the browser cannot be reached.
+	 */
+	public static ChromeDevToolsEmbeddedBrowser withDriver(ChromiumDriver driver,
+	        ImmutableSortedSet<String> filterAttributes, long crawlWaitEvent, long crawlWaitReload) {
+		return new ChromeDevToolsEmbeddedBrowser(driver, WebDriverBackedEmbeddedBrowser
+		        .withDriver(driver, filterAttributes, 0, 0), crawlWaitEvent, crawlWaitReload);
+	}
+
+	private final WebDriverBackedEmbeddedBrowser delegate;
+	private final DevTools devTools;
+	private final NetworkActivity network = new NetworkActivity();
+	private final long crawlWaitEvent;
+	private final long crawlWaitReload;
+	private long networkQuietMillis = DEFAULT_NETWORK_QUIET_MILLIS;
+
+	private ChromeDevToolsEmbeddedBrowser(ChromiumDriver driver,
+	        WebDriverBackedEmbeddedBrowser delegate, long crawlWaitEvent, long crawlWaitReload) {
+		this.delegate = delegate;
+		this.crawlWaitEvent = crawlWaitEvent;
+		this.crawlWaitReload = crawlWaitReload;
+		this.devTools = driver.getDevTools();
+		devTools.createSessionIfThereIsNotOne();
+		devTools.addListener(new Event<>("Network.requestWillBeSent",
+		        ChromeDevToolsEmbeddedBrowser::requestId), network::requestStarted);
+		devTools.addListener(new Event<>("Network.loadingFinished",
+		        ChromeDevToolsEmbeddedBrowser::requestId), network::requestFinished);
+		devTools.addListener(new Event<>("Network.loadingFailed",
+		        ChromeDevToolsEmbeddedBrowser::requestId), network::requestFinished);
+		devTools.send(new Command<Void>("Network.enable", ImmutableMap.of()));
+		delegate.setPageSource(this::pageSource);
+	}
+
+	private static String requestId(JsonInput input) {
+		Map<String, Object> params = input.read(Json.MAP_TYPE);
+		return String.valueOf(params.get("requestId"));
+	}
+
+	/**
+	 * @return the browser that executes the WebDriver commands.
+	 */
+	public WebDriverBackedEmbeddedBrowser getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @param networkQuietMillis
+	 *            the time without requests in flight after which the network of the page is
+	 *            idle.
+	 */
+	public void setNetworkQuietMillis(long networkQuietMillis) {
+		this.networkQuietMillis = networkQuietMillis;
+	}
+
+	private void waitForNetwork(long timeoutMillis) throws InterruptedException {
+		if (!network.awaitIdle(Math.min(networkQuietMillis, timeoutMillis), timeoutMillis)) {
+			LOG.debug("{} requests still in flight after {} ms", network.getRequestsInFlight(),
+			        timeoutMillis);
+		}
+	}
+
+	private String pageSource() {
+		Map<String, Object> reply = send("Runtime.evaluate",
+		        ImmutableMap.of("expression", PAGE_SOURCE_EXPRESSION, "returnByValue", true));
+		Object result = reply.get("result");
+		if (reply.get("exceptionDetails") == null && result instanceof Map) {
+			Object value = ((Map<?, ?>) result).get("value");
+			if (value instanceof String) {
+				return (String) value;
+			}
+		}
+		LOG.debug("Could not serialize the page through DevTools, asking WebDriver");
+		return delegate.getBrowser().getPageSource();
+	}
+
+	private Map<String, Object> send(String method, Map<String, Object> params) {
+		return devTools.send(new Command<Map<String, Object>>(method, params, Json.MAP_TYPE),
+		        COMMAND_TIMEOUT);
+	}
+
+	@Override
+	public void goToUrl(URI url) {
+		delegate.goToUrl(url);
+		try {
+			waitForNetwork(crawlWaitReload);
+		} catch (InterruptedException e) {
+			LOG.debug("goToUrl got interrupted while waiting for the page to be loaded", e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean fireEventAndWait(Eventable event) throws ElementNotInteractableException,
+	        InterruptedException {
+		boolean fired = delegate.fireEventAndWait(event);
+		if (fired) {
+			waitForNetwork(crawlWaitEvent);
+		}
+		return fired;
+	}
+
+	@Override
+	public String getStrippedDom() {
+		return delegate.getStrippedDom();
+	}
+
+	@Override
+	public String getUnStrippedDom() {
+		return delegate.getUnStrippedDom();
+	}
+
+	@Override
+	@Deprecated
+	public String getDom() {
+		return getStrippedDom();
+	}
+
+	@Override
+	public String getStrippedDomWithoutIframeContent() {
+		return delegate.getStrippedDomWithoutIframeContent();
+	}
+
+	@Override
+	public boolean isDomChangedSinceLastSnapshot() {
+		return delegate.isDomChangedSinceLastSnapshot();
+	}
+
+	@Override
+	public void markSnapshot() {
+		delegate.markSnapshot();
+	}
+
+	@Override
+	public void close() {
+		try {
+			devTools.clearListeners();
+			devTools.close();
+		} catch (WebDriverException e) {
+			LOG.debug("Could not close the DevTools connection: {}", e.getMessage());
+		}
+		delegate.close();
+	}
+
+	@Override
+	public void closeOtherWindows() {
+		delegate.closeOtherWindows();
+	}
+
+	@Override
+	public void goBack() {
+		delegate.goBack();
+	}
+
+	@Override
+	public boolean input(Identification identification, String text) throws CrawljaxException {
+		return delegate.input(identification, text);
+	}
+
+	@Override
+	public Object executeJavaScript(String script) throws CrawljaxException {
+		return delegate.executeJavaScript(script);
+	}
+
+	@Override
+	public boolean isVisible(Identification identification) {
+		return delegate.isVisible(identification);
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		return delegate.getCurrentUrl();
+	}
+
+	@Override
+	public List<HttpCookie> getCookies() {
+		return delegate.getCookies();
+	}
+
+	@Override
+	public FormInput getInputWithRandomValue(FormInput inputForm) {
+		return delegate.getInputWithRandomValue(inputForm);
+	}
+
+	@Override
+	public String getFrameDom(String iframeIdentification) {
+		return delegate.getFrameDom(iframeIdentification);
+	}
+
+	@Override
+	public boolean elementExists(Identification identification) {
+		return delegate.elementExists(identification);
+	}
+
+	@Override
+	public WebElement getWebElement(Identification identification) {
+		return delegate.getWebElement(identification);
+	}
+
+	@Override
+	public void saveScreenShot(File file) throws CrawljaxException {
+		try {
+			Files.write(getScreenShot(), file);
+		} catch (IOException e) {
+			throw new CrawljaxException(e);
+		}
+	}
+
+	@Override
+	public byte[] getScreenShot() throws CrawljaxException {
+		try {
+			Object data = send("Page.captureScreenshot", ImmutableMap.of("format", "png"))
+			        .get("data");
+			if (data instanceof String) {
+				return Base64.getDecoder().decode((String) data);
+			}
+		} catch (WebDriverException | IllegalArgumentException e) {
+			LOG.debug("Could not capture a screenshot through DevTools: {}", e.getMessage());
+		}
+		return delegate.getScreenShot();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("delegate", delegate)
+		        .add("networkQuietMillis", networkQuietMillis)
+		        .toString();
+	}
+}
@@ -0,0 +1,161 @@
+package com.crawljax.browser;
+
+import java.io.File;
+import java.net.URI;
+
+import net.jcip.annotations.Immutable;
+
+import org.openqa.selenium.WebElement;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.StateVertex;
+import com.crawljax.forms.FormInput;
+import com.google.common.base.MoreObjects;
+
+/**
+ * An {@link EmbeddedBrowser} that is not connected to a browser. It shows the URL and the DOM of a
+ * state as it was found, so it can be handed to plugins that run on other threads while the
+ * browser of the crawler moves on. Everything that would drive or query the page throws a
+ * {@link CrawljaxException}, like taking a screenshot does in browsers that cannot take one.
+ */
+@Immutable
+public final class DetachedEmbeddedBrowser implements EmbeddedBrowser {
+
+	private final StateVertex state;
+
+	/**
+	 * @param state
+	 *            the state to show, or <code>null</code> if there is none yet.
+	 */
+	public DetachedEmbeddedBrowser(StateVertex state) {
+		this.state = state;
+	}
+
+	private CrawljaxException detached(String operation) {
+		return new CrawljaxException("Cannot " + operation
+		        + " because this browser is detached from the crawl");
+	}
+
+	private StateVertex state() {
+		if (state == null) {
+			throw detached("read the DOM");
+		}
+		return state;
+	}
+
+	@Override
+	public void goToUrl(URI url) {
+		throw detached("go to " + url);
+	}
+
+	@Override
+	public boolean fireEventAndWait(Eventable event) {
+		throw detached("fire " + event);
+	}
+
+	@Override
+	public String getStrippedDom() {
+		return state().getDom();
+	}
+
+	@Override
+	public String getUnStrippedDom() {
+		return state().getDom();
+	}
+
+	/**
+	 * @return the DOM of the state.
+	 * @deprecated use {@link #getStrippedDom()}.
+	 */
+	@Deprecated
+	@Override
+	public String getDom() {
+		return state().getDom();
+	}
+
+	@Override
+	public String getStrippedDomWithoutIframeContent() {
+		return state().getDom();
+	}
+
+	@Override
+	public boolean isDomChangedSinceLastSnapshot() {
+		return false;
+	}
+
+	/**
+	 * Does nothing, because there is no browser to close.
+	 */
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void closeOtherWindows() {
+		throw detached("close windows");
+	}
+
+	@Override
+	public void goBack() {
+		throw detached("go back");
+	}
+
+	@Override
+	public boolean input(Identification identification, String text) {
+		throw detached("enter text");
+	}
+
+	@Override
+	public Object executeJavaScript(String script) {
+		throw detached("execute JavaScript");
+	}
+
+	@Override
+	public boolean isVisible(Identification identification) {
+		throw detached("check the visibility of " + identification);
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		return state().getUrl();
+	}
+
+	@Override
+	public FormInput getInputWithRandomValue(FormInput inputForm) {
+		throw detached("fill in a form input");
+	}
+
+	@Override
+	public String getFrameDom(String iframeIdentification) {
+		throw detached("read the DOM of frame " + iframeIdentification);
+	}
+
+	@Override
+	public boolean elementExists(Identification identification) {
+		throw detached("find " + identification);
+	}
+
+	@Override
+	public WebElement getWebElement(Identification identification) {
+		throw detached("find " + identification);
+	}
+
+	@Override
+	public void saveScreenShot(File file) {
+		throw detached("take a screenshot");
+	}
+
+	@Override
+	public byte[] getScreenShot() {
+		throw detached("take a screenshot");
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("state", state)
+		        .toString();
+	}
+}
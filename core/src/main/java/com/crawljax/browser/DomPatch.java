@@ -0,0 +1,208 @@
+package com.crawljax.browser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xerces.xni.QName;
+import org.cyberneko.html.parsers.DOMFragmentParser;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A subtree of the DOM that changed since the last snapshot. It is found by the path of element
+ * child indices from the document element, and replaced by the parsed HTML of the subtree in the
+ * page. Patches are computed in the page by the DOM tracker of
+ * {@link WebDriverBackedEmbeddedBrowser}, so only the changed subtrees are transferred.
+ */
+final class DomPatch {
+
+	/**
+	 * The maximum number of mutations that are recorded between two snapshots. When more nodes
+	 * change, the whole DOM is transferred.
+	 */
+	static final int MAX_TARGETS = 1000;
+
+	/**
+	 * @param patches
+	 *            the patches as returned by the browser, a list of maps with a <code>path</code>,
+	 *            <code>tag</code>, <code>context</code> and <code>html</code>.
+	 * @return the patches.
+	 * @throws IllegalArgumentException
+	 *             if the patches are malformed.
+	 */
+	static ImmutableList<DomPatch> fromBrowser(List<?> patches) {
+		ImmutableList.Builder<DomPatch> builder = ImmutableList.builder();
+		for (Object patch : patches) {
+			builder.add(fromBrowser((Map<?, ?>) patch));
+		}
+		return builder.build();
+	}
+
+	private static DomPatch fromBrowser(Map<?, ?> patch) {
+		List<?> path = (List<?>) patch.get("path");
+		int[] indices = new int[path.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = ((Number) path.get(i)).intValue();
+		}
+		List<?> context = (List<?>) patch.get("context");
+		ImmutableList.Builder<String> ancestors = ImmutableList.builder();
+		for (Object tag : context) {
+			ancestors.add((String) tag);
+		}
+		String tag = (String) patch.get("tag");
+		String html = (String) patch.get("html");
+		if (tag == null || html == null) {
+			throw new IllegalArgumentException("Incomplete patch " + patch);
+		}
+		return new DomPatch(indices, tag, ancestors.build(), html);
+	}
+
+	/**
+	 * @param node
+	 *            the root of the subtree.
+	 * @return the number of elements in the subtree, without the contents of frames.
+	 */
+	static int countElements(Node node) {
+		int count = 0;
+		if (node.getNodeType() == Node.ELEMENT_NODE) {
+			count++;
+			if (isFrame(node)) {
+				return count;
+			}
+		}
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			count += countElements(child);
+		}
+		return count;
+	}
+
+	private static boolean isFrame(Node node) {
+		return "IFRAME".equalsIgnoreCase(node.getNodeName())
+		        || "FRAME".equalsIgnoreCase(node.getNodeName());
+	}
+
+	private final int[] path;
+	private final String tag;
+	private final ImmutableList<String> context;
+	private final String html;
+
+	DomPatch(int[] path, String tag, ImmutableList<String> context, String html) {
+		this.path = path.clone();
+		this.tag = tag;
+		this.context = context;
+		this.html = html;
+	}
+
+	/**
+	 * @return the length of the HTML of the patch.
+	 */
+	int length() {
+		return html.length();
+	}
+
+	/**
+	 * Replaces the subtree at the path of the patch. The document is not changed when the patch
+	 * cannot be applied.
+	 *
+	 * @param document
+	 *            the document of the last snapshot.
+	 * @return whether the patch was applied, which is not the case when the subtree at the path
+	 *         has another tag or the HTML does not parse to a single element with that tag.
+	 */
+	boolean applyTo(Document document) {
+		Element target = find(document);
+		if (target == null || !tag.equalsIgnoreCase(target.getNodeName())) {
+			return false;
+		}
+		Element replacement;
+		try {
+			replacement = parse(document);
+		} catch (IOException e) {
+			return false;
+		}
+		if (replacement == null || !tag.equalsIgnoreCase(replacement.getNodeName())) {
+			return false;
+		}
+		try {
+			target.getParentNode().replaceChild(replacement, target);
+		} catch (DOMException e) {
+			return false;
+		}
+		return true;
+	}
+
+	private Element find(Document document) {
+		Element element = document.getDocumentElement();
+		for (int index : path) {
+			if (element == null || isFrame(element)) {
+				return null;
+			}
+			element = childElement(element, index);
+		}
+		return element;
+	}
+
+	private static Element childElement(Element parent, int index) {
+		int i = 0;
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && i++ == index) {
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the single element the HTML parses to in the context of its ancestors, or
+	 *         <code>null</code> if it does not parse to a single element.
+	 */
+	private Element parse(Document document) throws IOException {
+		DOMFragmentParser parser = new DOMFragmentParser();
+		QName[] stack = new QName[context.size()];
+		for (int i = 0; i < stack.length; i++) {
+			String name = context.get(i);
+			stack[i] = new QName(null, name, name, null);
+		}
+		DocumentFragment fragment = document.createDocumentFragment();
+		try {
+			parser.setProperty("http://cyberneko.org/html/properties/names/elems", "match");
+			parser.setFeature("http://xml.org/sax/features/namespaces", false);
+			parser.setProperty(
+			        "http://cyberneko.org/html/properties/balance-tags/fragment-context-stack",
+			        stack);
+			parser.parse(new InputSource(new StringReader(html)), fragment);
+		} catch (SAXException e) {
+			throw new IOException("Error while reading HTML: " + html, e);
+		}
+		Element element = null;
+		for (Node child = fragment.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				if (element != null) {
+					return null;
+				}
+				element = (Element) child;
+			}
+		}
+		return element;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("path", Arrays.toString(path))
+		        .add("tag", tag)
+		        .add("length", html.length())
+		        .toString();
+	}
+}
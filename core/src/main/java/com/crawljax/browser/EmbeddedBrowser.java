@@ -1,7 +1,9 @@
 package com.crawljax.browser;
 
 import java.io.File;
+import java.net.HttpCookie;
 import java.net.URI;
+import java.util.List;
 
 import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.configuration.PreCrawlConfiguration;
@@ -21,7 +23,22 @@ public interface EmbeddedBrowser {
 	 * Browser types.
 	 */
 	public enum BrowserType {
-		FIREFOX, INTERNET_EXPLORER, CHROME, REMOTE, PHANTOMJS
+		FIREFOX, INTERNET_EXPLORER, CHROME, REMOTE, PHANTOMJS,
+
+		/**
+		 * A local Chrome that is also driven through the Chrome DevTools Protocol.
+		 * 
+		 * @see ChromeDevToolsEmbeddedBrowser
+		 */
+		CHROME_DEVTOOLS,
+
+		/**
+		 * A browser inside the JVM that fetches and parses the pages without running their
+		 * JavaScript.
+		 * 
+		 * @see StaticHtmlEmbeddedBrowser
+		 */
+		STATIC_HTML
 	}
 
 	/**
@@ -69,6 +86,25 @@ public interface EmbeddedBrowser {
 	 */
 	String getStrippedDomWithoutIframeContent();
 
+	/**
+	 * A cheap check to learn whether calling {@link #getStrippedDom()} again is needed.
+	 * Implementations that cannot tell return <code>true</code>.
+	 * 
+	 * @return <code>false</code> only if the DOM, including the DOM of its frames, has not changed
+	 *         since the {@link #markSnapshot() snapshot}.
+	 */
+	default boolean isDomChangedSinceLastSnapshot() {
+		return true;
+	}
+
+	/**
+	 * Marks the DOM of the last call to {@link #getStrippedDom()} as the snapshot that
+	 * {@link #isDomChangedSinceLastSnapshot()} compares with. Reading the DOM, for example from a
+	 * wait condition, does not move the snapshot. Navigating forgets it.
+	 */
+	default void markSnapshot() {
+	}
+
 	/**
 	 * Closes the browser.
 	 */
@@ -120,6 +156,14 @@ public interface EmbeddedBrowser {
 	 */
 	String getCurrentUrl();
 
+	/**
+	 * @return the cookies the browser sends to its current page, or <code>null</code> if the
+	 *         browser cannot tell.
+	 */
+	default List<HttpCookie> getCookies() {
+		return null;
+	}
+
 	/**
 	 * @param inputForm
 	 *            the input form.
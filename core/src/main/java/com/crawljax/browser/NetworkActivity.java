@@ -0,0 +1,79 @@
+package com.crawljax.browser;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Keeps track of the requests of a page that are in flight, as reported by the network events
+ * of the browser, so the crawler can wait until the network is idle instead of for a fixed time.
+ */
+@ThreadSafe
+final class NetworkActivity {
+
+	private final Set<String> inFlight = new HashSet<>();
+	private long lastActivity = System.nanoTime();
+
+	/**
+	 * @param requestId
+	 *            the id of the request that was sent.
+	 */
+	synchronized void requestStarted(String requestId) {
+		inFlight.add(requestId);
+		lastActivity = System.nanoTime();
+		notifyAll();
+	}
+
+	/**
+	 * @param requestId
+	 *            the id of the request that finished or failed.
+	 */
+	synchronized void requestFinished(String requestId) {
+		if (inFlight.remove(requestId)) {
+			lastActivity = System.nanoTime();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return the number of requests in flight.
+	 */
+	synchronized int getRequestsInFlight() {
+		return inFlight.size();
+	}
+
+	/**
+	 * Waits until no request has been in flight for the quiet period. The quiet period starts at
+	 * the earliest when this method is called, so requests that start shortly after an event are
+	 * waited for as well.
+	 *
+	 * @param quietMillis
+	 *            the time without requests in flight after which the network is idle.
+	 * @param timeoutMillis
+	 *            the maximum time to wait.
+	 * @return whether the network became idle before the timeout.
+	 * @throws InterruptedException
+	 *             when interrupted during the wait.
+	 */
+	synchronized boolean awaitIdle(long quietMillis, long timeoutMillis)
+	        throws InterruptedException {
+		long now = System.nanoTime();
+		long deadline = now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		long quiet = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+		lastActivity = Math.max(lastActivity, now);
+		while (true) {
+			now = System.nanoTime();
+			long idleAt = lastActivity + quiet;
+			if (inFlight.isEmpty() && now - idleAt >= 0) {
+				return true;
+			}
+			if (now - deadline >= 0) {
+				return false;
+			}
+			long wakeUp = inFlight.isEmpty() ? Math.min(idleAt, deadline) : deadline;
+			TimeUnit.NANOSECONDS.timedWait(this, Math.max(wakeUp - now, 1));
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.crawljax.browser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebElement;
+import org.w3c.dom.Element;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A {@link WebElement} of the current page of a {@link StaticHtmlEmbeddedBrowser}. Typing and
+ * clicking change the forms of the browser, and the elements inside it are searched in the parsed
+ * DOM. Elements are not rendered, so asking for their location, size or a screenshot throws an
+ * {@link UnsupportedCommandException}.
+ */
+final class StaticHtmlElement implements WebElement {
+
+	private final StaticHtmlEmbeddedBrowser browser;
+	private final Element element;
+
+	StaticHtmlElement(StaticHtmlEmbeddedBrowser browser, Element element) {
+		this.browser = browser;
+		this.element = element;
+	}
+
+	@Override
+	public void click() {
+		try {
+			browser.click(element);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void submit() {
+		Element form = StaticHtmlEmbeddedBrowser.ancestor(element, "FORM");
+		if (form == null) {
+			throw new UnsupportedCommandException("The element is not in a form");
+		}
+		try {
+			browser.submit(form, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		StringBuilder text = new StringBuilder();
+		for (CharSequence keys : keysToSend) {
+			text.append(keys);
+		}
+		if (isSelect()) {
+			browser.selectOption(element, text.toString());
+		} else {
+			browser.setValue(element, browser.valueOf(element) + text);
+		}
+	}
+
+	@Override
+	public void clear() {
+		if (!isSelect()) {
+			browser.setValue(element, "");
+		}
+	}
+
+	private boolean isSelect() {
+		return "SELECT".equals(element.getNodeName());
+	}
+
+	@Override
+	public String getTagName() {
+		return element.getNodeName().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return the current value for <code>value</code>, and the attribute of the HTML otherwise.
+	 */
+	@Override
+	public String getAttribute(String name) {
+		if ("value".equalsIgnoreCase(name)) {
+			return browser.valueOf(element);
+		}
+		return element.hasAttribute(name) ? element.getAttribute(name) : null;
+	}
+
+	@Override
+	public boolean isSelected() {
+		return browser.isSelected(element);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return !element.hasAttribute("disabled");
+	}
+
+	@Override
+	public String getText() {
+		return isDisplayed() ? StaticHtmlEmbeddedBrowser.textOf(element) : "";
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		List<WebElement> found = new ArrayList<>();
+		for (Element child : browser.findAll(element, by)) {
+			found.add(new StaticHtmlElement(browser, child));
+		}
+		return found;
+	}
+
+	/**
+	 * @throws NoSuchElementException
+	 *             if there is no element inside this one that matches the locator.
+	 */
+	@Override
+	public WebElement findElement(By by) {
+		List<Element> found = browser.findAll(element, by);
+		if (found.isEmpty()) {
+			throw new NoSuchElementException("Cannot find " + by + " in " + this);
+		}
+		return new StaticHtmlElement(browser, found.get(0));
+	}
+
+	@Override
+	public boolean isDisplayed() {
+		return StaticHtmlEmbeddedBrowser.isDisplayed(element);
+	}
+
+	@Override
+	public Point getLocation() {
+		throw notRendered();
+	}
+
+	@Override
+	public Dimension getSize() {
+		throw notRendered();
+	}
+
+	@Override
+	public Rectangle getRect() {
+		throw notRendered();
+	}
+
+	private static UnsupportedCommandException notRendered() {
+		return new UnsupportedCommandException("Static pages are not rendered");
+	}
+
+	/**
+	 * @return the value of the property in the inline style of the element, or an empty string.
+	 */
+	@Override
+	public String getCssValue(String propertyName) {
+		for (String declaration : element.getAttribute("style").split(";")) {
+			int colon = declaration.indexOf(':');
+			if (colon > 0 && declaration.substring(0, colon).trim()
+			        .equalsIgnoreCase(propertyName)) {
+				return declaration.substring(colon + 1).trim();
+			}
+		}
+		return "";
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) {
+		throw notRendered();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("tag", getTagName())
+		        .toString();
+	}
+}
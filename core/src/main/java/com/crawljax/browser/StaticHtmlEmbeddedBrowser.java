@@ -0,0 +1,855 @@
+package com.crawljax.browser;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.configuration.ProxyConfiguration;
+import com.crawljax.core.configuration.ProxyConfiguration.ProxyType;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification;
+import com.crawljax.forms.FormHandler;
+import com.crawljax.forms.FormInput;
+import com.crawljax.forms.InputValue;
+import com.crawljax.forms.RandomInputValueGenerator;
+import com.crawljax.util.DomUtils;
+import com.crawljax.util.UrlUtils;
+import com.crawljax.util.XPathHelper;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * An {@link EmbeddedBrowser} that runs inside the JVM. It fetches the pages over HTTP and parses
+ * them with NekoHTML, without running their JavaScript, applying their style sheets or loading
+ * their frames. It follows links and submits forms, so it crawls server-rendered sites with plain
+ * anchors and forms for a fraction of the memory and start-up time of a real browser, and many of
+ * them can crawl on one core.
+ * <p>
+ * Because there is no JavaScript, {@link #executeJavaScript(String)} always fails and events on
+ * elements that are not links, submit buttons, check boxes or radio buttons are not fired. Pages
+ * that build their links or content with scripts, even lightly, are therefore not crawled like a
+ * real browser would, so this browser is only meant for sites that work without JavaScript. An
+ * element is visible unless it or one of its ancestors is hidden by an attribute or an inline
+ * style. Values entered into forms are kept next to the DOM, like in a real browser, so they do
+ * not change the DOM of the state.
+ */
+@NotThreadSafe
+public class StaticHtmlEmbeddedBrowser implements EmbeddedBrowser {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StaticHtmlEmbeddedBrowser.class);
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private static final String EMPTY_PAGE = "<html><head></head><body></body></html>";
+
+	private static final Set<String> INVISIBLE_TAGS =
+	        ImmutableSet.of("HEAD", "SCRIPT", "STYLE", "TITLE", "META", "LINK", "NOSCRIPT",
+	                "TEMPLATE");
+
+	private static final Set<String> BUTTON_TYPES =
+	        ImmutableSet.of("submit", "image", "button", "reset");
+
+	private final CookieManager cookies = new CookieManager();
+	private final HttpClient client;
+	private final ImmutableSortedSet<String> filterAttributes;
+	private final Deque<Page> history = new ArrayDeque<>();
+	private Page page;
+
+	/**
+	 * @param filterAttributes
+	 *            the attributes to be filtered from DOM.
+	 * @param proxy
+	 *            the proxy to fetch the pages through, or <code>null</code> to use none.
+	 */
+	public StaticHtmlEmbeddedBrowser(ImmutableSortedSet<String> filterAttributes,
+	        ProxyConfiguration proxy) {
+		this.filterAttributes = filterAttributes;
+		this.client = newHttpClient(proxy).cookieHandler(cookies).build();
+		this.page = blankPage();
+	}
+
+	/**
+	 * @param proxy
+	 *            the proxy to fetch the pages through, or <code>null</code> to use none.
+	 * @return a builder for a client that fetches pages like this browser, with its own cookies.
+	 */
+	public static HttpClient.Builder newHttpClient(ProxyConfiguration proxy) {
+		HttpClient.Builder builder = HttpClient.newBuilder()
+		        .followRedirects(HttpClient.Redirect.NORMAL)
+		        .cookieHandler(new CookieManager())
+		        .connectTimeout(TIMEOUT);
+		if (proxy == null || proxy.getType() == ProxyType.NOTHING) {
+			builder.proxy(HttpClient.Builder.NO_PROXY);
+		} else if (proxy.getType() == ProxyType.MANUAL) {
+			builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.getHostname(),
+			        proxy.getPort())));
+		} else {
+			builder.proxy(ProxySelector.getDefault());
+		}
+		return builder;
+	}
+
+	private static Page blankPage() {
+		return new Page(URI.create("about:blank"), parse(EMPTY_PAGE));
+	}
+
+	private static Document parse(String html) {
+		try {
+			return DomUtils.asDocument(html);
+		} catch (IOException e) {
+			LOG.warn("Could not parse the page: {}", e.getMessage());
+			try {
+				return DomUtils.asDocument(EMPTY_PAGE);
+			} catch (IOException impossible) {
+				throw new IllegalStateException(impossible);
+			}
+		}
+	}
+
+	@Override
+	public void goToUrl(URI url) {
+		try {
+			navigate(HttpRequest.newBuilder(url));
+		} catch (InterruptedException e) {
+			LOG.debug("goToUrl got interrupted while loading {}", url);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Shows a page that was fetched elsewhere, as if it was loaded from the URL. The page
+	 * replaces the history, so {@link #goBack()} does not return to the previous page.
+	 *
+	 * @param url
+	 *            the URL of the page.
+	 * @param html
+	 *            the HTML of the page.
+	 */
+	public void load(URI url, String html) {
+		history.clear();
+		page = new Page(url, parse(html));
+	}
+
+	private void navigate(HttpRequest.Builder request) throws InterruptedException {
+		HttpRequest built = request.timeout(TIMEOUT).build();
+		Page loaded;
+		try {
+			HttpResponse<String> response =
+			        client.send(built, HttpResponse.BodyHandlers.ofString());
+			loaded = new Page(response.uri(), parse(response.body()));
+		} catch (IOException | IllegalArgumentException e) {
+			LOG.warn("Could not load {}: {}", built.uri(), e.getMessage());
+			loaded = new Page(built.uri(), parse(EMPTY_PAGE));
+		}
+		history.push(page);
+		page = loaded;
+	}
+
+	/**
+	 * Only clicks are supported.
+	 */
+	@Override
+	public boolean fireEventAndWait(Eventable eventable) throws ElementNotInteractableException,
+	        InterruptedException {
+		if (eventable.getEventType() != EventType.click) {
+			LOG.info("EventType {} not supported without a real browser.",
+			        eventable.getEventType());
+			return false;
+		}
+		if (!Strings.isNullOrEmpty(eventable.getRelatedFrame())) {
+			LOG.debug("Frames are not loaded, so {} cannot be fired", eventable);
+			return false;
+		}
+		Element element = find(eventable.getIdentification());
+		if (element == null) {
+			throw new NoSuchElementException("Cannot find " + eventable.getIdentification());
+		}
+		if (!isDisplayed(element)) {
+			throw new ElementNotInteractableException(eventable.getIdentification()
+			        + " is not displayed");
+		}
+		return click(element);
+	}
+
+	/**
+	 * @param element
+	 *            the element of the current page.
+	 * @return whether the click did something without JavaScript.
+	 * @throws InterruptedException
+	 *             when interrupted while loading the next page.
+	 */
+	boolean click(Element element) throws InterruptedException {
+		Element link = ancestor(element, "A", "AREA");
+		if (link != null && link.hasAttribute("href")) {
+			return follow(link);
+		}
+		String type = typeOf(element);
+		if ("INPUT".equals(element.getNodeName()) && "checkbox".equals(type)) {
+			page.checked.put(element, !isSelected(element));
+			return true;
+		}
+		if ("INPUT".equals(element.getNodeName()) && "radio".equals(type)) {
+			check(element);
+			return true;
+		}
+		Element form = ancestor(element, "FORM");
+		if (form != null && isSubmitButton(element)) {
+			submit(form, element);
+			return true;
+		}
+		LOG.debug("Clicking a {} does nothing without JavaScript", element.getNodeName());
+		return false;
+	}
+
+	private boolean follow(Element link) throws InterruptedException {
+		String target = link.getAttribute("target");
+		if (!target.isEmpty() && !target.matches("(?i)_(self|top|parent)")) {
+			LOG.debug("Not following a link that opens another window");
+			return true;
+		}
+		URI url = resolve(link.getAttribute("href").trim());
+		if (url == null) {
+			return false;
+		}
+		if (withoutFragment(url).equals(withoutFragment(page.uri))
+		        && url.getRawFragment() != null) {
+			LOG.debug("The link only scrolls the page");
+			return true;
+		}
+		navigate(HttpRequest.newBuilder(url));
+		return true;
+	}
+
+	/**
+	 * @return the URL relative to the base of the current page, or <code>null</code> if it is not
+	 *         an HTTP URL.
+	 */
+	private URI resolve(String href) {
+		String base = page.uri.toString();
+		NodeList bases = page.document.getElementsByTagName("BASE");
+		if (bases.getLength() > 0 && ((Element) bases.item(0)).hasAttribute("href")) {
+			URI baseUri = resolveAgainst(base, ((Element) bases.item(0)).getAttribute("href"));
+			if (baseUri != null) {
+				base = baseUri.toString();
+			}
+		}
+		return resolveAgainst(base, href);
+	}
+
+	private static URI resolveAgainst(String base, String href) {
+		try {
+			URI url = UrlUtils.extractNewUrl(base, href.replace(" ", "%20"));
+			if ("http".equalsIgnoreCase(url.getScheme())
+			        || "https".equalsIgnoreCase(url.getScheme())) {
+				return url;
+			}
+		} catch (IllegalArgumentException e) {
+			LOG.debug("Cannot follow {}: {}", href, e.getMessage());
+		}
+		return null;
+	}
+
+	private static URI withoutFragment(URI url) {
+		String string = url.toString();
+		int fragment = string.indexOf('#');
+		return fragment < 0 ? url : URI.create(string.substring(0, fragment));
+	}
+
+	private static boolean isSubmitButton(Element element) {
+		String type = typeOf(element);
+		if ("BUTTON".equals(element.getNodeName())) {
+			return type.isEmpty() || "submit".equals(type);
+		}
+		return "INPUT".equals(element.getNodeName())
+		        && ("submit".equals(type) || "image".equals(type));
+	}
+
+	private void check(Element radio) {
+		String name = radio.getAttribute("name");
+		Element form = ancestor(radio, "FORM");
+		NodeList inputs = (form == null ? page.document.getDocumentElement() : form)
+		        .getElementsByTagName("INPUT");
+		for (int i = 0; i < inputs.getLength(); i++) {
+			Element other = (Element) inputs.item(i);
+			if ("radio".equals(typeOf(other)) && name.equals(other.getAttribute("name"))) {
+				page.checked.put(other, false);
+			}
+		}
+		page.checked.put(radio, true);
+	}
+
+	/**
+	 * Submits the form like a browser without JavaScript does.
+	 *
+	 * @param form
+	 *            the form.
+	 * @param submitter
+	 *            the button that submitted the form, or <code>null</code>.
+	 * @throws InterruptedException
+	 *             when interrupted while loading the next page.
+	 */
+	void submit(Element form, Element submitter) throws InterruptedException {
+		String action = form.getAttribute("action").trim();
+		URI url = action.isEmpty() ? withoutFragment(page.uri) : resolve(action);
+		if (url == null) {
+			LOG.debug("Cannot submit a form to {}", action);
+			return;
+		}
+		String data = encode(formData(form, submitter));
+		if ("post".equalsIgnoreCase(form.getAttribute("method"))) {
+			navigate(HttpRequest.newBuilder(url)
+			        .header("Content-Type", "application/x-www-form-urlencoded")
+			        .POST(HttpRequest.BodyPublishers.ofString(data)));
+		} else {
+			String target = withoutFragment(url).toString();
+			int query = target.indexOf('?');
+			if (query >= 0) {
+				target = target.substring(0, query);
+			}
+			navigate(HttpRequest.newBuilder(URI.create(target + "?" + data)));
+		}
+	}
+
+	private List<String[]> formData(Element form, Element submitter) {
+		List<String[]> data = new ArrayList<>();
+		NodeList elements = form.getElementsByTagName("*");
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			String name = element.getAttribute("name");
+			if (name.isEmpty() || element.hasAttribute("disabled")) {
+				continue;
+			}
+			String type = typeOf(element);
+			switch (element.getNodeName()) {
+				case "INPUT":
+					if (BUTTON_TYPES.contains(type)) {
+						if (element == submitter && "image".equals(type)) {
+							data.add(new String[] { name + ".x", "0" });
+							data.add(new String[] { name + ".y", "0" });
+						} else if (element == submitter) {
+							data.add(new String[] { name, element.getAttribute("value") });
+						}
+					} else if ("checkbox".equals(type) || "radio".equals(type)) {
+						if (isSelected(element)) {
+							String value = element.getAttribute("value");
+							data.add(new String[] { name, value.isEmpty() ? "on" : value });
+						}
+					} else if (!"file".equals(type)) {
+						data.add(new String[] { name, valueOf(element) });
+					}
+					break;
+				case "TEXTAREA":
+					data.add(new String[] { name, valueOf(element) });
+					break;
+				case "SELECT":
+					Element option = selectedOption(element);
+					if (option != null) {
+						data.add(new String[] { name, optionValue(option) });
+					}
+					break;
+				case "BUTTON":
+					if (element == submitter) {
+						data.add(new String[] { name, element.getAttribute("value") });
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		return data;
+	}
+
+	private static String encode(List<String[]> data) {
+		StringJoiner joiner = new StringJoiner("&");
+		for (String[] field : data) {
+			joiner.add(URLEncoder.encode(field[0], StandardCharsets.UTF_8) + "="
+			        + URLEncoder.encode(field[1], StandardCharsets.UTF_8));
+		}
+		return joiner.toString();
+	}
+
+	/**
+	 * @return the current value of the input or text area.
+	 */
+	String valueOf(Element element) {
+		String value = page.values.get(element);
+		if (value != null) {
+			return value;
+		}
+		if ("TEXTAREA".equals(element.getNodeName())) {
+			return element.getTextContent();
+		}
+		if ("SELECT".equals(element.getNodeName())) {
+			Element option = selectedOption(element);
+			return option == null ? "" : optionValue(option);
+		}
+		return element.getAttribute("value");
+	}
+
+	/**
+	 * @param element
+	 *            an input or text area.
+	 * @param value
+	 *            its new value.
+	 */
+	void setValue(Element element, String value) {
+		page.values.put(element, value);
+	}
+
+	/**
+	 * @return whether the check box or radio button is checked, or the option is selected.
+	 */
+	boolean isSelected(Element element) {
+		if ("OPTION".equals(element.getNodeName())) {
+			Element select = ancestor(element, "SELECT");
+			return select != null && element == selectedOption(select);
+		}
+		Boolean checked = page.checked.get(element);
+		return checked == null ? element.hasAttribute("checked") : checked;
+	}
+
+	/**
+	 * Selects the first option whose text or value is the given text, like typing it does.
+	 */
+	void selectOption(Element select, String text) {
+		for (Element option : options(select)) {
+			if (text.equals(option.getTextContent().trim()) || text.equals(optionValue(option))) {
+				page.selected.put(select, option);
+				return;
+			}
+		}
+	}
+
+	private Element selectedOption(Element select) {
+		Element selected = page.selected.get(select);
+		if (selected != null) {
+			return selected;
+		}
+		List<Element> options = options(select);
+		for (Element option : options) {
+			if (option.hasAttribute("selected")) {
+				return option;
+			}
+		}
+		return options.isEmpty() || select.hasAttribute("multiple") ? null : options.get(0);
+	}
+
+	private static List<Element> options(Element select) {
+		List<Element> options = new ArrayList<>();
+		NodeList nodes = select.getElementsByTagName("OPTION");
+		for (int i = 0; i < nodes.getLength(); i++) {
+			options.add((Element) nodes.item(i));
+		}
+		return options;
+	}
+
+	private static String optionValue(Element option) {
+		return option.hasAttribute("value") ? option.getAttribute("value")
+		        : option.getTextContent().trim();
+	}
+
+	private static String typeOf(Element element) {
+		return element.getAttribute("type").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return the element or its closest ancestor with one of the tags, or <code>null</code>.
+	 */
+	static Element ancestor(Element element, String... tags) {
+		for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+			for (String tag : tags) {
+				if (tag.equalsIgnoreCase(node.getNodeName())) {
+					return (Element) node;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether neither the element nor its ancestors are hidden by their tag, a
+	 *         <code>hidden</code> attribute or an inline style.
+	 */
+	static boolean isDisplayed(Element element) {
+		for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+			Element ancestor = (Element) node;
+			String tag = ancestor.getNodeName().toUpperCase(Locale.ROOT);
+			String style = ancestor.getAttribute("style").replaceAll("\\s", "")
+			        .toLowerCase(Locale.ROOT);
+			if (INVISIBLE_TAGS.contains(tag) || ancestor.hasAttribute("hidden")
+			        || ("INPUT".equals(tag) && "hidden".equals(typeOf(ancestor)))
+			        || style.contains("display:none") || style.contains("visibility:hidden")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the first element of the current page with the identification, or
+	 *         <code>null</code>.
+	 */
+	private Element find(Identification identification) {
+		try {
+			List<Element> found = findAll(page.document, identification.getHow(),
+			        identification.getValue(), null);
+			return found.isEmpty() ? null : found.get(0);
+		} catch (XPathExpressionException e) {
+			LOG.debug("Invalid XPath {}: {}", identification.getValue(), e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Searches the parsed DOM like {@link org.openqa.selenium.SearchContext#findElements(By)}
+	 * does, for every kind of {@link By} except CSS selectors.
+	 * 
+	 * @return the elements below the context that match the locator, in document order.
+	 * @throws InvalidSelectorException
+	 *             if the locator is a CSS selector or an invalid XPath.
+	 */
+	List<Element> findAll(Node context, By by) {
+		if (!(by instanceof By.Remotable)) {
+			throw new InvalidSelectorException("Cannot search a static page for " + by);
+		}
+		By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+		String value = String.valueOf(parameters.value());
+		try {
+			switch (parameters.using()) {
+				case "xpath":
+					return findAll(context, Identification.How.xpath, value, null);
+				case "id":
+					return findAll(context, Identification.How.id, value, null);
+				case "name":
+					return findAll(context, Identification.How.name, value, null);
+				case "tag name":
+					return findAll(context, Identification.How.tag, value, null);
+				case "link text":
+					return findAll(context, Identification.How.text, value, null);
+				case "partial link text":
+					return findAll(context, Identification.How.partialText, value, null);
+				case "class name":
+					return findAll(context, null, null, value);
+				default:
+					throw new InvalidSelectorException("Cannot search a static page for " + by
+					        + ", because its style sheets are not applied");
+			}
+		} catch (XPathExpressionException e) {
+			throw new InvalidSelectorException("Invalid XPath " + value, e);
+		}
+	}
+
+	/**
+	 * @param className
+	 *            the class to look for instead of the identification, or <code>null</code>.
+	 */
+	private static List<Element> findAll(Node context, Identification.How how, String value,
+	        String className) throws XPathExpressionException {
+		List<Element> found = new ArrayList<>();
+		if (how == Identification.How.xpath) {
+			NodeList nodes = XPathHelper.evaluateXpathExpression(context, value);
+			for (int i = 0; i < nodes.getLength(); i++) {
+				if (nodes.item(i) instanceof Element) {
+					found.add((Element) nodes.item(i));
+				}
+			}
+			return found;
+		}
+		NodeList elements = context instanceof Document
+		        ? ((Document) context).getElementsByTagName("*")
+		        : ((Element) context).getElementsByTagName("*");
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			if (className == null ? matches(element, how, value) : hasClass(element, className)) {
+				found.add(element);
+			}
+		}
+		return found;
+	}
+
+	private static boolean hasClass(Element element, String className) {
+		for (String name : element.getAttribute("class").trim().split("\\s+")) {
+			if (name.equals(className)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(Element element, Identification.How how, String value) {
+		switch (how) {
+			case id:
+				return value.equals(element.getAttribute("id"));
+			case name:
+				return value.equals(element.getAttribute("name"));
+			case tag:
+				return value.equalsIgnoreCase(element.getNodeName());
+			case text:
+				return "A".equals(element.getNodeName())
+				        && value.equals(textOf(element));
+			case partialText:
+				return "A".equals(element.getNodeName())
+				        && textOf(element).contains(value);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return the text of the element with its white space collapsed.
+	 */
+	static String textOf(Element element) {
+		return element.getTextContent().replaceAll("\\s+", " ").trim();
+	}
+
+	@Override
+	public String getStrippedDom() {
+		return WebDriverBackedEmbeddedBrowser.toUniformDOM(getUnStrippedDom(), filterAttributes);
+	}
+
+	@Override
+	public String getUnStrippedDom() {
+		return DomUtils.getDocumentToString(page.document);
+	}
+
+	@Override
+	@Deprecated
+	public String getDom() {
+		return getStrippedDom();
+	}
+
+	/**
+	 * Frames are never loaded, so this is the same as {@link #getStrippedDom()}.
+	 */
+	@Override
+	public String getStrippedDomWithoutIframeContent() {
+		return getStrippedDom();
+	}
+
+	@Override
+	public void close() {
+		history.clear();
+		page = blankPage();
+	}
+
+	/**
+	 * Links to other windows are not followed, so there are none.
+	 */
+	@Override
+	public void closeOtherWindows() {
+		// There is only one window.
+	}
+
+	@Override
+	public void goBack() {
+		if (!history.isEmpty()) {
+			page = history.pop();
+		}
+	}
+
+	@Override
+	public boolean input(Identification identification, String text) {
+		Element element = find(identification);
+		if (element == null) {
+			return false;
+		}
+		if ("SELECT".equals(element.getNodeName())) {
+			selectOption(element, text);
+		} else {
+			setValue(element, text);
+		}
+		return true;
+	}
+
+	/**
+	 * @throws CrawljaxException
+	 *             always, because there is no JavaScript engine.
+	 */
+	@Override
+	public Object executeJavaScript(String script) throws CrawljaxException {
+		throw new CrawljaxException("JavaScript is not supported by "
+		        + getClass().getSimpleName());
+	}
+
+	@Override
+	public boolean isVisible(Identification identification) {
+		Element element = find(identification);
+		return element != null && isDisplayed(element);
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		return page.uri.toString();
+	}
+
+	@Override
+	public List<HttpCookie> getCookies() {
+		if (page.uri.getHost() == null) {
+			return new ArrayList<>();
+		}
+		return cookies.getCookieStore().get(page.uri);
+	}
+
+	@Override
+	public FormInput getInputWithRandomValue(FormInput input) {
+		Element element = find(input.getIdentification());
+		if (element == null || !isDisplayed(element)) {
+			return null;
+		}
+		RandomInputValueGenerator generator = new RandomInputValueGenerator();
+		String type = input.getType().toLowerCase(Locale.ROOT);
+		InputValue value = null;
+		if (type.startsWith("text")) {
+			value = new InputValue(generator.getRandomString(FormHandler.RANDOM_STRING_LENGTH),
+			        true);
+		} else if (type.equals("checkbox") || type.equals("radio") && !isSelected(element)) {
+			value = generator.getCheck() ? new InputValue("1", true) : new InputValue("0", false);
+		} else if (type.equals("select") && !options(element).isEmpty()) {
+			value = new InputValue(generator.getRandomItem(options(element)).getTextContent()
+			        .trim(), true);
+		}
+		if (value == null) {
+			return null;
+		}
+		input.setInputValues(ImmutableSet.of(value));
+		return input;
+	}
+
+	/**
+	 * Frames are loaded when they are asked for, because they are not part of the DOM.
+	 */
+	@Override
+	public String getFrameDom(String iframeIdentification) {
+		for (String tag : new String[] { "IFRAME", "FRAME" }) {
+			NodeList frames = page.document.getElementsByTagName(tag);
+			for (int i = 0; i < frames.getLength(); i++) {
+				Element frame = (Element) frames.item(i);
+				if (iframeIdentification.equals(frame.getAttribute("name"))
+				        || iframeIdentification.equals(frame.getAttribute("id"))) {
+					return frameDom(frame);
+				}
+			}
+		}
+		return "";
+	}
+
+	private String frameDom(Element frame) {
+		URI url = resolve(frame.getAttribute("src").trim());
+		if (url == null) {
+			return "";
+		}
+		try {
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder(url)
+			        .timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+			return DomUtils.getDocumentToString(parse(response.body()));
+		} catch (IOException e) {
+			LOG.warn("Could not load frame {}: {}", url, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "";
+	}
+
+	@Override
+	public boolean elementExists(Identification identification) {
+		return find(identification) != null;
+	}
+
+	/**
+	 * @return an element that reads and changes the forms of this browser.
+	 * @throws NoSuchElementException
+	 *             if there is no element with the identification.
+	 */
+	@Override
+	public WebElement getWebElement(Identification identification) {
+		Element element = find(identification);
+		if (element == null) {
+			throw new NoSuchElementException("Cannot find " + identification);
+		}
+		return new StaticHtmlElement(this, element);
+	}
+
+	/**
+	 * @throws CrawljaxException
+	 *             always, because pages are not rendered.
+	 */
+	@Override
+	public void saveScreenShot(File file) throws CrawljaxException {
+		throw new CrawljaxException("Screenshots are not supported by "
+		        + getClass().getSimpleName());
+	}
+
+	/**
+	 * @throws CrawljaxException
+	 *             always, because pages are not rendered.
+	 */
+	@Override
+	public byte[] getScreenShot() throws CrawljaxException {
+		throw new CrawljaxException("Screenshots are not supported by "
+		        + getClass().getSimpleName());
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("url", page.uri)
+		        .add("history", history.size())
+		        .toString();
+	}
+
+	/**
+	 * A loaded page and what was entered into its forms.
+	 */
+	private static final class Page {
+
+		private final URI uri;
+		private final Document document;
+		private final Map<Element, String> values = new IdentityHashMap<>();
+		private final Map<Element, Boolean> checked = new IdentityHashMap<>();
+		private final Map<Element, Element> selected = new IdentityHashMap<>();
+
+		Page(URI uri, Document document) {
+			this.uri = uri;
+			this.document = document;
+		}
+	}
+}
@@ -2,12 +2,15 @@ package com.crawljax.browser;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.HttpCookie;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -21,6 +24,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.configuration.AcceptAllFramesChecker;
 import com.crawljax.core.configuration.DefaultUnexpectedAlertHandler;
@@ -33,11 +38,14 @@ import com.crawljax.forms.FormHandler;
 import com.crawljax.forms.FormInput;
 import com.crawljax.forms.InputValue;
 import com.crawljax.forms.RandomInputValueGenerator;
+import com.crawljax.metrics.MetricsModule;
 import com.crawljax.util.DomUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.io.Files;
+import com.google.common.io.Resources;
 
+import org.openqa.selenium.Cookie;
 import org.openqa.selenium.ElementNotInteractableException;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
@@ -71,6 +79,22 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 	private static final int BROWSER_CLOSE_2ND_TIMEOUT_SECS = 2;
 	private static ExecutorService closeBrowserExecutor;
 
+	/**
+	 * Tracks the changes of the DOM of the page and its frames with MutationObservers, and
+	 * returns the changed subtrees. Its arguments are documented in the script.
+	 */
+	private static final String DOM_TRACKER_SCRIPT = loadScript("dom-tracker.js");
+
+	private static String loadScript(String name) {
+		try {
+			return Resources.toString(
+			        Resources.getResource(WebDriverBackedEmbeddedBrowser.class, name),
+			        StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not load the script " + name, e);
+		}
+	}
+
 	/**
 	 * Create a RemoteWebDriver backed EmbeddedBrowser.
 	 * 
@@ -308,6 +332,23 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 	private IgnoreFrameChecker ignoreFrameChecker = new AcceptAllFramesChecker();
 	private UnexpectedAlertHandler unexpectedAlertHandler = DefaultUnexpectedAlertHandler.INSTANCE;
 
+	private Callable<String> pageSource;
+	private boolean trackDomChanges;
+	private double domPatchThreshold;
+	private String lastStrippedDom;
+	private Document lastDocument;
+	private long lastSnapshotId = -1;
+
+	/**
+	 * The stripped DOM of the last {@link #markSnapshot() snapshot}, or <code>null</code> if there
+	 * is none or the browser navigated since.
+	 */
+	private String markedDom;
+	private Counter domTransfers = new Counter();
+	private Counter patchedDomTransfers = new Counter();
+	private Counter skippedDomTransfers = new Counter();
+	private Counter transferredDomChars = new Counter();
+
 	/**
 	 * Constructor without configuration values.
 	 * 
@@ -428,6 +469,7 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 	 */
 	@Override
 	public void goToUrl(URI url) {
+		markedDom = null;
 		try {
 			browser.navigate().to(url.toString());
 			Thread.sleep(this.crawlWaitReload);
@@ -545,12 +587,47 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 		return getStrippedDom();
 	}
 
+	/**
+	 * When {@link #setTrackDomChanges(boolean) DOM changes are tracked} and nothing changed since
+	 * the last call, the DOM of that call is returned without transferring it again. When only
+	 * some subtrees of the page changed, only those are transferred and patched into the DOM of
+	 * the last call, as long as they are small enough for the
+	 * {@link #setDomPatchThreshold(double) threshold}.
+	 */
 	@Override
 	public String getStrippedDom() {
-
+		Snapshot snapshot = null;
+		if (trackDomChanges) {
+			String previous = lastStrippedDom;
+			Document previousDocument = lastDocument;
+			lastStrippedDom = null;
+			lastDocument = null;
+			snapshot = takeSnapshot(previous);
+			if (!snapshot.changed && previous != null) {
+				skippedDomTransfers.inc();
+				lastStrippedDom = previous;
+				lastDocument = previousDocument;
+				return previous;
+			}
+			if (snapshot.patches != null && previousDocument != null) {
+				String dom = applyPatches(previousDocument, snapshot);
+				if (dom != null) {
+					return dom;
+				}
+			}
+		}
 		try {
-			String dom = toUniformDOM(DomUtils.getDocumentToString(getDomTreeWithFrames()));
+			Document document = getDomTreeWithFrames();
+			String dom = toUniformDOM(DomUtils.getDocumentToString(document));
 			LOGGER.trace(dom);
+			domTransfers.inc();
+			transferredDomChars.inc(dom.length());
+			if (trackDomChanges) {
+				lastStrippedDom = dom;
+				if (snapshot.elements == DomPatch.countElements(document)) {
+					lastDocument = document;
+				}
+			}
 			return dom;
 		} catch (WebDriverException | CrawljaxException e) {
 			LOGGER.warn("Could not get the dom", e);
@@ -558,21 +635,198 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 		}
 	}
 
+	/**
+	 * @return the stripped DOM after the patches of the snapshot are applied to the document, or
+	 *         <code>null</code> if they could not be applied.
+	 */
+	private String applyPatches(Document document, Snapshot snapshot) {
+		int length = 0;
+		for (DomPatch patch : snapshot.patches) {
+			if (!patch.applyTo(document)) {
+				LOGGER.debug("Could not apply {}", patch);
+				return null;
+			}
+			length += patch.length();
+		}
+		if (DomPatch.countElements(document) != snapshot.elements) {
+			LOGGER.debug("The patched DOM does not match the DOM in the browser");
+			return null;
+		}
+		String dom = toUniformDOM(DomUtils.getDocumentToString(document));
+		LOGGER.trace(dom);
+		patchedDomTransfers.inc();
+		transferredDomChars.inc(length);
+		lastStrippedDom = dom;
+		lastDocument = document;
+		return dom;
+	}
+
+	/**
+	 * When {@link #setTrackDomChanges(boolean) DOM changes are tracked}, the DOM changed when a
+	 * later call to {@link #getStrippedDom()} returned another DOM than the snapshot, or when the
+	 * page changed since the last call.
+	 */
+	@Override
+	public boolean isDomChangedSinceLastSnapshot() {
+		return !trackDomChanges || markedDom == null || !markedDom.equals(lastStrippedDom)
+		        || trackDomChanges(false);
+	}
+
+	@Override
+	public void markSnapshot() {
+		markedDom = trackDomChanges ? lastStrippedDom : null;
+	}
+
+	/**
+	 * @param arm
+	 *            whether to consider the current DOM as the last snapshot.
+	 * @return whether the DOM changed since the last snapshot, or <code>true</code> if that is not
+	 *         known.
+	 */
+	private boolean trackDomChanges(boolean arm) {
+		try {
+			Object changed = ((JavascriptExecutor) browser).executeScript(DOM_TRACKER_SCRIPT, arm,
+			        -1, 0, DomPatch.MAX_TARGETS);
+			return !Boolean.FALSE.equals(changed);
+		} catch (WebDriverException | ClassCastException e) {
+			LOGGER.debug("Could not track the DOM changes: {}", e.getMessage());
+			return true;
+		}
+	}
+
+	/**
+	 * Considers the current DOM as the last snapshot.
+	 *
+	 * @param previous
+	 *            the stripped DOM of the last snapshot, or <code>null</code> if there is none.
+	 * @return what changed since the last snapshot.
+	 */
+	private Snapshot takeSnapshot(String previous) {
+		long maxPatchLength = previous == null ? 0 : (long) (previous.length() * domPatchThreshold);
+		try {
+			Object result = ((JavascriptExecutor) browser).executeScript(DOM_TRACKER_SCRIPT, true,
+			        lastSnapshotId, maxPatchLength, DomPatch.MAX_TARGETS);
+			Snapshot snapshot = Snapshot.fromBrowser(result);
+			lastSnapshotId = snapshot.id;
+			return snapshot;
+		} catch (WebDriverException | ClassCastException | IllegalArgumentException e) {
+			LOGGER.debug("Could not track the DOM changes: {}", e.getMessage());
+			lastSnapshotId = -1;
+			return Snapshot.UNKNOWN;
+		}
+	}
+
+	/**
+	 * @param trackDomChanges
+	 *            whether to install a MutationObserver in the page and its frames, so
+	 *            {@link #getStrippedDom()} only transfers the DOM when it changed.
+	 */
+	public void setTrackDomChanges(boolean trackDomChanges) {
+		this.trackDomChanges = trackDomChanges;
+		this.lastStrippedDom = null;
+		this.lastDocument = null;
+		this.markedDom = null;
+	}
+
+	/**
+	 * @param domPatchThreshold
+	 *            the maximum length of the changed subtrees that are transferred instead of the
+	 *            whole DOM, relative to the length of the last DOM. <code>0</code> always
+	 *            transfers the whole DOM. Only used when {@link #setTrackDomChanges(boolean) DOM
+	 *            changes are tracked}.
+	 */
+	public void setDomPatchThreshold(double domPatchThreshold) {
+		Preconditions.checkArgument(domPatchThreshold >= 0, "The threshold cannot be negative");
+		this.domPatchThreshold = domPatchThreshold;
+	}
+
+	/**
+	 * Counts the DOM transfers of this browser in the registry, together with those of the other
+	 * browsers that count them in the same registry. The counts so far are carried over.
+	 *
+	 * @param registry
+	 *            the registry for the number of DOM transfers and their length.
+	 */
+	public void countDomTransfersIn(MetricRegistry registry) {
+		domTransfers = moveTo(registry, "dom_transfers", domTransfers);
+		patchedDomTransfers = moveTo(registry, "patched_dom_transfers", patchedDomTransfers);
+		skippedDomTransfers = moveTo(registry, "skipped_dom_transfers", skippedDomTransfers);
+		transferredDomChars = moveTo(registry, "transferred_dom_chars", transferredDomChars);
+	}
+
+	private static Counter moveTo(MetricRegistry registry, String name, Counter counter) {
+		Counter registered = registry.counter(MetricsModule.BROWSER_PREFIX + name);
+		registered.inc(counter.getCount());
+		return registered;
+	}
+
+	/**
+	 * @return the number of times the DOM was transferred by {@link #getStrippedDom()}.
+	 */
+	public long getDomTransfers() {
+		return domTransfers.getCount();
+	}
+
+	/**
+	 * @return the number of times {@link #getStrippedDom()} only transferred the changed subtrees
+	 *         of the DOM.
+	 */
+	public long getPatchedDomTransfers() {
+		return patchedDomTransfers.getCount();
+	}
+
+	/**
+	 * @return the number of times {@link #getStrippedDom()} did not transfer the DOM because it
+	 *         had not changed.
+	 */
+	public long getSkippedDomTransfers() {
+		return skippedDomTransfers.getCount();
+	}
+
+	/**
+	 * @return the total length of the DOMs and changed subtrees transferred by
+	 *         {@link #getStrippedDom()}.
+	 */
+	public long getTransferredDomChars() {
+		return transferredDomChars.getCount();
+	}
+
 	@Override
 	public String getUnStrippedDom() {
 		try {
-			return executeWithAlertHandler(browser::getPageSource);
+			return executeWithAlertHandler(pageSource == null ? browser::getPageSource
+			        : pageSource);
 		} catch (Exception e) {
 			throw new WebDriverException(e);
 		}
 	}
 
+	/**
+	 * @param pageSource
+	 *            how to read the source of the page instead of
+	 *            {@link WebDriver#getPageSource()}, or <code>null</code> to use that again.
+	 */
+	void setPageSource(Callable<String> pageSource) {
+		this.pageSource = pageSource;
+	}
+
 	/**
 	 * @param html
 	 *            The html string.
 	 * @return uniform version of dom with predefined attributes stripped
 	 */
 	private String toUniformDOM(String html) {
+		return toUniformDOM(html, filterAttributes);
+	}
+
+	/**
+	 * @param html
+	 *            The html string.
+	 * @param filterAttributes
+	 *            the attributes to be filtered from DOM.
+	 * @return uniform version of dom with predefined attributes stripped
+	 */
+	static String toUniformDOM(String html, ImmutableSortedSet<String> filterAttributes) {
 
 		Pattern p =
 		        Pattern.compile("<SCRIPT(.*?)</SCRIPT>", Pattern.DOTALL
@@ -584,7 +838,7 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 		m = p.matcher(htmlFormatted);
 		htmlFormatted = m.replaceAll("");
 
-		htmlFormatted = filterAttributes(htmlFormatted);
+		htmlFormatted = filterAttributes(htmlFormatted, filterAttributes);
 		return htmlFormatted;
 	}
 
@@ -593,11 +847,14 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 	 * 
 	 * @param html
 	 *            The HTML to filter.
+	 * @param filterAttributes
+	 *            the attributes to be filtered.
 	 * @return The filtered HTML string.
 	 */
-	private String filterAttributes(String html) {
+	private static String filterAttributes(String html,
+	        ImmutableSortedSet<String> filterAttributes) {
 		String filteredHtml = html;
-		for (String attribute : this.filterAttributes) {
+		for (String attribute : filterAttributes) {
 			String regex = "\\s" + attribute + "=\"[^\"]*\"";
 			Pattern p = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
 			Matcher m = p.matcher(html);
@@ -615,6 +872,7 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 
 	@Override
 	public void goBack() {
+		markedDom = null;
 		try {
 			browser.navigate().back();
 		} catch (WebDriverException e) {
@@ -759,6 +1017,30 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 		}
 	}
 
+	@Override
+	public List<HttpCookie> getCookies() {
+		try {
+			List<HttpCookie> cookies = new ArrayList<>();
+			for (Cookie cookie : browser.manage().getCookies()) {
+				HttpCookie copy = new HttpCookie(cookie.getName(), cookie.getValue());
+				copy.setVersion(0);
+				copy.setDomain(cookie.getDomain());
+				copy.setPath(cookie.getPath());
+				copy.setSecure(cookie.isSecure());
+				copy.setHttpOnly(cookie.isHttpOnly());
+				if (cookie.getExpiry() != null) {
+					copy.setMaxAge(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(
+					        cookie.getExpiry().getTime() - System.currentTimeMillis())));
+				}
+				cookies.add(copy);
+			}
+			return cookies;
+		} catch (WebDriverException e) {
+			LOGGER.debug("Could not get the cookies: {}", e.getMessage());
+			return null;
+		}
+	}
+
 	/**
 	 * Executes the given callable handling {@code UnhandledAlertException}.
 	 * <p>
@@ -1131,6 +1413,43 @@ public final class WebDriverBackedEmbeddedBrowser implements EmbeddedBrowser {
 		}
 	}
 
+	/**
+	 * What changed in the browser since the last snapshot, as reported by the DOM tracker.
+	 */
+	private static final class Snapshot {
+
+		static final Snapshot UNKNOWN = new Snapshot(true, -1, -1, null);
+
+		static Snapshot fromBrowser(Object result) {
+			if (result instanceof Boolean) {
+				return new Snapshot((Boolean) result, -1, -1, null);
+			}
+			Map<?, ?> map = (Map<?, ?>) result;
+			Object patches = map.get("patches");
+			return new Snapshot(!Boolean.FALSE.equals(map.get("changed")), number(map, "id"),
+			        number(map, "elements"),
+			        patches == null ? null : DomPatch.fromBrowser((List<?>) patches));
+		}
+
+		private static long number(Map<?, ?> map, String key) {
+			Object value = map.get(key);
+			Preconditions.checkArgument(value instanceof Number, "No %s in %s", key, map);
+			return ((Number) value).longValue();
+		}
+
+		private final boolean changed;
+		private final long id;
+		private final long elements;
+		private final List<DomPatch> patches;
+
+		private Snapshot(boolean changed, long id, long elements, List<DomPatch> patches) {
+			this.changed = changed;
+			this.id = id;
+			this.elements = elements;
+			this.patches = patches;
+		}
+	}
+
 	private static class CloseBrowserThreadFactory implements ThreadFactory {
 		private static final String NAME_PREFIX = "Crawljax-CloseBrowserThread-";
 		private final ThreadGroup group;
@@ -3,6 +3,7 @@ package com.crawljax.browser;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
+import com.codahale.metrics.MetricRegistry;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.configuration.ProxyConfiguration;
 import com.crawljax.core.configuration.ProxyConfiguration.ProxyType;
@@ -31,11 +32,14 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 	private static final String HEADLESS_ARG = "--headless";
 	private final CrawljaxConfiguration configuration;
 	private final Plugins plugins;
+	private final MetricRegistry registry;
 
 	@Inject
-	public WebDriverBrowserBuilder(CrawljaxConfiguration configuration, Plugins plugins) {
+	public WebDriverBrowserBuilder(CrawljaxConfiguration configuration, Plugins plugins,
+	        MetricRegistry registry) {
 		this.configuration = configuration;
 		this.plugins = plugins;
+		this.registry = registry;
 	}
 
 	/**
@@ -53,7 +57,8 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 		long crawlWaitEvent = configuration.getCrawlRules().getWaitAfterEvent();
 
 		// Determine the requested browser type
-		EmbeddedBrowser browser = null;
+		WebDriverBackedEmbeddedBrowser browser = null;
+		EmbeddedBrowser embeddedBrowser = null;
 		EmbeddedBrowser.BrowserType browserType = configuration.getBrowserConfig().getBrowsertype();
 		try {
 			switch (browserType) {
@@ -70,6 +75,19 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 				case CHROME:
 					browser = newChromeBrowser(filterAttributes, crawlWaitReload, crawlWaitEvent);
 					break;
+				case CHROME_DEVTOOLS:
+					ChromeDevToolsEmbeddedBrowser devToolsBrowser =
+					        ChromeDevToolsEmbeddedBrowser.withDriver(
+					                new ChromeDriver(newChromeOptions()), filterAttributes,
+					                crawlWaitEvent, crawlWaitReload);
+					browser = devToolsBrowser.getDelegate();
+					embeddedBrowser = devToolsBrowser;
+					break;
+				case STATIC_HTML:
+					embeddedBrowser =
+					        new StaticHtmlEmbeddedBrowser(filterAttributes,
+					                configuration.getProxyConfiguration());
+					break;
 				case REMOTE:
 					browser =
 					        WebDriverBackedEmbeddedBrowser.withRemoteDriver(configuration
@@ -88,11 +106,23 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 			LOGGER.error("Crawling with {} failed: {}", browserType.toString(), e.getMessage());
 			throw e;
 		}
-		plugins.runOnBrowserCreatedPlugins(browser);
-		return browser;
+		if (browser != null) {
+			browser.setTrackDomChanges(configuration.getBrowserConfig().isTrackDomChanges());
+			browser.setDomPatchThreshold(configuration.getBrowserConfig()
+			        .getDomPatchThreshold());
+			browser.countDomTransfersIn(registry);
+			if (embeddedBrowser == null) {
+				embeddedBrowser = browser;
+			}
+			if (configuration.getBrowserConfig().isCacheBrowserState()) {
+				embeddedBrowser = new CachingEmbeddedBrowser(embeddedBrowser, registry);
+			}
+		}
+		plugins.runOnBrowserCreatedPlugins(embeddedBrowser);
+		return embeddedBrowser;
 	}
 
-	private EmbeddedBrowser newFireFoxBrowser(ImmutableSortedSet<String> filterAttributes,
+	private WebDriverBackedEmbeddedBrowser newFireFoxBrowser(ImmutableSortedSet<String> filterAttributes,
 	        long crawlWaitReload, long crawlWaitEvent) {
 		FirefoxOptions options = new FirefoxOptions();
 		options.setUnhandledPromptBehaviour(UnexpectedAlertBehaviour.ACCEPT);
@@ -121,8 +151,13 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 		        filterAttributes, crawlWaitEvent, crawlWaitReload);
 	}
 
-	private EmbeddedBrowser newChromeBrowser(ImmutableSortedSet<String> filterAttributes,
+	private WebDriverBackedEmbeddedBrowser newChromeBrowser(ImmutableSortedSet<String> filterAttributes,
 	        long crawlWaitReload, long crawlWaitEvent) {
+		return WebDriverBackedEmbeddedBrowser.withDriver(new ChromeDriver(newChromeOptions()),
+		        filterAttributes, crawlWaitEvent, crawlWaitReload);
+	}
+
+	private ChromeOptions newChromeOptions() {
 		ChromeOptions optionsChrome = new ChromeOptions();
 		optionsChrome.setUnhandledPromptBehaviour(UnexpectedAlertBehaviour.ACCEPT);
 		if (configuration.getProxyConfiguration() != null
@@ -140,11 +175,10 @@ public class WebDriverBrowserBuilder implements Provider<EmbeddedBrowser> {
 			optionsChrome.addArguments(HEADLESS_ARG);
 		}
 
-		return WebDriverBackedEmbeddedBrowser.withDriver(new ChromeDriver(optionsChrome), filterAttributes,
-		        crawlWaitEvent, crawlWaitReload);
+		return optionsChrome;
 	}
 
-	private EmbeddedBrowser newPhantomJSDriver(ImmutableSortedSet<String> filterAttributes,
+	private WebDriverBackedEmbeddedBrowser newPhantomJSDriver(ImmutableSortedSet<String> filterAttributes,
 	        long crawlWaitReload, long crawlWaitEvent) {
 
 		DesiredCapabilities caps = new DesiredCapabilities();
@@ -0,0 +1,20 @@
+package com.crawljax.condition;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A {@link Condition} that can also be evaluated as a JavaScript expression in the browser. This
+ * allows a {@link ConditionBatch} to check many conditions in a single call to
+ * {@link com.crawljax.browser.EmbeddedBrowser#executeJavaScript(String)}.
+ */
+@ThreadSafe
+public interface BatchableCondition extends Condition {
+
+	/**
+	 * @return a JavaScript expression that is truthy iff {@link #check} would return
+	 *         <code>true</code>, or <code>null</code> when this condition cannot be evaluated in
+	 *         JavaScript and has to be checked on its own.
+	 */
+	String toJavaScript();
+
+}
@@ -0,0 +1,219 @@
+package com.crawljax.condition;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.util.MultiPattern;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+
+/**
+ * Evaluates all {@link BatchableCondition}s of a group of conditions with a single injected
+ * script, which returns a bitmap with one character per condition. Other conditions, and all
+ * conditions when the script fails, are checked on their own when their result is requested, so
+ * conditions with side effects like {@link CountCondition} behave as before. All
+ * {@link DomCondition}s of a batch are checked against the same stripped DOM, which is only
+ * retrieved from the browser once, and their results can be memoized in a {@link ConditionCache}.
+ * The {@link RegexCondition}s and {@link NotRegexCondition}s of a batch are matched against the DOM
+ * together, in a single pass of a {@link MultiPattern}, when the first of them is checked.
+ * <p>
+ * The batched conditions are all evaluated up front, so they should not have side effects in the
+ * browser.
+ */
+public final class ConditionBatch {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ConditionBatch.class);
+
+	private static final Cache<ImmutableList<String>, MultiPattern> PATTERNS =
+	        CacheBuilder.newBuilder().maximumSize(100).build();
+
+	/**
+	 * @param browser
+	 *            the browser to evaluate the conditions in.
+	 * @param conditions
+	 *            the conditions that may be checked. Duplicates are evaluated once.
+	 * @return the batch with the results of the {@link BatchableCondition}s.
+	 */
+	public static ConditionBatch evaluate(EmbeddedBrowser browser,
+	        Iterable<? extends Condition> conditions) {
+		return evaluate(browser, conditions, null);
+	}
+
+	/**
+	 * @param browser
+	 *            the browser to evaluate the conditions in.
+	 * @param conditions
+	 *            the conditions that may be checked. Duplicates are evaluated once.
+	 * @param cache
+	 *            the cache for the results of the {@link DomCondition}s, or <code>null</code> to
+	 *            not memoize them.
+	 * @return the batch with the results of the {@link BatchableCondition}s.
+	 */
+	public static ConditionBatch evaluate(EmbeddedBrowser browser,
+	        Iterable<? extends Condition> conditions, ConditionCache cache) {
+		Map<Condition, String> expressions = new LinkedHashMap<>();
+		for (Condition condition : conditions) {
+			String expression = javaScriptOf(condition);
+			if (expression != null) {
+				expressions.put(condition, expression);
+			}
+		}
+		Map<RegexCondition, Integer> regexes = new LinkedHashMap<>();
+		for (Condition condition : conditions) {
+			RegexCondition regex = regexOf(condition);
+			if (regex != null) {
+				regexes.putIfAbsent(regex, regexes.size());
+			}
+		}
+		if (regexes.size() < 2) {
+			regexes.clear();
+		}
+		Map<Condition, Boolean> results = new LinkedHashMap<>();
+		if (!expressions.isEmpty()) {
+			String bitmap = execute(browser, script(expressions.values()), expressions.size());
+			if (bitmap != null) {
+				int i = 0;
+				for (Condition condition : expressions.keySet()) {
+					results.put(condition, bitmap.charAt(i++) == '1');
+				}
+			}
+		}
+		return new ConditionBatch(browser, results, cache, regexes);
+	}
+
+	/**
+	 * @return the regular expression condition the condition checks, or <code>null</code>.
+	 */
+	private static RegexCondition regexOf(Condition condition) {
+		if (condition instanceof RegexCondition) {
+			return (RegexCondition) condition;
+		} else if (condition instanceof NotRegexCondition) {
+			return ((NotRegexCondition) condition).getRegexCondition();
+		}
+		return null;
+	}
+
+	private static MultiPattern patternOf(Iterable<RegexCondition> regexes) {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (RegexCondition regex : regexes) {
+			builder.add(regex.getExpression());
+		}
+		ImmutableList<String> expressions = builder.build();
+		try {
+			return PATTERNS.get(expressions,
+			        () -> MultiPattern.compile(expressions, Pattern.CASE_INSENSITIVE));
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not compile " + expressions, e.getCause());
+		}
+	}
+
+	/**
+	 * @param condition
+	 *            the condition.
+	 * @return the JavaScript expression of the condition, or <code>null</code> if it has none.
+	 */
+	static String javaScriptOf(Condition condition) {
+		if (condition instanceof BatchableCondition) {
+			return ((BatchableCondition) condition).toJavaScript();
+		}
+		return null;
+	}
+
+	private static String script(Iterable<String> expressions) {
+		StringBuilder script = new StringBuilder("var r='';");
+		for (String expression : expressions) {
+			script.append("try{r+=(").append(expression)
+			        .append(")?'1':'0';}catch(e){r+='0';}");
+		}
+		return script.append("return r;").toString();
+	}
+
+	private static String execute(EmbeddedBrowser browser, String script, int size) {
+		try {
+			Object result = browser.executeJavaScript(script);
+			if (result != null && result.toString().length() == size) {
+				return result.toString();
+			}
+			LOG.debug("Unexpected result of batched conditions: {}", result);
+		} catch (CrawljaxException e) {
+			LOG.debug("Could not evaluate {} conditions at once: {}", size, e.getMessage());
+		}
+		return null;
+	}
+
+	private final EmbeddedBrowser browser;
+	private final Map<Condition, Boolean> results;
+	private final ConditionCache cache;
+	private final Map<RegexCondition, Integer> regexes;
+
+	private String strippedDom;
+	private HashCode digest;
+	private BitSet regexResults;
+
+	private ConditionBatch(EmbeddedBrowser browser, Map<Condition, Boolean> results,
+	        ConditionCache cache, Map<RegexCondition, Integer> regexes) {
+		this.browser = browser;
+		this.results = results;
+		this.cache = cache;
+		this.regexes = regexes;
+	}
+
+	/**
+	 * @param condition
+	 *            the condition.
+	 * @return the result of the batch for the condition, or {@link Condition#check} if the
+	 *         condition was not evaluated in the batch.
+	 */
+	public boolean check(Condition condition) {
+		Boolean result = results.get(condition);
+		if (result != null) {
+			return result;
+		} else if (condition instanceof DomCondition) {
+			return checkDom((DomCondition) condition);
+		} else {
+			return condition.check(browser);
+		}
+	}
+
+	private boolean checkDom(DomCondition condition) {
+		if (strippedDom == null) {
+			strippedDom = browser.getStrippedDom();
+		}
+		if (cache == null) {
+			return evaluateDom(condition);
+		}
+		if (digest == null) {
+			digest = ConditionCache.digestOf(strippedDom);
+		}
+		return cache.check(condition, digest, () -> evaluateDom(condition));
+	}
+
+	private boolean evaluateDom(DomCondition condition) {
+		Integer index = regexes.get(regexOf(condition));
+		if (index == null) {
+			return condition.checkDom(strippedDom);
+		}
+		if (regexResults == null) {
+			regexResults = patternOf(regexes.keySet()).findEach(strippedDom);
+		}
+		boolean found = regexResults.get(index);
+		return condition instanceof NotRegexCondition ? !found : found;
+	}
+
+	/**
+	 * @return the number of conditions that were evaluated in the batch.
+	 */
+	public int size() {
+		return results.size();
+	}
+}
@@ -0,0 +1,127 @@
+package com.crawljax.condition;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * Memoizes the results of {@link DomCondition}s by the digest of the DOM they were checked
+ * against, so following a path through states that were verified before does not parse and
+ * evaluate their DOMs again. Other conditions, like {@link CountCondition}, are never cached.
+ */
+@ThreadSafe
+public class ConditionCache {
+
+	/**
+	 * The default number of results that are kept.
+	 */
+	public static final int DEFAULT_SIZE = 10_000;
+
+	/**
+	 * @param strippedDom
+	 *            the stripped DOM.
+	 * @return the digest the results for the DOM are cached by.
+	 */
+	public static HashCode digestOf(String strippedDom) {
+		return Hashing.murmur3_128().hashUnencodedChars(strippedDom);
+	}
+
+	private final Cache<Key, Boolean> results;
+
+	/**
+	 * A cache with {@link #DEFAULT_SIZE} entries.
+	 */
+	public ConditionCache() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * @param maximumSize
+	 *            the maximum number of results that are kept.
+	 */
+	public ConditionCache(int maximumSize) {
+		results = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	/**
+	 * @param condition
+	 *            the condition.
+	 * @param strippedDom
+	 *            the stripped DOM.
+	 * @param digest
+	 *            the digest of the DOM.
+	 * @return the cached result of the condition for the DOM, which is checked if it is not
+	 *         cached yet.
+	 * @see #digestOf(String)
+	 */
+	public boolean check(DomCondition condition, String strippedDom, HashCode digest) {
+		return check(condition, digest, () -> condition.checkDom(strippedDom));
+	}
+
+	/**
+	 * @param condition
+	 *            the condition.
+	 * @param digest
+	 *            the digest of the DOM.
+	 * @param result
+	 *            computes the result of the condition for the DOM if it is not cached yet.
+	 * @return the cached result of the condition for the DOM.
+	 */
+	boolean check(DomCondition condition, HashCode digest, BooleanSupplier result) {
+		try {
+			return results.get(new Key(condition, digest), result::getAsBoolean);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not check " + condition, e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of hits and misses of the cache.
+	 */
+	public CacheStats stats() {
+		return results.stats();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("size", results.size())
+		        .add("stats", results.stats())
+		        .toString();
+	}
+
+	private static final class Key {
+
+		private final DomCondition condition;
+		private final HashCode digest;
+
+		Key(DomCondition condition, HashCode digest) {
+			this.condition = condition;
+			this.digest = digest;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(condition, digest);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (object instanceof Key) {
+				Key that = (Key) object;
+				return Objects.equals(this.digest, that.digest)
+				        && Objects.equals(this.condition, that.condition);
+			}
+			return false;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.crawljax.condition;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -21,6 +23,7 @@ public class ConditionTypeChecker<T extends ConditionType> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ConditionTypeChecker.class);
 
 	private final ImmutableList<T> invariants;
+	private final ConditionCache cache;
 
 	/**
 	 * Constructor with invariant list.
@@ -29,11 +32,27 @@ public class ConditionTypeChecker<T extends ConditionType> {
 	 *            The invariant list.
 	 */
 	public ConditionTypeChecker(ImmutableList<T> invariants) {
+		this(invariants, new ConditionCache());
+	}
+
+	/**
+	 * @param invariants
+	 *            The invariant list.
+	 * @param cache
+	 *            The cache for the results of the {@link DomCondition}s.
+	 */
+	public ConditionTypeChecker(ImmutableList<T> invariants, ConditionCache cache) {
 		Preconditions.checkNotNull(invariants);
+		Preconditions.checkNotNull(cache);
 		this.invariants = invariants;
+		this.cache = cache;
 	}
 
 	/**
+	 * The conditions and preconditions that can be evaluated in JavaScript are all checked with a
+	 * single {@link ConditionBatch}. The results of {@link DomCondition}s are memoized by the DOM
+	 * they were checked against.
+	 * 
 	 * @param browser
 	 *            The browser.
 	 * @return a list of {@link ConditionType} where {@link Condition#check(EmbeddedBrowser)}
@@ -41,12 +60,16 @@ public class ConditionTypeChecker<T extends ConditionType> {
 	 */
 	public ImmutableList<T> getFailedConditions(EmbeddedBrowser browser) {
 		LOGGER.debug("Checking {} ConditionTypes", invariants.size());
+		if (invariants.isEmpty()) {
+			return ImmutableList.of();
+		}
+		ConditionBatch batch = ConditionBatch.evaluate(browser, allConditions(), cache);
 		ImmutableList.Builder<T> builder = ImmutableList.builder();
 		for (T invariant : invariants) {
-			if (preConditionsHold(browser, invariant)) {
+			if (preConditionsHold(batch, invariant)) {
 				Condition invariantCondition = invariant.getCondition();
 				LOGGER.debug("Checking ConditionType: {}", invariant.getDescription());
-				if (!invariantCondition.check(browser)) {
+				if (!batch.check(invariantCondition)) {
 					LOGGER.debug("ConditionType '{}' failed", invariant.getDescription());
 					builder.add(invariant);
 				}
@@ -55,9 +78,18 @@ public class ConditionTypeChecker<T extends ConditionType> {
 		return builder.build();
 	}
 
-	private boolean preConditionsHold(EmbeddedBrowser browser, T invariant) {
+	private List<Condition> allConditions() {
+		List<Condition> conditions = new ArrayList<>();
+		for (T invariant : invariants) {
+			conditions.addAll(invariant.getPreConditions());
+			conditions.add(invariant.getCondition());
+		}
+		return conditions;
+	}
+
+	private boolean preConditionsHold(ConditionBatch batch, T invariant) {
 		for (Condition condition : invariant.getPreConditions()) {
-			if (!condition.check(browser)) {
+			if (!batch.check(condition)) {
 				LOGGER.debug("Precondition failed for ConditionType: {} - PreCondition: {} : ",
 				        invariant.getDescription(), condition);
 				return false;
@@ -67,6 +99,13 @@ public class ConditionTypeChecker<T extends ConditionType> {
 		return true;
 	}
 
+	/**
+	 * @return the cache for the results of the {@link DomCondition}s.
+	 */
+	public ConditionCache getCache() {
+		return cache;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(invariants);
@@ -0,0 +1,21 @@
+package com.crawljax.condition;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A {@link Condition} whose result only depends on the stripped DOM of the browser. It gives the
+ * same answer for the same DOM, so its results can be shared by all checks of a
+ * {@link ConditionBatch} and memoized in a {@link ConditionCache}.
+ */
+@ThreadSafe
+public interface DomCondition extends Condition {
+
+	/**
+	 * @param strippedDom
+	 *            the stripped DOM of the browser.
+	 * @return whether the condition is satisfied for the DOM.
+	 * @see com.crawljax.browser.EmbeddedBrowser#getStrippedDom()
+	 */
+	boolean checkDom(String strippedDom);
+
+}
@@ -13,7 +13,7 @@ import com.google.common.base.MoreObjects;
  * true.
  */
 @Immutable
-public class JavaScriptCondition implements Condition {
+public class JavaScriptCondition implements BatchableCondition {
 
 	private final String expression;
 
@@ -52,6 +52,14 @@ public class JavaScriptCondition implements Condition {
 		}
 	}
 
+	/**
+	 * @return the expression, which evaluates to <code>false</code> when it throws an error.
+	 */
+	@Override
+	public String toJavaScript() {
+		return "(function(){try{return !!(" + expression + ");}catch(e){return false;}})()";
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(getClass(), expression);
@@ -53,7 +53,25 @@ public final class Logic {
 	private Logic() {
 	}
 
-	private static class Not implements Condition {
+	private static String javaScriptOf(Condition[] conditions, String operator) {
+		if (conditions.length == 0) {
+			return null;
+		}
+		StringBuilder script = new StringBuilder();
+		for (Condition condition : conditions) {
+			String expression = ConditionBatch.javaScriptOf(condition);
+			if (expression == null) {
+				return null;
+			}
+			if (script.length() > 0) {
+				script.append(operator);
+			}
+			script.append('(').append(expression).append(')');
+		}
+		return script.toString();
+	}
+
+	private static class Not implements BatchableCondition {
 		private Condition condition;
 
 		public Not(Condition c) {
@@ -65,6 +83,12 @@ public final class Logic {
 			return !condition.check(browser);
 		}
 
+		@Override
+		public String toJavaScript() {
+			String expression = ConditionBatch.javaScriptOf(condition);
+			return expression == null ? null : "!(" + expression + ")";
+		}
+
 		@Override
 		public String toString() {
 			return MoreObjects.toStringHelper(this)
@@ -87,7 +111,7 @@ public final class Logic {
 		}
 	}
 
-	private static class And implements Condition {
+	private static class And implements BatchableCondition {
 		private Condition[] conditions;
 
 		public And(Condition... cs) {
@@ -104,6 +128,11 @@ public final class Logic {
 			return true;
 		}
 
+		@Override
+		public String toJavaScript() {
+			return javaScriptOf(conditions, "&&");
+		}
+
 		@Override
 		public String toString() {
 			return MoreObjects.toStringHelper(this)
@@ -127,7 +156,7 @@ public final class Logic {
 		}
 	}
 
-	private static class Or implements Condition {
+	private static class Or implements BatchableCondition {
 		private Condition[] conditions;
 
 		public Or(Condition... cs) {
@@ -144,6 +173,11 @@ public final class Logic {
 			return false;
 		}
 
+		@Override
+		public String toJavaScript() {
+			return javaScriptOf(conditions, "||");
+		}
+
 		@Override
 		public String toString() {
 			return MoreObjects.toStringHelper(this)
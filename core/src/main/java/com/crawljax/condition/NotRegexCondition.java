@@ -13,7 +13,7 @@ import com.google.common.base.MoreObjects;
  * @author dannyroest@gmail.com (Danny Roest)
  */
 @Immutable
-public class NotRegexCondition implements Condition {
+public class NotRegexCondition implements DomCondition {
 
 	private final RegexCondition regexCondition;
 
@@ -25,11 +25,20 @@ public class NotRegexCondition implements Condition {
 		this.regexCondition = new RegexCondition(expression);
 	}
 
+	RegexCondition getRegexCondition() {
+		return regexCondition;
+	}
+
 	@Override
 	public boolean check(EmbeddedBrowser browser) {
 		return Logic.not(regexCondition).check(browser);
 	}
 
+	@Override
+	public boolean checkDom(String strippedDom) {
+		return !regexCondition.checkDom(strippedDom);
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(getClass(), regexCondition);
@@ -14,7 +14,7 @@ import com.google.common.base.MoreObjects;
  * @author dannyroest@gmail.com (Danny Roest)
  */
 @Immutable
-public class NotVisibleCondition implements Condition {
+public class NotVisibleCondition implements BatchableCondition {
 
 	private final VisibleCondition visibleCondition;
 
@@ -31,6 +31,12 @@ public class NotVisibleCondition implements Condition {
 		return Logic.not(visibleCondition).check(browser);
 	}
 
+	@Override
+	public String toJavaScript() {
+		String visible = visibleCondition.toJavaScript();
+		return visible == null ? null : "!" + visible;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(getClass(), visibleCondition);
@@ -13,7 +13,7 @@ import com.google.common.base.MoreObjects;
  * @author dannyroest@gmail.com (Danny Roest)
  */
 @Immutable
-public class NotXPathCondition implements Condition {
+public class NotXPathCondition implements DomCondition {
 
 	private final XPathCondition xpathCondition;
 
@@ -30,6 +30,11 @@ public class NotXPathCondition implements Condition {
 		return Logic.not(xpathCondition).check(browser);
 	}
 
+	@Override
+	public boolean checkDom(String strippedDom) {
+		return !xpathCondition.checkDom(strippedDom);
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(getClass(), xpathCondition);
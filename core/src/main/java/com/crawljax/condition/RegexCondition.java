@@ -15,7 +15,7 @@ import com.google.common.base.MoreObjects;
  * Condition that returns true iff experssion occurs in the dom.
  */
 @Immutable
-public class RegexCondition implements Condition {
+public class RegexCondition implements DomCondition {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RegexCondition.class);
 	private final String expression;
@@ -30,9 +30,20 @@ public class RegexCondition implements Condition {
 		pattern = Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
 	}
 
+	/**
+	 * @return the regular expression, which is matched ignoring case.
+	 */
+	String getExpression() {
+		return expression;
+	}
+
 	@Override
 	public boolean check(EmbeddedBrowser browser) {
-		String dom = browser.getStrippedDom();
+		return checkDom(browser.getStrippedDom());
+	}
+
+	@Override
+	public boolean checkDom(String dom) {
 		boolean found = pattern.matcher(dom).find();
 		if (found) {
 			LOG.trace("Found expression {} in DOM {}", expression, dom);
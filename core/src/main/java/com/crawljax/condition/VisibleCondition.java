@@ -6,13 +6,14 @@ import java.util.Objects;
 
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.state.Identification;
+import com.crawljax.util.JavaScriptUtils;
 import com.google.common.base.MoreObjects;
 
 /**
  * Conditions that returns true iff element found by given identification is visible.
  */
 @Immutable
-public class VisibleCondition implements Condition {
+public class VisibleCondition implements BatchableCondition {
 
 	private final Identification identification;
 
@@ -29,6 +30,47 @@ public class VisibleCondition implements Condition {
 		return browser.isVisible(identification);
 	}
 
+	/**
+	 * Approximates {@link org.openqa.selenium.WebElement#isDisplayed()}: the element is visible
+	 * when it has a size and is not hidden by its style. Elements identified by the text of a link
+	 * are not batched.
+	 */
+	@Override
+	public String toJavaScript() {
+		String element = elementScript();
+		if (element == null) {
+			return null;
+		}
+		return "(function(e){return e!=null&&!!(e.offsetWidth||e.offsetHeight"
+		        + "||e.getClientRects().length)&&window.getComputedStyle(e).visibility!='hidden';})("
+		        + element + ")";
+	}
+
+	private String elementScript() {
+		if (identification == null || identification.getHow() == null
+		        || identification.getValue() == null) {
+			return null;
+		}
+		switch (identification.getHow()) {
+			case id:
+				return "document.getElementById("
+				        + JavaScriptUtils.literal(identification.getValue()) + ")";
+			case name:
+				return "document.getElementsByName("
+				        + JavaScriptUtils.literal(identification.getValue()) + ")[0]";
+			case tag:
+				return "document.getElementsByTagName("
+				        + JavaScriptUtils.literal(identification.getValue()) + ")[0]";
+			case xpath:
+				return "document.evaluate("
+				        + JavaScriptUtils.literal(identification.getValue().replaceAll(
+				                "/BODY\\[1\\]/", "/BODY/"))
+				        + ",document,null,XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue";
+			default:
+				return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return MoreObjects.toStringHelper(this)
@@ -20,7 +20,7 @@ import com.google.common.base.MoreObjects;
  * element names must be in upper case and attributes in lower case.
  */
 @Immutable
-public class XPathCondition implements Condition {
+public class XPathCondition implements DomCondition {
 
 	private final String expression;
 
@@ -36,12 +36,13 @@ public class XPathCondition implements Condition {
 
 	@Override
 	public boolean check(EmbeddedBrowser browser) {
-		return checkXPathExpression(browser);
+		return checkDom(browser.getStrippedDom());
 	}
 
-	private boolean checkXPathExpression(EmbeddedBrowser browser) {
+	@Override
+	public boolean checkDom(String strippedDom) {
 		try {
-			Document document = DomUtils.asDocument(browser.getStrippedDom());
+			Document document = DomUtils.asDocument(strippedDom);
 			NodeList nodeList = XPathHelper.evaluateXpathExpression(document, expression);
 			return nodeList.getLength() > 0;
 		} catch (XPathExpressionException | IOException e) {
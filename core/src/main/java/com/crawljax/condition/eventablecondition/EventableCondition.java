@@ -5,6 +5,7 @@ import java.util.List;
 
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.condition.Condition;
+import com.crawljax.condition.ConditionBatch;
 import com.crawljax.core.state.Eventable;
 import com.crawljax.util.XPathHelper;
 
@@ -53,13 +54,21 @@ public class EventableCondition {
 	}
 
 	/**
+	 * The conditions that can be evaluated in JavaScript are checked with a single
+	 * {@link ConditionBatch}.
+	 * 
 	 * @param browser
 	 *            The browser.
 	 * @return true iff all the conditions are satisfied.
 	 */
 	public boolean checkAllConditionsSatisfied(EmbeddedBrowser browser) {
-		for (Condition condition : getConditions()) {
-			if (!condition.check(browser)) {
+		List<Condition> conditions = getConditions();
+		if (conditions.isEmpty()) {
+			return true;
+		}
+		ConditionBatch batch = ConditionBatch.evaluate(browser, conditions);
+		for (Condition condition : conditions) {
+			if (!batch.check(condition)) {
 				return false;
 			}
 		}
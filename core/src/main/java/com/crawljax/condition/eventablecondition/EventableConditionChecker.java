@@ -1,6 +1,10 @@
 package com.crawljax.condition.eventablecondition;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.xml.xpath.XPathExpressionException;
@@ -8,6 +12,7 @@ import javax.xml.xpath.XPathExpressionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.configuration.CrawlElement;
@@ -16,6 +21,7 @@ import com.crawljax.util.XPathHelper;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * Check whether the conditions of an eventable are satisfied.
@@ -24,21 +30,29 @@ public class EventableConditionChecker {
 
 	private static final Logger LOG = LoggerFactory.getLogger(EventableConditionChecker.class);
 	private final ImmutableList<EventableCondition> eventableConditions;
+	private final ImmutableMap<String, EventableCondition> eventableConditionsById;
 
 	@Inject
 	public EventableConditionChecker(CrawlRules config) {
 		Builder<EventableCondition> builder = ImmutableList.builder();
+		Map<String, EventableCondition> byId = new LinkedHashMap<>();
 		for (CrawlElement crawlTag : config.getAllCrawlElements()) {
 			EventableCondition eventableCondition = crawlTag.getEventableCondition();
 			if (eventableCondition != null) {
 				builder.add(eventableCondition);
+				byId.putIfAbsent(asKey(eventableCondition.getId()), eventableCondition);
 			}
 		}
 
 		this.eventableConditions = builder.build();
+		this.eventableConditionsById = ImmutableMap.copyOf(byId);
 		LOG.debug("Evenetable conditions {}", eventableConditions);
 	}
 
+	private static String asKey(String id) {
+		return id.toLowerCase(Locale.ROOT);
+	}
+
 	/**
 	 * @param id
 	 *            Identifier of the {@link EventableCondition}.
@@ -46,11 +60,7 @@ public class EventableConditionChecker {
 	 */
 	public EventableCondition getEventableCondition(String id) {
 		if (!Strings.isNullOrEmpty(id)) {
-			for (EventableCondition eventableCondition : eventableConditions) {
-				if (eventableCondition.getId().equalsIgnoreCase(id)) {
-					return eventableCondition;
-				}
-			}
+			return eventableConditionsById.get(asKey(id));
 		}
 		return null;
 	}
@@ -101,4 +111,20 @@ public class EventableConditionChecker {
 		return false;
 	}
 
+	/**
+	 * @param node
+	 *            the node to check if it is under a certain set of nodes.
+	 * @param roots
+	 *            the nodes, compared by identity.
+	 * @return true if the node is one of the nodes or is below one of them.
+	 */
+	public boolean checkNodeUnderNodes(Node node, Set<Node> roots) {
+		for (Node ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+			if (roots.contains(ancestor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
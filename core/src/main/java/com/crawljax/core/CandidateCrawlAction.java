@@ -12,6 +12,7 @@ import com.google.common.base.MoreObjects;
 public class CandidateCrawlAction {
 	private final CandidateElement candidateElement;
 	private final EventType eventType;
+	private volatile boolean deferred;
 
 	/**
 	 * The Constructor for the CandidateCrawlAction, build a new instance with
@@ -42,6 +43,17 @@ public class CandidateCrawlAction {
 		return eventType;
 	}
 
+	/**
+	 * Marks the action as moved to the end of the actions of its state.
+	 * 
+	 * @return whether the action was not deferred before.
+	 */
+	boolean defer() {
+		boolean first = !deferred;
+		deferred = true;
+		return first;
+	}
+
 	@Override
 	public String toString() {
 		return MoreObjects.toStringHelper(this)
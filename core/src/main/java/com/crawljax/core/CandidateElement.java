@@ -121,6 +121,13 @@ public class CandidateElement {
 		this.eventableCondition = eventableCondition;
 	}
 
+	/**
+	 * @return the EventableCondition, or <code>null</code> if there is none.
+	 */
+	EventableCondition getEventableCondition() {
+		return eventableCondition;
+	}
+
 	/**
 	 * @return the identification object.
 	 */
@@ -2,11 +2,16 @@ package com.crawljax.core;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Pattern;
 
 import javax.inject.Inject;
@@ -31,9 +36,10 @@ import com.crawljax.core.state.StateVertex;
 import com.crawljax.forms.FormHandler;
 import com.crawljax.util.DomUtils;
 import com.crawljax.util.XPathHelper;
+import com.crawljax.util.XPathIndex;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.inject.assistedinject.Assisted;
@@ -41,11 +47,24 @@ import com.google.inject.assistedinject.Assisted;
 /**
  * This class extracts candidate elements from the DOM tree, based on the tags provided by the user.
  * Elements can also be excluded.
+ * <p>
+ * The elements of a document are collected in one traversal and matched against all crawl rules
+ * at once. Large documents are matched in parallel, see
+ * {@link com.crawljax.core.configuration.CrawlRules.CrawlRulesBuilder#parallelExtractionThreshold(int)}
+ * , but the candidates are always in the order of the rules and, per rule, in document order.
  */
 public class CandidateElementExtractor {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CandidateElementExtractor.class);
 
+	private static final Pattern FILE_FOR_DOWNLOADING =
+	        Pattern.compile(".+\\.(?:pdf|ps|zip|mp3)(?:$|\\?.+)");
+
+	/**
+	 * The number of elements below which a range of elements is matched without splitting it.
+	 */
+	private static final int MATCHING_CHUNK = 1024;
+
 	private final ExtractorManager checkedElements;
 	private final EmbeddedBrowser browser;
 
@@ -63,6 +82,8 @@ public class CandidateElementExtractor {
 
 	private final String siteHostName;
 
+	private final int parallelExtractionThreshold;
+
 	/**
 	 * Create a new CandidateElementExtractor.
 	 * 
@@ -95,6 +116,7 @@ public class CandidateElementExtractor {
 		ignoredFrameIdentifiers = rules.getIgnoredFrameIdentifiers();
 		followExternalLinks = rules.followExternalLinks();
 		siteHostName = config.getUrl().getHost();
+		parallelExtractionThreshold = rules.getParallelExtractionThreshold();
 	}
 
 	private ImmutableMultimap<String, CrawlElement> asMultiMap(
@@ -144,29 +166,129 @@ public class CandidateElementExtractor {
 	private void extractElements(Document dom, List<CandidateElement> results,
 	        String relatedFrame) {
 		LOG.debug("Extracting elements for related frame '{}'", relatedFrame);
-		for (CrawlElement tag : includedCrawlElements) {
-			LOG.debug("Extracting TAG: {}", tag);
-
-			NodeList frameNodes = dom.getElementsByTagName("FRAME");
-			addFramesCandidates(dom, results, relatedFrame, frameNodes);
-
-			NodeList iFrameNodes = dom.getElementsByTagName("IFRAME");
-			addFramesCandidates(dom, results, relatedFrame, iFrameNodes);
+		if (includedCrawlElements.isEmpty()) {
+			return;
+		}
+		// the candidates are identified by their XPath
+		XPathIndex index = XPathIndex.of(dom);
+		DocumentRules rules = new DocumentRules(dom, excludedElements(dom));
+
+		List<Element> elements = new ArrayList<>();
+		List<Element> frames = new ArrayList<>();
+		List<Element> iFrames = new ArrayList<>();
+		collectElements(dom, rules, elements, frames, iFrames);
+		addFramesCandidates(results, relatedFrame, frames);
+		addFramesCandidates(results, relatedFrame, iFrames);
+
+		List<List<Match>> matches;
+		if (parallelExtractionThreshold > 0 && index.size() >= parallelExtractionThreshold) {
+			LOG.debug("Matching {} elements in parallel", elements.size());
+			matches = ForkJoinPool.commonPool()
+			        .invoke(new Matching(rules, elements, 0, elements.size()));
+		} else {
+			matches = rules.match(elements, 0, elements.size());
+		}
+		for (int i = 0; i < includedCrawlElements.size(); i++) {
+			evaluateElements(includedCrawlElements.get(i), matches.get(i), results,
+			        relatedFrame);
+		}
+	}
 
-			evaluateElements(dom, tag, results, relatedFrame);
+	/**
+	 * Collects the elements that have the tag of a crawl rule, and the frames, in one traversal
+	 * in document order.
+	 */
+	private void collectElements(Document dom, DocumentRules rules, List<Element> elements,
+	        List<Element> frames, List<Element> iFrames) {
+		Deque<Node> nodes = new ArrayDeque<>();
+		nodes.push(dom);
+		while (!nodes.isEmpty()) {
+			Node node = nodes.pop();
+			if (node instanceof Element) {
+				String tagName = node.getNodeName();
+				if (rules.hasRulesFor(tagName)) {
+					elements.add((Element) node);
+				}
+				if (crawlFrames && "FRAME".equals(tagName)) {
+					frames.add((Element) node);
+				} else if (crawlFrames && "IFRAME".equals(tagName)) {
+					iFrames.add((Element) node);
+				}
+			}
+			for (Node child = node.getLastChild(); child != null; child =
+			        child.getPreviousSibling()) {
+				if (child instanceof Element) {
+					nodes.push(child);
+				}
+			}
 		}
 	}
 
-	private void addFramesCandidates(Document dom, List<CandidateElement> results,
-	        String relatedFrame, NodeList frameNodes) {
+	/**
+	 * Resolves the exclusion rules against the document once. An element is excluded when it, or
+	 * one of its ancestors, has the tag of an exclusion rule and is, or is below, a node that the
+	 * XPath of that rule selects.
+	 * 
+	 * @return the excluded elements, by identity.
+	 */
+	private Set<Node> excludedElements(Document dom) {
+		if (excludeCrawlElements.isEmpty()) {
+			return Collections.emptySet();
+		}
+		EventableConditionChecker eventableConditionChecker =
+		        checkedElements.getEventableConditionChecker();
+		Set<Node> excluded = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		for (CrawlElement crawlElem : excludeCrawlElements.values()) {
+			EventableCondition eventableCondition =
+			        eventableConditionChecker.getEventableCondition(crawlElem.getId());
+			if (eventableCondition == null
+			        || Strings.isNullOrEmpty(eventableCondition.getInXPath())) {
+				continue;
+			}
+			try {
+				NodeList nodes =
+				        XPathHelper.evaluateXpathExpression(dom, eventableCondition.getInXPath());
+				for (int i = 0; i < nodes.getLength(); i++) {
+					markExcluded(nodes.item(i), crawlElem.getTagName(), excluded);
+				}
+			} catch (XPathExpressionException e) {
+				LOG.debug("Could not check exclusion by Xpath {} because {}",
+				        eventableCondition.getInXPath(), e.getMessage());
+			}
+		}
+		LOG.debug("{} elements are excluded", excluded.size());
+		return excluded;
+	}
 
-		if (frameNodes == null) {
+	/**
+	 * Marks the subtrees of the elements with the given tag at or below the node.
+	 */
+	private static void markExcluded(Node node, String tagName, Set<Node> excluded) {
+		if (excluded.contains(node)) {
 			return;
 		}
+		if (node instanceof Element && ((Element) node).getTagName().equalsIgnoreCase(tagName)) {
+			markSubtree(node, excluded);
+		} else {
+			for (Node child = node.getFirstChild(); child != null; child =
+			        child.getNextSibling()) {
+				markExcluded(child, tagName, excluded);
+			}
+		}
+	}
 
-		for (int i = 0; i < frameNodes.getLength(); i++) {
+	private static void markSubtree(Node node, Set<Node> excluded) {
+		if (excluded.add(node)) {
+			for (Node child = node.getFirstChild(); child != null; child =
+			        child.getNextSibling()) {
+				markSubtree(child, excluded);
+			}
+		}
+	}
 
-			Element frameElement = (Element) frameNodes.item(i);
+	private void addFramesCandidates(List<CandidateElement> results, String relatedFrame,
+	        List<Element> frameElements) {
+		for (Element frameElement : frameElements) {
 
 			String nameId = DomUtils.getFrameIdentification(frameElement);
 
@@ -214,105 +336,188 @@ public class CandidateElementExtractor {
 		}
 	}
 
-	private void evaluateElements(Document dom, CrawlElement crawl,
+	/**
+	 * Adds the candidates of the elements a crawl rule matched that are not checked yet.
+	 */
+	private void evaluateElements(CrawlElement crawl, List<Match> matches,
 	        List<CandidateElement> results, String relatedFrame) {
-		try {
-			List<Element> nodeListForCrawlElement =
-			        getNodeListForTagElement(dom, crawl,
-			                checkedElements.getEventableConditionChecker());
-
-			for (Element sourceElement : nodeListForCrawlElement) {
-				evaluateElement(results, relatedFrame, crawl, sourceElement);
+		List<Element> elements = new ArrayList<>(matches.size());
+		for (Match match : matches) {
+			/*
+			 * TODO Stefan This is a possible Thread-Interleaving problem, as / isChecked can return
+			 * false and when needed to add it can return true. / check if element is a candidate
+			 */
+			if (checkedElements.isChecked(match.id)) {
+				LOG.debug("Element {} was not added", match.element);
+			} else {
+				elements.add(match.element);
+				LOG.debug("Adding element {}", match.element);
+				checkedElements.increaseElementsCounter();
 			}
-		} catch (CrawljaxException e) {
-			LOG.warn("Catched exception during NodeList For Tag Element retrieval", e);
+		}
+		for (Element sourceElement : elements) {
+			evaluateElement(results, relatedFrame, crawl, sourceElement);
 		}
 	}
 
 	/**
-	 * Returns a list of Elements form the DOM tree, matching the tag element.
+	 * An element that a crawl rule matched, with the string it is checked by.
 	 */
-	private ImmutableList<Element> getNodeListForTagElement(Document dom,
-	        CrawlElement crawlElement,
-	        EventableConditionChecker eventableConditionChecker) {
+	private static final class Match {
 
-		Builder<Element> result = ImmutableList.builder();
+		private final Element element;
+		private final String id;
 
-		if (crawlElement.getTagName() == null) {
-			return result.build();
+		Match(Element element) {
+			this.element = element;
+			this.id = element.getNodeName() + ": " + DomUtils.getAllElementAttributes(element);
 		}
+	}
 
-		EventableCondition eventableCondition =
-		        eventableConditionChecker.getEventableCondition(crawlElement.getId());
-		// TODO Stefan; this part of the code should be re-factored, Hack-ed it this way to prevent
-		// performance problems.
-		ImmutableList<String> expressions = getFullXpathForGivenXpath(dom, eventableCondition);
+	/**
+	 * The crawl rules resolved against a document. Matching only reads the document, so ranges of
+	 * its elements can be matched concurrently.
+	 */
+	private final class DocumentRules {
+
+		private final Set<Node> excluded;
+		private final ImmutableListMultimap<String, Integer> rulesByTag;
+		private final List<EventableCondition> conditions = new ArrayList<>();
+		private final List<Set<Node>> roots = new ArrayList<>();
+
+		DocumentRules(Document dom, Set<Node> excluded) {
+			this.excluded = excluded;
+			EventableConditionChecker eventableConditionChecker =
+			        checkedElements.getEventableConditionChecker();
+			ImmutableListMultimap.Builder<String, Integer> byTag =
+			        ImmutableListMultimap.builder();
+			for (int i = 0; i < includedCrawlElements.size(); i++) {
+				CrawlElement crawlElement = includedCrawlElements.get(i);
+				EventableCondition eventableCondition =
+				        eventableConditionChecker.getEventableCondition(crawlElement.getId());
+				conditions.add(eventableCondition);
+				roots.add(getNodesForGivenXpath(dom, eventableCondition));
+				if (crawlElement.getTagName() != null) {
+					byTag.put(crawlElement.getTagName(), i);
+				}
+			}
+			rulesByTag = byTag.build();
+		}
 
-		NodeList nodeList = dom.getElementsByTagName(crawlElement.getTagName());
+		boolean hasRulesFor(String tagName) {
+			return rulesByTag.containsKey(tagName) || rulesByTag.containsKey("*");
+		}
 
-		for (int k = 0; k < nodeList.getLength(); k++) {
+		/**
+		 * @return per crawl rule, the elements in the range that it matches, in document order.
+		 */
+		List<List<Match>> match(List<Element> elements, int from, int to) {
+			List<List<Match>> matches = new ArrayList<>(includedCrawlElements.size());
+			for (int i = 0; i < includedCrawlElements.size(); i++) {
+				matches.add(new ArrayList<>());
+			}
+			EventableConditionChecker eventableConditionChecker =
+			        checkedElements.getEventableConditionChecker();
+			for (Element element : elements.subList(from, to)) {
+				if (excluded.contains(element)) {
+					continue;
+				}
+				Match match = null;
+				for (int rule : rulesOf(element.getNodeName())) {
+					if (elementMatchesXpath(eventableConditionChecker, conditions.get(rule),
+					        roots.get(rule), element)
+					        && !("A".equalsIgnoreCase(includedCrawlElements.get(rule)
+					                .getTagName()) && hrefShouldBeIgnored(element))) {
+						if (match == null) {
+							match = new Match(element);
+						}
+						matches.get(rule).add(match);
+					}
+				}
+			}
+			return matches;
+		}
 
-			Element element = (Element) nodeList.item(k);
-			boolean matchesXpath =
-			        elementMatchesXpath(eventableConditionChecker, eventableCondition,
-			                expressions, element);
-			LOG.debug("Element {} matches Xpath={}", DomUtils.getElementString(element),
-			        matchesXpath);
-			/*
-			 * TODO Stefan This is a possible Thread-Interleaving problem, as / isChecked can return
-			 * false and when needed to add it can return true. / check if element is a candidate
-			 */
-			String id = element.getNodeName() + ": " + DomUtils.getAllElementAttributes(element);
-			if (matchesXpath && !checkedElements.isChecked(id)
-			        && !isExcluded(dom, element, eventableConditionChecker)) {
-				addElement(element, result, crawlElement);
-			} else {
-				LOG.debug("Element {} was not added", element);
+		private List<Integer> rulesOf(String tagName) {
+			List<Integer> rules = rulesByTag.get(tagName);
+			List<Integer> wildcard = rulesByTag.get("*");
+			if (wildcard.isEmpty()) {
+				return rules;
 			}
+			List<Integer> all = new ArrayList<>(rules);
+			all.addAll(wildcard);
+			Collections.sort(all);
+			return all;
+		}
+	}
+
+	/**
+	 * Matches a range of elements, split in halves in the fork-join pool until the ranges are
+	 * small. The matches of the halves are concatenated, so they stay in document order.
+	 */
+	private static final class Matching extends RecursiveTask<List<List<Match>>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient DocumentRules rules;
+		private final transient List<Element> elements;
+		private final int from;
+		private final int to;
+
+		Matching(DocumentRules rules, List<Element> elements, int from, int to) {
+			this.rules = rules;
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<List<Match>> compute() {
+			if (to - from <= MATCHING_CHUNK) {
+				return rules.match(elements, from, to);
+			}
+			int middle = (from + to) >>> 1;
+			Matching first = new Matching(rules, elements, from, middle);
+			first.fork();
+			List<List<Match>> second = new Matching(rules, elements, middle, to).compute();
+			List<List<Match>> matches = first.join();
+			for (int i = 0; i < matches.size(); i++) {
+				matches.get(i).addAll(second.get(i));
+			}
+			return matches;
 		}
-		return result.build();
 	}
 
 	private boolean elementMatchesXpath(EventableConditionChecker eventableConditionChecker,
-	        EventableCondition eventableCondition, ImmutableList<String> expressions,
-	        Element element) {
+	        EventableCondition eventableCondition, Set<Node> roots, Element element) {
 		boolean matchesXpath = true;
 		if (eventableCondition != null && eventableCondition.getInXPath() != null) {
-			try {
-				matchesXpath =
-				        eventableConditionChecker.checkXPathUnderXPaths(
-				                XPathHelper.getXPathExpression(element), expressions);
-			} catch (RuntimeException e) {
-				matchesXpath = false;
-			}
+			matchesXpath = eventableConditionChecker.checkNodeUnderNodes(element, roots);
 		}
 		return matchesXpath;
 	}
 
-	private ImmutableList<String> getFullXpathForGivenXpath(Document dom,
-	        EventableCondition eventableCondition) {
+	/**
+	 * @return the nodes the in-XPath of the condition selects in the document, by identity.
+	 */
+	private Set<Node> getNodesForGivenXpath(Document dom, EventableCondition eventableCondition) {
 		if (eventableCondition != null && eventableCondition.getInXPath() != null) {
 			try {
-				ImmutableList<String> result =
-				        XPathHelper.getXpathForXPathExpressions(dom,
-				                eventableCondition.getInXPath());
-				LOG.debug("Xpath {} resolved to xpaths in document: {}",
-				        eventableCondition.getInXPath(), result);
+				NodeList nodes =
+				        XPathHelper.evaluateXpathExpression(dom, eventableCondition.getInXPath());
+				Set<Node> result =
+				        Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+				for (int i = 0; i < nodes.getLength(); i++) {
+					result.add(nodes.item(i));
+				}
+				LOG.debug("Xpath {} resolved to {} nodes in document",
+				        eventableCondition.getInXPath(), result.size());
 				return result;
 			} catch (XPathExpressionException e) {
 				LOG.debug("Could not load XPath expressions for {}", eventableCondition, e);
 			}
 		}
-		return ImmutableList.<String> of();
-	}
-
-	private void addElement(Element element, Builder<Element> builder, CrawlElement crawlElement) {
-		if ("A".equalsIgnoreCase(crawlElement.getTagName()) && hrefShouldBeIgnored(element)) {
-			return;
-		}
-		builder.add(element);
-		LOG.debug("Adding element {}", element);
-		checkedElements.increaseElementsCounter();
+		return Collections.emptySet();
 	}
 
 	private boolean hrefShouldBeIgnored(Element element) {
@@ -340,14 +545,7 @@ public class CandidateElementExtractor {
 	 * @return true if href has the pdf or ps pattern.
 	 */
 	private boolean isFileForDownloading(String href) {
-		final Pattern p = Pattern.compile(".+\\.(?:pdf|ps|zip|mp3)(?:$|\\?.+)");
-		Matcher m = p.matcher(href);
-
-		if (m.matches()) {
-			return true;
-		}
-
-		return false;
+		return FILE_FOR_DOWNLOADING.matcher(href).matches();
 	}
 
 	private void evaluateElement(List<CandidateElement> results, String relatedFrame,
@@ -387,46 +585,6 @@ public class CandidateElementExtractor {
 		}
 	}
 
-	/**
-	 * @return true if element should be excluded. Also when an ancestor of the given element is
-	 *         marked for exclusion, which allows for recursive exclusion of elements from
-	 *         candidates.
-	 */
-	private boolean isExcluded(Document dom, Element element,
-	        EventableConditionChecker eventableConditionChecker) {
-
-		Node parent = element.getParentNode();
-
-		if (parent instanceof Element
-		        && isExcluded(dom, (Element) parent, eventableConditionChecker)) {
-			return true;
-		}
-
-		for (CrawlElement crawlElem : excludeCrawlElements
-		        .get(element.getTagName().toUpperCase())) {
-			boolean matchesXPath = false;
-			EventableCondition eventableCondition =
-			        eventableConditionChecker.getEventableCondition(crawlElem.getId());
-			try {
-				String asXpath = XPathHelper.getXPathExpression(element);
-				matchesXPath =
-				        eventableConditionChecker.checkXpathStartsWithXpathEventableCondition(
-				                dom, eventableCondition, asXpath);
-			} catch (CrawljaxException | XPathExpressionException e) {
-				LOG.debug("Could not check exclusion by Xpath for element because {}",
-				        e.getMessage());
-				matchesXPath = false;
-			}
-
-			if (matchesXPath) {
-				LOG.info("Excluded element because of xpath: " + element);
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	public boolean checkCrawlCondition() {
 		return checkedElements.checkCrawlCondition(browser);
 	}
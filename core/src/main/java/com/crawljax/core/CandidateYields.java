@@ -0,0 +1,192 @@
+package com.crawljax.core;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.core.configuration.CrawlRules;
+import com.crawljax.core.configuration.CrawlRules.LowYieldPolicy;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.state.Identification;
+import com.crawljax.metrics.MetricsModule;
+import com.crawljax.util.DomUtils;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * How often firing an event on a class of similar elements changed the DOM, so the candidates of
+ * classes that rarely do can be skipped or deferred. Elements are similar when they have the same
+ * tag, the same attributes other than the ones that tell elements apart, the same text and the
+ * same XPath without positions, like the "expand" button in every row of a table.
+ *
+ * @see CrawlRules#getLowYieldPolicy()
+ */
+@Singleton
+@ThreadSafe
+public class CandidateYields {
+
+	/**
+	 * What happened when an event was fired.
+	 */
+	enum Outcome {
+		CHANGED, UNCHANGED, FAILED
+	}
+
+	private static final Logger LOG = LoggerFactory.getLogger(CandidateYields.class);
+
+	private static final ImmutableSet<String> DISTINCT_ATTRIBUTES =
+	        ImmutableSet.of("atusa", "id", "name", "href", "value");
+
+	private static final int MAX_TEXT_LENGTH = 100;
+
+	private final LowYieldPolicy policy;
+	private final int observations;
+	private final double minimumYield;
+	private final ConcurrentMap<String, Yield> yields = new ConcurrentHashMap<>();
+	private final Counter lowYieldClasses;
+	private final Counter skipped;
+	private final Counter deferred;
+
+	@Inject
+	CandidateYields(CrawljaxConfiguration config, MetricRegistry registry) {
+		CrawlRules rules = config.getCrawlRules();
+		this.policy = rules.getLowYieldPolicy();
+		this.observations = rules.getLowYieldObservations();
+		this.minimumYield = rules.getMinimumYield();
+		this.lowYieldClasses =
+		        registry.counter(MetricsModule.EVENTS_PREFIX + "low_yield_candidate_classes");
+		this.skipped =
+		        registry.counter(MetricsModule.EVENTS_PREFIX + "skipped_low_yield_candidates");
+		this.deferred =
+		        registry.counter(MetricsModule.EVENTS_PREFIX + "deferred_low_yield_candidates");
+	}
+
+	/**
+	 * @return what to do with the candidates of classes with a low yield.
+	 */
+	LowYieldPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @param action
+	 *            an action that was fired.
+	 * @param outcome
+	 *            whether it changed the DOM.
+	 */
+	void record(CandidateCrawlAction action, Outcome outcome) {
+		if (policy == LowYieldPolicy.FIRE) {
+			return;
+		}
+		String elementClass = classOf(action);
+		Yield yield = yields.computeIfAbsent(elementClass, key -> new Yield());
+		if (yield.record(outcome, observations, minimumYield)) {
+			LOG.debug("Events on {} have a low yield: {}", elementClass, yield);
+			lowYieldClasses.inc();
+		}
+	}
+
+	/**
+	 * @param action
+	 *            an action that is about to be fired.
+	 * @return whether events on the class of the element rarely changed the DOM.
+	 */
+	boolean isLowYield(CandidateCrawlAction action) {
+		if (policy == LowYieldPolicy.FIRE) {
+			return false;
+		}
+		Yield yield = yields.get(classOf(action));
+		return yield != null && yield.isLow(observations, minimumYield);
+	}
+
+	void skipped() {
+		skipped.inc();
+	}
+
+	void deferred() {
+		deferred.inc();
+	}
+
+	/**
+	 * @return the number of candidates that were not fired because of a low yield.
+	 */
+	public long getSkippedCandidates() {
+		return skipped.getCount();
+	}
+
+	/**
+	 * @return the class of similar elements of the element of the action.
+	 */
+	static String classOf(CandidateCrawlAction action) {
+		CandidateElement candidate = action.getCandidateElement();
+		StringBuilder result = new StringBuilder().append(action.getEventType()).append(' ');
+		Element element = candidate.getElement();
+		if (element != null) {
+			String text = CharMatcher.whitespace().trimAndCollapseFrom(
+			        Strings.nullToEmpty(element.getTextContent()), ' ');
+			result.append(element.getNodeName().toUpperCase(Locale.ROOT)).append(": ")
+			        .append(DomUtils.getElementAttributes(element, DISTINCT_ATTRIBUTES))
+			        .append(' ')
+			        .append(text, 0, Math.min(text.length(), MAX_TEXT_LENGTH)).append(' ');
+		}
+		Identification identification = candidate.getIdentification();
+		if (identification != null && identification.getHow() == Identification.How.xpath) {
+			result.append(identification.getValue().replaceAll("\\[\\d+\\]", ""));
+		} else {
+			result.append(identification);
+		}
+		return result.append(' ').append(candidate.getRelatedFrame()).toString();
+	}
+
+	/**
+	 * The outcomes of the events on one class of elements.
+	 */
+	private static final class Yield {
+
+		private final AtomicInteger changed = new AtomicInteger();
+		private final AtomicInteger unchanged = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+
+		/**
+		 * @return whether the yield became low with this outcome.
+		 */
+		synchronized boolean record(Outcome outcome, int observations, double minimumYield) {
+			boolean wasLow = isLow(observations, minimumYield);
+			switch (outcome) {
+				case CHANGED:
+					changed.incrementAndGet();
+					break;
+				case UNCHANGED:
+					unchanged.incrementAndGet();
+					break;
+				default:
+					failed.incrementAndGet();
+			}
+			return !wasLow && isLow(observations, minimumYield);
+		}
+
+		boolean isLow(int observations, double minimumYield) {
+			int successes = changed.get();
+			int fired = successes + unchanged.get() + failed.get();
+			return fired >= observations && successes < minimumYield * fired;
+		}
+
+		@Override
+		public String toString() {
+			return changed + " changed, " + unchanged + " unchanged and " + failed + " failed";
+		}
+	}
+}
@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import com.crawljax.core.ExitNotifier.ExitStatus;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.plugin.Plugins;
+import com.crawljax.core.state.DomInvariantChecker;
 import com.crawljax.core.state.StateVertex;
 import com.crawljax.di.CrawlSessionProvider;
 
@@ -38,19 +39,26 @@ public class CrawlController implements Callable<CrawlSession> {
 
 	private final ExitNotifier exitNotifier;
 
+	private final DomInvariantChecker domInvariantChecker;
+
+	private final LinkHarvester linkHarvester;
+
 	private ExitStatus exitReason;
 
 	@Inject
 	CrawlController(ExecutorService executor,
 			Provider<CrawlTaskConsumer> consumerFactory,
 			CrawljaxConfiguration config, ExitNotifier exitNotifier,
-			CrawlSessionProvider crawlSessionProvider, Plugins plugins) {
+			CrawlSessionProvider crawlSessionProvider, Plugins plugins,
+			DomInvariantChecker domInvariantChecker, LinkHarvester linkHarvester) {
 		this.executor = executor;
 		this.consumerFactory = consumerFactory;
 		this.exitNotifier = exitNotifier;
 		this.config = config;
 		this.plugins = plugins;
 		this.crawlSessionProvider = crawlSessionProvider;
+		this.domInvariantChecker = domInvariantChecker;
+		this.linkHarvester = linkHarvester;
 		this.maximumCrawlTime = config.getMaximumRuntime();
 	}
 
@@ -74,6 +82,8 @@ public class CrawlController implements Callable<CrawlSession> {
 			if (!executor.isShutdown()) {
 				executor.shutdownNow();
 			}
+			linkHarvester.shutdown();
+			crawlSessionProvider.close();
 		}
 	}
 
@@ -130,6 +140,7 @@ public class CrawlController implements Callable<CrawlSession> {
 			exitReason = ExitStatus.ERROR;
 		} finally {
 			shutDown();
+			domInvariantChecker.awaitTermination();
 			plugins.runPostCrawlingPlugins(crawlSessionProvider.get(),
 					exitReason);
 			LOG.info("Shutdown process complete");
@@ -3,7 +3,7 @@ package com.crawljax.core;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -11,6 +11,7 @@ import javax.inject.Singleton;
 import com.codahale.metrics.MetricRegistry;
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.state.CrawlPathTrie;
 import com.crawljax.core.state.Eventable;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateVertex;
@@ -25,11 +26,10 @@ public class CrawlSession {
 	private final StateFlowGraph stateFlowGraph;
 
 	/**
-	 * This ConcurrentLinkedQueue holds all the Paths that are executed during the CrawlSession so
-	 * far.
+	 * This trie holds all the Paths that are executed during the CrawlSession so far. Paths share
+	 * the nodes of their common prefixes.
 	 */
-	private final Collection<List<Eventable>> crawlPaths =
-	        new ConcurrentLinkedQueue<List<Eventable>>();
+	private final CrawlPathTrie crawlPaths = new CrawlPathTrie();
 
 	private final StateVertex initialState;
 
@@ -60,10 +60,23 @@ public class CrawlSession {
 	}
 
 	/**
-	 * @return the crawlPaths
+	 * @return a read-only view of the crawlPaths, in the order they were added. Each path is
+	 *         copied out of the trie when the iterator reaches it.
+	 * @see #forEachCrawlPath(Consumer)
 	 */
 	public Collection<List<Eventable>> getCrawlPaths() {
-		return crawlPaths;
+		return crawlPaths.asCollection();
+	}
+
+	/**
+	 * Streams the crawlPaths without copying them. The list given to the consumer is only valid
+	 * for the duration of the call.
+	 * 
+	 * @param consumer
+	 *            the consumer of the paths.
+	 */
+	public void forEachCrawlPath(Consumer<? super List<Eventable>> consumer) {
+		crawlPaths.forEachPath(consumer);
 	}
 
 	/**
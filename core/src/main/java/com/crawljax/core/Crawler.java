@@ -1,7 +1,13 @@
 package com.crawljax.core;
 
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -17,17 +23,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.browser.StaticHtmlEmbeddedBrowser;
 import com.crawljax.condition.browserwaiter.WaitConditionChecker;
+import com.crawljax.core.CandidateYields.Outcome;
+import com.crawljax.core.LinkHarvester.HarvestedPage;
 import com.crawljax.core.configuration.CrawlRules;
+import com.crawljax.core.configuration.CrawlRules.ExploredLinkPolicy;
+import com.crawljax.core.configuration.CrawlRules.LowYieldPolicy;
 import com.crawljax.core.configuration.CrawlScope;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.plugin.Plugins;
 import com.crawljax.core.state.CrawlPath;
 import com.crawljax.core.state.Element;
+import com.crawljax.core.state.DomInvariantChecker;
 import com.crawljax.core.state.Eventable;
 import com.crawljax.core.state.Eventable.EventType;
 import com.crawljax.core.state.Identification;
-import com.crawljax.core.state.InMemoryStateFlowGraph;
+import com.crawljax.core.state.MutableStateFlowGraph;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateMachine;
 import com.crawljax.core.state.StateVertex;
@@ -37,7 +49,7 @@ import com.crawljax.di.CoreModule.FormHandlerFactory;
 import com.crawljax.forms.FormHandler;
 import com.crawljax.forms.FormInput;
 import com.crawljax.oraclecomparator.StateComparator;
-import com.crawljax.util.ElementResolver;
+import com.crawljax.util.ElementResolverCache;
 import com.crawljax.util.UrlUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -49,6 +61,7 @@ public class Crawler {
 	private final AtomicInteger crawlDepth = new AtomicInteger();
 	private final int maxDepth;
 	private final EmbeddedBrowser browser;
+	private final ElementResolverCache elementResolver;
 	private final CrawlerContext context;
 	private final StateComparator stateComparator;
 	private final URI url;
@@ -60,9 +73,15 @@ public class Crawler {
 	private final WaitConditionChecker waitConditionChecker;
 	private final CandidateElementExtractor candidateExtractor;
 	private final UnfiredCandidateActions candidateActionCache;
-	private final Provider<InMemoryStateFlowGraph> graphProvider;
+	private final Provider<MutableStateFlowGraph> graphProvider;
 	private final StateVertexFactory vertexFactory;
 	private final ExitNotifier exitNotifier;
+	private final DomInvariantChecker domInvariantChecker;
+	private final LinkHarvester linkHarvester;
+	private final ExploredUrls exploredUrls;
+	private final CandidateYields candidateYields;
+	private final StaticHtmlEmbeddedBrowser linkBrowser;
+	private final CandidateElementExtractor linkExtractor;
 
 	private CrawlPath crawlpath;
 	private StateMachine stateMachine;
@@ -72,13 +91,17 @@ public class Crawler {
 	        StateComparator stateComparator, UnfiredCandidateActions candidateActionCache,
 	        FormHandlerFactory formHandlerFactory, WaitConditionChecker waitConditionChecker,
 	        CandidateElementExtractorFactory elementExtractor,
-	        Provider<InMemoryStateFlowGraph> graphProvider, Plugins plugins,
-	        StateVertexFactory vertexFactory, ExitNotifier exitNotifier) {
+	        Provider<MutableStateFlowGraph> graphProvider, Plugins plugins,
+	        StateVertexFactory vertexFactory, ExitNotifier exitNotifier,
+	        DomInvariantChecker domInvariantChecker, LinkHarvester linkHarvester,
+	        ExploredUrls exploredUrls, CandidateYields candidateYields) {
 		this.context = context;
 		this.graphProvider = graphProvider;
 		this.vertexFactory = vertexFactory;
 		this.exitNotifier = exitNotifier;
+		this.domInvariantChecker = domInvariantChecker;
 		this.browser = context.getBrowser();
+		this.elementResolver = new ElementResolverCache(browser);
 		this.url = config.getUrl();
 		this.basicAuthUrl = config.getBasicAuthUrl();
 		this.crawlScope = config.getCrawlScope();
@@ -90,6 +113,17 @@ public class Crawler {
 		this.waitConditionChecker = waitConditionChecker;
 		this.candidateExtractor = elementExtractor.newExtractor(browser);
 		this.formHandler = formHandlerFactory.newFormHandler(browser);
+		this.linkHarvester = linkHarvester;
+		this.exploredUrls = exploredUrls;
+		this.candidateYields = candidateYields;
+		if (linkHarvester.isEnabled()) {
+			this.linkBrowser = new StaticHtmlEmbeddedBrowser(crawlRules.getPreCrawlConfig()
+			        .getFilterAttributeNames(), config.getProxyConfiguration());
+			this.linkExtractor = elementExtractor.newExtractor(linkBrowser);
+		} else {
+			this.linkBrowser = null;
+			this.linkExtractor = null;
+		}
 	}
 
 	/**
@@ -109,7 +143,7 @@ public class Crawler {
 		}
 		stateMachine =
 		        new StateMachine(graphProvider.get(), crawlRules.getInvariants(), plugins,
-		                stateComparator);
+		                stateComparator, domInvariantChecker);
 		context.setStateMachine(stateMachine);
 		crawlpath = new CrawlPath();
 		context.setCrawlPath(crawlpath);
@@ -208,11 +242,15 @@ public class Crawler {
 	private void handleInputElements(Eventable eventable) {
 		CopyOnWriteArrayList<FormInput> formInputs = eventable.getRelatedFormInputs();
 
+		Set<FormInput> known = new HashSet<>(formInputs);
+		List<FormInput> discovered = new ArrayList<>();
 		for (FormInput formInput : formHandler.getFormInputs()) {
-			if (!formInputs.contains(formInput)) {
-				formInputs.add(formInput);
+			if (known.add(formInput)) {
+				discovered.add(formInput);
 			}
 		}
+		// one copy of the array for all new inputs
+		formInputs.addAll(discovered);
 		formHandler.handleFormElements(formInputs);
 	}
 
@@ -253,6 +291,7 @@ public class Crawler {
 			browser.closeOtherWindows();
 			return true;
 		} else {
+			elementResolver.forget(stateMachine.getCurrentState(), eventable);
 			/*
 			 * Execute the OnFireEventFailedPlugins with the current crawlPath with the crawlPath
 			 * removed 1 state to represent the path TO here.
@@ -272,7 +311,7 @@ public class Crawler {
 		EventType eventType = eventable.getEventType();
 
 		// Try to find a 'better' / 'quicker' xpath
-		String newXPath = new ElementResolver(eventable, browser).resolve();
+		String newXPath = elementResolver.resolve(stateMachine.getCurrentState(), eventable);
 		if (newXPath != null && !xpath.equals(newXPath)) {
 			LOG.debug("XPath changed from {} to {} relatedFrame: {}", xpath, newXPath,
 			        eventable.getRelatedFrame());
@@ -312,14 +351,26 @@ public class Crawler {
 		        candidateActionCache.pollActionOrNull(stateMachine.getCurrentState());
 		while (action != null && !exitNotifier.isExitCalled()) {
 			CandidateElement element = action.getCandidateElement();
-			if (element.allConditionsSatisfied(browser)) {
+			URI link = exploredLinkTarget(action, stateMachine.getCurrentState());
+			if (link != null && skipOrDefer(action, link)) {
+				LOG.debug("Not firing {} now, because {} was already explored", element, link);
+			} else if (candidateYields.isLowYield(action) && skipOrDeferLowYield(action)) {
+				LOG.debug("Not firing {} now, because similar elements rarely changed the DOM",
+				        element);
+			} else if (element.allConditionsSatisfied(browser)) {
 				Eventable event = new Eventable(element, action.getEventType());
-				handleInputElements(event);
-				waitForRefreshTagIfAny(event);
-
-				boolean fired = fireEvent(event);
-				if (fired) {
-					inspectNewState(event);
+				if (!followLinkWithoutBrowser(event, element)) {
+					handleInputElements(event);
+					waitForRefreshTagIfAny(event);
+
+					boolean fired = fireEvent(event);
+					if (fired) {
+						boolean changed = inspectNewState(event, link);
+						candidateYields.record(action,
+						        changed ? Outcome.CHANGED : Outcome.UNCHANGED);
+					} else {
+						candidateYields.record(action, Outcome.FAILED);
+					}
 				}
 			} else {
 				LOG.info(
@@ -347,16 +398,82 @@ public class Crawler {
 		}
 	}
 
-	private void inspectNewState(Eventable event) {
+	/**
+	 * @return the URL the action links to when links to explored URLs are not fired right away,
+	 *         or <code>null</code>.
+	 */
+	private URI exploredLinkTarget(CandidateCrawlAction action, StateVertex state) {
+		if (exploredUrls.getPolicy() == ExploredLinkPolicy.FIRE
+		        || action.getEventType() != EventType.click) {
+			return null;
+		}
+		return linkHarvester.linkOf(action.getCandidateElement(), state.getUrl());
+	}
+
+	/**
+	 * @return whether the link to the URL is skipped or deferred, because the URL was already
+	 *         explored.
+	 */
+	private boolean skipOrDefer(CandidateCrawlAction action, URI link) {
+		if (!exploredUrls.isExplored(link)) {
+			return false;
+		}
+		if (exploredUrls.getPolicy() == ExploredLinkPolicy.SKIP) {
+			exploredUrls.skipped();
+			return true;
+		}
+		if (action.defer()) {
+			exploredUrls.deferred();
+			candidateActionCache.addActions(ImmutableList.of(action),
+			        stateMachine.getCurrentState());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the candidate of a class with a low yield is skipped or deferred.
+	 */
+	private boolean skipOrDeferLowYield(CandidateCrawlAction action) {
+		if (candidateYields.getPolicy() == LowYieldPolicy.SKIP) {
+			candidateYields.skipped();
+			return true;
+		}
+		if (action.defer()) {
+			candidateYields.deferred();
+			candidateActionCache.addActions(ImmutableList.of(action),
+			        stateMachine.getCurrentState());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param link
+	 *            the URL of the link that was followed, or <code>null</code>.
+	 * @return whether the event left the domain or changed the DOM.
+	 */
+	private boolean inspectNewState(Eventable event, URI link) {
 		if (crawlerNotInScope()) {
 			LOG.debug("The browser left the domain/scope. Going back one state...");
 			goBackOneState();
+			return true;
+		} else if (!browser.isDomChangedSinceLastSnapshot()) {
+			LOG.debug("Dom unchanged since it was last read");
+			return false;
 		} else {
 			StateVertex newState = stateMachine.newStateFor(browser);
+			browser.markSnapshot();
 			if (domChanged(event, newState)) {
 				inspectNewDom(event, newState);
+				if (link != null) {
+					exploredUrls.explored(link.toString());
+					exploredUrls.explored(browser.getCurrentUrl());
+				}
+				return true;
 			} else {
 				LOG.debug("Dom unchanged");
+				return false;
 			}
 		}
 	}
@@ -380,7 +497,7 @@ public class Crawler {
 			}
 		} else {
 			LOG.debug("New DOM is a clone state. Continuing in that state.");
-			context.getSession().addCrawlPath(crawlpath.immutableCopy());
+			context.getSession().addCrawlPath(crawlpath);
 		}
 	}
 
@@ -390,9 +507,143 @@ public class Crawler {
 		ImmutableList<CandidateElement> extract = candidateExtractor.extract(currentState);
 
 		plugins.runPreStateCrawlingPlugins(context, extract, currentState);
+		harvestLinks(extract, currentState);
 		candidateActionCache.addActions(extract, currentState);
 	}
 
+	/**
+	 * Starts fetching the pages the links of the state point to with the cookies of the browser,
+	 * so they are ready when the links are polled.
+	 */
+	private void harvestLinks(ImmutableList<CandidateElement> candidates, StateVertex state) {
+		if (!linkHarvester.isEnabled()) {
+			return;
+		}
+		boolean cookiesShared = false;
+		for (CandidateElement candidate : candidates) {
+			URI link = linkHarvester.linkOf(candidate, state.getUrl());
+			if (link != null && !cookiesShared) {
+				cookiesShared = linkHarvester.useCookiesOf(browser);
+				if (!cookiesShared) {
+					return;
+				}
+			}
+			if (link != null) {
+				linkHarvester.harvest(link);
+			}
+		}
+	}
+
+	/**
+	 * Follows the link outside the browser when the page it points to does not need the browser.
+	 * The pages are crawled breadth first, waiting for each page for at most
+	 * {@link LinkHarvester#WAIT} before its link is left to the browser.
+	 * 
+	 * @return whether the link was followed.
+	 */
+	private boolean followLinkWithoutBrowser(Eventable event, CandidateElement element) {
+		if (!linkHarvester.isEnabled() || event.getEventType() != EventType.click) {
+			return false;
+		}
+		StateVertex current = stateMachine.getCurrentState();
+		URI link = linkHarvester.linkOf(element, current.getUrl());
+		if (link == null) {
+			return false;
+		}
+		HarvestedPage page = linkHarvester.awaitPage(link);
+		if (page == null || page.needsBrowser()) {
+			return false;
+		}
+		LOG.debug("Following {} without the browser", link);
+		Deque<StaticLink> links = new ArrayDeque<>();
+		links.add(new StaticLink(current, crawlpath.immutableCopy(), crawlDepth.get(), event,
+		        link, page));
+		while (!links.isEmpty() && !exitNotifier.isExitCalled()) {
+			crawlStaticPage(links.poll(), links);
+		}
+		return true;
+	}
+
+	/**
+	 * Crawls a page that does not need the browser in the {@link #linkBrowser}. Links to other
+	 * such pages are added to the links to crawl, and links to pages that need the browser are
+	 * left to the browsers.
+	 */
+	private void crawlStaticPage(StaticLink link, Deque<StaticLink> links) {
+		linkBrowser.load(link.page.getUrl(), link.page.getHtml());
+		StateVertex newState = stateMachine.newStateFor(linkBrowser);
+		CrawlPath path = CrawlPath.copyOf(link.path);
+		path.add(link.event);
+		path = path.immutableCopy();
+		CrawlerContext linkContext = context.inBrowser(linkBrowser, newState, path);
+		if (!plugins.runDomChangeNotifierPlugins(linkContext, link.from, link.event, newState)) {
+			LOG.debug("Dom unchanged");
+			return;
+		}
+		StateVertex state = stateMachine.addStateFrom(link.from, link.event, newState,
+		        linkContext);
+		exploredUrls.explored(link.url.toString());
+		exploredUrls.explored(link.page.getUrl().toString());
+		int depth = link.depth + 1;
+		if (state != newState || maxDepth == depth) {
+			context.getSession().addCrawlPath(path);
+			return;
+		}
+		ImmutableList<CandidateElement> extract = linkExtractor.extract(newState);
+		plugins.runPreStateCrawlingPlugins(linkContext, extract, newState);
+		List<CandidateElement> candidates = new ArrayList<>(extract.size());
+		List<URI> urls = new ArrayList<>(extract.size());
+		for (CandidateElement candidate : extract) {
+			URI url = linkHarvester.linkOf(candidate, newState.getUrl());
+			if (url != null && exploredUrls.getPolicy() == ExploredLinkPolicy.SKIP
+			        && exploredUrls.isExplored(url)) {
+				exploredUrls.skipped();
+			} else if (url != null && candidate.allConditionsSatisfied(linkBrowser)) {
+				linkHarvester.harvest(url);
+				candidates.add(candidate);
+				urls.add(url);
+			}
+		}
+		List<CandidateElement> dynamic = new ArrayList<>();
+		int queued = links.size();
+		for (int i = 0; i < candidates.size(); i++) {
+			HarvestedPage page = linkHarvester.awaitPage(urls.get(i));
+			if (page == null || page.needsBrowser()) {
+				dynamic.add(candidates.get(i));
+			} else {
+				links.add(new StaticLink(newState, path, depth, new Eventable(candidates.get(i),
+				        EventType.click), urls.get(i), page));
+			}
+		}
+		candidateActionCache.addActions(ImmutableList.copyOf(dynamic), newState);
+		if (links.size() == queued) {
+			context.getSession().addCrawlPath(path);
+		}
+	}
+
+	/**
+	 * A link to a page that does not need the browser.
+	 */
+	private static final class StaticLink {
+
+		private final StateVertex from;
+		private final CrawlPath path;
+		private final int depth;
+		private final Eventable event;
+		private final URI url;
+		private final HarvestedPage page;
+
+		StaticLink(StateVertex from, CrawlPath path, int depth, Eventable event, URI url,
+		        HarvestedPage page) {
+			this.from = from;
+			this.path = path;
+			this.depth = depth;
+			this.event = event;
+			this.url = url;
+			this.page = page;
+		}
+	}
+
 	private void waitForRefreshTagIfAny(final Eventable eventable) {
 		if ("meta".equalsIgnoreCase(eventable.getElement().getTag())) {
 			Pattern p = Pattern.compile("(\\d+);\\s+URL=(.*)");
@@ -450,9 +701,12 @@ public class Crawler {
 
 		browser.goToUrl(url);
 		plugins.runOnUrlLoadPlugins(context);
+		exploredUrls.explored(url.toString());
+		exploredUrls.explored(browser.getCurrentUrl());
 		StateVertex index =
 		        vertexFactory.createIndex(url.toString(), browser.getStrippedDom(),
 		                stateComparator.getStrippedDom(browser));
+		browser.markSnapshot();
 		Preconditions.checkArgument(index.getId() == StateVertex.INDEX_ID,
 		        "It seems some the index state is crawled more than once.");
 
@@ -461,6 +715,7 @@ public class Crawler {
 
 		plugins.runPreStateCrawlingPlugins(context, extract, index);
 
+		harvestLinks(extract, index);
 		candidateActionCache.addActions(extract, index);
 
 		return index;
@@ -4,6 +4,7 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 
 import com.codahale.metrics.MetricRegistry;
+import com.crawljax.browser.DetachedEmbeddedBrowser;
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.ExitNotifier.ExitStatus;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
@@ -104,4 +105,74 @@ public class CrawlerContext {
 		return crawlpath.immutableCopy();
 	}
 
+	/**
+	 * @return A {@link #snapshot(StateVertex) snapshot} of this context in its current
+	 *         {@link StateVertex}.
+	 */
+	public CrawlerContext snapshot() {
+		return snapshot(getCurrentState());
+	}
+
+	/**
+	 * @param state
+	 *            the state the crawler has just found, which may not be its current state yet.
+	 * @return A copy of this context that is in the given {@link StateVertex} and keeps the
+	 *         {@link CrawlPath} of this moment, for plugins that run on other threads after the
+	 *         {@link Crawler} has moved on. Its browser is a {@link DetachedEmbeddedBrowser} that
+	 *         only shows the URL and DOM of the state, because the browser of this context is not
+	 *         thread safe and keeps crawling.
+	 */
+	public CrawlerContext snapshot(StateVertex state) {
+		return new Snapshot(this, new DetachedEmbeddedBrowser(state), state,
+		        crawlpath == null ? null : getCrawlPath());
+	}
+
+	/**
+	 * @param otherBrowser
+	 *            the browser that shows the state.
+	 * @param state
+	 *            the state.
+	 * @param path
+	 *            the path to the state.
+	 * @return A context for the same crawl that is in the given state in another browser, for the
+	 *         pages that are crawled without the browser of the {@link Crawler}. Its
+	 *         {@link #snapshot(StateVertex) snapshots} are detached from that browser too, because
+	 *         it loads the next page while they are used.
+	 */
+	CrawlerContext inBrowser(EmbeddedBrowser otherBrowser, StateVertex state, CrawlPath path) {
+		return new Snapshot(this, otherBrowser, state, path);
+	}
+
+	private static final class Snapshot extends CrawlerContext {
+
+		private final StateVertex currentState;
+		private final CrawlPath crawlPath;
+
+		Snapshot(CrawlerContext context, EmbeddedBrowser browser, StateVertex currentState,
+		        CrawlPath crawlPath) {
+			super(browser, context.config, context.sessionProvider, context.exitNotifier,
+			        context.registry);
+			this.currentState = currentState;
+			this.crawlPath = crawlPath;
+		}
+
+		@Override
+		public StateVertex getCurrentState() {
+			return currentState;
+		}
+
+		@Override
+		public CrawlPath getCrawlPath() {
+			return crawlPath;
+		}
+
+		@Override
+		public CrawlerContext snapshot(StateVertex state) {
+			if (state == currentState && getBrowser() instanceof DetachedEmbeddedBrowser) {
+				return this;
+			}
+			return new Snapshot(this, new DetachedEmbeddedBrowser(state), state, crawlPath);
+		}
+	}
+
 }
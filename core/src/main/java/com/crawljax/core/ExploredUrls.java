@@ -0,0 +1,87 @@
+package com.crawljax.core;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.core.configuration.CrawlRules;
+import com.crawljax.core.configuration.CrawlRules.ExploredLinkPolicy;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.metrics.MetricsModule;
+import com.crawljax.util.UrlCanonicalizer;
+
+/**
+ * The canonical URLs of the pages that were reached by loading them, so links to them can be
+ * skipped or deferred: following such a link leads to a clone of a state that is already
+ * explored.
+ *
+ * @see CrawlRules#getExploredLinkPolicy()
+ */
+@Singleton
+@ThreadSafe
+public class ExploredUrls {
+
+	private final ExploredLinkPolicy policy;
+	private final UrlCanonicalizer canonicalizer;
+	private final Set<String> explored = ConcurrentHashMap.newKeySet();
+	private final Counter skipped;
+	private final Counter deferred;
+
+	@Inject
+	ExploredUrls(CrawljaxConfiguration config, MetricRegistry registry) {
+		this.policy = config.getCrawlRules().getExploredLinkPolicy();
+		this.canonicalizer = config.getCrawlRules().getUrlCanonicalizer();
+		this.skipped =
+		        registry.counter(MetricsModule.EVENTS_PREFIX + "skipped_explored_links");
+		this.deferred =
+		        registry.counter(MetricsModule.EVENTS_PREFIX + "deferred_explored_links");
+	}
+
+	/**
+	 * @return what to do with links to explored URLs.
+	 */
+	ExploredLinkPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @param url
+	 *            a URL that was loaded and became a state.
+	 */
+	void explored(String url) {
+		if (policy != ExploredLinkPolicy.FIRE) {
+			explored.add(canonicalizer.canonicalize(url));
+		}
+	}
+
+	/**
+	 * @param url
+	 *            the URL a link points to.
+	 * @return whether the URL was loaded before.
+	 */
+	boolean isExplored(URI url) {
+		return explored.contains(canonicalizer.canonicalize(url));
+	}
+
+	void skipped() {
+		skipped.inc();
+	}
+
+	void deferred() {
+		deferred.inc();
+	}
+
+	/**
+	 * @return the number of links that were not fired because they lead to an explored URL.
+	 */
+	public long getSkippedLinks() {
+		return skipped.getCount();
+	}
+}
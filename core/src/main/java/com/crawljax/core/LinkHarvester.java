@@ -0,0 +1,476 @@
+package com.crawljax.core;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.browser.StaticHtmlEmbeddedBrowser;
+import com.crawljax.condition.Condition;
+import com.crawljax.condition.ConditionType;
+import com.crawljax.condition.DomCondition;
+import com.crawljax.condition.NotUrlCondition;
+import com.crawljax.condition.UrlCondition;
+import com.crawljax.condition.eventablecondition.EventableCondition;
+import com.crawljax.core.configuration.CrawlRules;
+import com.crawljax.core.configuration.CrawlScope;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.metrics.MetricsModule;
+import com.crawljax.oraclecomparator.OracleComparator;
+import com.crawljax.util.DomUtils;
+import com.crawljax.util.UrlUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Fetches the pages that plain links point to over HTTP, outside the browser, for the hybrid
+ * crawl. Every URL is fetched once by a pool of connections, in the background while the browser
+ * is busy, and the page is parsed to decide whether it needs the browser: pages with scripts,
+ * event handlers, forms or frames do, because what happens in them depends on the browser.
+ * <p>
+ * The pages are fetched with the basic authentication of the configuration and the cookies of
+ * the browsers, which are {@link #useCookiesOf(EmbeddedBrowser) shared} before their links are
+ * harvested. The harvester is disabled when a browser cannot share them. Every URL is remembered
+ * with whether its page needs the browser, but only a bounded amount of HTML is kept for the
+ * pages that do not, which are fetched again when their HTML was dropped. The threads that fetch
+ * the pages are stopped by {@link #shutdown()}.
+ *
+ * @see CrawlRules#isHybridCrawl()
+ */
+@Singleton
+@ThreadSafe
+public class LinkHarvester {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LinkHarvester.class);
+
+	/**
+	 * The number of pages that are fetched at the same time.
+	 */
+	static final int THREADS = 4;
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * How long the crawler waits for a page before it leaves the link to the browser. The page is
+	 * still fetched in the background, so it is ready when it is linked to again.
+	 */
+	static final Duration WAIT = Duration.ofSeconds(5);
+
+	/**
+	 * The total length of the HTML of the pages that do not need the browser that is kept until
+	 * the pages are crawled.
+	 */
+	private static final long MAX_HTML_CHARS = 16 * 1024 * 1024;
+
+	private static final ImmutableSet<String> DYNAMIC_TAGS = ImmutableSet.of("SCRIPT", "FORM",
+	        "IFRAME", "FRAME", "FRAMESET", "OBJECT", "EMBED", "APPLET");
+
+	private final AtomicBoolean enabled;
+	private final CrawlScope crawlScope;
+	private final CookieManager cookies = new CookieManager();
+	private final ExecutorService executor;
+	private final HttpClient client;
+	private final URI authorizedUrl;
+	private final String authorization;
+	private final ConcurrentMap<URI, CompletableFuture<HarvestedPage>> pages =
+	        new ConcurrentHashMap<>();
+	private final Cache<URI, String> htmls = CacheBuilder.newBuilder()
+	        .maximumWeight(MAX_HTML_CHARS).weigher((URI url, String html) -> html.length())
+	        .build();
+	private final Counter fetched;
+	private final Counter duplicates;
+	private final Counter failures;
+	private final Counter late;
+	private final Counter staticPages;
+	private final Counter dynamicPages;
+
+	@Inject
+	LinkHarvester(CrawljaxConfiguration config, MetricRegistry registry) {
+		CrawlRules rules = config.getCrawlRules();
+		boolean browserFree = conditionsAreBrowserFree(rules);
+		this.enabled = new AtomicBoolean(rules.isHybridCrawl() && browserFree);
+		if (rules.isHybridCrawl() && !browserFree) {
+			LOG.info("Not crawling pages outside the browser, because some invariants, crawl "
+			        + "conditions or comparator preconditions need the browser");
+		}
+		this.crawlScope = config.getCrawlScope();
+		this.executor = enabled.get() ? Executors.newFixedThreadPool(THREADS,
+		        new ThreadFactoryBuilder().setNameFormat("Crawljax-Links-%d").setDaemon(true)
+		                .build()) : null;
+		this.client = enabled.get() ? StaticHtmlEmbeddedBrowser
+		        .newHttpClient(config.getProxyConfiguration())
+		        .cookieHandler(cookies)
+		        .executor(executor)
+		        .build() : null;
+		this.authorizedUrl = config.getUrl();
+		this.authorization = authorizationOf(config.getBasicAuthUrl());
+		this.fetched = registry.counter(MetricsModule.LINKS_PREFIX + "fetched");
+		this.duplicates = registry.counter(MetricsModule.LINKS_PREFIX + "duplicates");
+		this.failures = registry.counter(MetricsModule.LINKS_PREFIX + "failures");
+		this.late = registry.counter(MetricsModule.LINKS_PREFIX + "late");
+		this.staticPages = registry.counter(MetricsModule.LINKS_PREFIX + "static_pages");
+		this.dynamicPages = registry.counter(MetricsModule.LINKS_PREFIX + "dynamic_pages");
+	}
+
+	private static boolean conditionsAreBrowserFree(CrawlRules rules) {
+		for (ConditionType invariant : rules.getInvariants()) {
+			if (!isBrowserFree(invariant)) {
+				return false;
+			}
+		}
+		for (ConditionType crawlCondition : rules.getPreCrawlConfig().getCrawlConditions()) {
+			if (!isBrowserFree(crawlCondition)) {
+				return false;
+			}
+		}
+		for (OracleComparator comparator : rules.getOracleComparators()) {
+			if (!areBrowserFree(comparator.getPreConditions())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isBrowserFree(ConditionType type) {
+		return isBrowserFree(type.getCondition()) && areBrowserFree(type.getPreConditions());
+	}
+
+	private static boolean areBrowserFree(List<Condition> conditions) {
+		if (conditions != null) {
+			for (Condition condition : conditions) {
+				if (!isBrowserFree(condition)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the condition gives the same answer in a browser without JavaScript.
+	 */
+	static boolean isBrowserFree(Condition condition) {
+		return condition instanceof DomCondition || condition instanceof UrlCondition
+		        || condition instanceof NotUrlCondition;
+	}
+
+	/**
+	 * @return the value of the <code>Authorization</code> header for the user and password of the
+	 *         URL, or <code>null</code> if there are none.
+	 */
+	private static String authorizationOf(URI basicAuthUrl) {
+		if (basicAuthUrl == null || basicAuthUrl.getRawUserInfo() == null) {
+			return null;
+		}
+		String[] userInfo = basicAuthUrl.getRawUserInfo().split(":", 2);
+		String credentials = URLDecoder.decode(userInfo[0], StandardCharsets.UTF_8) + ":"
+		        + (userInfo.length > 1
+		                ? URLDecoder.decode(userInfo[1], StandardCharsets.UTF_8) : "");
+		return "Basic " + Base64.getEncoder().encodeToString(
+		        credentials.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return whether pages are crawled outside the browser.
+	 */
+	public boolean isEnabled() {
+		return enabled.get();
+	}
+
+	/**
+	 * Stops fetching pages and the threads that fetch them, when the crawl is done.
+	 */
+	public void shutdown() {
+		enabled.set(false);
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param candidate
+	 *            the candidate element.
+	 * @param pageUrl
+	 *            the URL of the page the candidate is in.
+	 * @return the in-scope URL the candidate links to, or <code>null</code> if clicking it may do
+	 *         more than following a link to another page.
+	 */
+	URI linkOf(CandidateElement candidate, String pageUrl) {
+		Element element = candidate.getElement();
+		if (element == null || !"A".equalsIgnoreCase(element.getNodeName())
+		        || !candidate.getRelatedFrame().isEmpty()
+		        || !candidate.getFormInputs().isEmpty()
+		        || !isBrowserFree(candidate.getEventableCondition())
+		        || hasEventHandlers(element)) {
+			return null;
+		}
+		String href = element.getAttribute("href").trim();
+		String target = element.getAttribute("target");
+		if (href.isEmpty() || !target.isEmpty() && !target.matches("(?i)_(self|top|parent)")) {
+			return null;
+		}
+		try {
+			URI base = URI.create(pageUrl);
+			NodeList bases = element.getOwnerDocument().getElementsByTagName("BASE");
+			if (bases.getLength() > 0) {
+				String baseHref = ((Element) bases.item(0)).getAttribute("href").trim();
+				if (!baseHref.isEmpty()) {
+					base = UrlUtils.extractNewUrl(pageUrl, baseHref);
+				}
+			}
+			URI url = UrlUtils.extractNewUrl(base.toString(), href);
+			if (!"http".equalsIgnoreCase(url.getScheme())
+			        && !"https".equalsIgnoreCase(url.getScheme())
+			        || withoutFragment(url).equals(withoutFragment(URI.create(pageUrl)))
+			        || !crawlScope.isInScope(url.toString())) {
+				return null;
+			}
+			return url;
+		} catch (IllegalArgumentException e) {
+			LOG.debug("Cannot fetch {}: {}", href, e.getMessage());
+			return null;
+		}
+	}
+
+	private static boolean isBrowserFree(EventableCondition condition) {
+		return condition == null || areBrowserFree(condition.getConditions());
+	}
+
+	private static boolean hasEventHandlers(Element element) {
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			String name = attributes.item(i).getNodeName().toLowerCase(Locale.ROOT);
+			String value = attributes.item(i).getNodeValue().trim().toLowerCase(Locale.ROOT);
+			if (name.startsWith("on") || value.startsWith("javascript:")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static URI withoutFragment(URI url) {
+		String string = url.toString();
+		int fragment = string.indexOf('#');
+		return fragment < 0 ? url : URI.create(string.substring(0, fragment));
+	}
+
+	/**
+	 * Fetches the next pages with the cookies the browser sends to its current page, so pages that
+	 * depend on a session look like they do in the browser.
+	 *
+	 * @param browser
+	 *            the browser to take the cookies from.
+	 * @return whether the browser could tell its cookies. When it cannot, the harvester is
+	 *         {@link #isEnabled() disabled} and the links are left to the browsers.
+	 */
+	boolean useCookiesOf(EmbeddedBrowser browser) {
+		List<HttpCookie> shared = browser.getCookies();
+		if (shared == null) {
+			if (enabled.compareAndSet(true, false)) {
+				LOG.info("Not crawling pages outside the browser, because {} cannot share its "
+				        + "cookies", browser);
+			}
+			return false;
+		}
+		URI page = URI.create(browser.getCurrentUrl());
+		for (HttpCookie cookie : shared) {
+			HttpCookie copy = (HttpCookie) cookie.clone();
+			if (copy.getPath() == null) {
+				copy.setPath("/");
+			}
+			cookies.getCookieStore().add(page, copy);
+		}
+		return true;
+	}
+
+	/**
+	 * Starts fetching the page in the background, unless it was fetched before.
+	 *
+	 * @param url
+	 *            the URL of the page.
+	 * @return the page, which is <code>null</code> when it could not be fetched as HTML.
+	 */
+	CompletableFuture<HarvestedPage> harvest(URI url) {
+		URI key = withoutFragment(url);
+		CompletableFuture<HarvestedPage> page = new CompletableFuture<>();
+		CompletableFuture<HarvestedPage> existing = pages.putIfAbsent(key, page);
+		if (existing != null) {
+			duplicates.inc();
+			return existing;
+		}
+		fetched.inc();
+		HttpRequest.Builder request = HttpRequest.newBuilder(key).timeout(TIMEOUT);
+		if (authorization != null && isAuthorized(key)) {
+			request.header("Authorization", authorization);
+		}
+		client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+		        .handle((response, error) -> toPage(key, response, error))
+		        .thenAccept(page::complete);
+		return page;
+	}
+
+	private boolean isAuthorized(URI url) {
+		return authorizedUrl.getHost().equalsIgnoreCase(url.getHost())
+		        && authorizedUrl.getPort() == url.getPort();
+	}
+
+	/**
+	 * Waits for the page the link points to, for at most {@link #WAIT}. When the HTML of a page
+	 * that does not need the browser is no longer kept, the page is fetched again.
+	 *
+	 * @param url
+	 *            the URL of the page.
+	 * @return the page with its HTML, or <code>null</code> when it could not be fetched as HTML in
+	 *         time.
+	 */
+	HarvestedPage awaitPage(URI url) {
+		URI key = withoutFragment(url);
+		CompletableFuture<HarvestedPage> future = harvest(key);
+		HarvestedPage page = await(key, future);
+		if (page != null && !page.needsBrowser() && htmls.getIfPresent(key) == null) {
+			LOG.debug("Fetching {} again, because its HTML was dropped", key);
+			pages.remove(key, future);
+			page = await(key, harvest(key));
+		}
+		if (page == null || page.needsBrowser()) {
+			return page;
+		}
+		String html = htmls.getIfPresent(key);
+		return html == null ? null : page.withHtml(html);
+	}
+
+	private HarvestedPage await(URI url, CompletableFuture<HarvestedPage> page) {
+		try {
+			return page.get(WAIT.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			LOG.debug("Could not fetch {} in time: {}", url, e.getMessage());
+			late.inc();
+		}
+		return null;
+	}
+
+	private HarvestedPage toPage(URI url, HttpResponse<String> response, Throwable error) {
+		if (error != null || response.statusCode() / 100 != 2 || !isHtml(response)) {
+			LOG.debug("Could not fetch {} as HTML: {}", url,
+			        error == null ? response.statusCode() : error.getMessage());
+			failures.inc();
+			return null;
+		}
+		try {
+			boolean needsBrowser = needsBrowser(DomUtils.asDocument(response.body()));
+			(needsBrowser ? dynamicPages : staticPages).inc();
+			if (!needsBrowser) {
+				htmls.put(url, response.body());
+			}
+			return new HarvestedPage(response.uri(), null, needsBrowser);
+		} catch (IOException e) {
+			LOG.debug("Could not parse {}: {}", url, e.getMessage());
+			failures.inc();
+			return null;
+		}
+	}
+
+	private static boolean isHtml(HttpResponse<?> response) {
+		String type = response.headers().firstValue("Content-Type").orElse("text/html");
+		return type.toLowerCase(Locale.ROOT).contains("html");
+	}
+
+	/**
+	 * @param document
+	 *            the page.
+	 * @return whether the page has scripts, event handlers, forms, frames or plugins, or refreshes
+	 *         itself.
+	 */
+	static boolean needsBrowser(Document document) {
+		NodeList elements = document.getElementsByTagName("*");
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			String tag = element.getNodeName().toUpperCase(Locale.ROOT);
+			if (DYNAMIC_TAGS.contains(tag) || hasEventHandlers(element)
+			        || "META".equals(tag)
+			        && "refresh".equalsIgnoreCase(element.getAttribute("http-equiv"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A page that was fetched outside the browser.
+	 */
+	static final class HarvestedPage {
+
+		private final URI url;
+		private final String html;
+		private final boolean needsBrowser;
+
+		HarvestedPage(URI url, String html, boolean needsBrowser) {
+			this.url = url;
+			this.html = html;
+			this.needsBrowser = needsBrowser;
+		}
+
+		/**
+		 * @return the URL of the page, after redirects.
+		 */
+		URI getUrl() {
+			return url;
+		}
+
+		/**
+		 * @return the HTML of the page, or <code>null</code> when it was not
+		 *         {@link LinkHarvester#awaitPage(URI) awaited}.
+		 */
+		String getHtml() {
+			return html;
+		}
+
+		HarvestedPage withHtml(String html) {
+			return new HarvestedPage(url, html, needsBrowser);
+		}
+
+		/**
+		 * @return whether the page has to be crawled in the browser.
+		 */
+		boolean needsBrowser() {
+			return needsBrowser;
+		}
+	}
+}
@@ -25,6 +25,12 @@ public class BrowserConfiguration {
 	 */
 	public static final long BROWSER_SLEEP_FAILURE = TimeUnit.SECONDS.toMillis(10);
 
+	/**
+	 * The default maximum length of the changed subtrees of the DOM that are transferred instead
+	 * of the whole DOM, relative to the length of the last DOM.
+	 */
+	public static final double DEFAULT_DOM_PATCH_THRESHOLD = 0.5;
+
 	private static final Provider<EmbeddedBrowser> DEFAULT_BROWSER_BUILDER =
 	        new Provider<EmbeddedBrowser>() {
 
@@ -47,6 +53,9 @@ public class BrowserConfiguration {
 	private String remoteHubUrl;
 	private String lang;
 	private boolean headless;
+	private boolean trackDomChanges;
+	private double domPatchThreshold;
+	private boolean cacheBrowserState;
 
 	/**
 	 * @param numberOfBrowsers
@@ -103,6 +112,9 @@ public class BrowserConfiguration {
 		this.numberOfBrowsers = numberOfBrowsers;
 		this.browserBuilder = builder;
 		this.headless = true;
+		this.trackDomChanges = false;
+		this.domPatchThreshold = DEFAULT_DOM_PATCH_THRESHOLD;
+		this.cacheBrowserState = false;
 	}
 
 	public BrowserType getBrowsertype() {
@@ -158,6 +170,89 @@ public class BrowserConfiguration {
 		this.headless = headless;
 	}
 
+	/**
+	 * Tells whether or not the browser tracks the changes of the DOM in the page, so the DOM is
+	 * only transferred from the browser when it changed. The crawler then also takes an event
+	 * after which the DOM did not change since it was last read as not changing the state, without
+	 * comparing the DOMs.
+	 * <p>
+	 * This installs a MutationObserver in the page and its frames, so it is off by default.
+	 * 
+	 * @return {@code true} if the DOM changes are tracked, {@code false} otherwise.
+	 * @see #setTrackDomChanges(boolean)
+	 * @see com.crawljax.browser.EmbeddedBrowser#isDomChangedSinceLastSnapshot()
+	 */
+	public boolean isTrackDomChanges() {
+		return trackDomChanges;
+	}
+
+	/**
+	 * Sets whether or not the browser tracks the changes of the DOM in the page.
+	 *
+	 * @param trackDomChanges
+	 *            {@code true} if the DOM changes should be tracked, {@code false} otherwise.
+	 * @see #isTrackDomChanges()
+	 */
+	public void setTrackDomChanges(boolean trackDomChanges) {
+		this.trackDomChanges = trackDomChanges;
+	}
+
+	/**
+	 * Tells how much of the DOM may change for the browser to only transfer the changed subtrees
+	 * instead of the whole DOM, relative to the length of the last DOM. Only used when the
+	 * {@link #isTrackDomChanges() DOM changes are tracked}.
+	 * <p>
+	 * The default is {@value #DEFAULT_DOM_PATCH_THRESHOLD}.
+	 * 
+	 * @return the threshold, where {@code 0} means the whole DOM is always transferred.
+	 * @see #setDomPatchThreshold(double)
+	 */
+	public double getDomPatchThreshold() {
+		return domPatchThreshold;
+	}
+
+	/**
+	 * Sets how much of the DOM may change for the browser to only transfer the changed subtrees.
+	 *
+	 * @param domPatchThreshold
+	 *            the maximum length of the changed subtrees relative to the length of the last
+	 *            DOM, or {@code 0} to always transfer the whole DOM.
+	 * @see #getDomPatchThreshold()
+	 */
+	public void setDomPatchThreshold(double domPatchThreshold) {
+		Preconditions.checkArgument(domPatchThreshold >= 0, "The threshold cannot be negative");
+		this.domPatchThreshold = domPatchThreshold;
+	}
+
+	/**
+	 * Tells whether or not the URL and the DOM of the browser are remembered between the
+	 * operations that may change them, so they are not transferred from the browser again. Changes
+	 * the page makes by itself, for example from timers, are only noticed when
+	 * {@link #isTrackDomChanges() DOM changes are tracked}.
+	 * <p>
+	 * The default is {@code false}.
+	 * 
+	 * @return {@code true} if the state of the browser is cached, {@code false} otherwise.
+	 * @see #setCacheBrowserState(boolean)
+	 * @see com.crawljax.browser.CachingEmbeddedBrowser
+	 */
+	public boolean isCacheBrowserState() {
+		return cacheBrowserState;
+	}
+
+	/**
+	 * Sets whether or not the URL and the DOM of the browser are remembered between the
+	 * operations that may change them.
+	 *
+	 * @param cacheBrowserState
+	 *            {@code true} if the state of the browser should be cached, {@code false}
+	 *            otherwise.
+	 * @see #isCacheBrowserState()
+	 */
+	public void setCacheBrowserState(boolean cacheBrowserState) {
+		this.cacheBrowserState = cacheBrowserState;
+	}
+
 	@Override
 	public String toString() {
 		return MoreObjects.toStringHelper(this)
@@ -167,13 +262,17 @@ public class BrowserConfiguration {
 		        .add("remoteHubUrl", remoteHubUrl)
 		        .add("language", lang)
 		        .add("headless", headless)
+		        .add("trackDomChanges", trackDomChanges)
+		        .add("domPatchThreshold", domPatchThreshold)
+		        .add("cacheBrowserState", cacheBrowserState)
 		        .toString();
 	}
 
 	@Override
 	public int hashCode() {
 		return Objects.hash(browsertype, numberOfBrowsers, browserBuilder,
-		        remoteHubUrl, lang, headless);
+		        remoteHubUrl, lang, headless, trackDomChanges, domPatchThreshold,
+		        cacheBrowserState);
 	}
 
 	@Override
@@ -185,7 +284,10 @@ public class BrowserConfiguration {
 			        && Objects.equals(this.browserBuilder, that.browserBuilder)
 			        && Objects.equals(this.remoteHubUrl, that.remoteHubUrl)
 			        && Objects.equals(this.lang, that.lang)
-			        && Objects.equals(this.headless, that.headless);
+			        && Objects.equals(this.headless, that.headless)
+			        && Objects.equals(this.trackDomChanges, that.trackDomChanges)
+			        && Objects.equals(this.domPatchThreshold, that.domPatchThreshold)
+			        && Objects.equals(this.cacheBrowserState, that.cacheBrowserState);
 		}
 		return false;
 	}
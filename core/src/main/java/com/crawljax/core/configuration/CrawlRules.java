@@ -15,6 +15,7 @@ import com.crawljax.core.configuration.PreCrawlConfiguration.PreCrawlConfigurati
 import com.crawljax.core.state.Eventable.EventType;
 import com.crawljax.oraclecomparator.OracleComparator;
 import com.crawljax.oraclecomparator.comparators.SimpleComparator;
+import com.crawljax.util.UrlCanonicalizer;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -23,6 +24,57 @@ import com.google.common.collect.ImmutableSortedSet;
 
 public class CrawlRules {
 
+	/**
+	 * What to do with a link to a URL that was already reached by loading it.
+	 */
+	public enum ExploredLinkPolicy {
+		/**
+		 * Fire the link like any other candidate.
+		 */
+		FIRE,
+
+		/**
+		 * Fire the link after the other candidates of the state.
+		 */
+		DEFER,
+
+		/**
+		 * Do not fire the link, because it leads to a state that was already explored.
+		 */
+		SKIP
+	}
+
+	/**
+	 * What to do with a candidate whose class of similar elements rarely changes the DOM.
+	 */
+	public enum LowYieldPolicy {
+		/**
+		 * Fire the candidate like any other candidate.
+		 */
+		FIRE,
+
+		/**
+		 * Fire the candidate after the other candidates of the state.
+		 */
+		DEFER,
+
+		/**
+		 * Do not fire the candidate, because similar elements did not change the DOM.
+		 */
+		SKIP
+	}
+
+	/**
+	 * The default number of fired events on a class of similar elements before its yield is
+	 * judged.
+	 */
+	public static final int DEFAULT_LOW_YIELD_OBSERVATIONS = 10;
+
+	/**
+	 * The default fraction of events on a class of similar elements that should change the DOM.
+	 */
+	public static final double DEFAULT_MINIMUM_YIELD = 0.05;
+
 	public static final class CrawlRulesBuilder {
 
 		private final CrawlRules crawlRules;
@@ -271,6 +323,118 @@ public class CrawlRules {
 			return this;
 		}
 
+		/**
+		 * Crawl the pages that plain links point to without the browser when they do not need
+		 * it. The in-scope URLs of the anchors in a state are fetched in the background over
+		 * HTTP, and the pages without scripts, event handlers, forms or frames become states
+		 * without being loaded in the browser. The browsers only fire the other events and
+		 * follow the links to pages that need scripts.
+		 * <p>
+		 * Pages are only crawled without the browser when all invariants, crawl conditions and
+		 * oracle comparator preconditions only depend on the DOM or the URL, and the browser can
+		 * share its cookies. Plugins see those pages in a
+		 * {@link com.crawljax.browser.StaticHtmlEmbeddedBrowser}. The crawler waits a few seconds
+		 * at most for each page before it leaves the link to the browser.
+		 * 
+		 * @param hybrid
+		 *            Set to true to crawl static pages over HTTP. Default is <code>false</code>.
+		 */
+		public CrawlRulesBuilder hybridCrawl(boolean hybrid) {
+			crawlRules.hybridCrawl = hybrid;
+			return this;
+		}
+
+		/**
+		 * Set what to do with the links to URLs that were already reached by loading them, which
+		 * lead to a clone of a known state. The URLs are compared in their canonical form, see
+		 * {@link #canonicalizeUrls(UrlCanonicalizer)}. Only plain links are affected, not anchors
+		 * with event handlers or linked form inputs. Default is {@link ExploredLinkPolicy#FIRE}.
+		 * 
+		 * @param policy
+		 *            the policy.
+		 */
+		public CrawlRulesBuilder exploredLinks(ExploredLinkPolicy policy) {
+			crawlRules.exploredLinkPolicy = Preconditions.checkNotNull(policy);
+			return this;
+		}
+
+		/**
+		 * @param canonicalizer
+		 *            the canonicalizer that decides which URLs load the same page. Default is
+		 *            {@link UrlCanonicalizer#DEFAULT}.
+		 * @see #exploredLinks(ExploredLinkPolicy)
+		 */
+		public CrawlRulesBuilder canonicalizeUrls(UrlCanonicalizer canonicalizer) {
+			crawlRules.urlCanonicalizer = Preconditions.checkNotNull(canonicalizer);
+			return this;
+		}
+
+		/**
+		 * Match the elements of large documents against the crawl rules in parallel. The elements
+		 * are split into ranges in document order, which are matched in the common
+		 * {@link java.util.concurrent.ForkJoinPool}, and the candidates keep the order of a serial
+		 * extraction.
+		 * 
+		 * @param elements
+		 *            the number of elements from which a document is matched in parallel, or
+		 *            <code>0</code> to always match serially. Default is <code>0</code>.
+		 */
+		public CrawlRulesBuilder parallelExtractionThreshold(int elements) {
+			checkArgument(elements >= 0, "The threshold cannot be negative but was %s", elements);
+			crawlRules.parallelExtractionThreshold = elements;
+			return this;
+		}
+
+		/**
+		 * Set what to do with candidates whose class of similar elements rarely changes the DOM.
+		 * Elements are similar when they have the same tag, the same attributes other than their
+		 * id, name, href and value, the same text and the same XPath without positions, like the
+		 * same button in every row of a table. The crawler counts per class how often firing an
+		 * event changed the DOM, left it unchanged or failed, see
+		 * {@link #lowYieldThreshold(int, double)}. Default is {@link LowYieldPolicy#FIRE}.
+		 * 
+		 * @param policy
+		 *            the policy.
+		 */
+		public CrawlRulesBuilder lowYieldCandidates(LowYieldPolicy policy) {
+			crawlRules.lowYieldPolicy = Preconditions.checkNotNull(policy);
+			return this;
+		}
+
+		/**
+		 * @param observations
+		 *            the number of events fired on a class of similar elements before its yield
+		 *            is judged. Default is {@value CrawlRules#DEFAULT_LOW_YIELD_OBSERVATIONS}.
+		 * @param minimumYield
+		 *            the fraction of those events that should have changed the DOM. Default is
+		 *            {@value CrawlRules#DEFAULT_MINIMUM_YIELD}.
+		 * @see #lowYieldCandidates(LowYieldPolicy)
+		 */
+		public CrawlRulesBuilder lowYieldThreshold(int observations, double minimumYield) {
+			checkArgument(observations > 0, "The observations should be positive but were %s",
+			        observations);
+			checkArgument(minimumYield >= 0 && minimumYield <= 1,
+			        "The yield should be between 0 and 1 but was %s", minimumYield);
+			crawlRules.lowYieldObservations = observations;
+			crawlRules.minimumYield = minimumYield;
+			return this;
+		}
+
+		/**
+		 * Fill in the text, password, hidden, check box, radio button and select fields of an
+		 * event with one injected script instead of a WebDriver command per field and value. The
+		 * script dispatches the <code>input</code> and <code>change</code> events of the fields.
+		 * Fields that the script cannot fill in, and text fields with key event handlers, which
+		 * need real keystrokes, are still filled in through WebDriver.
+		 * 
+		 * @param fill
+		 *            Set to true to fill in forms with JavaScript. Default is <code>false</code>.
+		 */
+		public CrawlRulesBuilder fillFormsWithJavaScript(boolean fill) {
+			crawlRules.fillFormsWithJavaScript = fill;
+			return this;
+		}
+
 		/**
 		 * Helper method for method chaining. Now you can do
 		 * 
@@ -344,6 +508,14 @@ public class CrawlRules {
 	private long waitAfterReloadUrl = DEFAULT_WAIT_AFTER_RELOAD;
 	private long waitAfterEvent = DEFAULT_WAIT_AFTER_EVENT;
 	private boolean followExternalLinks = false;
+	private boolean hybridCrawl = false;
+	private ExploredLinkPolicy exploredLinkPolicy = ExploredLinkPolicy.FIRE;
+	private UrlCanonicalizer urlCanonicalizer = UrlCanonicalizer.DEFAULT;
+	private int parallelExtractionThreshold = 0;
+	private boolean fillFormsWithJavaScript = false;
+	private LowYieldPolicy lowYieldPolicy = LowYieldPolicy.FIRE;
+	private int lowYieldObservations = DEFAULT_LOW_YIELD_OBSERVATIONS;
+	private double minimumYield = DEFAULT_MINIMUM_YIELD;
 
 	private CrawlRules() {
 	}
@@ -427,12 +599,78 @@ public class CrawlRules {
 		return followExternalLinks;
 	}
 
+	/**
+	 * @return whether static pages are crawled over HTTP instead of in the browser.
+	 * @see CrawlRulesBuilder#hybridCrawl(boolean)
+	 */
+	public boolean isHybridCrawl() {
+		return hybridCrawl;
+	}
+
+	/**
+	 * @return what to do with the links to URLs that were already reached.
+	 * @see CrawlRulesBuilder#exploredLinks(ExploredLinkPolicy)
+	 */
+	public ExploredLinkPolicy getExploredLinkPolicy() {
+		return exploredLinkPolicy;
+	}
+
+	/**
+	 * @return the canonicalizer that decides which URLs load the same page.
+	 */
+	public UrlCanonicalizer getUrlCanonicalizer() {
+		return urlCanonicalizer;
+	}
+
+	/**
+	 * @return the number of elements from which a document is matched in parallel, or
+	 *         <code>0</code>.
+	 * @see CrawlRulesBuilder#parallelExtractionThreshold(int)
+	 */
+	public int getParallelExtractionThreshold() {
+		return parallelExtractionThreshold;
+	}
+
+	/**
+	 * @return whether form fields are filled in with one injected script.
+	 * @see CrawlRulesBuilder#fillFormsWithJavaScript(boolean)
+	 */
+	public boolean isFillFormsWithJavaScript() {
+		return fillFormsWithJavaScript;
+	}
+
+	/**
+	 * @return what to do with candidates whose class of similar elements rarely changes the DOM.
+	 * @see CrawlRulesBuilder#lowYieldCandidates(LowYieldPolicy)
+	 */
+	public LowYieldPolicy getLowYieldPolicy() {
+		return lowYieldPolicy;
+	}
+
+	/**
+	 * @return the number of events fired on a class of similar elements before its yield is
+	 *         judged.
+	 */
+	public int getLowYieldObservations() {
+		return lowYieldObservations;
+	}
+
+	/**
+	 * @return the fraction of the events on a class of similar elements that should change the
+	 *         DOM.
+	 */
+	public double getMinimumYield() {
+		return minimumYield;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(crawlEvents, invariants, oracleComparators,
 		        ignoredFrameIdentifiers, preCrawlConfig, randomInputInForms, inputSpecification,
 		        testInvariantsWhileCrawling, clickOnce, crawlFrames, crawlHiddenAnchors,
-		        waitAfterReloadUrl, waitAfterEvent, followExternalLinks);
+		        waitAfterReloadUrl, waitAfterEvent, followExternalLinks, hybridCrawl,
+		        exploredLinkPolicy, urlCanonicalizer, parallelExtractionThreshold,
+		        fillFormsWithJavaScript, lowYieldPolicy, lowYieldObservations, minimumYield);
 	}
 
 	@Override
@@ -455,7 +693,15 @@ public class CrawlRules {
 			        && Objects.equals(this.crawlHiddenAnchors, that.crawlHiddenAnchors)
 			        && Objects.equals(this.waitAfterReloadUrl, that.waitAfterReloadUrl)
 			        && Objects.equals(this.waitAfterEvent, that.waitAfterEvent)
-			        && Objects.equals(this.followExternalLinks, that.followExternalLinks);
+			        && Objects.equals(this.followExternalLinks, that.followExternalLinks)
+			        && Objects.equals(this.hybridCrawl, that.hybridCrawl)
+			        && Objects.equals(this.exploredLinkPolicy, that.exploredLinkPolicy)
+			        && Objects.equals(this.urlCanonicalizer, that.urlCanonicalizer)
+			        && this.parallelExtractionThreshold == that.parallelExtractionThreshold
+			        && this.fillFormsWithJavaScript == that.fillFormsWithJavaScript
+			        && this.lowYieldPolicy == that.lowYieldPolicy
+			        && this.lowYieldObservations == that.lowYieldObservations
+			        && this.minimumYield == that.minimumYield;
 		}
 		return false;
 	}
@@ -480,6 +726,14 @@ public class CrawlRules {
 		        .add("waitAfterReloadUrl", waitAfterReloadUrl)
 		        .add("waitAfterEvent", waitAfterEvent)
 		        .add("followExternalLinks", followExternalLinks)
+		        .add("hybridCrawl", hybridCrawl)
+		        .add("exploredLinkPolicy", exploredLinkPolicy)
+		        .add("urlCanonicalizer", urlCanonicalizer)
+		        .add("parallelExtractionThreshold", parallelExtractionThreshold)
+		        .add("fillFormsWithJavaScript", fillFormsWithJavaScript)
+		        .add("lowYieldPolicy", lowYieldPolicy)
+		        .add("lowYieldObservations", lowYieldObservations)
+		        .add("minimumYield", minimumYield)
 		        .toString();
 	}
 
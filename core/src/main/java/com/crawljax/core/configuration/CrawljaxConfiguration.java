@@ -193,6 +193,19 @@ public class CrawljaxConfiguration {
 			return this;
 		}
 
+		/**
+		 * @param configuration
+		 *            where the state-flow graph is stored. The default is
+		 *            {@link StateFlowGraphConfiguration#inMemory()}.
+		 * @return The builder for method chaining.
+		 */
+		public CrawljaxConfigurationBuilder setStateFlowGraphConfig(
+		        StateFlowGraphConfiguration configuration) {
+			Preconditions.checkNotNull(configuration);
+			config.stateFlowGraphConfig = configuration;
+			return this;
+		}
+
 		/**
 		 * Set the output folder for any {@link Plugin} you might configure. Crawljax itself doesn't
 		 * need an output folder but many plug-ins do.
@@ -269,6 +282,8 @@ public class CrawljaxConfiguration {
 	private File output = new File("out");
 
 	private StateVertexFactory stateVertexFactory;
+	private StateFlowGraphConfiguration stateFlowGraphConfig =
+	        StateFlowGraphConfiguration.inMemory();
 
 	private CrawljaxConfiguration() {
 	}
@@ -321,10 +336,14 @@ public class CrawljaxConfiguration {
 		return stateVertexFactory;
 	}
 
+	public StateFlowGraphConfiguration getStateFlowGraphConfig() {
+		return stateFlowGraphConfig;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(url, crawlScope, browserConfig, plugins, proxyConfiguration,
-		        crawlRules, maximumStates, maximumRuntime, maximumDepth);
+		        crawlRules, maximumStates, maximumRuntime, maximumDepth, stateFlowGraphConfig);
 	}
 
 	@Override
@@ -339,7 +358,8 @@ public class CrawljaxConfiguration {
 			        && Objects.equals(this.crawlScope, that.crawlScope)
 			        && Objects.equals(this.maximumStates, that.maximumStates)
 			        && Objects.equals(this.maximumRuntime, that.maximumRuntime)
-			        && Objects.equals(this.maximumDepth, that.maximumDepth);
+			        && Objects.equals(this.maximumDepth, that.maximumDepth)
+			        && Objects.equals(this.stateFlowGraphConfig, that.stateFlowGraphConfig);
 		}
 		return false;
 	}
@@ -351,6 +371,7 @@ public class CrawljaxConfiguration {
 		        .add("plugins", plugins).add("proxyConfiguration", proxyConfiguration)
 		        .add("crawlRules", crawlRules).add("maximumStates", maximumStates)
 		        .add("maximumRuntime", maximumRuntime).add("maximumDepth", maximumDepth)
+		        .add("stateFlowGraphConfig", stateFlowGraphConfig)
 		        .toString();
 	}
 
@@ -2,6 +2,7 @@ package com.crawljax.core.configuration;
 
 import java.util.List;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableListMultimap;
@@ -45,6 +46,7 @@ public final class InputSpecification {
 
 	private final List<InputField> inputFields = Lists.newLinkedList();
 	private final List<Form> forms = Lists.newLinkedList();
+	private int combinationStrength = 1;
 
 	/**
 	 * Specifies an input field to assign a value to. Crawljax first tries to
@@ -91,6 +93,33 @@ public final class InputSpecification {
 		return formAction;
 	}
 
+	/**
+	 * Sets how the values of the input fields that are linked to a form action are combined into
+	 * candidate elements. With strength 1, the default, there is one candidate per value index,
+	 * which fills in the i-th value of every field. With strength t, the candidates are a covering
+	 * array in which every combination of values of every t fields occurs at least once, so
+	 * strength 2 tests all pairs of values. The strength is capped at the number of linked fields,
+	 * where it tests all combinations.
+	 * 
+	 * @param strength
+	 *            the number of fields whose value combinations are all covered.
+	 * @return this specification.
+	 */
+	public InputSpecification setCombinationStrength(int strength) {
+		Preconditions.checkArgument(strength > 0, "The strength should be positive but was %s",
+				strength);
+		this.combinationStrength = strength;
+		return this;
+	}
+
+	/**
+	 * @return the number of linked fields whose value combinations are all covered.
+	 * @see #setCombinationStrength(int)
+	 */
+	public int getCombinationStrength() {
+		return combinationStrength;
+	}
+
 	// hidden
 
 	public ImmutableListMultimap<String, String> getFormFieldNames() {
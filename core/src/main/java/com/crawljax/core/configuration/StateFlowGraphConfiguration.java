@@ -0,0 +1,140 @@
+package com.crawljax.core.configuration;
+
+import java.io.File;
+import java.util.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.crawljax.core.state.CompactStateFlowGraph;
+import com.crawljax.core.state.DiskStateFlowGraph;
+import com.crawljax.core.state.InMemoryStateFlowGraph;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Selects the implementation of the {@link com.crawljax.core.state.StateFlowGraph} the crawl
+ * stores its states and edges in. The default is {@link #inMemory()}.
+ */
+@Immutable
+public class StateFlowGraphConfiguration {
+
+	/**
+	 * Where the state-flow graph is stored.
+	 */
+	public enum StorageType {
+		/**
+		 * Use the {@link InMemoryStateFlowGraph}.
+		 */
+		IN_MEMORY,
+		/**
+		 * Use the {@link CompactStateFlowGraph}.
+		 */
+		COMPACT,
+		/**
+		 * Use the {@link DiskStateFlowGraph}.
+		 */
+		DISK
+	}
+
+	/**
+	 * The default number of states a {@link DiskStateFlowGraph} keeps in memory.
+	 */
+	public static final int DEFAULT_CACHED_STATES = 1000;
+
+	/**
+	 * @see StorageType#IN_MEMORY
+	 */
+	public static StateFlowGraphConfiguration inMemory() {
+		return new StateFlowGraphConfiguration(StorageType.IN_MEMORY, null, 0);
+	}
+
+	/**
+	 * @see StorageType#COMPACT
+	 */
+	public static StateFlowGraphConfiguration compact() {
+		return new StateFlowGraphConfiguration(StorageType.COMPACT, null, 0);
+	}
+
+	/**
+	 * Keeps the {@link #DEFAULT_CACHED_STATES} most recently used states in memory.
+	 *
+	 * @see #onDisk(File, int)
+	 */
+	public static StateFlowGraphConfiguration onDisk(File directory) {
+		return onDisk(directory, DEFAULT_CACHED_STATES);
+	}
+
+	/**
+	 * @param directory
+	 *            The folder the states are written to. If it does not exist it will be created.
+	 *            Files from a previous crawl in this folder are overwritten.
+	 * @param cachedStates
+	 *            The number of recently used states that are kept in memory. It should not be
+	 *            negative. With <code>0</code> every state is read back from disk when it is used.
+	 * @see StorageType#DISK
+	 */
+	public static StateFlowGraphConfiguration onDisk(File directory, int cachedStates) {
+		Preconditions.checkNotNull(directory);
+		Preconditions.checkArgument(cachedStates >= 0,
+		        "The number of cached states should not be negative but was %s", cachedStates);
+		return new StateFlowGraphConfiguration(StorageType.DISK, directory, cachedStates);
+	}
+
+	private final StorageType type;
+	private final File directory;
+	private final int cachedStates;
+
+	private StateFlowGraphConfiguration(StorageType type, File directory, int cachedStates) {
+		this.type = type;
+		this.directory = directory;
+		this.cachedStates = cachedStates;
+	}
+
+	/**
+	 * @return The type.
+	 */
+	public StorageType getType() {
+		return type;
+	}
+
+	/**
+	 * @return The folder the states are written to, or <code>null</code> if the graph is kept in
+	 *         memory.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return The number of states a {@link DiskStateFlowGraph} keeps in memory.
+	 */
+	public int getCachedStates() {
+		return cachedStates;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, directory, cachedStates);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof StateFlowGraphConfiguration) {
+			StateFlowGraphConfiguration that = (StateFlowGraphConfiguration) object;
+			return Objects.equals(this.type, that.type)
+			        && Objects.equals(this.directory, that.directory)
+			        && this.cachedStates == that.cachedStates;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("type", type)
+		        .add("directory", directory)
+		        .add("cachedStates", cachedStates)
+		        .toString();
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.crawljax.core.state;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.alg.KShortestPaths;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Functionality shared by the {@link MutableStateFlowGraph} implementations: naming new states and
+ * the path algorithms that are delegated to JGraphT.
+ */
+abstract class AbstractStateFlowGraph implements MutableStateFlowGraph {
+
+	private final AtomicInteger nextStateNameCounter = new AtomicInteger();
+	private final StateVertexFactory vertexFactory;
+
+	AbstractStateFlowGraph(StateVertexFactory vertexFactory) {
+		this.vertexFactory = vertexFactory;
+	}
+
+	/**
+	 * @return a JGraphT graph of this state-flow graph for the algorithms that need one.
+	 */
+	abstract DirectedGraph<StateVertex, Eventable> asDirectedGraph();
+
+	@Override
+	public StateVertex newStateFor(String url, String dom, String strippedDom) {
+		int id = nextStateNameCounter.incrementAndGet();
+		return vertexFactory.newStateVertex(id, url, getNewStateName(id), dom, strippedDom);
+	}
+
+	private String getNewStateName(int id) {
+		return "state" + id;
+	}
+
+	@Override
+	public List<List<GraphPath<StateVertex, Eventable>>> getAllPossiblePaths(StateVertex index) {
+		return allPossiblePaths(this, asDirectedGraph(), index);
+	}
+
+	/**
+	 * @param graph
+	 *            the graph to find the deepest states in.
+	 * @param directedGraph
+	 *            the JGraphT form of the same graph.
+	 * @param index
+	 *            the initial state.
+	 * @return the K shortest paths from the index to each of the deepest states.
+	 * @see StateFlowGraph#getAllPossiblePaths(StateVertex)
+	 */
+	static List<List<GraphPath<StateVertex, Eventable>>> allPossiblePaths(StateFlowGraph graph,
+	        DirectedGraph<StateVertex, Eventable> directedGraph, StateVertex index) {
+		final List<List<GraphPath<StateVertex, Eventable>>> results = Lists.newArrayList();
+
+		final KShortestPaths<StateVertex, Eventable> kPaths =
+		        new KShortestPaths<>(directedGraph, index, Integer.MAX_VALUE);
+
+		for (StateVertex state : getDeepStates(graph, index)) {
+			List<GraphPath<StateVertex, Eventable>> paths = kPaths.getPaths(state);
+			results.add(paths);
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param state
+	 *            The starting state.
+	 * @return A list of the deepest states (states with no outgoing edges).
+	 */
+	private static List<StateVertex> getDeepStates(StateFlowGraph graph, StateVertex state) {
+		final List<StateVertex> deepStates = new ArrayList<StateVertex>();
+
+		traverse(graph, Sets.<String> newHashSet(), deepStates, state);
+
+		return deepStates;
+	}
+
+	private static void traverse(StateFlowGraph graph, Set<String> visitedStates,
+	        List<StateVertex> deepStates, StateVertex state) {
+		visitedStates.add(state.getName());
+
+		Set<StateVertex> outgoingSet = graph.getOutgoingStates(state);
+
+		if ((outgoingSet == null) || outgoingSet.isEmpty()) {
+			deepStates.add(state);
+		} else {
+			if (cyclic(visitedStates, outgoingSet)) {
+				deepStates.add(state);
+			} else {
+				for (StateVertex st : outgoingSet) {
+					if (!visitedStates.contains(st.getName())) {
+						traverse(graph, visitedStates, deepStates, st);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean cyclic(Set<String> visitedStates, Set<StateVertex> outgoingSet) {
+		int i = 0;
+
+		for (StateVertex state : outgoingSet) {
+			if (visitedStates.contains(state.getName())) {
+				i++;
+			}
+		}
+
+		return i == outgoingSet.size();
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix) {
+		final Set<StateVertex> result = new HashSet<>();
+
+		for (Eventable c : getOutgoingClickables(stateVertix)) {
+			result.add(c.getTargetStateVertex());
+		}
+
+		return ImmutableSet.copyOf(result);
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.crawljax.core.state;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.crawljax.core.ExitNotifier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.GraphPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link MutableStateFlowGraph} that keeps its structure in primitive arrays instead of a JGraphT
+ * graph. Every state gets a dense index in the order it is added, and so does every edge. The
+ * adjacency of the states is kept in compressed sparse row (CSR) form, with a small append buffer
+ * per state for the edges added since the last compaction.
+ * <p>
+ * All storage is append-only, so every read is served from a {@link StateFlowGraphSnapshot}
+ * without locking. Only writers are serialized. The views returned by {@link #states()},
+ * {@link #edges()}, {@link #outgoing(StateVertex)} and {@link #incoming(StateVertex)} iterate the
+ * storage without copying and do not show elements added after they were created.
+ * <p>
+ * The edges point to the states as they are stored in the graph, so an edge added with a clone of
+ * a state points to the original. The JGraphT graph needed by
+ * {@link #getAllPossiblePaths(StateVertex)} is only built on demand, from a snapshot.
+ */
+@Singleton
+public class CompactStateFlowGraph extends AbstractStateFlowGraph {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CompactStateFlowGraph.class);
+
+	private final Lock writeLock = new ReentrantLock();
+	private final VersionedGraphStore store = new VersionedGraphStore();
+
+	private final ExitNotifier exitNotifier;
+
+	@Inject
+	public CompactStateFlowGraph(ExitNotifier exitNotifier, StateVertexFactory vertexFactory) {
+		super(vertexFactory);
+		this.exitNotifier = exitNotifier;
+		LOG.debug("Initialized the compact stateflowgraph");
+	}
+
+	@Override
+	public StateVertex putIfAbsent(StateVertex stateVertix) {
+		int count;
+		writeLock.lock();
+		try {
+			int existing = store.indexOf(stateVertix);
+			if (existing >= 0) {
+				LOG.debug("Graph already contained vertex {}", stateVertix);
+				return store.vertexAt(existing);
+			}
+			count = store.addVertex(retain(stateVertix)) + 1;
+		} finally {
+			writeLock.unlock();
+		}
+		exitNotifier.incrementNumberOfStates();
+		LOG.debug("Number of states is now {}", count);
+		return null;
+	}
+
+	/**
+	 * Called while holding the write lock, before a new state is added.
+	 *
+	 * @param stateVertix
+	 *            the state that is about to be added.
+	 * @return the object the graph keeps for the state, and which the edges will point to.
+	 */
+	StateVertex retain(StateVertex stateVertix) {
+		return stateVertix;
+	}
+
+	@Override
+	public StateVertex putIndex(StateVertex index) {
+		return putIfAbsent(index);
+	}
+
+	@Override
+	public boolean addEdge(StateVertex sourceVert, StateVertex targetVert, Eventable clickable) {
+		writeLock.lock();
+		try {
+			StateFlowGraphSnapshot current = store.snapshot();
+			int source = current.indexOf(sourceVert);
+			int target = current.indexOf(targetVert);
+			if (source < 0 || target < 0) {
+				throw new IllegalArgumentException("No such vertex in graph: "
+				        + (source < 0 ? sourceVert : targetVert));
+			}
+			clickable.setSource(current.stateAt(source));
+			clickable.setTarget(current.stateAt(target));
+			for (Eventable existing : current.outgoing(sourceVert)) {
+				if (existing.equals(clickable)) {
+					return false;
+				}
+			}
+			store.addEdge(source, target, clickable);
+			return true;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public StateFlowGraphSnapshot snapshot() {
+		return store.snapshot();
+	}
+
+	/**
+	 * @param state
+	 *            the state to look for.
+	 * @return the dense index of the state, or <code>-1</code> if it is not in the graph.
+	 */
+	public int indexOf(StateVertex state) {
+		return snapshot().indexOf(state);
+	}
+
+	/**
+	 * @param index
+	 *            the dense index of the state.
+	 * @return the state at that index.
+	 * @see #indexOf(StateVertex)
+	 */
+	public StateVertex stateAt(int index) {
+		return snapshot().stateAt(index);
+	}
+
+	@Override
+	public StateVertex getById(int id) {
+		return snapshot().getById(id);
+	}
+
+	@Override
+	public StateVertex getInitialState() {
+		return snapshot().getInitialState();
+	}
+
+	/**
+	 * @return a read-only view of all states, in the order they were added.
+	 */
+	public Collection<StateVertex> states() {
+		return snapshot().states();
+	}
+
+	/**
+	 * @return a read-only view of all edges, in the order they were added.
+	 */
+	public Collection<Eventable> edges() {
+		return snapshot().edges();
+	}
+
+	/**
+	 * @param stateVertix
+	 *            the source state.
+	 * @return a read-only view of the outgoing edges of the state.
+	 * @throws IllegalArgumentException
+	 *             if the state is not in the graph.
+	 */
+	public Collection<Eventable> outgoing(StateVertex stateVertix) {
+		return snapshot().outgoing(stateVertix);
+	}
+
+	/**
+	 * @param stateVertix
+	 *            the target state.
+	 * @return a read-only view of the incoming edges of the state.
+	 * @throws IllegalArgumentException
+	 *             if the state is not in the graph.
+	 */
+	public Collection<Eventable> incoming(StateVertex stateVertix) {
+		return snapshot().incoming(stateVertix);
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getOutgoingClickables(StateVertex stateVertix) {
+		return snapshot().getOutgoingClickables(stateVertix);
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getIncomingClickable(StateVertex stateVertix) {
+		return snapshot().getIncomingClickable(stateVertix);
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix) {
+		return snapshot().getOutgoingStates(stateVertix);
+	}
+
+	@Override
+	public boolean canGoTo(StateVertex source, StateVertex target) {
+		return snapshot().canGoTo(source, target);
+	}
+
+	/**
+	 * @return the shortest path, or an empty list if the end is not reachable from the start.
+	 * @see StateFlowGraphSnapshot#getShortestPath(StateVertex, StateVertex)
+	 */
+	@Override
+	public ImmutableList<Eventable> getShortestPath(StateVertex start, StateVertex end) {
+		return snapshot().getShortestPath(start, end);
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getAllStates() {
+		return snapshot().getAllStates();
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getAllEdges() {
+		return snapshot().getAllEdges();
+	}
+
+	@Override
+	public int getMeanStateStringSize() {
+		return snapshot().getMeanStateStringSize();
+	}
+
+	@Override
+	public int getNumberOfStates() {
+		return snapshot().getNumberOfStates();
+	}
+
+	/**
+	 * @return The number of edges, currently in the graph.
+	 */
+	public int getNumberOfEdges() {
+		return snapshot().getNumberOfEdges();
+	}
+
+	@Override
+	public List<List<GraphPath<StateVertex, Eventable>>> getAllPossiblePaths(StateVertex index) {
+		return snapshot().getAllPossiblePaths(index);
+	}
+
+	/**
+	 * Builds a new JGraphT graph with the current states and edges. Changes made to this graph
+	 * afterwards are not reflected in it.
+	 */
+	@Override
+	DirectedGraph<StateVertex, Eventable> asDirectedGraph() {
+		return snapshot().asDirectedGraph();
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
@@ -0,0 +1,204 @@
+package com.crawljax.core.state;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.AbstractList;
+import java.util.List;
+
+import com.crawljax.core.CrawlSession;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A compact binary file with the result of a finished {@link CrawlSession}: the states with their
+ * DOMs, the edges with the metadata of their elements, the crawl paths and the counters of the
+ * session. An archive is written with {@link #write(CrawlSession, File)} and opened with
+ * {@link #open(File)}, which memory maps the file and only decodes what is read. Opening an
+ * archive therefore takes the same time regardless of the size of the crawl.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes, followed by a pool of strings and
+ * then by the fixed-size sections the header points to:
+ * <ol>
+ * <li>the states, {@value #STATE_SIZE} bytes each,</li>
+ * <li>the edges, {@value #EDGE_SIZE} bytes each,</li>
+ * <li>the outgoing and the incoming edges of every state in compressed sparse row form,</li>
+ * <li>the crawl paths as lists of edge indices,</li>
+ * <li>the counters of the session's metrics,</li>
+ * <li>the state ids with their index, sorted by id.</li>
+ * </ol>
+ * Strings are referenced by the offset of their length in bytes, which is followed by their UTF-8
+ * encoding, or by <code>-1</code> for <code>null</code>. All numbers are big-endian.
+ * <p>
+ * The form inputs of the edges and the candidate elements of the states are not archived.
+ */
+public final class CrawlArchive {
+
+	static final int MAGIC = 0x434A5842;
+	static final int VERSION = 1;
+
+	static final int HEADER_STATES = 8;
+	static final int HEADER_EDGES = 12;
+	static final int HEADER_PATHS = 16;
+	static final int HEADER_PATH_EDGES = 20;
+	static final int HEADER_COUNTERS = 24;
+	static final int HEADER_INITIAL_STATE = 28;
+	static final int HEADER_START_TIME = 32;
+	static final int HEADER_URL = 40;
+	static final int HEADER_STATE_SECTION = 48;
+	static final int HEADER_EDGE_SECTION = 56;
+	static final int HEADER_OUTGOING_SECTION = 64;
+	static final int HEADER_INCOMING_SECTION = 72;
+	static final int HEADER_PATH_SECTION = 80;
+	static final int HEADER_COUNTER_SECTION = 88;
+	static final int HEADER_ID_SECTION = 96;
+	static final int HEADER_SIZE = 104;
+
+	static final int STATE_ID = 0;
+	static final int STATE_HASH = 4;
+	static final int STATE_NAME = 8;
+	static final int STATE_URL = 16;
+	static final int STATE_DOM = 24;
+	static final int STATE_STRIPPED_DOM = 32;
+	static final int STATE_SIZE = 40;
+
+	static final int EDGE_ID = 0;
+	static final int EDGE_SOURCE = 8;
+	static final int EDGE_TARGET = 12;
+	static final int EDGE_EVENT_TYPE = 16;
+	static final int EDGE_HOW = 20;
+	static final int EDGE_VALUE = 24;
+	static final int EDGE_FRAME = 32;
+	static final int EDGE_TAG = 40;
+	static final int EDGE_TEXT = 48;
+	static final int EDGE_ATTRIBUTES = 56;
+	static final int EDGE_NODE = 64;
+	static final int EDGE_SIZE = 72;
+
+	static final long NULL = -1;
+
+	/**
+	 * Writes the session to a file. The state-flow graph is read from a single snapshot.
+	 *
+	 * @param session
+	 *            the session to archive.
+	 * @param file
+	 *            the file to write to. It is overwritten if it exists.
+	 * @throws IOException
+	 *             when the file cannot be written.
+	 */
+	public static void write(CrawlSession session, File file) throws IOException {
+		CrawlArchiveWriter.write(session, file);
+	}
+
+	/**
+	 * @param file
+	 *            a file written by {@link #write(CrawlSession, File)}.
+	 * @return the archive, backed by a read-only memory mapping of the file.
+	 * @throws IOException
+	 *             when the file cannot be read or is not a crawl archive.
+	 */
+	public static CrawlArchive open(File file) throws IOException {
+		MappedFile mapped = MappedFile.map(file);
+		if (mapped.size() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a crawl archive");
+		}
+		int version = mapped.getInt(Integer.BYTES);
+		if (version != VERSION) {
+			throw new IOException("Unsupported crawl archive version " + version + " in " + file);
+		}
+		return new CrawlArchive(mapped);
+	}
+
+	private final MappedFile file;
+	private final MappedStateFlowGraph stateFlowGraph;
+	private final int pathCount;
+	private final long pathSection;
+
+	private CrawlArchive(MappedFile file) {
+		this.file = file;
+		this.stateFlowGraph = new MappedStateFlowGraph(file);
+		this.pathCount = file.getInt(HEADER_PATHS);
+		this.pathSection = file.getLong(HEADER_PATH_SECTION);
+	}
+
+	/**
+	 * @return the url the crawl started at.
+	 */
+	public URI getUrl() {
+		return URI.create(file.getString(file.getLong(HEADER_URL)));
+	}
+
+	/**
+	 * @return the time the crawl started, in ms since 1970.
+	 * @see CrawlSession#getStartTime()
+	 */
+	public long getStartTime() {
+		return file.getLong(HEADER_START_TIME);
+	}
+
+	/**
+	 * @return the read-only state-flow graph of the crawl.
+	 */
+	public MappedStateFlowGraph getStateFlowGraph() {
+		return stateFlowGraph;
+	}
+
+	/**
+	 * @return a read-only view of the crawl paths. The edges are those of
+	 *         {@link #getStateFlowGraph()}.
+	 */
+	public List<List<Eventable>> getCrawlPaths() {
+		return new AbstractList<List<Eventable>>() {
+
+			@Override
+			public List<Eventable> get(int index) {
+				if (index < 0 || index >= pathCount) {
+					throw new IndexOutOfBoundsException("No crawl path at index " + index);
+				}
+				long from = file.getInt(pathSection + (long) index * Integer.BYTES);
+				long to = file.getInt(pathSection + (index + 1L) * Integer.BYTES);
+				return pathOf(from, (int) (to - from));
+			}
+
+			@Override
+			public int size() {
+				return pathCount;
+			}
+		};
+	}
+
+	private List<Eventable> pathOf(long from, int length) {
+		long entries = pathSection + (pathCount + 1L) * Integer.BYTES;
+		return new AbstractList<Eventable>() {
+
+			@Override
+			public Eventable get(int index) {
+				if (index < 0 || index >= length) {
+					throw new IndexOutOfBoundsException("No edge at index " + index);
+				}
+				return stateFlowGraph.edgeAt(file.getInt(entries + (from + index)
+				        * Integer.BYTES));
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	/**
+	 * @return the counters of the session's {@link com.codahale.metrics.MetricRegistry} at the
+	 *         time the archive was written.
+	 */
+	public ImmutableMap<String, Long> getCounters() {
+		ImmutableMap.Builder<String, Long> counters = ImmutableMap.builder();
+		long section = file.getLong(HEADER_COUNTER_SECTION);
+		int count = file.getInt(HEADER_COUNTERS);
+		for (int i = 0; i < count; i++) {
+			long record = section + i * 2L * Long.BYTES;
+			counters.put(file.getString(file.getLong(record)), file.getLong(record + Long.BYTES));
+		}
+		return counters.build();
+	}
+}
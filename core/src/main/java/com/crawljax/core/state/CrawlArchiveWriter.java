@@ -0,0 +1,330 @@
+package com.crawljax.core.state;
+
+import static com.crawljax.core.state.CrawlArchive.NULL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.crawljax.core.CrawlSession;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Writes the file format described in {@link CrawlArchive}. The strings are written first, in a
+ * single pass over the graph, so the fixed-size records that follow them can refer to their
+ * offsets.
+ */
+final class CrawlArchiveWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CrawlArchiveWriter.class);
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	static void write(CrawlSession session, File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, WRITE,
+		        TRUNCATE_EXISTING)) {
+			CrawlArchiveWriter writer = new CrawlArchiveWriter(channel);
+			writer.writeSession(session);
+			ByteBuffer header = writer.header;
+			header.rewind();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		}
+	}
+
+	private final CountingOutputStream counting;
+	private final DataOutputStream out;
+	private final ByteBuffer header = ByteBuffer.allocate(CrawlArchive.HEADER_SIZE);
+
+	/**
+	 * Strings that are likely to repeat, like urls and frames, are only written once.
+	 */
+	private final Map<String, Long> pool = new HashMap<>();
+
+	private CrawlArchiveWriter(FileChannel channel) {
+		this.counting = new CountingOutputStream(new BufferedOutputStream(
+		        Channels.newOutputStream(channel), BUFFER_SIZE));
+		this.out = new DataOutputStream(counting);
+	}
+
+	private long position() {
+		return counting.getCount();
+	}
+
+	private void writeSession(CrawlSession session) throws IOException {
+		StateFlowGraphSnapshot graph = session.getStateFlowGraph().snapshot();
+		int stateCount = graph.getNumberOfStates();
+		int edgeCount = graph.getNumberOfEdges();
+
+		out.write(new byte[CrawlArchive.HEADER_SIZE]);
+		header.putInt(0, CrawlArchive.MAGIC);
+		header.putInt(Integer.BYTES, CrawlArchive.VERSION);
+		header.putInt(CrawlArchive.HEADER_STATES, stateCount);
+		header.putInt(CrawlArchive.HEADER_EDGES, edgeCount);
+		header.putInt(CrawlArchive.HEADER_INITIAL_STATE, graph.indexOf(session.getInitialState()));
+		header.putLong(CrawlArchive.HEADER_START_TIME, session.getStartTime());
+		header.putLong(CrawlArchive.HEADER_URL, pooled(session.getConfig().getUrl().toString()));
+
+		long[] stateStrings = writeStateStrings(graph);
+		long[] edgeStrings = writeEdgeStrings(graph);
+		Map<String, Long> counters = writeCounterNames(session);
+
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		Map<Eventable, Integer> edgeIndex = new HashMap<>();
+		int edge = 0;
+		for (Eventable eventable : graph.edges()) {
+			sources[edge] = graph.indexOf(eventable.getSourceStateVertex());
+			targets[edge] = graph.indexOf(eventable.getTargetStateVertex());
+			edgeIndex.put(eventable, edge);
+			edge++;
+		}
+
+		header.putLong(CrawlArchive.HEADER_STATE_SECTION, position());
+		writeStates(graph, stateStrings);
+		header.putLong(CrawlArchive.HEADER_EDGE_SECTION, position());
+		writeEdges(graph, edgeStrings, sources, targets);
+		header.putLong(CrawlArchive.HEADER_OUTGOING_SECTION, position());
+		writeAdjacency(stateCount, sources);
+		header.putLong(CrawlArchive.HEADER_INCOMING_SECTION, position());
+		writeAdjacency(stateCount, targets);
+		header.putLong(CrawlArchive.HEADER_PATH_SECTION, position());
+		writePaths(session, edgeIndex);
+		header.putLong(CrawlArchive.HEADER_COUNTER_SECTION, position());
+		for (Entry<String, Long> counter : counters.entrySet()) {
+			out.writeLong(pool.get(counter.getKey()));
+			out.writeLong(counter.getValue());
+		}
+		header.putInt(CrawlArchive.HEADER_COUNTERS, counters.size());
+		header.putLong(CrawlArchive.HEADER_ID_SECTION, position());
+		writeIdIndex(graph);
+		out.flush();
+		LOG.info("Archived {} states and {} edges in {} bytes", stateCount, edgeCount,
+		        counting.getCount());
+	}
+
+	private long[] writeStateStrings(StateFlowGraphSnapshot graph) throws IOException {
+		long[] strings = new long[graph.getNumberOfStates() * 4];
+		int i = 0;
+		for (StateVertex state : graph.states()) {
+			strings[i++] = pooled(state.getName());
+			strings[i++] = pooled(state.getUrl());
+			String dom = state.getDom();
+			long domOffset = string(dom);
+			strings[i++] = domOffset;
+			String strippedDom = state.getStrippedDom();
+			strings[i++] = strippedDom != null && strippedDom.equals(dom) ? domOffset
+			        : string(strippedDom);
+		}
+		return strings;
+	}
+
+	private long[] writeEdgeStrings(StateFlowGraphSnapshot graph) throws IOException {
+		long[] strings = new long[graph.getNumberOfEdges() * 6];
+		int i = 0;
+		for (Eventable eventable : graph.edges()) {
+			Identification identification = eventable.getIdentification();
+			strings[i++] = identification == null ? NULL : string(identification.getValue());
+			strings[i++] = pooled(eventable.getRelatedFrame());
+			Element element = eventable.getElement();
+			if (element == null) {
+				strings[i++] = NULL;
+				strings[i++] = NULL;
+				strings[i++] = NULL;
+				strings[i++] = NULL;
+			} else {
+				strings[i++] = pooled(element.getTag());
+				strings[i++] = string(element.getText());
+				strings[i++] = attributes(element.getAttributes());
+				strings[i++] = pooled(element.nodeString());
+			}
+		}
+		return strings;
+	}
+
+	/**
+	 * Writes the keys and values, followed by their number and their offsets.
+	 *
+	 * @return the offset of the number of attributes.
+	 */
+	private long attributes(Map<String, String> attributes) throws IOException {
+		long[] offsets = new long[attributes.size() * 2];
+		int i = 0;
+		for (Entry<String, String> attribute : attributes.entrySet()) {
+			offsets[i++] = pooled(attribute.getKey());
+			offsets[i++] = string(attribute.getValue());
+		}
+		long position = position();
+		out.writeInt(attributes.size());
+		for (long offset : offsets) {
+			out.writeLong(offset);
+		}
+		return position;
+	}
+
+	private Map<String, Long> writeCounterNames(CrawlSession session) throws IOException {
+		Map<String, Long> counters = new LinkedHashMap<>();
+		for (Entry<String, Counter> counter : session.getRegistry().getCounters().entrySet()) {
+			pooled(counter.getKey());
+			counters.put(counter.getKey(), counter.getValue().getCount());
+		}
+		return counters;
+	}
+
+	private long pooled(String string) throws IOException {
+		if (string == null) {
+			return NULL;
+		}
+		Long offset = pool.get(string);
+		if (offset == null) {
+			offset = string(string);
+			pool.put(string, offset);
+		}
+		return offset;
+	}
+
+	private long string(String string) throws IOException {
+		if (string == null) {
+			return NULL;
+		}
+		long position = position();
+		byte[] bytes = string.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		return position;
+	}
+
+	private void writeStates(StateFlowGraphSnapshot graph, long[] strings) throws IOException {
+		int i = 0;
+		for (StateVertex state : graph.states()) {
+			out.writeInt(state.getId());
+			out.writeInt(state.hashCode());
+			for (int field = 0; field < 4; field++) {
+				out.writeLong(strings[i++]);
+			}
+		}
+	}
+
+	private void writeEdges(StateFlowGraphSnapshot graph, long[] strings, int[] sources,
+	        int[] targets) throws IOException {
+		int edge = 0;
+		int i = 0;
+		for (Eventable eventable : graph.edges()) {
+			Identification identification = eventable.getIdentification();
+			out.writeLong(eventable.getId());
+			out.writeInt(sources[edge]);
+			out.writeInt(targets[edge]);
+			out.writeInt(eventable.getEventType() == null ? -1
+			        : eventable.getEventType().ordinal());
+			out.writeInt(identification == null || identification.getHow() == null ? -1
+			        : identification.getHow().ordinal());
+			for (int field = 0; field < 6; field++) {
+				out.writeLong(strings[i++]);
+			}
+			edge++;
+		}
+	}
+
+	/**
+	 * Writes the offsets of the edges of every state, followed by the edges sorted by state.
+	 */
+	private void writeAdjacency(int stateCount, int[] endpoints) throws IOException {
+		int[] offsets = new int[stateCount + 1];
+		for (int endpoint : endpoints) {
+			offsets[endpoint + 1]++;
+		}
+		for (int state = 0; state < stateCount; state++) {
+			offsets[state + 1] += offsets[state];
+		}
+		int[] entries = new int[endpoints.length];
+		int[] position = Arrays.copyOf(offsets, stateCount);
+		for (int edge = 0; edge < endpoints.length; edge++) {
+			entries[position[endpoints[edge]]++] = edge;
+		}
+		writeInts(offsets);
+		writeInts(entries);
+	}
+
+	/**
+	 * Paths with an edge that is not in the graph, which happens when the crawler was interrupted
+	 * halfway, are left out.
+	 */
+	private void writePaths(CrawlSession session, Map<Eventable, Integer> edgeIndex)
+	        throws IOException {
+		PathsBuilder paths = new PathsBuilder();
+		session.forEachCrawlPath(path -> paths.add(path, edgeIndex));
+		writeInts(Arrays.copyOf(paths.offsets, paths.count + 1));
+		writeInts(Arrays.copyOf(paths.entries, paths.offsets[paths.count]));
+		header.putInt(CrawlArchive.HEADER_PATHS, paths.count);
+		header.putInt(CrawlArchive.HEADER_PATH_EDGES, paths.offsets[paths.count]);
+		if (paths.skipped > 0) {
+			LOG.debug("Left {} crawl paths with unknown edges out of the archive", paths.skipped);
+		}
+	}
+
+	private void writeIdIndex(StateFlowGraphSnapshot graph) throws IOException {
+		long[] ids = new long[graph.getNumberOfStates()];
+		int index = 0;
+		for (StateVertex state : graph.states()) {
+			ids[index] = ((long) state.getId() << Integer.SIZE) | index;
+			index++;
+		}
+		Arrays.sort(ids);
+		for (long id : ids) {
+			out.writeLong(id);
+		}
+	}
+
+	private void writeInts(int[] values) throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static final class PathsBuilder {
+
+		private int[] offsets = new int[16];
+		private int[] entries = new int[64];
+		private int count;
+		private int skipped;
+
+		void add(List<Eventable> path, Map<Eventable, Integer> edgeIndex) {
+			int start = offsets[count];
+			if (entries.length < start + path.size()) {
+				entries = Arrays.copyOf(entries, Math.max(entries.length * 2, start + path.size()));
+			}
+			int end = start;
+			for (Eventable eventable : path) {
+				Integer edge = edgeIndex.get(eventable);
+				if (edge == null) {
+					skipped++;
+					return;
+				}
+				entries[end++] = edge;
+			}
+			if (count + 2 > offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			offsets[++count] = end;
+		}
+	}
+}
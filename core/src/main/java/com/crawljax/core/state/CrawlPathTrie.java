@@ -0,0 +1,296 @@
+package com.crawljax.core.state;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+/**
+ * Stores the paths executed during a crawl in a prefix trie of {@link Eventable}s. Paths that share
+ * a prefix share the nodes of that prefix, so the memory used grows with the number of distinct
+ * edges taken instead of with the number of paths times their length.
+ * <p>
+ * The trie is thread safe. Iteration is weakly consistent: paths added while iterating may or may
+ * not be returned. Paths are returned in the order they were added, because every added path is
+ * also kept in a queue as an end of its last node. Removing a path only marks its end as
+ * removed; removed ends are dropped from the queue in bulk once they outnumber the paths.
+ */
+public class CrawlPathTrie implements Iterable<List<Eventable>> {
+
+	private final Node root = new Node(null, null, 0);
+	private final Queue<End> ends = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger removedEnds = new AtomicInteger();
+	private final AtomicInteger nodes = new AtomicInteger();
+
+	/**
+	 * @param path
+	 *            The path to add. The same path can be added more than once.
+	 */
+	public void add(List<Eventable> path) {
+		Node node = root;
+		for (Eventable eventable : path) {
+			node = childFor(node, eventable);
+		}
+		ends.add(node.addEnd());
+		size.incrementAndGet();
+	}
+
+	private Node childFor(Node node, Eventable eventable) {
+		ConcurrentMap<Eventable, Node> current = node.children;
+		if (current == null) {
+			synchronized (node) {
+				current = node.children;
+				if (current == null) {
+					current = new ConcurrentHashMap<>(4);
+					node.children = current;
+				}
+			}
+		}
+		Node child = current.get(eventable);
+		if (child == null) {
+			Node created = new Node(eventable, node, node.depth + 1);
+			child = current.putIfAbsent(eventable, created);
+			if (child == null) {
+				nodes.incrementAndGet();
+				child = created;
+			}
+		}
+		return child;
+	}
+
+	/**
+	 * Removes one occurrence of the given path. The nodes of the path are kept, because they are
+	 * likely to be shared with other paths.
+	 *
+	 * @param path
+	 *            The path to remove.
+	 * @return <code>true</code> if the path was present.
+	 */
+	public boolean remove(List<Eventable> path) {
+		Node node = root;
+		for (Eventable eventable : path) {
+			node = node.existingChild(eventable);
+			if (node == null) {
+				return false;
+			}
+		}
+		if (!node.removeEnd()) {
+			return false;
+		}
+		size.decrementAndGet();
+		if (removedEnds.incrementAndGet() > size.get()) {
+			purgeRemovedEnds();
+		}
+		return true;
+	}
+
+	private synchronized void purgeRemovedEnds() {
+		if (removedEnds.get() <= size.get()) {
+			return;
+		}
+		int purged = 0;
+		for (Iterator<End> it = ends.iterator(); it.hasNext();) {
+			if (it.next().removed) {
+				it.remove();
+				purged++;
+			}
+		}
+		removedEnds.addAndGet(-purged);
+	}
+
+	/**
+	 * @return The number of paths in the trie, counting duplicates.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * @return The number of distinct edges stored in the trie.
+	 */
+	public int getNumberOfNodes() {
+		return nodes.get();
+	}
+
+	/**
+	 * @return A live, read-only {@link Collection} view of the paths. Each path is materialized as
+	 *         an {@link ImmutableList} only when the iterator reaches it.
+	 */
+	public Collection<List<Eventable>> asCollection() {
+		return new AbstractCollection<List<Eventable>>() {
+
+			@Override
+			public Iterator<List<Eventable>> iterator() {
+				return CrawlPathTrie.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return CrawlPathTrie.this.size();
+			}
+		};
+	}
+
+	@Override
+	public Iterator<List<Eventable>> iterator() {
+		return Iterators.transform(Iterators.filter(ends.iterator(), end -> !end.removed),
+		        end -> end.node.path());
+	}
+
+	/**
+	 * Streams all paths, in the order they were added, to the given consumer without copying them.
+	 * The list handed to the consumer is a read-only view of a buffer that is reused for the next
+	 * path, so it is only valid during the call. Use {@link #iterator()} if the paths have to be
+	 * kept.
+	 *
+	 * @param consumer
+	 *            The consumer of the paths.
+	 */
+	public void forEachPath(Consumer<? super List<Eventable>> consumer) {
+		PathBuffer buffer = new PathBuffer();
+		List<Eventable> view = Collections.unmodifiableList(buffer);
+		for (End end : ends) {
+			if (!end.removed) {
+				buffer.fill(end.node);
+				consumer.accept(view);
+			}
+		}
+	}
+
+	private static final class Node {
+
+		private final Eventable eventable;
+		private final Node parent;
+		private final int depth;
+
+		/**
+		 * Created lazily because most nodes in a trie are leaves.
+		 */
+		private volatile ConcurrentMap<Eventable, Node> children;
+
+		/**
+		 * The ends of the paths that end at this node and were not removed, in the order they were
+		 * added. Guarded by this node.
+		 */
+		private End firstEnd;
+		private End lastEnd;
+
+		Node(Eventable eventable, Node parent, int depth) {
+			this.eventable = eventable;
+			this.parent = parent;
+			this.depth = depth;
+		}
+
+		synchronized End addEnd() {
+			End end = new End(this);
+			if (lastEnd == null) {
+				firstEnd = end;
+			} else {
+				lastEnd.next = end;
+			}
+			lastEnd = end;
+			return end;
+		}
+
+		/**
+		 * Marks the first end of this node as removed.
+		 *
+		 * @return <code>false</code> if no path ends at this node.
+		 */
+		synchronized boolean removeEnd() {
+			End end = firstEnd;
+			if (end == null) {
+				return false;
+			}
+			firstEnd = end.next;
+			if (firstEnd == null) {
+				lastEnd = null;
+			}
+			end.next = null;
+			end.removed = true;
+			return true;
+		}
+
+		Node existingChild(Eventable eventable) {
+			ConcurrentMap<Eventable, Node> current = children;
+			return current == null ? null : current.get(eventable);
+		}
+
+		ImmutableList<Eventable> path() {
+			Eventable[] path = new Eventable[depth];
+			for (Node node = this; node.parent != null; node = node.parent) {
+				path[node.depth - 1] = node.eventable;
+			}
+			return ImmutableList.copyOf(path);
+		}
+	}
+
+	/**
+	 * One occurrence of a path in the trie.
+	 */
+	private static final class End {
+
+		private final Node node;
+		private volatile boolean removed;
+
+		/**
+		 * The next end of the same node. Guarded by that node.
+		 */
+		private End next;
+
+		End(Node node) {
+			this.node = node;
+		}
+	}
+
+	/**
+	 * A minimal growable list used as the reusable path buffer of {@link #forEachPath(Consumer)}.
+	 */
+	private static class PathBuffer extends AbstractList<Eventable> {
+
+		private Eventable[] elements = new Eventable[16];
+		private int size;
+
+		/**
+		 * Replaces the contents of the buffer with the path that ends at the given node.
+		 */
+		void fill(Node end) {
+			if (end.depth > elements.length) {
+				elements = Arrays.copyOf(elements, Math.max(end.depth, elements.length * 2));
+			}
+			if (end.depth < size) {
+				Arrays.fill(elements, end.depth, size, null);
+			}
+			size = end.depth;
+			for (Node node = end; node.parent != null; node = node.parent) {
+				elements[node.depth - 1] = node.eventable;
+			}
+		}
+
+		@Override
+		public Eventable get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("No element at index " + index);
+			}
+			return elements[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
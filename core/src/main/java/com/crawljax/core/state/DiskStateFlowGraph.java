@@ -0,0 +1,81 @@
+package com.crawljax.core.state;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.ExitNotifier;
+import com.crawljax.core.configuration.StateFlowGraphConfiguration;
+
+/**
+ * A {@link CompactStateFlowGraph} for crawls whose DOMs do not fit in the heap. Every state is
+ * written to a file in the configured directory as soon as it is added. The graph, and the edges
+ * that point to the state, only keep a small stand-in with its id, name and url. The DOMs are read
+ * back when they are needed, and the most recently used states are kept in memory.
+ * <p>
+ * The edges and the adjacency stay in memory. They are small compared to the DOMs, and the crawl
+ * paths of the session hold on to the same edges anyway. Shortest paths and snapshots work as in
+ * the {@link CompactStateFlowGraph}.
+ * <p>
+ * States must be {@link java.io.Serializable}, including those of a custom
+ * {@link StateVertexFactory}. They are found by their stripped DOM, like {@link StateVertexImpl}s.
+ * <p>
+ * The file is closed when the crawl ends, after the
+ * {@link com.crawljax.core.plugin.PostCrawlingPlugin}s ran. The DOMs of the states cannot be read
+ * from the returned session.
+ *
+ * @see StateFlowGraphConfiguration#onDisk(File, int)
+ */
+@Singleton
+public class DiskStateFlowGraph extends CompactStateFlowGraph implements Closeable {
+
+	private final DiskVertexStore vertices;
+
+	@Inject
+	public DiskStateFlowGraph(ExitNotifier exitNotifier, StateVertexFactory vertexFactory,
+	        StateFlowGraphConfiguration config) {
+		this(exitNotifier, vertexFactory, config.getDirectory(), config.getCachedStates());
+	}
+
+	/**
+	 * @param directory
+	 *            the folder to write the states to.
+	 * @param cachedStates
+	 *            the number of recently used states to keep in memory.
+	 * @throws CrawljaxException
+	 *             when the file for the states cannot be created.
+	 */
+	public DiskStateFlowGraph(ExitNotifier exitNotifier, StateVertexFactory vertexFactory,
+	        File directory, int cachedStates) {
+		super(exitNotifier, vertexFactory);
+		try {
+			this.vertices = new DiskVertexStore(directory, cachedStates);
+		} catch (IOException e) {
+			throw new CrawljaxException("Could not create the state store in " + directory, e);
+		}
+	}
+
+	@Override
+	StateVertex retain(StateVertex stateVertix) {
+		return vertices.write(stateVertix);
+	}
+
+	/**
+	 * @return the number of bytes written to disk.
+	 */
+	public long getBytesOnDisk() {
+		return vertices.size();
+	}
+
+	/**
+	 * Closes the file the states are kept in. The DOMs of the states cannot be read afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		vertices.close();
+	}
+}
@@ -0,0 +1,146 @@
+package com.crawljax.core.state;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+
+import com.crawljax.core.CrawljaxException;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * An append-only file of serialized {@link StateVertex}s with a least recently used cache in
+ * front of it. Every record is the length of the serialized state followed by the state itself,
+ * and is addressed by its offset in the file.
+ * <p>
+ * Writes are serialized. Reads can be done concurrently from any thread.
+ */
+final class DiskVertexStore implements Closeable {
+
+	static final String FILE_NAME = "states.dat";
+
+	private static final int HEADER_SIZE = Integer.BYTES;
+
+	private final File file;
+	private final FileChannel channel;
+	private final LoadingCache<Long, StateVertex> cache;
+	private long end;
+
+	/**
+	 * @param directory
+	 *            the folder to keep the file in. It is created if it does not exist.
+	 * @param cachedStates
+	 *            the number of states to keep in memory.
+	 * @throws IOException
+	 *             when the file cannot be created.
+	 */
+	DiskVertexStore(File directory, int cachedStates) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create the directory " + directory);
+		}
+		this.file = new File(directory, FILE_NAME);
+		this.channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE, TRUNCATE_EXISTING);
+		this.cache = CacheBuilder.newBuilder()
+		        .maximumSize(cachedStates)
+		        .build(new CacheLoader<Long, StateVertex>() {
+
+			        @Override
+			        public StateVertex load(Long offset) throws IOException,
+			                ClassNotFoundException {
+				        return readFromDisk(offset);
+			        }
+		        });
+	}
+
+	/**
+	 * Writes the state to disk and caches it.
+	 *
+	 * @return the object that stands in for the state.
+	 * @throws CrawljaxException
+	 *             when the state cannot be serialized or written.
+	 */
+	synchronized StoredStateVertex write(StateVertex state) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			bytes.write(new byte[HEADER_SIZE]);
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(state);
+			}
+			ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+			record.putInt(0, record.capacity() - HEADER_SIZE);
+
+			long offset = end;
+			while (record.hasRemaining()) {
+				channel.write(record, offset + record.position());
+			}
+			end = offset + record.capacity();
+			cache.put(offset, state);
+			return new StoredStateVertex(this, offset, state);
+		} catch (IOException e) {
+			throw new CrawljaxException("Could not write state " + state.getName() + " to "
+			        + file, e);
+		}
+	}
+
+	/**
+	 * @param offset
+	 *            the offset of the record.
+	 * @return the state, from the cache or from disk.
+	 * @throws CrawljaxException
+	 *             when the state cannot be read.
+	 */
+	StateVertex read(long offset) {
+		try {
+			return cache.get(offset);
+		} catch (ExecutionException e) {
+			throw new CrawljaxException("Could not read the state at " + offset + " from "
+			        + file, e.getCause());
+		}
+	}
+
+	private StateVertex readFromDisk(long offset) throws IOException, ClassNotFoundException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(header, offset);
+		ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+		readFully(record, offset + HEADER_SIZE);
+		try (ObjectInputStream in =
+		        new ObjectInputStream(new ByteArrayInputStream(record.array()))) {
+			return (StateVertex) in.readObject();
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of " + file);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes written.
+	 */
+	synchronized long size() {
+		return end;
+	}
+
+	@Override
+	public void close() throws IOException {
+		cache.invalidateAll();
+		channel.close();
+	}
+}
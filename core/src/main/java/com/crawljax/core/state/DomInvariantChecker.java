@@ -0,0 +1,195 @@
+package com.crawljax.core.state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.crawljax.condition.Condition;
+import com.crawljax.condition.ConditionCache;
+import com.crawljax.condition.DomCondition;
+import com.crawljax.condition.invariant.Invariant;
+import com.crawljax.core.CrawlerContext;
+import com.crawljax.core.plugin.OnInvariantViolationPlugin;
+import com.crawljax.core.plugin.Plugins;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+
+/**
+ * Checks the invariants that only depend on the DOM off the crawler thread. The invariants of a
+ * state are evaluated in parallel in a {@link ForkJoinPool} and their violations are reported to
+ * the {@link OnInvariantViolationPlugin}s from the pool, with a
+ * {@link CrawlerContext#snapshot(StateVertex) snapshot} of the context of the crawler in the
+ * state that was found. The browser of that
+ * context only shows the URL and DOM of the state, so the plugins never touch the browser the
+ * crawler is using.
+ * <p>
+ * {@link #awaitTermination()} has to be called before the crawl ends, so every violation is
+ * reported before the post crawling plugins run.
+ */
+@Singleton
+public class DomInvariantChecker {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DomInvariantChecker.class);
+
+	private static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * @param invariant
+	 *            the invariant.
+	 * @return whether the invariant and all its preconditions are {@link DomCondition}s.
+	 */
+	public static boolean isDomOnly(Invariant invariant) {
+		if (!(invariant.getInvariantCondition() instanceof DomCondition)) {
+			return false;
+		}
+		for (Condition condition : invariant.getPreConditions()) {
+			if (!(condition instanceof DomCondition)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private final ForkJoinPool pool;
+	private final Plugins plugins;
+	private final ConditionCache cache = new ConditionCache();
+
+	/**
+	 * @param plugins
+	 *            the plugins to report violations to.
+	 */
+	@Inject
+	public DomInvariantChecker(Plugins plugins) {
+		this(plugins, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param plugins
+	 *            the plugins to report violations to.
+	 * @param parallelism
+	 *            the number of threads that check invariants.
+	 */
+	public DomInvariantChecker(Plugins plugins, int parallelism) {
+		this.plugins = plugins;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Checks the invariants in the background. When the checker has been terminated, they are
+	 * checked on the calling thread.
+	 *
+	 * @param invariants
+	 *            the invariants, which should all be {@link #isDomOnly(Invariant) DOM only}.
+	 * @param strippedDom
+	 *            the stripped DOM of the state.
+	 * @param context
+	 *            the context to report violations with. It should not change anymore.
+	 * @return the task, which is done when all violations are reported.
+	 */
+	public ForkJoinTask<?> check(ImmutableList<Invariant> invariants, String strippedDom,
+	        CrawlerContext context) {
+		ForkJoinTask<?> task = new StateCheck(invariants, strippedDom, context);
+		try {
+			return pool.submit(task);
+		} catch (RejectedExecutionException e) {
+			LOG.debug("Checking invariants on the crawler thread because the pool is shut down");
+			task.invoke();
+			return task;
+		}
+	}
+
+	/**
+	 * Waits until all submitted invariants are checked and stops the threads of the pool.
+	 */
+	public void awaitTermination() {
+		pool.shutdown();
+		try {
+			if (!pool.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				LOG.warn("Not all invariants were checked within {} seconds",
+				        TERMINATION_TIMEOUT_SECONDS);
+			}
+		} catch (InterruptedException e) {
+			LOG.warn("Interrupted while waiting for the invariants to be checked");
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the cache of the results of the invariants.
+	 */
+	public ConditionCache getCache() {
+		return cache;
+	}
+
+	private final class StateCheck extends RecursiveAction {
+
+		private static final long serialVersionUID = 2480537268329740853L;
+
+		private final ImmutableList<Invariant> invariants;
+		private final String strippedDom;
+		private final transient CrawlerContext context;
+
+		StateCheck(ImmutableList<Invariant> invariants, String strippedDom,
+		        CrawlerContext context) {
+			this.invariants = invariants;
+			this.strippedDom = strippedDom;
+			this.context = context;
+		}
+
+		@Override
+		protected void compute() {
+			HashCode digest = ConditionCache.digestOf(strippedDom);
+			List<InvariantCheck> checks = new ArrayList<>(invariants.size());
+			for (Invariant invariant : invariants) {
+				checks.add(new InvariantCheck(invariant, strippedDom, digest));
+			}
+			invokeAll(checks);
+			for (InvariantCheck check : checks) {
+				if (check.join()) {
+					LOG.debug("Invariant '{}' failed", check.invariant.getDescription());
+					plugins.runOnInvariantViolationPlugins(check.invariant, context);
+				}
+			}
+		}
+	}
+
+	private final class InvariantCheck extends RecursiveTask<Boolean> {
+
+		private static final long serialVersionUID = -3208541905768317622L;
+
+		private final Invariant invariant;
+		private final String strippedDom;
+		private final HashCode digest;
+
+		InvariantCheck(Invariant invariant, String strippedDom, HashCode digest) {
+			this.invariant = invariant;
+			this.strippedDom = strippedDom;
+			this.digest = digest;
+		}
+
+		/**
+		 * @return <code>true</code> if the invariant is violated.
+		 */
+		@Override
+		protected Boolean compute() {
+			for (Condition condition : invariant.getPreConditions()) {
+				if (!cache.check((DomCondition) condition, strippedDom, digest)) {
+					return false;
+				}
+			}
+			return !cache.check((DomCondition) invariant.getInvariantCondition(), strippedDom,
+			        digest);
+		}
+	}
+}
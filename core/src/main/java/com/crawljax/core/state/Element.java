@@ -27,6 +27,11 @@ public class Element implements Serializable {
 	private final String text;
 	private final ImmutableMap<String, String> attributes;
 
+	/**
+	 * The string of the node an element that is not backed by a node was created from.
+	 */
+	private final String nodeString;
+
 	/**
 	 * Create a new Element.
 	 * 
@@ -49,6 +54,24 @@ public class Element implements Serializable {
 			builder.put(attr.getNodeName().toLowerCase(), attr.getNodeValue());
 		}
 		attributes = builder.build();
+		nodeString = null;
+	}
+
+	/**
+	 * Creates an element that is not backed by a {@link Node}, like the ones read from a
+	 * {@link CrawlArchive}.
+	 *
+	 * @param nodeString
+	 *            the string of the node the element was created from, which is part of its
+	 *            identity.
+	 */
+	Element(String tag, String text, ImmutableMap<String, String> attributes,
+	        String nodeString) {
+		this.node = null;
+		this.tag = tag;
+		this.text = text;
+		this.attributes = attributes;
+		this.nodeString = nodeString;
 	}
 
 	/**
@@ -125,7 +148,7 @@ public class Element implements Serializable {
 	}
 
 	/**
-	 * @return The node.
+	 * @return The node, or <code>null</code> if the element was read from a {@link CrawlArchive}.
 	 */
 	public Node getNode() {
 		return node;
@@ -145,16 +168,23 @@ public class Element implements Serializable {
 		        .toString();
 	}
 
+	/**
+	 * @return the string of the node the element was created from.
+	 */
+	String nodeString() {
+		return node == null ? nodeString : node.toString();
+	}
+
 	@Override
 	public int hashCode() {
-		return Objects.hash(node.toString(), tag, text, attributes);
+		return Objects.hash(nodeString(), tag, text, attributes);
 	}
 
 	@Override
 	public boolean equals(Object object) {
 		if (object instanceof Element) {
 			Element that = (Element) object;
-			return Objects.equals(this.node.toString(), that.node.toString())
+			return Objects.equals(this.nodeString(), that.nodeString())
 			        && Objects.equals(this.tag, that.tag)
 			        && Objects.equals(this.text, that.text)
 			        && Objects.equals(this.attributes, that.attributes);
@@ -3,14 +3,12 @@ package com.crawljax.core.state;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -19,13 +17,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.crawljax.core.ExitNotifier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.apache.commons.math.stat.descriptive.moment.Mean;
 import org.jgrapht.DirectedGraph;
-import org.jgrapht.GraphPath;
 import org.jgrapht.alg.DijkstraShortestPath;
-import org.jgrapht.alg.KShortestPaths;
 import org.jgrapht.graph.DirectedMultigraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +30,7 @@ import org.slf4j.LoggerFactory;
  */
 @Singleton
 @SuppressWarnings("serial")
-public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
+public class InMemoryStateFlowGraph extends AbstractStateFlowGraph implements Serializable {
 
 	private static final Logger LOG = LoggerFactory.getLogger(InMemoryStateFlowGraph.class
 	        .getName());
@@ -50,11 +44,15 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 	 * Thread-safety.
 	 */
 	private final AtomicInteger stateCounter = new AtomicInteger();
-	private final AtomicInteger nextStateNameCounter = new AtomicInteger();
 	private final Map<Integer, StateVertex> stateById;
 
+	/**
+	 * The states and edges of the graph, in the order they were added, from which snapshots are
+	 * taken. Only written while holding the write lock.
+	 */
+	private transient VersionedGraphStore store = new VersionedGraphStore();
+
 	private final ExitNotifier exitNotifier;
-	private final StateVertexFactory vertexFactory;
 
 	/**
 	 * The constructor.
@@ -64,8 +62,8 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 	 */
 	@Inject
 	public InMemoryStateFlowGraph(ExitNotifier exitNotifier, StateVertexFactory vertexFactory) {
+		super(vertexFactory);
 		this.exitNotifier = exitNotifier;
-		this.vertexFactory = vertexFactory;
 		sfg = new DirectedMultigraph<>(Eventable.class);
 		stateById = Collections.synchronizedMap(new HashMap<Integer, StateVertex>());
 		LOG.debug("Initialized the stateflowgraph");
@@ -88,10 +86,12 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 	 * @return the clone if one is detected null otherwise.
 	 * @see org.jgrapht.Graph#addVertex(Object)
 	 */
+	@Override
 	public StateVertex putIfAbsent(StateVertex stateVertix) {
 		return putIfAbsent(stateVertix, true);
 	}
 
+	@Override
 	public StateVertex putIndex(StateVertex index) {
 		return putIfAbsent(index, false);
 	}
@@ -118,6 +118,7 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 			boolean added = sfg.addVertex(stateVertix);
 			if (added) {
 				stateById.put(stateVertix.getId(), stateVertix);
+				store.addVertex(stateVertix);
 				int count = stateCounter.incrementAndGet();
 				exitNotifier.incrementNumberOfStates();
 				LOG.debug("Number of states is now {}", count);
@@ -161,13 +162,18 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 	 * @return true if this graph did not already contain the specified edge.
 	 * @see org.jgrapht.Graph#addEdge(Object, Object, Object)
 	 */
+	@Override
 	public boolean addEdge(StateVertex sourceVert, StateVertex targetVert,
 	        Eventable clickable) {
 		clickable.setSource(sourceVert);
 		clickable.setTarget(targetVert);
 		writeLock.lock();
 		try {
-			return sfg.addEdge(sourceVert, targetVert, clickable);
+			boolean added = sfg.addEdge(sourceVert, targetVert, clickable);
+			if (added) {
+				store.addEdge(store.indexOf(sourceVert), store.indexOf(targetVert), clickable);
+			}
+			return added;
 		} finally {
 			writeLock.unlock();
 		}
@@ -273,90 +279,28 @@ public class InMemoryStateFlowGraph implements Serializable, StateFlowGraph {
 		}
 	}
 
-	@Override
-	public int getNumberOfStates() {
-		return stateCounter.get();
-	}
-
-	StateVertex newStateFor(String url, String dom, String strippedDom) {
-		int id = nextStateNameCounter.incrementAndGet();
-		return vertexFactory.newStateVertex(id, url, getNewStateName(id), dom, strippedDom);
-	}
-
-	private String getNewStateName(int id) {
-		return "state" + id;
-	}
-
-	@Override
-	public List<List<GraphPath<StateVertex, Eventable>>> getAllPossiblePaths(StateVertex index) {
-		final List<List<GraphPath<StateVertex, Eventable>>> results = Lists.newArrayList();
-
-		final KShortestPaths<StateVertex, Eventable> kPaths =
-		        new KShortestPaths<>(this.sfg, index, Integer.MAX_VALUE);
-
-		for (StateVertex state : getDeepStates(index)) {
-			List<GraphPath<StateVertex, Eventable>> paths = kPaths.getPaths(state);
-			results.add(paths);
-		}
-
-		return results;
-	}
-
 	/**
-	 * @param state
-	 *            The starting state.
-	 * @return A list of the deepest states (states with no outgoing edges).
+	 * The graph keeps its states and edges in a {@link VersionedGraphStore} as they are added, so
+	 * a snapshot is taken in constant time without locking.
 	 */
-	private List<StateVertex> getDeepStates(StateVertex state) {
-		final List<StateVertex> deepStates = new ArrayList<StateVertex>();
-
-		traverse(Sets.<String> newHashSet(), deepStates, state);
-
-		return deepStates;
+	@Override
+	public StateFlowGraphSnapshot snapshot() {
+		return store.snapshot();
 	}
 
-	private void traverse(Set<String> visitedStates, List<StateVertex> deepStates,
-	        StateVertex state) {
-		visitedStates.add(state.getName());
-
-		Set<StateVertex> outgoingSet = getOutgoingStates(state);
-
-		if ((outgoingSet == null) || outgoingSet.isEmpty()) {
-			deepStates.add(state);
-		} else {
-			if (cyclic(visitedStates, outgoingSet)) {
-				deepStates.add(state);
-			} else {
-				for (StateVertex st : outgoingSet) {
-					if (!visitedStates.contains(st.getName())) {
-						traverse(visitedStates, deepStates, st);
-					}
-				}
-			}
-		}
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		store = VersionedGraphStore.of(sfg.vertexSet(), sfg.edgeSet());
 	}
 
-	private boolean cyclic(Set<String> visitedStates, Set<StateVertex> outgoingSet) {
-		int i = 0;
-
-		for (StateVertex state : outgoingSet) {
-			if (visitedStates.contains(state.getName())) {
-				i++;
-			}
-		}
-
-		return i == outgoingSet.size();
+	@Override
+	public int getNumberOfStates() {
+		return stateCounter.get();
 	}
 
 	@Override
-	public ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix) {
-		final Set<StateVertex> result = new HashSet<>();
-
-		for (Eventable c : getOutgoingClickables(stateVertix)) {
-			result.add(sfg.getEdgeTarget(c));
-		}
-
-		return ImmutableSet.copyOf(result);
+	DirectedGraph<StateVertex, Eventable> asDirectedGraph() {
+		return sfg;
 	}
 
 }
@@ -0,0 +1,102 @@
+package com.crawljax.core.state;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only file that is memory mapped in segments, so it can be larger than the 2 GB a single
+ * {@link java.nio.MappedByteBuffer} can hold. Values are read with absolute gets only, so it can be
+ * read from any number of threads.
+ */
+final class MappedFile {
+
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private final ByteBuffer[] segments;
+	private final long size;
+
+	private MappedFile(ByteBuffer[] segments, long size) {
+		this.segments = segments;
+		this.size = size;
+	}
+
+	static MappedFile map(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(MapMode.READ_ONLY, position,
+				        Math.min(SEGMENT_SIZE, size - position));
+			}
+			return new MappedFile(segments, size);
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	byte get(long position) {
+		checkBounds(position, 1);
+		return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+	}
+
+	int getInt(long position) {
+		checkBounds(position, Integer.BYTES);
+		ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+		int offset = (int) (position & SEGMENT_MASK);
+		if (offset + Integer.BYTES <= segment.limit()) {
+			return segment.getInt(offset);
+		}
+		return ByteBuffer.wrap(getBytes(position, Integer.BYTES)).getInt();
+	}
+
+	long getLong(long position) {
+		checkBounds(position, Long.BYTES);
+		ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+		int offset = (int) (position & SEGMENT_MASK);
+		if (offset + Long.BYTES <= segment.limit()) {
+			return segment.getLong(offset);
+		}
+		return ByteBuffer.wrap(getBytes(position, Long.BYTES)).getLong();
+	}
+
+	byte[] getBytes(long position, int length) {
+		checkBounds(position, length);
+		byte[] bytes = new byte[length];
+		int copied = 0;
+		while (copied < length) {
+			long current = position + copied;
+			ByteBuffer segment = segments[(int) (current >>> SEGMENT_SHIFT)].duplicate();
+			segment.position((int) (current & SEGMENT_MASK));
+			int chunk = Math.min(length - copied, segment.remaining());
+			segment.get(bytes, copied, chunk);
+			copied += chunk;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the string stored at the position as its length in bytes followed by its UTF-8
+	 *         encoding.
+	 */
+	String getString(long position) {
+		return new String(getBytes(position + Integer.BYTES, getInt(position)), UTF_8);
+	}
+
+	private void checkBounds(long position, int length) {
+		if (position < 0 || length < 0 || position + length > size) {
+			throw new IndexOutOfBoundsException("Cannot read " + length + " bytes at "
+			        + position + " from a file of " + size + " bytes");
+		}
+	}
+}
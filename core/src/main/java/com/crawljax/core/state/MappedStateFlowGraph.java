@@ -0,0 +1,416 @@
+package com.crawljax.core.state;
+
+import static com.crawljax.core.state.CrawlArchive.NULL;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification.How;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The read-only {@link StateFlowGraph} of a {@link CrawlArchive}. States and edges are decoded
+ * from the memory mapped archive the first time they are requested. The DOMs are decoded every
+ * time they are requested.
+ * <p>
+ * States that are not from this graph are looked up by {@link StateVertex#getId()}. The edges do
+ * not have form inputs, and their {@link Element}s have no {@link Element#getNode()}.
+ */
+public final class MappedStateFlowGraph implements StateFlowGraph {
+
+	private final MappedFile file;
+	private final int stateCount;
+	private final int edgeCount;
+	private final int initialState;
+	private final long stateSection;
+	private final long edgeSection;
+	private final long outgoingSection;
+	private final long incomingSection;
+	private final long idSection;
+
+	private final AtomicReferenceArray<MappedStateVertex> states;
+	private final AtomicReferenceArray<Eventable> edges;
+
+	MappedStateFlowGraph(MappedFile file) {
+		this.file = file;
+		this.stateCount = file.getInt(CrawlArchive.HEADER_STATES);
+		this.edgeCount = file.getInt(CrawlArchive.HEADER_EDGES);
+		this.initialState = file.getInt(CrawlArchive.HEADER_INITIAL_STATE);
+		this.stateSection = file.getLong(CrawlArchive.HEADER_STATE_SECTION);
+		this.edgeSection = file.getLong(CrawlArchive.HEADER_EDGE_SECTION);
+		this.outgoingSection = file.getLong(CrawlArchive.HEADER_OUTGOING_SECTION);
+		this.incomingSection = file.getLong(CrawlArchive.HEADER_INCOMING_SECTION);
+		this.idSection = file.getLong(CrawlArchive.HEADER_ID_SECTION);
+		this.states = new AtomicReferenceArray<>(stateCount);
+		this.edges = new AtomicReferenceArray<>(edgeCount);
+	}
+
+	/**
+	 * @param index
+	 *            the index of the state, in the order the states were added to the crawled
+	 *            graph.
+	 * @return the state at that index.
+	 */
+	public StateVertex stateAt(int index) {
+		if (index < 0 || index >= stateCount) {
+			throw new IndexOutOfBoundsException("No state at index " + index);
+		}
+		MappedStateVertex state = states.get(index);
+		if (state == null) {
+			long record = stateSection + (long) index * CrawlArchive.STATE_SIZE;
+			state = new MappedStateVertex(this, index,
+			        file.getInt(record + CrawlArchive.STATE_ID),
+			        file.getInt(record + CrawlArchive.STATE_HASH),
+			        string(file.getLong(record + CrawlArchive.STATE_NAME)),
+			        string(file.getLong(record + CrawlArchive.STATE_URL)));
+			if (!states.compareAndSet(index, null, state)) {
+				state = states.get(index);
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * @param index
+	 *            the index of the edge, in the order the edges were added to the crawled graph.
+	 * @return the edge at that index.
+	 */
+	public Eventable edgeAt(int index) {
+		if (index < 0 || index >= edgeCount) {
+			throw new IndexOutOfBoundsException("No edge at index " + index);
+		}
+		Eventable edge = edges.get(index);
+		if (edge == null) {
+			edge = readEdge(edgeSection + (long) index * CrawlArchive.EDGE_SIZE);
+			if (!edges.compareAndSet(index, null, edge)) {
+				edge = edges.get(index);
+			}
+		}
+		return edge;
+	}
+
+	private Eventable readEdge(long record) {
+		int eventType = file.getInt(record + CrawlArchive.EDGE_EVENT_TYPE);
+		int how = file.getInt(record + CrawlArchive.EDGE_HOW);
+		long value = file.getLong(record + CrawlArchive.EDGE_VALUE);
+		Identification identification = how < 0 && value == NULL ? null
+		        : new Identification(how < 0 ? null : How.values()[how], string(value));
+		Eventable edge = new Eventable(identification,
+		        eventType < 0 ? null : EventType.values()[eventType],
+		        string(file.getLong(record + CrawlArchive.EDGE_FRAME)));
+		edge.setId(file.getLong(record + CrawlArchive.EDGE_ID));
+		long tag = file.getLong(record + CrawlArchive.EDGE_TAG);
+		if (tag != NULL) {
+			edge.setElement(new Element(string(tag),
+			        string(file.getLong(record + CrawlArchive.EDGE_TEXT)),
+			        attributes(file.getLong(record + CrawlArchive.EDGE_ATTRIBUTES)),
+			        string(file.getLong(record + CrawlArchive.EDGE_NODE))));
+		}
+		edge.setSource(stateAt(file.getInt(record + CrawlArchive.EDGE_SOURCE)));
+		edge.setTarget(stateAt(file.getInt(record + CrawlArchive.EDGE_TARGET)));
+		return edge;
+	}
+
+	private ImmutableMap<String, String> attributes(long position) {
+		ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+		int count = file.getInt(position);
+		long entry = position + Integer.BYTES;
+		for (int i = 0; i < count; i++) {
+			attributes.put(string(file.getLong(entry)), string(file.getLong(entry + Long.BYTES)));
+			entry += 2 * Long.BYTES;
+		}
+		return attributes.build();
+	}
+
+	private String string(long position) {
+		return position == NULL ? null : file.getString(position);
+	}
+
+	String domOf(int index) {
+		return string(file.getLong(stateSection + (long) index * CrawlArchive.STATE_SIZE
+		        + CrawlArchive.STATE_DOM));
+	}
+
+	String strippedDomOf(int index) {
+		return string(file.getLong(stateSection + (long) index * CrawlArchive.STATE_SIZE
+		        + CrawlArchive.STATE_STRIPPED_DOM));
+	}
+
+	/**
+	 * @param state
+	 *            the state to look for.
+	 * @return the index of the state with the same id, or <code>-1</code>.
+	 */
+	public int indexOf(StateVertex state) {
+		if (state instanceof MappedStateVertex && ((MappedStateVertex) state).belongsTo(this)) {
+			return ((MappedStateVertex) state).getIndex();
+		}
+		return indexOfId(state.getId());
+	}
+
+	private int indexOfId(int id) {
+		int low = 0;
+		int high = stateCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long entry = file.getLong(idSection + (long) middle * Long.BYTES);
+			int found = (int) (entry >> Integer.SIZE);
+			if (found < id) {
+				low = middle + 1;
+			} else if (found > id) {
+				high = middle - 1;
+			} else {
+				return (int) entry;
+			}
+		}
+		return -1;
+	}
+
+	private int requireIndex(StateVertex state) {
+		int index = indexOf(state);
+		if (index < 0) {
+			throw new IllegalArgumentException("No such vertex in graph: " + state);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the indices of the edges in the given compressed sparse row section.
+	 */
+	private int[] edgesOf(long section, int state) {
+		int from = file.getInt(section + (long) state * Integer.BYTES);
+		int to = file.getInt(section + (state + 1L) * Integer.BYTES);
+		long entries = section + (stateCount + 1L) * Integer.BYTES;
+		int[] result = new int[to - from];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = file.getInt(entries + (long) (from + i) * Integer.BYTES);
+		}
+		return result;
+	}
+
+	private ImmutableSet<Eventable> edgesAt(int[] indices) {
+		ImmutableSet.Builder<Eventable> result = ImmutableSet.builder();
+		for (int index : indices) {
+			result.add(edgeAt(index));
+		}
+		return result.build();
+	}
+
+	private int targetOf(int edge) {
+		return file.getInt(edgeSection + (long) edge * CrawlArchive.EDGE_SIZE
+		        + CrawlArchive.EDGE_TARGET);
+	}
+
+	private int sourceOf(int edge) {
+		return file.getInt(edgeSection + (long) edge * CrawlArchive.EDGE_SIZE
+		        + CrawlArchive.EDGE_SOURCE);
+	}
+
+	@Override
+	public StateVertex getById(int id) {
+		int index = indexOfId(id);
+		return index < 0 ? null : stateAt(index);
+	}
+
+	@Override
+	public StateVertex getInitialState() {
+		return initialState < 0 ? null : stateAt(initialState);
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getOutgoingClickables(StateVertex stateVertix) {
+		return edgesAt(edgesOf(outgoingSection, requireIndex(stateVertix)));
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getIncomingClickable(StateVertex stateVertix) {
+		return edgesAt(edgesOf(incomingSection, requireIndex(stateVertix)));
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix) {
+		final Set<StateVertex> result = new HashSet<>();
+		for (int edge : edgesOf(outgoingSection, requireIndex(stateVertix))) {
+			result.add(stateAt(targetOf(edge)));
+		}
+		return ImmutableSet.copyOf(result);
+	}
+
+	@Override
+	public boolean canGoTo(StateVertex source, StateVertex target) {
+		int from = indexOf(source);
+		int to = indexOf(target);
+		if (from < 0 || to < 0) {
+			return false;
+		}
+		return hasEdge(from, to) || hasEdge(to, from);
+	}
+
+	private boolean hasEdge(int from, int to) {
+		for (int edge : edgesOf(outgoingSection, from)) {
+			if (targetOf(edge) == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds a shortest path with a breadth first search over the archived adjacency.
+	 *
+	 * @return the shortest path, or an empty list if the end is not reachable from the start.
+	 */
+	@Override
+	public ImmutableList<Eventable> getShortestPath(StateVertex start, StateVertex end) {
+		int from = requireIndex(start);
+		int to = requireIndex(end);
+		if (from == to) {
+			return ImmutableList.of();
+		}
+		int[] reachedBy = new int[stateCount];
+		Arrays.fill(reachedBy, -1);
+		int[] queue = new int[stateCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = from;
+		while (head < tail) {
+			for (int edge : edgesOf(outgoingSection, queue[head++])) {
+				int next = targetOf(edge);
+				if (next != from && reachedBy[next] == -1) {
+					reachedBy[next] = edge;
+					if (next == to) {
+						return pathTo(from, to, reachedBy);
+					}
+					queue[tail++] = next;
+				}
+			}
+		}
+		return ImmutableList.of();
+	}
+
+	private ImmutableList<Eventable> pathTo(int from, int to, int[] reachedBy) {
+		ImmutableList.Builder<Eventable> path = ImmutableList.builder();
+		int length = 0;
+		for (int state = to; state != from; state = sourceOf(reachedBy[state])) {
+			length++;
+		}
+		int[] edgesOnPath = new int[length];
+		for (int state = to; state != from; state = sourceOf(reachedBy[state])) {
+			edgesOnPath[--length] = reachedBy[state];
+		}
+		for (int edge : edgesOnPath) {
+			path.add(edgeAt(edge));
+		}
+		return path.build();
+	}
+
+	/**
+	 * @return a read-only view of all states, in the order they were added.
+	 */
+	public List<StateVertex> states() {
+		return new AbstractList<StateVertex>() {
+
+			@Override
+			public StateVertex get(int index) {
+				return stateAt(index);
+			}
+
+			@Override
+			public int size() {
+				return stateCount;
+			}
+		};
+	}
+
+	/**
+	 * @return a read-only view of all edges, in the order they were added.
+	 */
+	public List<Eventable> edges() {
+		return new AbstractList<Eventable>() {
+
+			@Override
+			public Eventable get(int index) {
+				return edgeAt(index);
+			}
+
+			@Override
+			public int size() {
+				return edgeCount;
+			}
+		};
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getAllStates() {
+		return ImmutableSet.copyOf(states());
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getAllEdges() {
+		return ImmutableSet.copyOf(edges());
+	}
+
+	/**
+	 * Computed from the archived sizes of the DOMs, without decoding them.
+	 */
+	@Override
+	public int getMeanStateStringSize() {
+		if (stateCount == 0) {
+			return 0;
+		}
+		double total = 0;
+		for (int i = 0; i < stateCount; i++) {
+			long dom = file.getLong(stateSection + (long) i * CrawlArchive.STATE_SIZE
+			        + CrawlArchive.STATE_DOM);
+			if (dom != NULL) {
+				total += file.getInt(dom);
+			}
+		}
+		return (int) (total / stateCount);
+	}
+
+	@Override
+	public int getNumberOfStates() {
+		return stateCount;
+	}
+
+	/**
+	 * @return The number of edges in the graph.
+	 */
+	public int getNumberOfEdges() {
+		return edgeCount;
+	}
+
+	@Override
+	public List<List<GraphPath<StateVertex, Eventable>>> getAllPossiblePaths(StateVertex index) {
+		DirectedGraph<StateVertex, Eventable> graph = new DirectedMultigraph<>(Eventable.class);
+		for (StateVertex state : states()) {
+			graph.addVertex(state);
+		}
+		for (Eventable edge : edges()) {
+			graph.addEdge(edge.getSourceStateVertex(), edge.getTargetStateVertex(), edge);
+		}
+		return AbstractStateFlowGraph.allPossiblePaths(this, graph,
+		        stateAt(requireIndex(index)));
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("states", stateCount)
+		        .add("edges", edgeCount)
+		        .toString();
+	}
+}
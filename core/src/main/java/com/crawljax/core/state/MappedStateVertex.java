@@ -0,0 +1,124 @@
+package com.crawljax.core.state;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Objects;
+
+import org.w3c.dom.Document;
+
+import com.crawljax.core.CandidateElement;
+import com.crawljax.util.DomUtils;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A read-only state of a {@link MappedStateFlowGraph}. The DOMs are decoded from the archive every
+ * time they are requested, so they are not kept in memory. Like {@link StateVertexImpl}, a state
+ * equals every state with the same stripped DOM. When it is serialized, a {@link StateVertexImpl}
+ * is written instead.
+ */
+final class MappedStateVertex implements StateVertex {
+
+	private static final long serialVersionUID = 5127402216349829043L;
+
+	private final transient MappedStateFlowGraph graph;
+	private final int index;
+	private final int id;
+	private final int hash;
+	private final String name;
+	private final String url;
+
+	MappedStateVertex(MappedStateFlowGraph graph, int index, int id, int hash, String name,
+	        String url) {
+		this.graph = graph;
+		this.index = index;
+		this.id = id;
+		this.hash = hash;
+		this.name = name;
+		this.url = url;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	boolean belongsTo(MappedStateFlowGraph graph) {
+		return this.graph == graph;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getDom() {
+		return graph.domOf(index);
+	}
+
+	@Override
+	public String getStrippedDom() {
+		return graph.strippedDomOf(index);
+	}
+
+	@Override
+	public String getUrl() {
+		return url;
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public Document getDocument() throws IOException {
+		return DomUtils.asDocument(getDom());
+	}
+
+	/**
+	 * @throws UnsupportedOperationException
+	 *             always, because an archived state cannot be changed.
+	 */
+	@Override
+	public void setElementsFound(LinkedList<CandidateElement> elements) {
+		throw new UnsupportedOperationException("An archived state cannot be changed");
+	}
+
+	/**
+	 * @return <code>null</code>, because the candidate elements are not archived.
+	 */
+	@Override
+	public ImmutableList<CandidateElement> getCandidateElements() {
+		return null;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof MappedStateVertex && ((MappedStateVertex) object).graph == graph) {
+			return ((MappedStateVertex) object).index == index;
+		}
+		if (object instanceof StateVertex) {
+			StateVertex that = (StateVertex) object;
+			return Objects.equals(getStrippedDom(), that.getStrippedDom());
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("id", id)
+		        .add("name", name)
+		        .toString();
+	}
+
+	private Object writeReplace() {
+		return new StateVertexImpl(id, url, name, getDom(), getStrippedDom());
+	}
+}
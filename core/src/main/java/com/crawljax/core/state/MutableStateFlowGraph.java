@@ -0,0 +1,57 @@
+package com.crawljax.core.state;
+
+/**
+ * A {@link StateFlowGraph} that the crawlers can write to. Plugins only get to see the read-only
+ * {@link StateFlowGraph}.
+ */
+public interface MutableStateFlowGraph extends StateFlowGraph {
+
+	/**
+	 * Adds a state to the graph if no equal state is present yet.
+	 *
+	 * @param stateVertix
+	 *            the state to be added.
+	 * @return the clone if one is detected, <code>null</code> otherwise.
+	 */
+	StateVertex putIfAbsent(StateVertex stateVertix);
+
+	/**
+	 * Adds the index state to the graph.
+	 *
+	 * @param index
+	 *            the index state.
+	 * @return the clone if one is detected, <code>null</code> otherwise.
+	 */
+	StateVertex putIndex(StateVertex index);
+
+	/**
+	 * Adds the specified edge to this graph, going from the source vertex to the target vertex,
+	 * unless an equal edge is already present. The source and target vertices must already be
+	 * contained in this graph.
+	 *
+	 * @param sourceVert
+	 *            source vertex of the edge.
+	 * @param targetVert
+	 *            target vertex of the edge.
+	 * @param clickable
+	 *            the clickable edge to be added to this graph.
+	 * @return true if this graph did not already contain the specified edge.
+	 * @throws IllegalArgumentException
+	 *             if the source or target vertex is not in the graph.
+	 */
+	boolean addEdge(StateVertex sourceVert, StateVertex targetVert, Eventable clickable);
+
+	/**
+	 * Creates a new state with a fresh id. The state is not added to the graph.
+	 *
+	 * @param url
+	 *            the current url of the state.
+	 * @param dom
+	 *            the current DOM tree of the browser.
+	 * @param strippedDom
+	 *            the stripped dom by the OracleComparators.
+	 * @return the new state.
+	 */
+	StateVertex newStateFor(String url, String dom, String strippedDom);
+
+}
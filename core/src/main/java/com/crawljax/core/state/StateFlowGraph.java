@@ -112,4 +112,16 @@ public interface StateFlowGraph {
 	 */
 	ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix);
 
+	/**
+	 * Returns an immutable, consistent snapshot of the graph that can be read without locking
+	 * while crawlers keep changing the graph. {@link CompactStateFlowGraph} returns one in constant
+	 * time, {@link InMemoryStateFlowGraph} copies the graph once per change. The default
+	 * implementation copies the graph.
+	 * 
+	 * @return a snapshot of the current graph.
+	 */
+	default StateFlowGraphSnapshot snapshot() {
+		return StateFlowGraphSnapshot.copyOf(this);
+	}
+
 }
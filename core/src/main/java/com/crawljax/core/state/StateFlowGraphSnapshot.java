@@ -0,0 +1,400 @@
+package com.crawljax.core.state;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.math.stat.descriptive.moment.Mean;
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import com.crawljax.core.state.VersionedGraphStore.Frame;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An immutable, consistent version of a {@link StateFlowGraph}. A snapshot is taken in constant
+ * time because it shares its storage with the graph and with the other snapshots. Reading it never
+ * takes a lock, and crawlers can keep adding states and edges to the graph while it is being read.
+ * <p>
+ * Besides the {@link StateFlowGraph} methods, which copy their results into immutable collections,
+ * the snapshot offers read-only views that iterate the shared storage without copying:
+ * {@link #states()}, {@link #edges()}, {@link #outgoing(StateVertex)} and
+ * {@link #incoming(StateVertex)}.
+ *
+ * @see StateFlowGraph#snapshot()
+ */
+public final class StateFlowGraphSnapshot implements StateFlowGraph {
+
+	private final long version;
+	private final StateVertex[] vertices;
+	private final int vertexCount;
+	private final int[] vertexTable;
+	private final int[] indexById;
+	private final Eventable[] edges;
+	private final int[] edgeSource;
+	private final int[] edgeTarget;
+	private final int edgeCount;
+	private final Frame outgoing;
+	private final Frame incoming;
+
+	StateFlowGraphSnapshot(long version, StateVertex[] vertices, int vertexCount,
+	        int[] vertexTable, int[] indexById, Eventable[] edges, int[] edgeSource,
+	        int[] edgeTarget, int edgeCount, Frame outgoing, Frame incoming) {
+		this.version = version;
+		this.vertices = vertices;
+		this.vertexCount = vertexCount;
+		this.vertexTable = vertexTable;
+		this.indexById = indexById;
+		this.edges = edges;
+		this.edgeSource = edgeSource;
+		this.edgeTarget = edgeTarget;
+		this.edgeCount = edgeCount;
+		this.outgoing = outgoing;
+		this.incoming = incoming;
+	}
+
+	/**
+	 * Creates a snapshot by copying a graph that cannot provide one itself.
+	 *
+	 * @param graph
+	 *            the graph to copy.
+	 * @return a snapshot of the graph.
+	 */
+	public static StateFlowGraphSnapshot copyOf(StateFlowGraph graph) {
+		return VersionedGraphStore.copyOf(graph.getAllStates(), graph.getAllEdges());
+	}
+
+	/**
+	 * @return the version of the graph this snapshot was taken from. Every mutation of the graph
+	 *         increments the version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param state
+	 *            the state to look for.
+	 * @return the dense index of the state in this snapshot, or <code>-1</code> if it is not in
+	 *         the snapshot. Indices are assigned in the order the states were added.
+	 */
+	public int indexOf(StateVertex state) {
+		return VersionedGraphStore.lookup(vertexTable, vertices, vertexCount, state);
+	}
+
+	/**
+	 * @param index
+	 *            the dense index of the state.
+	 * @return the state at that index.
+	 * @see #indexOf(StateVertex)
+	 */
+	public StateVertex stateAt(int index) {
+		if (index < 0 || index >= vertexCount) {
+			throw new IndexOutOfBoundsException("No state at index " + index);
+		}
+		return vertices[index];
+	}
+
+	private int requireIndex(StateVertex state) {
+		int index = indexOf(state);
+		if (index < 0) {
+			throw new IllegalArgumentException("No such vertex in graph: " + state);
+		}
+		return index;
+	}
+
+	/**
+	 * @return a read-only view of all states, in the order they were added.
+	 */
+	public Collection<StateVertex> states() {
+		return new ArrayView<>(vertices, vertexCount);
+	}
+
+	/**
+	 * @return a read-only view of all edges, in the order they were added.
+	 */
+	public Collection<Eventable> edges() {
+		return new ArrayView<>(edges, edgeCount);
+	}
+
+	/**
+	 * @param stateVertix
+	 *            the source state.
+	 * @return a read-only view of the outgoing edges of the state.
+	 * @throws IllegalArgumentException
+	 *             if the state is not in the snapshot.
+	 */
+	public Collection<Eventable> outgoing(StateVertex stateVertix) {
+		return new EdgeView(outgoing.edgesOf(requireIndex(stateVertix), edgeCount));
+	}
+
+	/**
+	 * @param stateVertix
+	 *            the target state.
+	 * @return a read-only view of the incoming edges of the state.
+	 * @throws IllegalArgumentException
+	 *             if the state is not in the snapshot.
+	 */
+	public Collection<Eventable> incoming(StateVertex stateVertix) {
+		return new EdgeView(incoming.edgesOf(requireIndex(stateVertix), edgeCount));
+	}
+
+	@Override
+	public StateVertex getById(int id) {
+		if (id < 0 || id >= indexById.length) {
+			return null;
+		}
+		int entry = indexById[id];
+		if (entry == 0 || entry > vertexCount) {
+			return null;
+		}
+		return vertices[entry - 1];
+	}
+
+	@Override
+	public StateVertex getInitialState() {
+		return getById(StateVertex.INDEX_ID);
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getOutgoingClickables(StateVertex stateVertix) {
+		return ImmutableSet.copyOf(outgoing(stateVertix));
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getIncomingClickable(StateVertex stateVertix) {
+		return ImmutableSet.copyOf(incoming(stateVertix));
+	}
+
+	@Override
+	public boolean canGoTo(StateVertex source, StateVertex target) {
+		int from = indexOf(source);
+		int to = indexOf(target);
+		if (from < 0 || to < 0) {
+			return false;
+		}
+		return hasEdge(from, to) || hasEdge(to, from);
+	}
+
+	private boolean hasEdge(int from, int to) {
+		for (int edge : outgoing.edgesOf(from, edgeCount)) {
+			if (edgeTarget[edge] == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds a shortest path with a breadth first search, which is equivalent to Dijkstra because
+	 * all edges have the same weight.
+	 *
+	 * @return the shortest path, or an empty list if the end is not reachable from the start.
+	 */
+	@Override
+	public ImmutableList<Eventable> getShortestPath(StateVertex start, StateVertex end) {
+		int from = requireIndex(start);
+		int to = requireIndex(end);
+		if (from == to) {
+			return ImmutableList.of();
+		}
+		int[] reachedBy = new int[vertexCount];
+		Arrays.fill(reachedBy, -1);
+		int[] queue = new int[vertexCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = from;
+		while (head < tail) {
+			for (int edge : outgoing.edgesOf(queue[head++], edgeCount)) {
+				int next = edgeTarget[edge];
+				if (next != from && reachedBy[next] == -1) {
+					reachedBy[next] = edge;
+					if (next == to) {
+						return pathTo(from, to, reachedBy);
+					}
+					queue[tail++] = next;
+				}
+			}
+		}
+		return ImmutableList.of();
+	}
+
+	private ImmutableList<Eventable> pathTo(int from, int to, int[] reachedBy) {
+		int length = 0;
+		for (int state = to; state != from; state = edgeSource[reachedBy[state]]) {
+			length++;
+		}
+		Eventable[] path = new Eventable[length];
+		for (int state = to; state != from; state = edgeSource[reachedBy[state]]) {
+			path[--length] = edges[reachedBy[state]];
+		}
+		return ImmutableList.copyOf(path);
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getAllStates() {
+		return ImmutableSet.copyOf(states());
+	}
+
+	@Override
+	public ImmutableSet<Eventable> getAllEdges() {
+		return ImmutableSet.copyOf(edges());
+	}
+
+	@Override
+	public int getMeanStateStringSize() {
+		final Mean mean = new Mean();
+		for (int i = 0; i < vertexCount; i++) {
+			mean.increment(vertices[i].getDom().getBytes().length);
+		}
+		return (int) mean.getResult();
+	}
+
+	@Override
+	public int getNumberOfStates() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return The number of edges in the snapshot.
+	 */
+	public int getNumberOfEdges() {
+		return edgeCount;
+	}
+
+	/**
+	 * The paths start at the index as it is stored in the snapshot, which is not necessarily the
+	 * given instance.
+	 */
+	@Override
+	public List<List<GraphPath<StateVertex, Eventable>>> getAllPossiblePaths(StateVertex index) {
+		return AbstractStateFlowGraph.allPossiblePaths(this, asDirectedGraph(),
+		        vertices[requireIndex(index)]);
+	}
+
+	/**
+	 * @return a new JGraphT graph with the states and edges of this snapshot.
+	 */
+	public DirectedGraph<StateVertex, Eventable> asDirectedGraph() {
+		DirectedGraph<StateVertex, Eventable> graph = new DirectedMultigraph<>(Eventable.class);
+		for (int i = 0; i < vertexCount; i++) {
+			graph.addVertex(vertices[i]);
+		}
+		for (int i = 0; i < edgeCount; i++) {
+			graph.addEdge(vertices[edgeSource[i]], vertices[edgeTarget[i]], edges[i]);
+		}
+		return graph;
+	}
+
+	@Override
+	public ImmutableSet<StateVertex> getOutgoingStates(StateVertex stateVertix) {
+		final Set<StateVertex> result = new HashSet<>();
+		for (Eventable c : outgoing(stateVertix)) {
+			result.add(c.getTargetStateVertex());
+		}
+		return ImmutableSet.copyOf(result);
+	}
+
+	/**
+	 * @return this snapshot.
+	 */
+	@Override
+	public StateFlowGraphSnapshot snapshot() {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("version", version)
+		        .add("states", vertexCount)
+		        .add("edges", edgeCount)
+		        .toString();
+	}
+
+	/**
+	 * A read-only view of a prefix of an append-only array.
+	 */
+	private static final class ArrayView<T> extends AbstractCollection<T> {
+
+		private final T[] elements;
+		private final int size;
+
+		ArrayView(T[] elements, int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public T next() {
+					if (next >= size) {
+						throw new NoSuchElementException();
+					}
+					return elements[next++];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * A read-only view of the edges with the given indices.
+	 */
+	private final class EdgeView extends AbstractCollection<Eventable> {
+
+		private final int[] indices;
+
+		EdgeView(int[] indices) {
+			this.indices = indices;
+		}
+
+		@Override
+		public Iterator<Eventable> iterator() {
+			return new Iterator<Eventable>() {
+
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < indices.length;
+				}
+
+				@Override
+				public Eventable next() {
+					if (next >= indices.length) {
+						throw new NoSuchElementException();
+					}
+					return edges[indices[next++]];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return indices.length;
+		}
+	}
+}
@@ -18,7 +18,7 @@ public class StateMachine {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(StateMachine.class.getName());
 
-	private final InMemoryStateFlowGraph stateFlowGraph;
+	private final MutableStateFlowGraph stateFlowGraph;
 
 	private final StateVertex initialState;
 
@@ -29,21 +29,57 @@ public class StateMachine {
 	 */
 	private final ConditionTypeChecker<Invariant> invariantChecker;
 
+	/**
+	 * The invariants that are checked in the background by the {@link #domInvariantChecker}.
+	 */
+	private final ImmutableList<Invariant> domInvariants;
+
+	private final DomInvariantChecker domInvariantChecker;
+
 	private final Plugins plugins;
 
 	private final StateComparator stateComparator;
 
-	public StateMachine(InMemoryStateFlowGraph sfg,
+	public StateMachine(MutableStateFlowGraph sfg,
 	        ImmutableList<Invariant> invariantList, Plugins plugins,
 	        StateComparator stateComparator) {
+		this(sfg, invariantList, plugins, stateComparator, null);
+	}
+
+	/**
+	 * A state machine that checks the invariants that only depend on the DOM in the background.
+	 * 
+	 * @param domInvariantChecker
+	 *            the checker for the invariants that only depend on the DOM, or <code>null</code>
+	 *            to check all invariants on the crawler thread.
+	 */
+	public StateMachine(MutableStateFlowGraph sfg,
+	        ImmutableList<Invariant> invariantList, Plugins plugins,
+	        StateComparator stateComparator, DomInvariantChecker domInvariantChecker) {
 		stateFlowGraph = sfg;
 		this.initialState = sfg.getInitialState();
 		this.plugins = plugins;
 		this.stateComparator = stateComparator;
+		this.domInvariantChecker = domInvariantChecker;
 		currentState = initialState;
-		invariantChecker = new ConditionTypeChecker<>(invariantList);
+		ImmutableList.Builder<Invariant> inline = ImmutableList.builder();
+		ImmutableList.Builder<Invariant> background = ImmutableList.builder();
+		for (Invariant invariant : invariantList) {
+			if (domInvariantChecker != null && DomInvariantChecker.isDomOnly(invariant)) {
+				background.add(invariant);
+			} else {
+				inline.add(invariant);
+			}
+		}
+		invariantChecker = new ConditionTypeChecker<>(inline.build());
+		domInvariants = background.build();
 	}
 
+	/**
+	 * @param browser
+	 *            the browser that shows the state, which need not be the browser of the crawler.
+	 * @return a new state for the page in the browser.
+	 */
 	public StateVertex newStateFor(EmbeddedBrowser browser) {
 		return stateFlowGraph.newStateFor(
 		        browser.getCurrentUrl(),
@@ -83,17 +119,20 @@ public class StateMachine {
 	}
 
 	/**
-	 * Adds the newState and the edge between the currentState and the newState on the SFG.
+	 * Adds the newState and the edge between the given state and the newState on the SFG.
 	 * 
+	 * @param fromState
+	 *            the state the clickable was fired in.
 	 * @param newState
 	 *            the new state.
 	 * @param eventable
 	 *            the clickable causing the new state.
 	 * @return the clone state iff newState is a clone, else returns null
 	 */
-	private StateVertex addStateToCurrentState(StateVertex newState, Eventable eventable) {
-		LOGGER.debug("addStateToCurrentState currentState: {} newstate {}",
-		        currentState.getName(), newState.getName());
+	private StateVertex addStateToState(StateVertex fromState, StateVertex newState,
+	        Eventable eventable) {
+		LOGGER.debug("addStateToState fromState: {} newstate {}",
+		        fromState.getName(), newState.getName());
 
 		// Add the state to the stateFlowGraph. Store the result
 		StateVertex cloneState = stateFlowGraph.putIfAbsent(newState);
@@ -102,12 +141,12 @@ public class StateMachine {
 		if (cloneState != null) {
 			LOGGER.info("CLONE State detected: {} and {} are the same.", newState.getName(),
 			        cloneState.getName());
-			LOGGER.debug("CLONE CURRENTSTATE: {}", currentState.getName());
+			LOGGER.debug("CLONE FROMSTATE: {}", fromState.getName());
 			LOGGER.debug("CLONE STATE: {}", cloneState.getName());
 			LOGGER.debug("CLONE CLICKABLE: {}", eventable);
-			stateFlowGraph.addEdge(currentState, cloneState, eventable);
+			stateFlowGraph.addEdge(fromState, cloneState, eventable);
 		} else {
-			stateFlowGraph.addEdge(currentState, newState, eventable);
+			stateFlowGraph.addEdge(fromState, newState, eventable);
 			LOGGER.info("State {} added to the StateMachine.", newState.getName());
 		}
 
@@ -139,9 +178,9 @@ public class StateMachine {
 	 */
 	public boolean swithToStateAndCheckIfClone(final Eventable event, StateVertex newState,
 	        CrawlerContext context) {
-		StateVertex cloneState = this.addStateToCurrentState(newState, event);
+		StateVertex cloneState = this.addStateToState(currentState, newState, event);
 
-		runOnInvariantViolationPlugins(context);
+		runOnInvariantViolationPlugins(newState, context);
 
 		if (cloneState == null) {
 			changeState(newState);
@@ -153,7 +192,39 @@ public class StateMachine {
 		}
 	}
 
-	private void runOnInvariantViolationPlugins(CrawlerContext context) {
+	/**
+	 * Adds an edge between the given and the new state without changing the current state, for
+	 * states that are reached without the browser of the crawler.
+	 * 
+	 * @param fromState
+	 *            the state the event was fired in.
+	 * @param event
+	 *            the event.
+	 * @param newState
+	 *            the new state.
+	 * @param context
+	 *            the context whose browser shows the new state.
+	 * @return the new state, or the state it is a clone of.
+	 */
+	public StateVertex addStateFrom(StateVertex fromState, Eventable event, StateVertex newState,
+	        CrawlerContext context) {
+		StateVertex cloneState = this.addStateToState(fromState, newState, event);
+
+		runOnInvariantViolationPlugins(newState, context);
+
+		if (cloneState == null) {
+			plugins.runOnNewStatePlugins(context, newState);
+			return newState;
+		} else {
+			return cloneState;
+		}
+	}
+
+	private void runOnInvariantViolationPlugins(StateVertex newState, CrawlerContext context) {
+		if (!domInvariants.isEmpty()) {
+			domInvariantChecker.check(domInvariants, newState.getDom(),
+			        context.snapshot(newState));
+		}
 		for (Invariant failedInvariant : invariantChecker.getFailedConditions(context
 		        .getBrowser())) {
 			plugins.runOnInvariantViolationPlugins(failedInvariant, context);
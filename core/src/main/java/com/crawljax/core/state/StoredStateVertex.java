@@ -0,0 +1,150 @@
+package com.crawljax.core.state;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+import org.w3c.dom.Document;
+
+import com.crawljax.core.CandidateElement;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * Stands in for a {@link StateVertex} that a {@link DiskStateFlowGraph} has written to disk. It
+ * keeps the id, name and url of the state in memory, and a digest of its stripped DOM. The DOMs
+ * are read back from the {@link DiskVertexStore}, which keeps the most recently used states in
+ * memory. The candidate elements only keep their identification, frame and form inputs, because
+ * their DOM elements would keep the whole document of the state in memory.
+ * <p>
+ * Like a {@link StateVertexImpl}, a stored state equals the states with the same stripped DOM.
+ * States of the same store are compared by id and states with another hash code or digest are
+ * unequal, so the state is only read back from disk when the stripped DOMs may be the same. When
+ * it is serialized, the original is written instead.
+ */
+final class StoredStateVertex implements StateVertex {
+
+	private static final long serialVersionUID = -3489317519536170219L;
+
+	private final transient DiskVertexStore store;
+	private final long offset;
+	private final int id;
+	private final String name;
+	private final String url;
+	private final int hash;
+	private final HashCode digest;
+	private volatile ImmutableList<CandidateElement> candidateElements;
+
+	StoredStateVertex(DiskVertexStore store, long offset, StateVertex state) {
+		this.store = store;
+		this.offset = offset;
+		this.id = state.getId();
+		this.name = state.getName();
+		this.url = state.getUrl();
+		this.hash = state.hashCode();
+		this.digest = digestOf(state);
+		this.candidateElements = withoutElements(state.getCandidateElements());
+	}
+
+	private static ImmutableList<CandidateElement> withoutElements(
+	        List<CandidateElement> elements) {
+		if (elements == null) {
+			return null;
+		}
+		ImmutableList.Builder<CandidateElement> detached = ImmutableList.builder();
+		for (CandidateElement element : elements) {
+			detached.add(new CandidateElement(null, element.getIdentification(),
+			        element.getRelatedFrame(), element.getFormInputs()));
+		}
+		return detached.build();
+	}
+
+	private static HashCode digestOf(StateVertex state) {
+		return Hashing.murmur3_128().hashUnencodedChars(state.getStrippedDom());
+	}
+
+	/**
+	 * @return the original state, from the cache or from disk.
+	 */
+	StateVertex load() {
+		return store.read(offset);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getDom() {
+		return load().getDom();
+	}
+
+	@Override
+	public String getStrippedDom() {
+		return load().getStrippedDom();
+	}
+
+	@Override
+	public String getUrl() {
+		return url;
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public Document getDocument() throws IOException {
+		return load().getDocument();
+	}
+
+	@Override
+	public void setElementsFound(LinkedList<CandidateElement> elements) {
+		this.candidateElements = withoutElements(elements);
+	}
+
+	@Override
+	public ImmutableList<CandidateElement> getCandidateElements() {
+		return candidateElements;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (object instanceof StoredStateVertex) {
+			StoredStateVertex that = (StoredStateVertex) object;
+			if (that.store == store) {
+				return that.id == id;
+			} else if (!that.digest.equals(digest)) {
+				return false;
+			}
+		} else if (!(object instanceof StateVertex) || object.hashCode() != hash) {
+			return false;
+		}
+		return Objects.equals(getStrippedDom(), ((StateVertex) object).getStrippedDom());
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("id", id)
+		        .add("name", name)
+		        .toString();
+	}
+
+	private Object writeReplace() {
+		return load();
+	}
+}
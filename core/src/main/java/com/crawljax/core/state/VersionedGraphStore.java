@@ -0,0 +1,351 @@
+package com.crawljax.core.state;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Append-only storage of a state-flow graph from which consistent {@link StateFlowGraphSnapshot}s
+ * can be taken in constant time without locking.
+ * <p>
+ * States and edges get a dense index in the order they are added. The adjacency of the states is
+ * kept in compressed sparse row (CSR) form, with an append buffer per state for the edges added
+ * since the last compaction. A slot is never overwritten once a snapshot can see it: growing or
+ * compacting allocates new arrays and leaves the old ones to the snapshots that still use them.
+ * After every mutation a new snapshot is published through a volatile field.
+ * <p>
+ * The mutating methods are not thread safe and should be called while holding the owning graph's
+ * write lock. {@link #snapshot()} can be called from any thread.
+ */
+final class VersionedGraphStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The minimum number of buffered edges before the adjacency is compacted.
+	 */
+	private static final int MIN_COMPACTION_THRESHOLD = 256;
+
+	private StateVertex[] vertices = new StateVertex[INITIAL_CAPACITY];
+	private int vertexCount;
+
+	/**
+	 * Open addressing hash table from {@link StateVertex#equals(Object)} to the index of the state,
+	 * stored as <code>index + 1</code> so <code>0</code> marks an empty slot.
+	 */
+	private int[] vertexTable = new int[INITIAL_CAPACITY * 2];
+
+	/**
+	 * The index of the state for every {@link StateVertex#getId()}, stored as
+	 * <code>index + 1</code>.
+	 */
+	private int[] indexById = new int[INITIAL_CAPACITY];
+
+	private Eventable[] edges = new Eventable[INITIAL_CAPACITY];
+	private int[] edgeSource = new int[INITIAL_CAPACITY];
+	private int[] edgeTarget = new int[INITIAL_CAPACITY];
+	private int edgeCount;
+
+	private final Adjacency outgoing = new Adjacency();
+	private final Adjacency incoming = new Adjacency();
+
+	private long version;
+	private boolean publishing = true;
+
+	private volatile StateFlowGraphSnapshot head;
+
+	VersionedGraphStore() {
+		publish();
+	}
+
+	/**
+	 * Copies states and edges into a new store, publishing only the snapshot of the result.
+	 *
+	 * @param states
+	 *            the states, in the order they were added.
+	 * @param edges
+	 *            the edges, in the order they were added. Their source and target must be in the
+	 *            states.
+	 * @return the snapshot, with the version the graph has after adding the states and edges.
+	 */
+	static StateFlowGraphSnapshot copyOf(Collection<StateVertex> states,
+	        Collection<Eventable> edges) {
+		return of(states, edges).snapshot();
+	}
+
+	/**
+	 * Copies states and edges into a new store, publishing only the snapshot of the result.
+	 *
+	 * @param states
+	 *            the states, in the order they were added.
+	 * @param edges
+	 *            the edges, in the order they were added. Their source and target must be in the
+	 *            states.
+	 * @return the store, whose snapshot has the version the graph has after adding the states and
+	 *         edges.
+	 */
+	static VersionedGraphStore of(Collection<StateVertex> states, Collection<Eventable> edges) {
+		VersionedGraphStore store = new VersionedGraphStore();
+		store.publishing = false;
+		for (StateVertex state : states) {
+			store.addVertex(state);
+		}
+		for (Eventable edge : edges) {
+			store.addEdge(store.indexOf(edge.getSourceStateVertex()),
+			        store.indexOf(edge.getTargetStateVertex()), edge);
+		}
+		store.version += states.size() + edges.size();
+		store.publishing = true;
+		store.publish();
+		return store;
+	}
+
+	/**
+	 * @return the latest consistent snapshot of the graph.
+	 */
+	StateFlowGraphSnapshot snapshot() {
+		return head;
+	}
+
+	/**
+	 * @return the index of the state that equals the given state, or <code>-1</code>.
+	 */
+	int indexOf(StateVertex state) {
+		return lookup(vertexTable, vertices, vertexCount, state);
+	}
+
+	StateVertex vertexAt(int index) {
+		return vertices[index];
+	}
+
+	/**
+	 * @param state
+	 *            a state that is not yet in the store. States with a negative id cannot be found
+	 *            by id.
+	 * @return the index of the state.
+	 */
+	int addVertex(StateVertex state) {
+		int id = state.getId();
+		int index = vertexCount;
+		if (index == vertices.length) {
+			vertices = Arrays.copyOf(vertices, index * 2);
+		}
+		vertices[index] = state;
+		vertexCount = index + 1;
+
+		if (vertexCount * 2 > vertexTable.length) {
+			int[] table = new int[vertexTable.length * 2];
+			for (int i = 0; i < vertexCount; i++) {
+				insert(table, i);
+			}
+			vertexTable = table;
+		} else {
+			insert(vertexTable, index);
+		}
+
+		if (id >= 0) {
+			if (id >= indexById.length) {
+				indexById = Arrays.copyOf(indexById, Math.max(id + 1, indexById.length * 2));
+			}
+			indexById[id] = index + 1;
+		}
+		publish();
+		return index;
+	}
+
+	private void insert(int[] table, int index) {
+		int mask = table.length - 1;
+		int slot = spread(vertices[index].hashCode()) & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index + 1;
+	}
+
+	/**
+	 * Adds an edge without checking for duplicates.
+	 *
+	 * @param source
+	 *            the index of the source state.
+	 * @param target
+	 *            the index of the target state.
+	 * @param eventable
+	 *            the edge.
+	 */
+	void addEdge(int source, int target, Eventable eventable) {
+		int edge = edgeCount;
+		if (edge == edges.length) {
+			int size = edge * 2;
+			edges = Arrays.copyOf(edges, size);
+			edgeSource = Arrays.copyOf(edgeSource, size);
+			edgeTarget = Arrays.copyOf(edgeTarget, size);
+		}
+		edges[edge] = eventable;
+		edgeSource[edge] = source;
+		edgeTarget[edge] = target;
+		edgeCount = edge + 1;
+		outgoing.append(source, edge, edgeSource);
+		incoming.append(target, edge, edgeTarget);
+		publish();
+	}
+
+	private void publish() {
+		if (!publishing) {
+			return;
+		}
+		head =
+		        new StateFlowGraphSnapshot(version++, vertices, vertexCount, vertexTable,
+		                indexById, edges, edgeSource, edgeTarget, edgeCount, outgoing.frame,
+		                incoming.frame);
+	}
+
+	static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Looks a state up in a vertex table that may contain states added after the given count.
+	 * Those are skipped. Hash codes are compared first, because {@link StateVertex#equals(Object)}
+	 * may have to read a state back from disk.
+	 */
+	static int lookup(int[] table, StateVertex[] vertices, int count, StateVertex state) {
+		int mask = table.length - 1;
+		int slot = spread(state.hashCode()) & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			if (entry <= count && vertices[entry - 1].hashCode() == state.hashCode()
+			        && vertices[entry - 1].equals(state)) {
+				return entry - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * The edges of a state added since the last compaction, stored as <code>edge + 1</code>. The
+	 * array is only replaced by a bigger copy, so a reader that sees a {@link Buffer} sees at least
+	 * all entries that were written before it was created. Entries appended later are either
+	 * <code>0</code> or larger than the edge count of any snapshot that cannot see them.
+	 */
+	static final class Buffer {
+
+		final int[] entries;
+
+		Buffer(int[] entries) {
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * An immutable CSR part of the adjacency and the buffers that belong to it. The edges of state
+	 * <code>s</code> are <code>entries[offsets[s]]</code> up to <code>entries[offsets[s + 1]]</code>
+	 * followed by the entries of <code>buffers[s]</code>.
+	 */
+	static final class Frame {
+
+		final int[] offsets;
+		final int[] entries;
+		final Buffer[] buffers;
+
+		Frame(int[] offsets, int[] entries, Buffer[] buffers) {
+			this.offsets = offsets;
+			this.entries = entries;
+			this.buffers = buffers;
+		}
+
+		int from(int state) {
+			return state + 1 < offsets.length ? offsets[state] : 0;
+		}
+
+		int to(int state) {
+			return state + 1 < offsets.length ? offsets[state + 1] : 0;
+		}
+
+		Buffer buffer(int state) {
+			return state < buffers.length ? buffers[state] : null;
+		}
+
+		/**
+		 * @return the indices of the edges of the state up to the given edge count.
+		 */
+		int[] edgesOf(int state, int edgeCount) {
+			int from = from(state);
+			int compacted = to(state) - from;
+			Buffer buffer = buffer(state);
+			int buffered = 0;
+			if (buffer != null) {
+				while (buffered < buffer.entries.length) {
+					int entry = buffer.entries[buffered];
+					if (entry == 0 || entry > edgeCount) {
+						break;
+					}
+					buffered++;
+				}
+			}
+			int[] result = Arrays.copyOfRange(entries, from, from + compacted + buffered);
+			for (int i = 0; i < buffered; i++) {
+				result[compacted + i] = buffer.entries[i] - 1;
+			}
+			return result;
+		}
+	}
+
+	private final class Adjacency {
+
+		private Frame frame = new Frame(new int[1], new int[0], new Buffer[INITIAL_CAPACITY]);
+		private int[] sizes = new int[INITIAL_CAPACITY];
+		private int buffered;
+
+		void append(int state, int edge, int[] endpoints) {
+			Buffer[] buffers = frame.buffers;
+			if (state >= buffers.length) {
+				int size = Math.max(state + 1, buffers.length * 2);
+				buffers = Arrays.copyOf(buffers, size);
+				sizes = Arrays.copyOf(sizes, size);
+				frame = new Frame(frame.offsets, frame.entries, buffers);
+			}
+			Buffer buffer = buffers[state];
+			int size = sizes[state];
+			if (buffer == null) {
+				int[] entries = new int[2];
+				entries[0] = edge + 1;
+				buffers[state] = new Buffer(entries);
+			} else if (size == buffer.entries.length) {
+				int[] entries = Arrays.copyOf(buffer.entries, size * 2);
+				entries[size] = edge + 1;
+				buffers[state] = new Buffer(entries);
+			} else {
+				buffer.entries[size] = edge + 1;
+			}
+			sizes[state] = size + 1;
+			buffered++;
+			if (buffered > Math.max(MIN_COMPACTION_THRESHOLD, frame.entries.length / 2)) {
+				compact(endpoints);
+			}
+		}
+
+		/**
+		 * Merges the buffers into new CSR arrays.
+		 */
+		private void compact(int[] endpoints) {
+			int states = vertexCount;
+			int[] offsets = new int[states + 1];
+			for (int edge = 0; edge < edgeCount; edge++) {
+				offsets[endpoints[edge] + 1]++;
+			}
+			for (int state = 0; state < states; state++) {
+				offsets[state + 1] += offsets[state];
+			}
+			int[] entries = new int[edgeCount];
+			int[] position = Arrays.copyOf(offsets, states);
+			for (int edge = 0; edge < edgeCount; edge++) {
+				entries[position[endpoints[edge]]++] = edge;
+			}
+			int capacity = Math.max(states, INITIAL_CAPACITY);
+			frame = new Frame(offsets, entries, new Buffer[capacity]);
+			sizes = new int[capacity];
+			buffered = 0;
+		}
+	}
+}
@@ -16,8 +16,12 @@ import com.crawljax.core.CrawlSession;
 import com.crawljax.core.ExitNotifier;
 import com.crawljax.core.ExtractorManager;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.StateFlowGraphConfiguration;
+import com.crawljax.core.state.CompactStateFlowGraph;
 import com.crawljax.core.state.DefaultStateVertexFactory;
+import com.crawljax.core.state.DiskStateFlowGraph;
 import com.crawljax.core.state.InMemoryStateFlowGraph;
+import com.crawljax.core.state.MutableStateFlowGraph;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateVertexFactory;
 import com.crawljax.forms.FormHandler;
@@ -53,8 +57,8 @@ public class CoreModule extends AbstractModule {
 
 		bind(ExtractorManager.class).to(CandidateElementManager.class);
 
-		bind(StateFlowGraph.class).to(InMemoryStateFlowGraph.class);
-		bind(InMemoryStateFlowGraph.class).in(Singleton.class);
+		bind(StateFlowGraph.class).to(MutableStateFlowGraph.class);
+		bindStateFlowGraph(configuration.getStateFlowGraphConfig());
 
 		install(new FactoryModuleBuilder().build(FormHandlerFactory.class));
 		install(new FactoryModuleBuilder().build(CandidateElementExtractorFactory.class));
@@ -67,6 +71,20 @@ public class CoreModule extends AbstractModule {
 
 	}
 
+	private void bindStateFlowGraph(StateFlowGraphConfiguration config) {
+		switch (config.getType()) {
+			case COMPACT:
+				bind(MutableStateFlowGraph.class).to(CompactStateFlowGraph.class);
+				break;
+			case DISK:
+				bind(MutableStateFlowGraph.class).to(DiskStateFlowGraph.class);
+				break;
+			default:
+				bind(MutableStateFlowGraph.class).to(InMemoryStateFlowGraph.class);
+				bind(InMemoryStateFlowGraph.class).in(Singleton.class);
+		}
+	}
+
 	private void disableJulLogging() {
 		SLF4JBridgeHandler.removeHandlersForRootLogger();
 		SLF4JBridgeHandler.install();
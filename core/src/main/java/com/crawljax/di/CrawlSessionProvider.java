@@ -1,5 +1,7 @@
 package com.crawljax.di;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
@@ -13,7 +15,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.crawljax.core.CrawlSession;
 import com.crawljax.core.CrawlSessionNotSetupYetException;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
-import com.crawljax.core.state.InMemoryStateFlowGraph;
+import com.crawljax.core.state.MutableStateFlowGraph;
 import com.crawljax.core.state.StateVertex;
 import com.google.common.base.Preconditions;
 
@@ -26,14 +28,14 @@ public class CrawlSessionProvider implements Provider<CrawlSession> {
 	private static final Logger LOG = LoggerFactory.getLogger(CrawlSessionProvider.class);
 
 	private final AtomicBoolean isSet = new AtomicBoolean();
-	private final InMemoryStateFlowGraph stateFlowGraph;
+	private final MutableStateFlowGraph stateFlowGraph;
 	private final CrawljaxConfiguration config;
 	private final MetricRegistry registry;
 
 	private CrawlSession session;
 
 	@Inject
-	public CrawlSessionProvider(InMemoryStateFlowGraph stateFlowGraph,
+	public CrawlSessionProvider(MutableStateFlowGraph stateFlowGraph,
 	        CrawljaxConfiguration config, MetricRegistry registry) {
 		this.stateFlowGraph = stateFlowGraph;
 		this.config = config;
@@ -64,4 +66,18 @@ public class CrawlSessionProvider implements Provider<CrawlSession> {
 		}
 	}
 
+	/**
+	 * Releases what the state-flow graph holds on to, like the file of a
+	 * {@link com.crawljax.core.state.DiskStateFlowGraph}. Called when the crawl ends.
+	 */
+	public void close() {
+		if (stateFlowGraph instanceof Closeable) {
+			try {
+				((Closeable) stateFlowGraph).close();
+			} catch (IOException e) {
+				LOG.warn("Could not close the state-flow graph: {}", e.getMessage());
+			}
+		}
+	}
+
 }
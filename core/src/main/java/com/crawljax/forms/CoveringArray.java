@@ -0,0 +1,181 @@
+package com.crawljax.forms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Builds a covering array: rows of value indexes for a number of parameters, such that every
+ * combination of values of every <i>t</i> parameters occurs in at least one row. Such an array is
+ * much smaller than all combinations of all parameters, while every interaction between up to
+ * <i>t</i> parameters is still tested.
+ * <p>
+ * The rows are built greedily and deterministically. A row starts with the first combination that
+ * is not covered yet, and the value of each other parameter is the one that covers the most new
+ * combinations with the values chosen so far.
+ */
+final class CoveringArray {
+
+	private CoveringArray() {
+	}
+
+	/**
+	 * @param sizes
+	 *            the number of values of each parameter, at least 1.
+	 * @param strength
+	 *            the number of parameters whose value combinations are all covered. It is capped
+	 *            at the number of parameters.
+	 * @return the rows, with the index of the value of each parameter.
+	 */
+	static ImmutableList<int[]> of(int[] sizes, int strength) {
+		Preconditions.checkArgument(strength > 0, "The strength should be positive");
+		for (int size : sizes) {
+			Preconditions.checkArgument(size > 0, "Each parameter needs a value");
+		}
+		if (sizes.length == 0) {
+			return ImmutableList.of();
+		}
+		List<Combination> combinations = new ArrayList<>();
+		addCombinations(sizes, Math.min(strength, sizes.length), 0, new int[0], combinations);
+		int uncovered = 0;
+		for (Combination combination : combinations) {
+			uncovered += combination.covered.length;
+		}
+
+		ImmutableList.Builder<int[]> rows = ImmutableList.builder();
+		while (uncovered > 0) {
+			int[] row = new int[sizes.length];
+			Arrays.fill(row, -1);
+			seed(combinations, row);
+			for (int parameter = 0; parameter < sizes.length; parameter++) {
+				if (row[parameter] == -1) {
+					row[parameter] = bestValue(combinations, row, parameter, sizes[parameter]);
+				}
+			}
+			for (Combination combination : combinations) {
+				uncovered -= combination.cover(row);
+			}
+			rows.add(row);
+		}
+		return rows.build();
+	}
+
+	private static void addCombinations(int[] sizes, int strength, int from, int[] parameters,
+	        List<Combination> combinations) {
+		if (parameters.length == strength) {
+			combinations.add(new Combination(parameters, sizes));
+			return;
+		}
+		for (int parameter = from; parameter < sizes.length; parameter++) {
+			int[] next = Arrays.copyOf(parameters, parameters.length + 1);
+			next[parameters.length] = parameter;
+			addCombinations(sizes, strength, parameter + 1, next, combinations);
+		}
+	}
+
+	/**
+	 * Fills in the values of the first combination that is not covered yet.
+	 */
+	private static void seed(List<Combination> combinations, int[] row) {
+		for (Combination combination : combinations) {
+			int index = combination.firstUncovered();
+			if (index >= 0) {
+				combination.fill(index, row);
+				return;
+			}
+		}
+	}
+
+	private static int bestValue(List<Combination> combinations, int[] row, int parameter,
+	        int size) {
+		int best = 0;
+		int bestCount = -1;
+		for (int value = 0; value < size; value++) {
+			row[parameter] = value;
+			int count = 0;
+			for (Combination combination : combinations) {
+				if (combination.isNewlyCovered(row)) {
+					count++;
+				}
+			}
+			if (count > bestCount) {
+				best = value;
+				bestCount = count;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The value combinations of some parameters, and which of them are covered.
+	 */
+	private static final class Combination {
+
+		private final int[] parameters;
+		private final int[] sizes;
+		private final boolean[] covered;
+		private int next;
+
+		Combination(int[] parameters, int[] allSizes) {
+			this.parameters = parameters;
+			this.sizes = new int[parameters.length];
+			int count = 1;
+			for (int i = 0; i < parameters.length; i++) {
+				sizes[i] = allSizes[parameters[i]];
+				count *= sizes[i];
+			}
+			this.covered = new boolean[count];
+		}
+
+		/**
+		 * @return the index of the combination of values in the row, or -1 if a parameter has
+		 *         no value yet.
+		 */
+		private int indexOf(int[] row) {
+			int index = 0;
+			for (int i = 0; i < parameters.length; i++) {
+				int value = row[parameters[i]];
+				if (value < 0) {
+					return -1;
+				}
+				index = index * sizes[i] + value;
+			}
+			return index;
+		}
+
+		boolean isNewlyCovered(int[] row) {
+			int index = indexOf(row);
+			return index >= 0 && !covered[index];
+		}
+
+		/**
+		 * @return 1 if the row covers a new combination of values, otherwise 0.
+		 */
+		int cover(int[] row) {
+			int index = indexOf(row);
+			if (covered[index]) {
+				return 0;
+			}
+			covered[index] = true;
+			return 1;
+		}
+
+		int firstUncovered() {
+			while (next < covered.length && covered[next]) {
+				next++;
+			}
+			return next < covered.length ? next : -1;
+		}
+
+		void fill(int index, int[] row) {
+			int remainder = index;
+			for (int i = parameters.length - 1; i >= 0; i--) {
+				row[parameters[i]] = remainder % sizes[i];
+				remainder /= sizes[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.crawljax.forms;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.crawljax.core.state.Identification;
+import com.crawljax.util.JavaScriptUtils;
+
+/**
+ * Builds the script that fills in form fields in the browser, like
+ * {@link FormHandler#handleFormElements(List)} does through WebDriver. Text fields get their
+ * value, check boxes and radio buttons are clicked when their state has to change and select
+ * boxes get the first option whose text or value starts with the value. Values are set through
+ * the native <code>value</code> setter of the element's prototype, because frameworks like React
+ * replace the setter of the element itself and would ignore the events otherwise. Each field
+ * dispatches the <code>input</code> and <code>change</code> events it would get from a user.
+ * <p>
+ * The script returns one character per field, <code>1</code> when it was filled in and
+ * <code>0</code> when it was not found, is disabled or read only or has no matching option.
+ */
+final class FormFillScript {
+
+	private static final String[] KEY_HANDLERS = { "onkeydown", "onkeypress", "onkeyup" };
+
+	private FormFillScript() {
+	}
+
+	/**
+	 * @param input
+	 *            the form input.
+	 * @param node
+	 *            the element of the input in the DOM, or <code>null</code>.
+	 * @return whether the script can fill in the input.
+	 */
+	static boolean canFill(FormInput input, Node node) {
+		if (node == null || input.getInputValues().isEmpty() || elementOf(input) == null) {
+			return false;
+		}
+		String type = input.getType().toLowerCase(Locale.ROOT);
+		if (isText(type)) {
+			return !hasKeyHandlers(node);
+		}
+		return "checkbox".equals(type) || "radio".equals(type) || type.startsWith("select");
+	}
+
+	private static boolean isText(String type) {
+		return type.startsWith("text") || "password".equals(type) || "hidden".equals(type);
+	}
+
+	private static boolean hasKeyHandlers(Node node) {
+		if (node instanceof Element) {
+			for (String handler : KEY_HANDLERS) {
+				if (((Element) node).hasAttribute(handler)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param inputs
+	 *            the inputs, which the script {@link #canFill(FormInput, Node) can fill in}.
+	 * @return the script.
+	 */
+	static String of(List<FormInput> inputs) {
+		StringBuilder script = new StringBuilder("var r='';")
+		        .append("function f(e){['input','change'].forEach(function(t){")
+		        .append("e.dispatchEvent(new Event(t,{bubbles:true}));});}")
+		        .append("function s(e,v){var p=Object.getPrototypeOf(e),d;")
+		        .append("while(p&&!(d=Object.getOwnPropertyDescriptor(p,'value'))){")
+		        .append("p=Object.getPrototypeOf(p);}")
+		        .append("if(d&&d.set){d.set.call(e,v);}else{e.value=v;}}");
+		for (FormInput input : inputs) {
+			script.append("try{r+=(function(e){if(e==null||e.disabled||e.readOnly){return false;}")
+			        .append(fill(input))
+			        .append("return true;})(").append(elementOf(input))
+			        .append(")?'1':'0';}catch(x){r+='0';}");
+		}
+		return script.append("return r;").toString();
+	}
+
+	private static String fill(FormInput input) {
+		String type = input.getType().toLowerCase(Locale.ROOT);
+		StringBuilder fill = new StringBuilder();
+		if (isText(type)) {
+			String text = input.getInputValues().iterator().next().getValue();
+			if (text != null && !text.isEmpty()) {
+				fill.append("s(e,").append(JavaScriptUtils.literal(text)).append(");f(e);");
+			}
+		} else if ("checkbox".equals(type)) {
+			for (InputValue value : input.getInputValues()) {
+				fill.append("if(e.checked!=").append(value.isChecked()).append("){e.click();}");
+			}
+		} else if ("radio".equals(type)) {
+			for (InputValue value : input.getInputValues()) {
+				if (value.isChecked()) {
+					fill.append("if(!e.checked){e.click();}");
+				}
+			}
+		} else {
+			for (InputValue value : input.getInputValues()) {
+				fill.append("var v=").append(JavaScriptUtils.literal(
+				        String.valueOf(value.getValue()).toLowerCase(Locale.ROOT)))
+				        .append(",o=Array.prototype.find.call(e.options,function(o){")
+				        .append("return o.text.trim().toLowerCase().indexOf(v)==0")
+				        .append("||o.value.toLowerCase().indexOf(v)==0;});")
+				        .append("if(o==null){return false;}s(e,o.value);f(e);");
+			}
+		}
+		return fill.toString();
+	}
+
+	/**
+	 * @return the expression that looks up the element of the input like WebDriver does, or
+	 *         <code>null</code> if the script cannot look it up.
+	 */
+	private static String elementOf(FormInput input) {
+		Identification identification = input.getIdentification();
+		if (identification == null || identification.getHow() == null
+		        || identification.getValue() == null) {
+			return null;
+		}
+		String value = identification.getValue();
+		switch (identification.getHow()) {
+			case id:
+				return "document.getElementById(" + JavaScriptUtils.literal(value) + ")";
+			case name:
+				return "document.getElementsByName(" + JavaScriptUtils.literal(value) + ")[0]";
+			case xpath:
+				return "document.evaluate("
+				        + JavaScriptUtils.literal(value.replaceAll("/BODY\\[1\\]/", "/BODY/"))
+				        + ",document,null,XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue";
+			default:
+				return null;
+		}
+	}
+}
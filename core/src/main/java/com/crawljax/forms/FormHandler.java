@@ -1,12 +1,19 @@
 package com.crawljax.forms;
 
 import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.ConditionCache;
 import com.crawljax.condition.eventablecondition.EventableCondition;
 import com.crawljax.core.CandidateElement;
+import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.configuration.CrawlRules;
 import com.crawljax.core.exception.BrowserConnectionException;
 import com.crawljax.util.DomUtils;
 import com.crawljax.util.XPathHelper;
+import com.crawljax.util.XPathIndex;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import com.google.inject.assistedinject.Assisted;
 import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
@@ -26,6 +33,14 @@ import java.util.List;
 /**
  * Handles form values and fills in the form input elements with random values of the defined
  * values.
+ * <p>
+ * The form inputs of a DOM are discovered once and remembered by the digest of the DOM, so
+ * revisiting a state or replaying a path through it reuses them, including their random values.
+ * The last parsed DOM is reused as long as the browser returns the same DOM.
+ * <p>
+ * When {@link CrawlRules#isFillFormsWithJavaScript()} is set, the fields that a script can fill
+ * in are filled in first, with one {@link EmbeddedBrowser#executeJavaScript(String)} call, and the
+ * other fields through WebDriver.
  */
 public class FormHandler {
 	private static final Logger LOGGER = LoggerFactory.getLogger(FormHandler.class.getName());
@@ -37,7 +52,15 @@ public class FormHandler {
 
 	private static final double HALF = 0.5;
 
+	private static final int FORM_INPUT_CACHE_SIZE = 1000;
+
 	private final FormInputValueHelper formInputValueHelper;
+	private final boolean fillWithJavaScript;
+
+	private final Cache<HashCode, ImmutableList<FormInput>> formInputs =
+	        CacheBuilder.newBuilder().maximumSize(FORM_INPUT_CACHE_SIZE).build();
+	private HashCode parsedDigest;
+	private Document parsedDom;
 
 	@Inject
 	public FormHandler(@Assisted EmbeddedBrowser browser, CrawlRules config) {
@@ -45,6 +68,7 @@ public class FormHandler {
 		this.formInputValueHelper =
 		        new FormInputValueHelper(config.getInputSpecification(),
 		                config.isRandomInputInForms());
+		this.fillWithJavaScript = config.isFillFormsWithJavaScript();
 	}
 
 	private static final String[] ALLOWED_INPUT_TYPES =
@@ -156,25 +180,46 @@ public class FormHandler {
 	}
 
 	/**
-	 * @return a list of form inputs.
+	 * @return the form inputs of the current DOM, which cannot be modified.
 	 */
 	public List<FormInput> getFormInputs() {
-		List<FormInput> formInputs = new ArrayList<FormInput>();
-		Document dom;
+		String strippedDom = browser.getStrippedDom();
+		HashCode digest = ConditionCache.digestOf(strippedDom);
+		ImmutableList<FormInput> cached = formInputs.getIfPresent(digest);
+		if (cached != null) {
+			return cached;
+		}
+		ImmutableList.Builder<FormInput> builder = ImmutableList.builder();
 		try {
-			dom = DomUtils.asDocument(browser.getStrippedDom());
+			Document dom = parse(strippedDom, digest);
+			// inputs without id or name are identified by their XPath
+			XPathIndex.of(dom);
 			List<Node> nodes = getInputElements(dom);
 			for (Node node : nodes) {
 				FormInput formInput =
 				        formInputValueHelper.getFormInputWithDefaultValue(browser, node);
 				if (formInput != null) {
-					formInputs.add(formInput);
+					builder.add(formInput);
 				}
 			}
 		} catch (IOException e) {
 			LOGGER.error(e.getMessage(), e);
+			return ImmutableList.of();
+		}
+		ImmutableList<FormInput> discovered = builder.build();
+		formInputs.put(digest, discovered);
+		return discovered;
+	}
+
+	/**
+	 * @return the document of the DOM, which is only parsed if it is not the last parsed DOM.
+	 */
+	private Document parse(String dom, HashCode digest) throws IOException {
+		if (!digest.equals(parsedDigest)) {
+			parsedDom = DomUtils.asDocument(dom);
+			parsedDigest = digest;
 		}
-		return formInputs;
+		return parsedDom;
 	}
 
 	/**
@@ -195,10 +240,30 @@ public class FormHandler {
 	 */
 	public void handleFormElements(List<FormInput> formInputs) {
 		try {
-			Document dom = DomUtils.asDocument(browser.getStrippedDomWithoutIframeContent());
+			String strippedDom = browser.getStrippedDomWithoutIframeContent();
+			Document dom = parse(strippedDom, ConditionCache.digestOf(strippedDom));
+			List<FormInput> inputs = new ArrayList<>();
+			List<Node> nodes = new ArrayList<>();
+			List<FormInput> scripted = new ArrayList<>();
 			for (FormInput input : formInputs) {
+				Node node = formInputValueHelper.getBelongingNode(input, dom);
+				if (fillWithJavaScript && FormFillScript.canFill(input, node)) {
+					scripted.add(input);
+				}
+				inputs.add(input);
+				nodes.add(node);
+			}
+			boolean[] filled = fillWithJavaScript(scripted);
+			int next = 0;
+			for (int i = 0; i < inputs.size(); i++) {
+				FormInput input = inputs.get(i);
+				if (next < scripted.size() && scripted.get(next) == input) {
+					if (filled[next++]) {
+						continue;
+					}
+				}
 				LOGGER.debug("Filling in: {}", input);
-				setInputElementValue(formInputValueHelper.getBelongingNode(input, dom), input);
+				setInputElementValue(nodes.get(i), input);
 			}
 		} catch (IOException | XPathExpressionException e) {
 			LOGGER.error(e.getMessage(), e);
@@ -206,6 +271,31 @@ public class FormHandler {
 
 	}
 
+	/**
+	 * @return per input, whether the script filled it in.
+	 */
+	private boolean[] fillWithJavaScript(List<FormInput> inputs) {
+		boolean[] filled = new boolean[inputs.size()];
+		if (inputs.isEmpty()) {
+			return filled;
+		}
+		LOGGER.debug("Filling in {} inputs with JavaScript", inputs.size());
+		try {
+			Object result = browser.executeJavaScript(FormFillScript.of(inputs));
+			if (result != null && result.toString().length() == inputs.size()) {
+				for (int i = 0; i < filled.length; i++) {
+					filled[i] = result.toString().charAt(i) == '1';
+				}
+			} else {
+				LOGGER.debug("Unexpected result of filling in the inputs: {}", result);
+			}
+		} catch (CrawljaxException e) {
+			LOGGER.debug("Could not fill in {} inputs with JavaScript: {}", inputs.size(),
+			        e.getMessage());
+		}
+		return filled;
+	}
+
 	/**
 	 * @param sourceElement
 	 *            the form element
@@ -2,6 +2,7 @@ package com.crawljax.forms;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
@@ -26,6 +27,7 @@ import com.crawljax.core.configuration.InputSpecification;
 import com.crawljax.core.state.Identification;
 import com.crawljax.util.DomUtils;
 import com.crawljax.util.XPathHelper;
+import com.crawljax.util.XPathIndex;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 
@@ -43,6 +45,8 @@ public final class FormInputValueHelper {
 
 	private boolean randomInput;
 
+	private final int combinationStrength;
+
 	private static final int EMPTY = 0;
 
 	/**
@@ -64,6 +68,7 @@ public final class FormInputValueHelper {
 		formFields = builder.build();
 
 		this.randomInput = randomInput;
+		this.combinationStrength = inputSpecification.getCombinationStrength();
 	}
 
 	private Element getBelongingElement(Document dom, String fieldName) {
@@ -98,6 +103,32 @@ public final class FormInputValueHelper {
 		return maxValues;
 	}
 
+	/**
+	 * @param fieldNames
+	 *            the linked input fields.
+	 * @param maxValues
+	 *            the largest number of values of a field.
+	 * @return per candidate element, the index of the value of each field.
+	 * @see InputSpecification#setCombinationStrength(int)
+	 */
+	private List<int[]> getValueIndexes(List<String> fieldNames, int maxValues) {
+		if (combinationStrength == 1) {
+			List<int[]> rows = new ArrayList<int[]>();
+			for (int curValueIndex = 0; curValueIndex < maxValues; curValueIndex++) {
+				int[] row = new int[fieldNames.size()];
+				Arrays.fill(row, curValueIndex);
+				rows.add(row);
+			}
+			return rows;
+		}
+		int[] sizes = new int[fieldNames.size()];
+		for (int i = 0; i < sizes.length; i++) {
+			List<String> values = getValuesForName(fieldNames.get(i));
+			sizes[i] = values == null || values.isEmpty() ? 1 : values.size();
+		}
+		return CoveringArray.of(sizes, combinationStrength);
+	}
+
 	/**
 	 * @param browser
 	 *            the browser instance
@@ -105,7 +136,8 @@ public final class FormInputValueHelper {
 	 *            the form elements
 	 * @param eventableCondition
 	 *            the belonging eventable condition for sourceElement
-	 * @return a list with Candidate elements for the inputs
+	 * @return a list with Candidate elements for the inputs, one per combination of input values
+	 * @see InputSpecification#setCombinationStrength(int)
 	 */
 	public List<CandidateElement> getCandidateElementsForInputs(
 			EmbeddedBrowser browser, Element sourceElement,
@@ -129,18 +161,26 @@ public final class FormInputValueHelper {
 			return candidateElements;
 		}
 
-		// add maxValues Candidate Elements for every input combination
-		for (int curValueIndex = 0; curValueIndex < maxValues; curValueIndex++) {
+		List<String> fieldNames = eventableCondition.getLinkedInputFields();
+		List<Element> elements = new ArrayList<Element>();
+		for (String fieldName : fieldNames) {
+			Element element = getBelongingElement(dom, fieldName);
+			if (element == null) {
+				LOGGER.warn("Could not find input element for: " + fieldName);
+			}
+			elements.add(element);
+		}
+
+		// add a Candidate Element for every input combination
+		List<int[]> valueIndexes = getValueIndexes(fieldNames, maxValues);
+		for (int curValueIndex = 0; curValueIndex < valueIndexes.size(); curValueIndex++) {
+			int[] indexes = valueIndexes.get(curValueIndex);
 			List<FormInput> formInputsForCurrentIndex = new ArrayList<FormInput>();
-			for (String fieldName : eventableCondition.getLinkedInputFields()) {
-				Element element = getBelongingElement(dom, fieldName);
-				if (element != null) {
+			for (int field = 0; field < elements.size(); field++) {
+				if (elements.get(field) != null) {
 					FormInput formInput = getFormInputWithIndexValue(browser,
-							element, curValueIndex);
+							elements.get(field), indexes[field]);
 					formInputsForCurrentIndex.add(formInput);
-				} else {
-					LOGGER.warn("Could not find input element for: "
-							+ fieldName);
 				}
 			}
 
@@ -176,8 +216,8 @@ public final class FormInputValueHelper {
 
 		switch (input.getIdentification().getHow()) {
 		case xpath:
-			result = DomUtils.getElementByXpath(dom, input.getIdentification()
-					.getValue());
+			result = XPathIndex.of(dom).findElement(
+					input.getIdentification().getValue());
 			break;
 
 		case id:
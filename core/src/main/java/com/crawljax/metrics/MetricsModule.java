@@ -25,6 +25,16 @@ public class MetricsModule extends AbstractModule implements Module {
 	 */
 	public static final String PLUGINS_PREFIX = CRAWL_PREFIX + "plugins.";
 
+	/**
+	 * The prefix for a {@link Metric} concerning the browsers.
+	 */
+	public static final String BROWSER_PREFIX = CRAWL_PREFIX + "browser.";
+
+	/**
+	 * The prefix for a {@link Metric} concerning the links that are fetched outside the browser.
+	 */
+	public static final String LINKS_PREFIX = CRAWL_PREFIX + "links.";
+
 	@Override
 	protected void configure() {
 		bind(MetricRegistry.class).asEagerSingleton();
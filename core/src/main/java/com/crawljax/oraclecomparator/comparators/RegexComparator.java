@@ -1,14 +1,16 @@
 package com.crawljax.oraclecomparator.comparators;
 
 import java.util.Collection;
+import java.util.regex.Pattern;
 
 import com.crawljax.oraclecomparator.AbstractComparator;
-import com.crawljax.util.DomUtils;
+import com.crawljax.util.MultiPattern;
 import com.google.common.collect.ImmutableList;
 
 /**
  * Regex oracles that strips content from the DOM to check whether the DOMs are equal without the
- * specified regular expressions.
+ * specified regular expressions. The expressions are removed in a single pass over the DOM, where
+ * at every position the first expression that matches wins.
  * 
  * @author dannyroest@gmail.com (Danny Roest)
  */
@@ -16,22 +18,51 @@ public class RegexComparator extends AbstractComparator {
 
 	// NOTE: the ordering can be important
 	private final ImmutableList<String> regexs;
+	private final MultiPattern patterns;
 
 	public RegexComparator(Collection<String> regexs) {
 		this.regexs = ImmutableList.copyOf(regexs);
+		this.patterns = MultiPattern.compile(this.regexs, Pattern.DOTALL);
 	}
 
 	public RegexComparator(String... regexs) {
-		this.regexs = ImmutableList.copyOf(regexs);
+		this(ImmutableList.copyOf(regexs));
 	}
 
 	@Override
 	public String normalize(String dom) {
-		String normalized = dom;
-		for (String regex : regexs) {
-			normalized = DomUtils.replaceString(normalized, regex, "");
+		return collapseSpaces(patterns.removeAll(dom), regexs.size());
+	}
+
+	/**
+	 * Shortens the runs of spaces like replacing every two spaces by one once per expression would.
+	 */
+	static String collapseSpaces(String string, int times) {
+		if (times == 0 || string.indexOf("  ") < 0) {
+			return string;
+		}
+		StringBuilder result = new StringBuilder(string.length());
+		int i = 0;
+		while (i < string.length()) {
+			char c = string.charAt(i);
+			if (c != ' ') {
+				result.append(c);
+				i++;
+				continue;
+			}
+			int run = 0;
+			while (i < string.length() && string.charAt(i) == ' ') {
+				run++;
+				i++;
+			}
+			for (int pass = 0; pass < times && run > 1; pass++) {
+				run = (run + 1) / 2;
+			}
+			for (int space = 0; space < run; space++) {
+				result.append(' ');
+			}
 		}
-		return normalized;
+		return result.toString();
 	}
 
 }
@@ -8,7 +8,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.state.Element;
@@ -57,10 +56,25 @@ public class ElementResolver {
 			LOGGER.error(e.getMessage(), e);
 			return "";
 		}
+		return resolve(dom, logging);
+	}
 
+	/**
+	 * Finds the element in a DOM of the browser. The element is looked up in the
+	 * {@link XPathIndex} and the {@link RelocationIndex} of the DOM, so resolving many eventables
+	 * against the same DOM only indexes it once.
+	 * 
+	 * @param dom
+	 *            the stripped DOM of the browser.
+	 * @param logging
+	 *            Whether to do logging.
+	 * @return equivalent xpath of element equivalent to Eventable, or <code>null</code>.
+	 */
+	public String resolve(Document dom, boolean logging) {
 		try {
+			XPathIndex index = XPathIndex.of(dom);
 			String xpathEventable = eventable.getIdentification().getValue();
-			Node nodeSameXpath = DomUtils.getElementByXpath(dom, xpathEventable);
+			Node nodeSameXpath = index.findElement(xpathEventable);
 			if (nodeSameXpath != null) {
 				Element elementSameXpath = new Element(nodeSameXpath);
 				if (logging) {
@@ -74,17 +88,12 @@ public class ElementResolver {
 			if (logging) {
 				LOGGER.info("Search other candidate elements");
 			}
-			NodeList candidateElements =
-			        XPathHelper.evaluateXpathExpression(dom, "//"
-			                + eventable.getElement().getTag().toUpperCase());
-			if (logging) {
-				LOGGER.info("Candidates: {}", candidateElements.getLength());
-			}
-			for (int i = 0; i < candidateElements.getLength(); i++) {
-				Element candidateElement = new Element(candidateElements.item(i));
-				if (equivalent(candidateElement, logging)) {
-					return XPathHelper.getXPathExpression(candidateElements.item(i));
+			Node candidateElement = RelocationIndex.of(dom).find(eventable.getElement());
+			if (candidateElement != null) {
+				if (logging) {
+					LOGGER.info("Found equivalent element {}", new Element(candidateElement));
 				}
+				return index.getXPath(candidateElement);
 			}
 
 		} catch (XPathExpressionException e) {
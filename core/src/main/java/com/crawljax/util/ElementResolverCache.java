@@ -0,0 +1,144 @@
+package com.crawljax.util;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.ConditionCache;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.StateVertex;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+
+/**
+ * Resolves eventables with an {@link ElementResolver} for one browser. The resolved XPath of an
+ * eventable is remembered for the state it was resolved in, by the id and the hash code of the
+ * state, so replaying the same event in the same state neither reads the DOM of the browser nor
+ * resolves it again. An XPath is only remembered when the browser showed the DOM of the state,
+ * and it should be {@link #forget(StateVertex, Eventable) forgotten} when the event cannot be
+ * fired with it. Only the most recently used {@value #RESOLUTION_CACHE_SIZE} resolutions are
+ * remembered.
+ * <p>
+ * The DOM of the browser is parsed and indexed once for as long as it does not change.
+ */
+@NotThreadSafe
+public class ElementResolverCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ElementResolverCache.class);
+
+	private static final int RESOLUTION_CACHE_SIZE = 1000;
+
+	/**
+	 * Remembered for eventables without an equivalent element, because the cache cannot hold
+	 * <code>null</code>.
+	 */
+	private static final String NOT_FOUND = "";
+
+	private final EmbeddedBrowser browser;
+	private final Cache<Key, String> resolutions =
+	        CacheBuilder.newBuilder().maximumSize(RESOLUTION_CACHE_SIZE).build();
+	private HashCode digest;
+	private Document dom;
+
+	/**
+	 * @param browser
+	 *            the browser the eventables are resolved in.
+	 */
+	public ElementResolverCache(EmbeddedBrowser browser) {
+		this.browser = browser;
+	}
+
+	/**
+	 * @param state
+	 *            the state the browser is in, or <code>null</code>.
+	 * @param eventable
+	 *            the eventable.
+	 * @return the XPath of the element equivalent to the eventable, <code>null</code> if there is
+	 *         none or an empty string if the DOM cannot be read.
+	 * @see ElementResolver#resolve()
+	 */
+	public String resolve(StateVertex state, Eventable eventable) {
+		Key key = state == null ? null : new Key(state, eventable);
+		if (key != null) {
+			String resolved = resolutions.getIfPresent(key);
+			if (resolved != null) {
+				return NOT_FOUND.equals(resolved) ? null : resolved;
+			}
+		}
+		String strippedDom = browser.getStrippedDom();
+		HashCode current = ConditionCache.digestOf(strippedDom);
+		if (!current.equals(digest)) {
+			try {
+				dom = DomUtils.asDocument(strippedDom);
+				digest = current;
+			} catch (IOException e) {
+				LOG.error(e.getMessage(), e);
+				return "";
+			}
+		}
+		String xpath = new ElementResolver(eventable, browser).resolve(dom, false);
+		if (key != null && current.equals(ConditionCache.digestOf(state.getDom()))) {
+			resolutions.put(key, xpath == null ? NOT_FOUND : xpath);
+		}
+		return xpath;
+	}
+
+	/**
+	 * Forgets the XPath of the eventable in the state, so it is resolved in the DOM of the browser
+	 * again the next time.
+	 *
+	 * @param state
+	 *            the state the browser is in, or <code>null</code>.
+	 * @param eventable
+	 *            the eventable.
+	 */
+	public void forget(StateVertex state, Eventable eventable) {
+		if (state != null) {
+			resolutions.invalidate(new Key(state, eventable));
+		}
+	}
+
+	/**
+	 * Forgets the resolved XPaths and the last DOM.
+	 */
+	public void clear() {
+		resolutions.invalidateAll();
+		digest = null;
+		dom = null;
+	}
+
+	private static final class Key {
+
+		private final int state;
+		private final int domHash;
+		private final Eventable eventable;
+
+		Key(StateVertex state, Eventable eventable) {
+			this.state = state.getId();
+			this.domHash = state.hashCode();
+			this.eventable = eventable;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(state, domHash, eventable);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (object instanceof Key) {
+				Key that = (Key) object;
+				return this.state == that.state && this.domHash == that.domHash
+				        && this.eventable.equals(that.eventable);
+			}
+			return false;
+		}
+	}
+}
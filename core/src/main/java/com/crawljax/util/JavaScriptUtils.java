@@ -0,0 +1,41 @@
+package com.crawljax.util;
+
+/**
+ * Helpers to build the JavaScript that is run in the browser.
+ */
+public final class JavaScriptUtils {
+
+	private JavaScriptUtils() {
+	}
+
+	/**
+	 * @param string
+	 *            the string to quote.
+	 * @return the string as a single-quoted JavaScript string literal.
+	 */
+	public static String literal(String string) {
+		StringBuilder literal = new StringBuilder(string.length() + 2).append('\'');
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			switch (c) {
+				case '\'':
+				case '\\':
+					literal.append('\\').append(c);
+					break;
+				case '\n':
+					literal.append("\\n");
+					break;
+				case '\r':
+					literal.append("\\r");
+					break;
+				case '\u2028':
+				case '\u2029':
+					literal.append(String.format("\\u%04x", (int) c));
+					break;
+				default:
+					literal.append(c);
+			}
+		}
+		return literal.append('\'').toString();
+	}
+}
@@ -0,0 +1,177 @@
+package com.crawljax.util;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import net.jcip.annotations.Immutable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A list of regular expressions that are matched against a string in a single pass. The
+ * expressions are compiled into one alternation with a capturing group per expression, so the
+ * group that matched tells which expression it was. Where more than one expression matches at a
+ * position, the first one in the list wins, like it does in an alternation.
+ * <p>
+ * Expressions with back references cannot be combined, because wrapping them in groups renumbers
+ * their groups, and neither can expressions that share the name of a named group. Those lists are
+ * matched one expression at a time, like before.
+ */
+@Immutable
+public final class MultiPattern {
+
+	private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+	/**
+	 * @param expressions
+	 *            the regular expressions, in order of priority.
+	 * @param flags
+	 *            the flags of all expressions, as in {@link Pattern#compile(String, int)}.
+	 * @return the compiled expressions.
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if one of the expressions is invalid.
+	 */
+	public static MultiPattern compile(List<String> expressions, int flags) {
+		return new MultiPattern(ImmutableList.copyOf(expressions), flags);
+	}
+
+	private final ImmutableList<String> expressions;
+	private final ImmutableList<Pattern> patterns;
+	private final Pattern combined;
+	private final int[] groups;
+
+	private MultiPattern(ImmutableList<String> expressions, int flags) {
+		this.expressions = expressions;
+		ImmutableList.Builder<Pattern> builder = ImmutableList.builder();
+		StringBuilder alternation = new StringBuilder();
+		groups = new int[expressions.size()];
+		boolean combinable = true;
+		int group = 1;
+		for (int i = 0; i < expressions.size(); i++) {
+			String expression = expressions.get(i);
+			Pattern pattern = Pattern.compile(expression, flags);
+			builder.add(pattern);
+			combinable &= !BACK_REFERENCE.matcher(expression).find();
+			if (i > 0) {
+				alternation.append('|');
+			}
+			alternation.append('(').append(expression).append(')');
+			groups[i] = group;
+			group += pattern.matcher("").groupCount() + 1;
+		}
+		this.patterns = builder.build();
+		this.combined = combinable && !expressions.isEmpty()
+		        ? combine(alternation.toString(), flags) : null;
+	}
+
+	/**
+	 * @return the combined expression, or <code>null</code> if the expressions cannot be combined
+	 *         because they define the same named group.
+	 */
+	private static Pattern combine(String alternation, int flags) {
+		try {
+			return Pattern.compile(alternation, flags);
+		} catch (PatternSyntaxException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the number of expressions.
+	 */
+	public int size() {
+		return patterns.size();
+	}
+
+	/**
+	 * @return whether the expressions are matched in a single pass.
+	 */
+	public boolean isCombined() {
+		return combined != null;
+	}
+
+	/**
+	 * Removes the matches of all expressions. With a single pass, what one expression removes
+	 * cannot create a match for another expression, which it could when they are removed one after
+	 * another.
+	 *
+	 * @param input
+	 *            the string.
+	 * @return the string without the matches.
+	 */
+	public String removeAll(String input) {
+		if (combined == null) {
+			String result = input;
+			for (Pattern pattern : patterns) {
+				result = pattern.matcher(result).replaceAll("");
+			}
+			return result;
+		}
+		Matcher matcher = combined.matcher(input);
+		StringBuilder result = null;
+		int last = 0;
+		while (matcher.find()) {
+			if (result == null) {
+				result = new StringBuilder(input.length());
+			}
+			result.append(input, last, matcher.start());
+			last = matcher.end();
+		}
+		if (result == null) {
+			return input;
+		}
+		return result.append(input, last, input.length()).toString();
+	}
+
+	/**
+	 * Finds which expressions occur in the string. The combined expression visits every position
+	 * where one of the expressions matches, and at those positions the expressions that were not
+	 * found yet are tried on their own, so an expression is found even where an earlier one wins.
+	 *
+	 * @param input
+	 *            the string.
+	 * @return the indexes of the expressions that occur in the string.
+	 */
+	public BitSet findEach(CharSequence input) {
+		BitSet found = new BitSet(patterns.size());
+		if (combined == null) {
+			for (int i = 0; i < patterns.size(); i++) {
+				if (patterns.get(i).matcher(input).find()) {
+					found.set(i);
+				}
+			}
+			return found;
+		}
+		Matcher matcher = combined.matcher(input);
+		int from = 0;
+		while (found.cardinality() < patterns.size() && from <= input.length()
+		        && matcher.find(from)) {
+			int start = matcher.start();
+			for (int i = found.nextClearBit(0); i < patterns.size(); i =
+			        found.nextClearBit(i + 1)) {
+				if (matcher.group(groups[i]) != null || matchesAt(i, input, start)) {
+					found.set(i);
+				}
+			}
+			from = start + 1;
+		}
+		return found;
+	}
+
+	private boolean matchesAt(int index, CharSequence input, int start) {
+		return patterns.get(index).matcher(input).region(start, input.length())
+		        .useTransparentBounds(true).useAnchoringBounds(false).lookingAt();
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("expressions", expressions)
+		        .add("combined", isCombined())
+		        .toString();
+	}
+}
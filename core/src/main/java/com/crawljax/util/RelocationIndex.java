@@ -0,0 +1,110 @@
+package com.crawljax.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.crawljax.core.state.Element;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Finds the elements of a {@link Document} that are equivalent to an {@link Element} of another
+ * snapshot of the page, as {@link ElementResolver#equivalent(Element, boolean)} defines it: the
+ * same attributes, the same id or the same text, ignoring case. The elements of a tag are indexed
+ * by attributes, id and text the first time the tag is asked for, so finding an element is a few
+ * lookups instead of a comparison with every element of the tag.
+ * <p>
+ * The index is kept with the document, like the {@link XPathIndex}, and must not be used after
+ * the document changes.
+ */
+@NotThreadSafe
+public final class RelocationIndex {
+
+	private static final String INDEX = "RELOCATION_INDEX";
+
+	/**
+	 * @param dom
+	 *            the document.
+	 * @return the index of the document, which is created if the document has none yet.
+	 */
+	public static RelocationIndex of(Document dom) {
+		RelocationIndex index = (RelocationIndex) dom.getUserData(INDEX);
+		if (index == null) {
+			index = new RelocationIndex(dom);
+			dom.setUserData(INDEX, index, null);
+		}
+		return index;
+	}
+
+	private final Document dom;
+	private final Map<String, TagIndex> tags = new HashMap<>();
+
+	private RelocationIndex(Document dom) {
+		this.dom = dom;
+	}
+
+	/**
+	 * @param element
+	 *            the element to find.
+	 * @return the first element in document order with the tag of the element that is equivalent
+	 *         to it, or <code>null</code>.
+	 */
+	public Node find(Element element) {
+		String tag = element.getTag().toUpperCase(Locale.ROOT);
+		TagIndex index = tags.get(tag);
+		if (index == null) {
+			index = new TagIndex(dom.getElementsByTagName(tag));
+			tags.put(tag, index);
+		}
+		return index.find(element);
+	}
+
+	private static String normalize(String value) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * The elements of one tag, with the position of the first element per attributes, id and text.
+	 */
+	private static final class TagIndex {
+
+		private final List<Node> nodes;
+		private final Map<ImmutableMap<String, String>, Integer> byAttributes = new HashMap<>();
+		private final Map<String, Integer> byId = new HashMap<>();
+		private final Map<String, Integer> byText = new HashMap<>();
+
+		TagIndex(NodeList list) {
+			nodes = new ArrayList<>(list.getLength());
+			for (int i = 0; i < list.getLength(); i++) {
+				Element element = new Element(list.item(i));
+				nodes.add(list.item(i));
+				byAttributes.putIfAbsent(element.getAttributes(), i);
+				if (element.getElementId() != null) {
+					byId.putIfAbsent(normalize(element.getElementId()), i);
+				}
+				byText.putIfAbsent(normalize(element.getText()), i);
+			}
+		}
+
+		Node find(Element element) {
+			int first = Integer.MAX_VALUE;
+			first = Math.min(first, byAttributes.getOrDefault(element.getAttributes(), first));
+			if (element.getElementId() != null) {
+				first = Math.min(first,
+				        byId.getOrDefault(normalize(element.getElementId()), first));
+			}
+			if (!element.getText().isEmpty()) {
+				first = Math.min(first, byText.getOrDefault(normalize(element.getText()), first));
+			}
+			return first == Integer.MAX_VALUE ? null : nodes.get(first);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.crawljax.util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import net.jcip.annotations.Immutable;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Turns URLs into a canonical form, so URLs that load the same page compare equal. The scheme and
+ * host are lower cased, default ports and empty queries are removed and an empty path becomes
+ * <code>/</code>. Depending on the configuration, query parameters are stripped and sorted,
+ * fragments are removed and the path is lower cased.
+ * <p>
+ * Parameters are stripped by name, or by prefix when the name ends with <code>*</code>, so
+ * <code>utm_*</code> strips all the tracking parameters of Google Analytics.
+ */
+@Immutable
+public final class UrlCanonicalizer {
+
+	/**
+	 * Sorts the parameters and removes the fragments, but keeps all parameters.
+	 */
+	public static final UrlCanonicalizer DEFAULT = builder().build();
+
+	/**
+	 * @return a builder that sorts the parameters and removes the fragments.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builds a {@link UrlCanonicalizer}.
+	 */
+	public static final class Builder {
+
+		private final ImmutableSet.Builder<String> strippedParameters = ImmutableSet.builder();
+		private boolean sortParameters = true;
+		private boolean keepFragments = false;
+		private boolean lowerCasePath = false;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param names
+		 *            the names of the query parameters to remove. A name that ends with
+		 *            <code>*</code> removes all parameters that start with the rest of the name.
+		 * @return this builder.
+		 */
+		public Builder stripParameters(String... names) {
+			strippedParameters.add(names);
+			return this;
+		}
+
+		/**
+		 * @param sort
+		 *            whether the order of the query parameters does not matter. Default is
+		 *            <code>true</code>.
+		 * @return this builder.
+		 */
+		public Builder sortParameters(boolean sort) {
+			this.sortParameters = sort;
+			return this;
+		}
+
+		/**
+		 * @param keep
+		 *            whether URLs with different fragments load different pages. Default is
+		 *            <code>false</code>.
+		 * @return this builder.
+		 */
+		public Builder keepFragments(boolean keep) {
+			this.keepFragments = keep;
+			return this;
+		}
+
+		/**
+		 * @param lowerCase
+		 *            whether the paths of the site are case insensitive. Default is
+		 *            <code>false</code>.
+		 * @return this builder.
+		 */
+		public Builder lowerCasePath(boolean lowerCase) {
+			this.lowerCasePath = lowerCase;
+			return this;
+		}
+
+		/**
+		 * @return the canonicalizer.
+		 */
+		public UrlCanonicalizer build() {
+			return new UrlCanonicalizer(strippedParameters.build(), sortParameters,
+			        keepFragments, lowerCasePath);
+		}
+	}
+
+	private static final Splitter PARAMETERS = Splitter.on('&').omitEmptyStrings();
+	private static final Joiner JOINER = Joiner.on('&');
+
+	private final ImmutableSet<String> strippedParameters;
+	private final boolean sortParameters;
+	private final boolean keepFragments;
+	private final boolean lowerCasePath;
+
+	private UrlCanonicalizer(ImmutableSet<String> strippedParameters, boolean sortParameters,
+	        boolean keepFragments, boolean lowerCasePath) {
+		this.strippedParameters = strippedParameters;
+		this.sortParameters = sortParameters;
+		this.keepFragments = keepFragments;
+		this.lowerCasePath = lowerCasePath;
+	}
+
+	/**
+	 * @param url
+	 *            an absolute URL.
+	 * @return the canonical form of the URL.
+	 */
+	public String canonicalize(URI url) {
+		if (url.isOpaque() || url.getRawAuthority() == null) {
+			return url.toString();
+		}
+		StringBuilder result = new StringBuilder();
+		String scheme = Strings.nullToEmpty(url.getScheme()).toLowerCase(Locale.ROOT);
+		result.append(scheme).append("://");
+		if (url.getRawUserInfo() != null) {
+			result.append(url.getRawUserInfo()).append('@');
+		}
+		if (url.getHost() == null) {
+			result.append(url.getRawAuthority());
+		} else {
+			result.append(url.getHost().toLowerCase(Locale.ROOT));
+			if (url.getPort() != -1 && !isDefaultPort(scheme, url.getPort())) {
+				result.append(':').append(url.getPort());
+			}
+		}
+		String path = Strings.nullToEmpty(url.getRawPath());
+		if (path.isEmpty()) {
+			path = "/";
+		}
+		result.append(lowerCasePath ? path.toLowerCase(Locale.ROOT) : path);
+		String query = canonicalQuery(url.getRawQuery());
+		if (!query.isEmpty()) {
+			result.append('?').append(query);
+		}
+		if (keepFragments && url.getRawFragment() != null) {
+			result.append('#').append(url.getRawFragment());
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @param url
+	 *            an absolute URL.
+	 * @return the canonical form of the URL, or the URL itself if it cannot be parsed.
+	 */
+	public String canonicalize(String url) {
+		try {
+			return canonicalize(URI.create(url));
+		} catch (IllegalArgumentException e) {
+			return url;
+		}
+	}
+
+	private static boolean isDefaultPort(String scheme, int port) {
+		return "http".equals(scheme) && port == 80 || "https".equals(scheme) && port == 443;
+	}
+
+	private String canonicalQuery(String query) {
+		if (query == null) {
+			return "";
+		}
+		List<String> parameters = new ArrayList<>();
+		for (String parameter : PARAMETERS.split(query)) {
+			int equals = parameter.indexOf('=');
+			if (!isStripped(equals < 0 ? parameter : parameter.substring(0, equals))) {
+				parameters.add(parameter);
+			}
+		}
+		if (sortParameters) {
+			Collections.sort(parameters);
+		}
+		return JOINER.join(parameters);
+	}
+
+	private boolean isStripped(String name) {
+		for (String stripped : strippedParameters) {
+			if (stripped.endsWith("*") ? name.startsWith(stripped.substring(0,
+			        stripped.length() - 1)) : name.equals(stripped)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(strippedParameters, sortParameters, keepFragments, lowerCasePath);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof UrlCanonicalizer) {
+			UrlCanonicalizer that = (UrlCanonicalizer) object;
+			return Objects.equals(this.strippedParameters, that.strippedParameters)
+			        && this.sortParameters == that.sortParameters
+			        && this.keepFragments == that.keepFragments
+			        && this.lowerCasePath == that.lowerCasePath;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return MoreObjects.toStringHelper(this)
+		        .add("strippedParameters", strippedParameters)
+		        .add("sortParameters", sortParameters)
+		        .add("keepFragments", keepFragments)
+		        .add("lowerCasePath", lowerCasePath)
+		        .toString();
+	}
+}
@@ -36,7 +36,8 @@ public final class XPathHelper {
 	private static final int MAX_SEARCH_LOOPS = 10000;
 
 	/**
-	 * Reverse Engineers an XPath Expression of a given Node in the DOM.
+	 * Reverse Engineers an XPath Expression of a given Node in the DOM. The XPaths of the elements
+	 * of a document with an {@link XPathIndex} are taken from the index.
 	 * 
 	 * @param node
 	 *            the given node.
@@ -47,6 +48,13 @@ public final class XPathHelper {
 		if (xpathCache != null) {
 			return xpathCache.toString();
 		}
+		XPathIndex index = XPathIndex.ifPresent(node.getOwnerDocument());
+		if (index != null) {
+			String xpath = index.getXPath(node);
+			if (xpath != null) {
+				return xpath;
+			}
+		}
 		Node parent = node.getParentNode();
 
 		if ((parent == null) || parent.getNodeName().contains("#document")) {
@@ -129,11 +137,25 @@ public final class XPathHelper {
 	 *             On error.
 	 */
 	public static NodeList evaluateXpathExpression(Document dom, String xpathExpr)
+	        throws XPathExpressionException {
+		return evaluateXpathExpression((Node) dom, xpathExpr);
+	}
+
+	/**
+	 * @param context
+	 *            The node that relative expressions start from.
+	 * @param xpathExpr
+	 *            The xpath expression.
+	 * @return the list of nodes which match the query
+	 * @throws XPathExpressionException
+	 *             On error.
+	 */
+	public static NodeList evaluateXpathExpression(Node context, String xpathExpr)
 	        throws XPathExpressionException {
 		XPathFactory factory = XPathFactory.newInstance();
 		XPath xpath = factory.newXPath();
 		XPathExpression expr = xpath.compile(xpathExpr);
-		Object result = expr.evaluate(dom, XPathConstants.NODESET);
+		Object result = expr.evaluate(context, XPathConstants.NODESET);
 		NodeList nodes = (NodeList) result;
 		return nodes;
 	}
@@ -0,0 +1,117 @@
+package com.crawljax.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * The positional XPaths of all elements of a {@link Document}, as returned by
+ * {@link XPathHelper#getXPathExpression(Node)}, and the elements by XPath. The index is built in
+ * one traversal of the document, where computing the XPath of every element separately is
+ * quadratic in the number of siblings.
+ * <p>
+ * The index is kept with the document, so it is built once however often it is asked for, and
+ * {@link XPathHelper#getXPathExpression(Node)} uses it for the elements of an indexed document.
+ * It must not be used after elements are added to or removed from the document.
+ */
+@NotThreadSafe
+public final class XPathIndex {
+
+	private static final String INDEX = "XPATH_INDEX";
+
+	/**
+	 * @param dom
+	 *            the document.
+	 * @return the index of the document, which is built if the document has none yet.
+	 */
+	public static XPathIndex of(Document dom) {
+		XPathIndex index = ifPresent(dom);
+		if (index == null) {
+			index = new XPathIndex(dom);
+			dom.setUserData(INDEX, index, null);
+		}
+		return index;
+	}
+
+	/**
+	 * @param dom
+	 *            the document, or <code>null</code>.
+	 * @return the index of the document, or <code>null</code> if it has none.
+	 */
+	static XPathIndex ifPresent(Document dom) {
+		return dom == null ? null : (XPathIndex) dom.getUserData(INDEX);
+	}
+
+	private final Document dom;
+	private final Map<Node, String> xpaths = new IdentityHashMap<>();
+	private final Map<String, Element> elements = new HashMap<>();
+
+	private XPathIndex(Document dom) {
+		this.dom = dom;
+		Deque<Node> parents = new ArrayDeque<>();
+		parents.push(dom);
+		while (!parents.isEmpty()) {
+			Node parent = parents.pop();
+			String prefix = parent == dom ? "" : xpaths.get(parent);
+			Map<String, Integer> positions = new HashMap<>();
+			for (Node child = parent.getFirstChild(); child != null; child =
+			        child.getNextSibling()) {
+				if (child instanceof Element) {
+					String name = child.getNodeName();
+					int position = positions.merge(name, 1, Integer::sum);
+					String xpath = prefix + "/" + name + "[" + position + "]";
+					xpaths.put(child, xpath);
+					elements.put(xpath, (Element) child);
+					parents.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node
+	 *            a node.
+	 * @return the XPath of the node, or <code>null</code> if it is not an element of the document.
+	 */
+	public String getXPath(Node node) {
+		return xpaths.get(node);
+	}
+
+	/**
+	 * @param xpath
+	 *            a positional XPath, such as <code>/HTML[1]/BODY[1]/DIV[3]</code>.
+	 * @return the element with exactly that XPath, or <code>null</code>.
+	 */
+	public Element getElement(String xpath) {
+		return elements.get(xpath);
+	}
+
+	/**
+	 * @param xpath
+	 *            an XPath expression.
+	 * @return the element with the XPath, or else the first element the expression selects.
+	 * @throws XPathExpressionException
+	 *             if the expression is not indexed and cannot be evaluated.
+	 */
+	public Element findElement(String xpath) throws XPathExpressionException {
+		Element element = getElement(xpath);
+		return element != null ? element : DomUtils.getElementByXpath(dom, xpath);
+	}
+
+	/**
+	 * @return the number of indexed elements.
+	 */
+	public int size() {
+		return xpaths.size();
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Installs a MutationObserver in the document of the window and of all its frames and returns
+ * whether any of them changed, or could not be tracked, since the observers were last armed.
+ *
+ * arguments[0]: whether to arm the observers again. When true, an object is returned with whether
+ *               the DOM changed, the id of the new snapshot, the number of elements in the page
+ *               and, when only the page changed since the snapshot with id arguments[1], the HTML
+ *               of the changed subtrees if it is not longer than arguments[2].
+ * arguments[3]: the number of changed nodes after which the changed subtrees are not kept.
+ */
+var arm = arguments[0], since = arguments[1], max = arguments[2], maxTargets = arguments[3];
+
+function record(t, rs) {
+	if (rs.length > 0) {
+		t.dirty = true;
+	}
+	for (var i = 0; i < rs.length && !t.overflow; i++) {
+		t.targets.push(rs[i].target);
+	}
+	if (t.targets.length > maxTargets) {
+		t.overflow = true;
+		t.targets = [];
+	}
+}
+
+function track(w) {
+	var d, t;
+	try {
+		d = w.document;
+		t = w.__crawljaxDomTracker;
+	} catch (e) {
+		return true;
+	}
+	if (!d) {
+		return true;
+	}
+	if (!t || t.document !== d) {
+		t = {document: d, dirty: true, id: 0, targets: [], overflow: true};
+		t.observer = new w.MutationObserver(function(rs) {
+			record(t, rs);
+		});
+		t.observer.observe(d, {subtree: true, childList: true, attributes: true,
+			characterData: true});
+		w.__crawljaxDomTracker = t;
+	}
+	record(t, t.observer.takeRecords());
+	var changed = t.dirty;
+	if (arm) {
+		t.dirty = false;
+	}
+	return changed;
+}
+
+function trackFrames(w) {
+	var changed = false;
+	try {
+		for (var i = 0; i < w.frames.length; i++) {
+			if (track(w.frames[i])) {
+				changed = true;
+			}
+			if (trackFrames(w.frames[i])) {
+				changed = true;
+			}
+		}
+	} catch (e) {
+		return true;
+	}
+	return changed;
+}
+
+function pathOf(n) {
+	var p = [], root = document.documentElement;
+	while (n !== root) {
+		var i = 0;
+		for (var s = n.previousElementSibling; s; s = s.previousElementSibling) {
+			i++;
+		}
+		p.unshift(i);
+		n = n.parentNode;
+		if (!n || n.nodeType !== 1) {
+			return null;
+		}
+	}
+	return p;
+}
+
+function contextOf(n) {
+	var c = [];
+	for (var a = n.parentNode; a && a.nodeType === 1; a = a.parentNode) {
+		c.unshift(a.tagName);
+	}
+	return c;
+}
+
+function patches(targets) {
+	var root = document.documentElement, nodes = [], result = [], size = 0, i, j, n;
+	for (i = 0; i < targets.length; i++) {
+		n = targets[i];
+		if (n.nodeType !== 1) {
+			n = n.parentNode;
+		}
+		if (!n || n.nodeType !== 1) {
+			return null;
+		}
+		if (root.contains(n) && nodes.indexOf(n) < 0) {
+			nodes.push(n);
+		}
+	}
+	for (i = 0; i < nodes.length; i++) {
+		var covered = false;
+		for (j = 0; j < nodes.length && !covered; j++) {
+			covered = j !== i && nodes[j].contains(nodes[i]);
+		}
+		if (covered) {
+			continue;
+		}
+		n = nodes[i];
+		if (n === root || n === document.head || n === document.body
+				|| /^i?frame$/i.test(n.tagName)
+				|| n.getElementsByTagName('iframe').length > 0
+				|| n.getElementsByTagName('frame').length > 0) {
+			return null;
+		}
+		var html = n.outerHTML, path = pathOf(n);
+		size += html.length;
+		if (size > max || path === null) {
+			return null;
+		}
+		result.push({path: path, tag: n.tagName, context: contextOf(n), html: html});
+	}
+	return result;
+}
+
+var page = track(window), frames = trackFrames(window);
+if (!arm) {
+	return page || frames;
+}
+var t = window.__crawljaxDomTracker,
+	result = {changed: page || frames, id: -1, elements: -1, patches: null};
+if (t) {
+	if (page && !frames && !t.overflow && max > 0 && since === t.id) {
+		result.patches = patches(t.targets);
+	}
+	t.id++;
+	t.targets = [];
+	t.overflow = false;
+	result.id = t.id;
+	result.elements = document.getElementsByTagName('*').length;
+}
+return result;
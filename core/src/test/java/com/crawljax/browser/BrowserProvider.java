@@ -16,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSortedSet;
 
 public class BrowserProvider extends ExternalResource {
 
@@ -40,6 +41,13 @@ public class BrowserProvider extends ExternalResource {
 	}
 
 	public EmbeddedBrowser newEmbeddedBrowser() {
+		if (getBrowserType() == EmbeddedBrowser.BrowserType.CHROME_DEVTOOLS) {
+			return ChromeDevToolsEmbeddedBrowser.withDriver((ChromeDriver) newBrowser(),
+					ImmutableSortedSet.<String> of(), 0, 0);
+		}
+		if (getBrowserType() == EmbeddedBrowser.BrowserType.STATIC_HTML) {
+			return new StaticHtmlEmbeddedBrowser(ImmutableSortedSet.<String> of(), null);
+		}
 		return WebDriverBackedEmbeddedBrowser.withDriver(newBrowser());
 	}
 
@@ -56,6 +64,7 @@ public class BrowserProvider extends ExternalResource {
 			driver = new InternetExplorerDriver();
 			break;
 		case CHROME:
+		case CHROME_DEVTOOLS:
 			driver = newChromeDriver();
 			break;
 		case PHANTOMJS:
@@ -0,0 +1,107 @@
+package com.crawljax.browser;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.metrics.MetricsModule;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingEmbeddedBrowserTest {
+
+	@Mock
+	private EmbeddedBrowser delegate;
+
+	@Mock
+	private Eventable event;
+
+	private MetricRegistry registry;
+	private CachingEmbeddedBrowser browser;
+
+	@Before
+	public void setup() {
+		registry = new MetricRegistry();
+		browser = new CachingEmbeddedBrowser(delegate, registry);
+	}
+
+	@Test
+	public void urlAndDomAreFetchedOncePerChange() throws Exception {
+		when(delegate.getCurrentUrl()).thenReturn("http://example.com", "http://example.com/2");
+		when(delegate.getStrippedDom()).thenReturn("<HTML/>");
+
+		browser.getCurrentUrl();
+		browser.getStrippedDom();
+		browser.getStrippedDom();
+		assertThat(browser.getCurrentUrl(), is("http://example.com"));
+		browser.fireEventAndWait(event);
+		assertThat(browser.getCurrentUrl(), is("http://example.com/2"));
+
+		verify(delegate, times(2)).getCurrentUrl();
+		verify(delegate).getStrippedDom();
+		assertThat(browser.getSavedCommands(), is(2L));
+		assertThat(registry.histogram(MetricsModule.BROWSER_PREFIX + "saved_commands_per_dom")
+		        .getCount(), is(1L));
+	}
+
+	@Test
+	public void operationsThatMayChangeThePageForgetTheDom() {
+		when(delegate.getStrippedDom()).thenReturn("<HTML/>");
+
+		browser.getStrippedDom();
+		browser.goToUrl(URI.create("http://example.com"));
+		browser.getStrippedDom();
+		browser.executeJavaScript("document.body.innerHTML = ''");
+		browser.getStrippedDom();
+
+		verify(delegate, times(3)).getStrippedDom();
+		assertThat(browser.getSavedCommands(), is(0L));
+	}
+
+	@Test
+	public void otherWindowsAreOnlyClosedWhenThePageMayHaveOpenedOne() {
+		when(delegate.executeJavaScript(anyString())).thenReturn(true, false);
+
+		browser.closeOtherWindows();
+		browser.closeOtherWindows();
+
+		verify(delegate).closeOtherWindows();
+		assertThat(browser.getSavedCommands(), is(2L));
+	}
+
+	@Test
+	public void otherWindowsAreClosedWhenTheHookFails() {
+		when(delegate.executeJavaScript(anyString())).thenThrow(new CrawljaxException("alert"));
+
+		browser.closeOtherWindows();
+
+		verify(delegate).closeOtherWindows();
+	}
+
+	@Test
+	public void checkingTheHookDoesNotForgetTheUrl() {
+		when(delegate.getCurrentUrl()).thenReturn("http://example.com");
+		when(delegate.executeJavaScript(anyString())).thenReturn(false);
+
+		browser.getCurrentUrl();
+		browser.closeOtherWindows();
+		browser.getCurrentUrl();
+
+		verify(delegate).getCurrentUrl();
+		verify(delegate, never()).closeOtherWindows();
+	}
+}
@@ -0,0 +1,54 @@
+package com.crawljax.browser;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.test.BrowserTest;
+import com.crawljax.test.RunWithWebServer;
+import com.google.common.collect.ImmutableSortedSet;
+
+@Category(BrowserTest.class)
+public class ChromeDevToolsEmbeddedBrowserTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer(
+			"/site/iframe");
+
+	@Rule
+	public final BrowserProvider provider = new BrowserProvider();
+
+	private ChromeDevToolsEmbeddedBrowser browser;
+
+	@Before
+	public void setup() {
+		assumeTrue(BrowserProvider.getBrowserType() == EmbeddedBrowser.BrowserType.CHROME_DEVTOOLS);
+		browser = ChromeDevToolsEmbeddedBrowser.withDriver((ChromeDriver) provider.newBrowser(),
+				ImmutableSortedSet.<String> of(), 1000, 1000);
+	}
+
+	@Test
+	public void pageSourceIsReadThroughDevTools() {
+		browser.goToUrl(SERVER.getSiteUrl());
+
+		assertTrue(browser.getUnStrippedDom().contains("<iframe"));
+		assertTrue(browser.getStrippedDom().contains("IFRAME"));
+	}
+
+	@Test
+	public void screenshotIsCapturedThroughDevTools() throws CrawljaxException {
+		browser.goToUrl(SERVER.getSiteUrl());
+
+		byte[] screenshot = browser.getScreenShot();
+
+		assertTrue(screenshot.length > 8 && screenshot[1] == 'P' && screenshot[2] == 'N'
+				&& screenshot[3] == 'G');
+	}
+}
@@ -0,0 +1,162 @@
+package com.crawljax.browser;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.crawljax.util.DomUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+
+public class DomChangeTrackingTest {
+
+	private WebDriver driver;
+	private WebDriverBackedEmbeddedBrowser browser;
+
+	@Before
+	public void setup() {
+		driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		when(driver.getPageSource()).thenReturn("<html><body><p>first</p></body></html>",
+		        "<html><body><p>second</p></body></html>");
+		browser = WebDriverBackedEmbeddedBrowser.withDriver(driver,
+		        ImmutableSortedSet.<String> of(), 0, 0);
+		browser.setTrackDomChanges(true);
+	}
+
+	@Test
+	public void unchangedDomIsNotTransferredAgain() {
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any()))
+		        .thenReturn(true, false, true);
+
+		String first = browser.getStrippedDom();
+		assertThat(browser.getStrippedDom(), is(first));
+		assertThat(browser.getStrippedDom().contains("second"), is(true));
+
+		verify(driver, times(2)).getPageSource();
+		assertThat(browser.getDomTransfers(), is(2L));
+		assertThat(browser.getSkippedDomTransfers(), is(1L));
+	}
+
+	@Test
+	public void changesAreQueriedWithoutArmingTheTracker() {
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any()))
+		        .thenReturn(true);
+		when(executor().executeScript(anyString(), eq(false), any(), any(), any()))
+		        .thenReturn(false, true);
+
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(true));
+		browser.getStrippedDom();
+		browser.markSnapshot();
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(false));
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(true));
+	}
+
+	@Test
+	public void readingTheDomDoesNotMoveTheSnapshot() {
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any()))
+		        .thenReturn(true);
+		when(executor().executeScript(anyString(), eq(false), any(), any(), any()))
+		        .thenReturn(false);
+
+		browser.getStrippedDom();
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(true));
+		browser.markSnapshot();
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(false));
+
+		assertThat(browser.getStrippedDom().contains("second"), is(true));
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(true));
+		browser.markSnapshot();
+		assertThat(browser.isDomChangedSinceLastSnapshot(), is(false));
+	}
+
+	@Test
+	public void domIsTransferredWhenTheTrackerFails() {
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any()))
+		        .thenReturn(true).thenThrow(new WebDriverException("no javascript"));
+
+		browser.getStrippedDom();
+		browser.getStrippedDom();
+
+		assertThat(browser.getDomTransfers(), is(2L));
+		assertThat(browser.getSkippedDomTransfers(), is(0L));
+	}
+
+	@Test
+	public void changedSubtreesArePatchedIntoTheLastDom() throws IOException {
+		String page = "<html><head></head><body><div>first</div><ul><li>a</li></ul></body></html>";
+		when(driver.getPageSource()).thenReturn(page);
+		browser.setDomPatchThreshold(0.5);
+		int elements = DomPatch.countElements(DomUtils.asDocument(page));
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any())).thenReturn(
+		        snapshot(1, elements, null),
+		        snapshot(2, elements, patch(ImmutableList.of(1, 1, 0), "LI", "<li>b</li>",
+		                "HTML", "BODY", "UL")));
+
+		assertThat(browser.getStrippedDom().contains(">a</LI>"), is(true));
+		String patched = browser.getStrippedDom();
+
+		assertThat(patched.contains(">b</LI>"), is(true));
+		assertThat(patched.contains(">a</LI>"), is(false));
+		verify(driver, times(1)).getPageSource();
+		assertThat(browser.getDomTransfers(), is(1L));
+		assertThat(browser.getPatchedDomTransfers(), is(1L));
+	}
+
+	@Test
+	public void domIsTransferredWhenThePatchDoesNotMatch() throws IOException {
+		String page = "<html><head></head><body><div>first</div></body></html>";
+		when(driver.getPageSource()).thenReturn(page);
+		browser.setDomPatchThreshold(0.5);
+		int elements = DomPatch.countElements(DomUtils.asDocument(page));
+		when(executor().executeScript(anyString(), eq(true), any(), any(), any())).thenReturn(
+		        snapshot(1, elements, null),
+		        snapshot(2, elements, patch(ImmutableList.of(1, 0), "SPAN", "<span>b</span>",
+		                "HTML", "BODY")));
+
+		browser.getStrippedDom();
+		browser.getStrippedDom();
+
+		verify(driver, times(2)).getPageSource();
+		assertThat(browser.getDomTransfers(), is(2L));
+		assertThat(browser.getPatchedDomTransfers(), is(0L));
+	}
+
+	private static Map<String, Object> snapshot(long id, long elements,
+	        Map<String, Object> patch) {
+		Map<String, Object> snapshot = new HashMap<>();
+		snapshot.put("changed", true);
+		snapshot.put("id", id);
+		snapshot.put("elements", elements);
+		snapshot.put("patches", patch == null ? null : ImmutableList.of(patch));
+		return snapshot;
+	}
+
+	private static Map<String, Object> patch(List<Integer> path, String tag, String html,
+	        String... context) {
+		return ImmutableMap.<String, Object> of("path", path, "tag", tag, "html", html,
+		        "context", ImmutableList.copyOf(context));
+	}
+
+	private JavascriptExecutor executor() {
+		return (JavascriptExecutor) driver;
+	}
+}
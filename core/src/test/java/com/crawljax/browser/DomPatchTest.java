@@ -0,0 +1,47 @@
+package com.crawljax.browser;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.crawljax.util.DomUtils;
+import com.google.common.collect.ImmutableList;
+
+public class DomPatchTest {
+
+	@Test
+	public void rowsAreParsedInTheContextOfTheirTable() throws IOException {
+		Document document = DomUtils.asDocument("<html><head></head><body><table><tbody>"
+		        + "<tr><td>a</td></tr></tbody></table></body></html>");
+		DomPatch patch = new DomPatch(new int[] { 1, 0, 0, 0 }, "TR",
+		        ImmutableList.of("HTML", "BODY", "TABLE", "TBODY"), "<tr><td>b</td><td>c</td></tr>");
+
+		assertThat(patch.applyTo(document), is(true));
+		assertThat(document.getElementsByTagName("TD").getLength(), is(2));
+		assertThat(document.getElementsByTagName("TR").item(0).getTextContent(), is("bc"));
+	}
+
+	@Test
+	public void patchesOfAnotherElementAreNotApplied() throws IOException {
+		Document document = DomUtils.asDocument("<html><head></head><body><p>a</p></body></html>");
+		DomPatch patch = new DomPatch(new int[] { 1, 0 }, "DIV",
+		        ImmutableList.of("HTML", "BODY"), "<div>b</div>");
+
+		assertThat(patch.applyTo(document), is(false));
+		assertThat(document.getElementsByTagName("P").getLength(), is(1));
+	}
+
+	@Test
+	public void framesAreCountedWithoutTheirContent() throws IOException {
+		Document document = DomUtils.asDocument("<html><head></head><body><iframe></iframe>"
+		        + "</body></html>");
+		document.getElementsByTagName("IFRAME").item(0)
+		        .appendChild(document.createElement("HTML"));
+
+		assertThat(DomPatch.countElements(document), is(4));
+	}
+}
@@ -0,0 +1,55 @@
+package com.crawljax.browser;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class NetworkActivityTest {
+
+	private final NetworkActivity network = new NetworkActivity();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	@After
+	public void shutDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void idleNetworkIsWaitedForTheQuietPeriod() throws InterruptedException {
+		long start = System.nanoTime();
+
+		assertThat(network.awaitIdle(50, 5000), is(true));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+		        is(greaterThanOrEqualTo(50L)));
+	}
+
+	@Test
+	public void requestsInFlightAreWaitedFor() throws InterruptedException {
+		network.requestStarted("1");
+		executor.schedule(() -> network.requestFinished("1"), 100, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+
+		assertThat(network.awaitIdle(10, 5000), is(true));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+		        is(greaterThanOrEqualTo(100L)));
+		assertThat(network.getRequestsInFlight(), is(0));
+	}
+
+	@Test
+	public void waitingStopsAtTheTimeout() throws InterruptedException {
+		network.requestStarted("1");
+		network.requestFinished("2");
+
+		assertThat(network.awaitIdle(10, 50), is(false));
+		assertThat(network.getRequestsInFlight(), is(1));
+	}
+}
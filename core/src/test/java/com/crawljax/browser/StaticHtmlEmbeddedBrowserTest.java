@@ -0,0 +1,100 @@
+package com.crawljax.browser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebElement;
+
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.Identification.How;
+import com.crawljax.test.RunWithWebServer;
+import com.google.common.collect.ImmutableSortedSet;
+
+public class StaticHtmlEmbeddedBrowserTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer("/site");
+
+	private StaticHtmlEmbeddedBrowser browser;
+
+	@Before
+	public void setup() {
+		browser = new StaticHtmlEmbeddedBrowser(ImmutableSortedSet.<String> of(), null);
+	}
+
+	private static Eventable click(How how, String value) {
+		return new Eventable(new Identification(how, value), EventType.click);
+	}
+
+	@Test
+	public void linksAreFollowedAndHistoryIsKept() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("simplelink/simplelink.html"));
+		assertThat(browser.getStrippedDom(), containsString("Simple link page"));
+
+		assertThat(browser.fireEventAndWait(click(How.xpath, "//A")), is(true));
+		assertThat(browser.getCurrentUrl(), endsWith("/simple.html"));
+		assertThat(browser.getStrippedDom(), containsString("Simple page"));
+
+		browser.goBack();
+		assertThat(browser.getCurrentUrl(), endsWith("/simplelink/simplelink.html"));
+	}
+
+	@Test
+	public void formsAreSubmittedWithTheEnteredValues() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("static/form.html"));
+		String dom = browser.getStrippedDom();
+
+		assertThat(browser.input(new Identification(How.id, "query"), "crawl ajax"), is(true));
+		assertThat(browser.input(new Identification(How.id, "sort"), "Name"), is(true));
+		assertThat(browser.fireEventAndWait(click(How.id, "exact")), is(true));
+		WebElement checkbox = browser.getWebElement(new Identification(How.id, "exact"));
+		assertThat(checkbox.isSelected(), is(true));
+		assertThat("Entered values do not change the DOM", browser.getStrippedDom(), is(dom));
+
+		assertThat(browser.fireEventAndWait(click(How.id, "go")), is(true));
+		assertThat(browser.getCurrentUrl(), endsWith(
+		        "/simple.html?query=crawl+ajax&exact=yes&sort=name&go=Search"));
+	}
+
+	@Test(expected = ElementNotInteractableException.class)
+	public void hiddenElementsCannotBeClicked() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("static/form.html"));
+		assertThat(browser.isVisible(new Identification(How.id, "hidden")), is(false));
+		browser.fireEventAndWait(click(How.id, "hidden"));
+	}
+
+	@Test
+	public void scriptLinksAreNotFollowed() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("static/form.html"));
+		assertThat(browser.fireEventAndWait(click(How.id, "script")), is(false));
+		assertThat(browser.getCurrentUrl(), endsWith("/static/form.html"));
+	}
+
+	@Test
+	public void elementsAreSearchedInTheParsedDom() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("static/form.html"));
+		WebElement form = browser.getWebElement(new Identification(How.tag, "form"));
+
+		assertThat(form.findElements(By.tagName("input")), hasSize(3));
+		assertThat(form.findElements(By.xpath(".//OPTION")), hasSize(2));
+		assertThat(form.findElement(By.name("query")).getAttribute("value"), is("initial"));
+		assertThat(form.findElements(By.linkText("Script link")), hasSize(0));
+	}
+
+	@Test(expected = UnsupportedCommandException.class)
+	public void elementsHaveNoLocation() throws Exception {
+		browser.goToUrl(SERVER.getSiteUrl().resolve("static/form.html"));
+		browser.getWebElement(new Identification(How.id, "query")).getLocation();
+	}
+}
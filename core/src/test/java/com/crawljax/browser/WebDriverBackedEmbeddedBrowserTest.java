@@ -1,6 +1,7 @@
 package com.crawljax.browser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -14,7 +15,9 @@ import org.junit.experimental.categories.Category;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
+import com.codahale.metrics.MetricRegistry;
 import com.crawljax.core.CrawljaxException;
+import com.crawljax.metrics.MetricsModule;
 import com.crawljax.test.BrowserTest;
 import com.crawljax.test.RunWithWebServer;
 import com.crawljax.util.DomUtils;
@@ -63,4 +66,64 @@ public class WebDriverBackedEmbeddedBrowserTest {
 
 		assertTrue(Files.size(f.toPath()) != 0);
 	}
+
+	@Test
+	public void unchangedDomIsOnlyTransferredOnce() {
+		WebDriverBackedEmbeddedBrowser browser = WebDriverBackedEmbeddedBrowser
+				.withDriver(provider.newBrowser(),
+						ImmutableSortedSet.<String> of(), 100, 100);
+		browser.setTrackDomChanges(true);
+
+		browser.goToUrl(SERVER.getSiteUrl());
+		String dom = browser.getStrippedDom();
+		browser.markSnapshot();
+		assertFalse(browser.isDomChangedSinceLastSnapshot());
+		assertEquals(dom, browser.getStrippedDom());
+
+		browser.executeJavaScript("document.body.appendChild(document.createElement('p'));");
+		assertTrue(browser.isDomChangedSinceLastSnapshot());
+		browser.getStrippedDom();
+
+		assertEquals(2, browser.getDomTransfers());
+		assertEquals(1, browser.getSkippedDomTransfers());
+	}
+
+	@Test
+	public void domTransfersAreCountedInTheRegistry() {
+		WebDriverBackedEmbeddedBrowser browser = WebDriverBackedEmbeddedBrowser
+				.withDriver(provider.newBrowser(),
+						ImmutableSortedSet.<String> of(), 100, 100);
+		MetricRegistry registry = new MetricRegistry();
+
+		browser.goToUrl(SERVER.getSiteUrl());
+		String dom = browser.getStrippedDom();
+		browser.countDomTransfersIn(registry);
+		browser.getStrippedDom();
+
+		assertEquals(2, registry.counter(MetricsModule.BROWSER_PREFIX + "dom_transfers")
+				.getCount());
+		assertEquals(2 * dom.length(), registry.counter(
+				MetricsModule.BROWSER_PREFIX + "transferred_dom_chars").getCount());
+		assertEquals(2, browser.getDomTransfers());
+	}
+
+	@Test
+	public void changedSubtreesAreTransferredOnTheirOwn() {
+		WebDriverBackedEmbeddedBrowser browser = WebDriverBackedEmbeddedBrowser
+				.withDriver(provider.newBrowser(),
+						ImmutableSortedSet.<String> of(), 100, 100);
+		browser.setTrackDomChanges(true);
+		browser.setDomPatchThreshold(0.5);
+
+		browser.goToUrl(SERVER.getSiteUrl());
+		browser.executeJavaScript("var d = document.createElement('div');"
+				+ "d.id = 'patched'; document.body.appendChild(d);");
+		browser.getStrippedDom();
+		browser.executeJavaScript(
+				"document.getElementById('patched').textContent = 'patched text';");
+
+		assertTrue(browser.getStrippedDom().contains("patched text"));
+		assertEquals(1, browser.getDomTransfers());
+		assertEquals(1, browser.getPatchedDomTransfers());
+	}
 }
@@ -0,0 +1,113 @@
+package com.crawljax.condition;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.invariant.Invariant;
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.Identification.How;
+import com.google.common.collect.ImmutableList;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConditionBatchTest {
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	@Test
+	public void batchableConditionsAreEvaluatedInOneScript() {
+		Condition first = new JavaScriptCondition("a == 1");
+		Condition visible = new VisibleCondition(new Identification(How.id, "menu"));
+		Condition both = Logic.and(first, new NotVisibleCondition(new Identification(How.xpath,
+		        "//DIV[@class='x']")));
+		when(browser.executeJavaScript(anyString())).thenReturn("101");
+
+		ConditionBatch batch =
+		        ConditionBatch.evaluate(browser, ImmutableList.of(first, visible, both, first));
+
+		assertThat(batch.size(), is(3));
+		assertThat(batch.check(first), is(true));
+		assertThat(batch.check(visible), is(false));
+		assertThat(batch.check(both), is(true));
+		ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+		verify(browser).executeJavaScript(script.capture());
+		verify(browser, never()).isVisible(new Identification(How.id, "menu"));
+		assertThat(script.getValue(), containsString("document.getElementById('menu')"));
+		assertThat(script.getValue(), containsString("'//DIV[@class=\\'x\\']'"));
+	}
+
+	@Test
+	public void otherConditionsAreCheckedOnTheirOwn() {
+		Condition url = new UrlCondition("example");
+		Condition link = new VisibleCondition(new Identification(How.text, "next"));
+		when(browser.getCurrentUrl()).thenReturn("http://example.com");
+		when(browser.isVisible(new Identification(How.text, "next"))).thenReturn(true);
+
+		ConditionBatch batch = ConditionBatch.evaluate(browser, ImmutableList.of(url, link));
+
+		assertThat(batch.size(), is(0));
+		assertThat(batch.check(url), is(true));
+		assertThat(batch.check(link), is(true));
+		verify(browser, never()).executeJavaScript(anyString());
+	}
+
+	@Test
+	public void conditionsAreCheckedOnTheirOwnWhenTheScriptFails() {
+		Condition condition = new JavaScriptCondition("a == 1");
+		when(browser.executeJavaScript(anyString())).thenThrow(new CrawljaxException("failed"))
+		        .thenReturn("1");
+
+		ConditionBatch batch = ConditionBatch.evaluate(browser, ImmutableList.of(condition));
+
+		assertThat(batch.size(), is(0));
+		assertThat(batch.check(condition), is(true));
+		verify(browser, times(2)).executeJavaScript(anyString());
+	}
+
+	@Test
+	public void invariantsAndPreconditionsAreCheckedInOneScript() {
+		Invariant holds = new Invariant("holds", new JavaScriptCondition("true"));
+		Invariant fails = new Invariant("fails", new JavaScriptCondition("false"),
+		        new JavaScriptCondition("b"));
+		Invariant skipped = new Invariant("skipped", new JavaScriptCondition("false"),
+		        new JavaScriptCondition("c"));
+		when(browser.executeJavaScript(anyString())).thenReturn("1100");
+
+		ConditionTypeChecker<Invariant> checker =
+		        new ConditionTypeChecker<>(ImmutableList.of(holds, fails, skipped));
+
+		assertThat(checker.getFailedConditions(browser), contains(fails));
+		verify(browser).executeJavaScript(anyString());
+	}
+
+	@Test
+	public void regexConditionsAreMatchedTogether() {
+		Condition error = new RegexCondition("error");
+		Condition warning = new NotRegexCondition("warn(ing)?");
+		Condition missing = new RegexCondition("<blink>");
+		when(browser.getStrippedDom()).thenReturn("<p>An ERROR and a warning</p>");
+
+		ConditionBatch batch =
+		        ConditionBatch.evaluate(browser, ImmutableList.of(error, warning, missing));
+
+		assertThat(batch.check(error), is(true));
+		assertThat(batch.check(warning), is(false));
+		assertThat(batch.check(missing), is(false));
+		verify(browser).getStrippedDom();
+	}
+}
@@ -0,0 +1,76 @@
+package com.crawljax.condition;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.crawlcondition.CrawlCondition;
+import com.google.common.collect.ImmutableList;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConditionCacheTest {
+
+	private static final String DOM = "<HTML><BODY><DIV id=\"menu\">crawl me</DIV></BODY></HTML>";
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	@Test
+	public void domConditionsAreCheckedOncePerDom() {
+		CountingCondition counting = new CountingCondition();
+		ConditionTypeChecker<CrawlCondition> checker = new ConditionTypeChecker<>(
+		        ImmutableList.of(new CrawlCondition("counting", counting),
+		                new CrawlCondition("xpath", new XPathCondition("//DIV[@id='menu']")),
+		                new CrawlCondition("regex", new NotRegexCondition("logout"))));
+		when(browser.getStrippedDom()).thenReturn(DOM, DOM, "<HTML><BODY/></HTML>");
+
+		assertThat(checker.getFailedConditions(browser), is(empty()));
+		assertThat(checker.getFailedConditions(browser), is(empty()));
+		assertThat(checker.getFailedConditions(browser).get(0).getDescription(), is("xpath"));
+
+		verify(browser, times(3)).getStrippedDom();
+		assertThat(counting.checks.get(), is(2));
+		assertThat(checker.getCache().stats().hitCount(), is(3L));
+	}
+
+	@Test
+	public void countConditionsAreNotCached() {
+		Condition count = new CountCondition(1, new RegexCondition("crawl"));
+		ConditionTypeChecker<CrawlCondition> checker = new ConditionTypeChecker<>(
+		        ImmutableList.of(new CrawlCondition("count", count)));
+		when(browser.getStrippedDom()).thenReturn(DOM);
+
+		assertThat(checker.getFailedConditions(browser), is(empty()));
+		assertThat(checker.getFailedConditions(browser), contains(new CrawlCondition("count",
+		        count)));
+		assertThat(checker.getCache().stats().requestCount(), is(0L));
+	}
+
+	private static class CountingCondition implements DomCondition {
+
+		private final AtomicInteger checks = new AtomicInteger();
+
+		@Override
+		public boolean check(EmbeddedBrowser browser) {
+			return checkDom(browser.getStrippedDom());
+		}
+
+		@Override
+		public boolean checkDom(String strippedDom) {
+			checks.incrementAndGet();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.crawljax.condition.eventablecondition;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import com.crawljax.core.configuration.CrawlElement;
+import com.crawljax.core.configuration.CrawlRules;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+import com.crawljax.util.DomUtils;
+
+public class EventableConditionCheckerTest {
+
+	@Test
+	public void conditionsAreFoundByIdIgnoringCase() {
+		CrawljaxConfigurationBuilder builder =
+		        CrawljaxConfiguration.builderFor("http://localhost");
+		CrawlElement menu = builder.crawlRules().click("a").underXPath("//DIV[@id='menu']");
+		builder.crawlRules().click("button");
+		CrawlRules rules = builder.build().getCrawlRules();
+		EventableConditionChecker checker = new EventableConditionChecker(rules);
+
+		EventableCondition condition = checker.getEventableCondition(menu.getId().toUpperCase());
+		assertThat(condition.getInXPath(), is("//DIV[@id='menu']"));
+		assertThat(checker.getEventableCondition("unknown"), is(nullValue()));
+		assertThat(checker.getEventableCondition(null), is(nullValue()));
+	}
+
+	@Test
+	public void nodesAreUnderTheirAncestorsByIdentity() throws Exception {
+		Document dom = DomUtils.asDocument("<html><body><div id='menu'><a id='in'>in</a></div>"
+		        + "<div><a id='out'>out</a></div></body></html>");
+		Set<Node> roots = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		roots.add(dom.getElementById("menu"));
+		EventableConditionChecker checker =
+		        new EventableConditionChecker(CrawljaxConfiguration.builderFor(
+		                "http://localhost").build().getCrawlRules());
+
+		assertThat(checker.checkNodeUnderNodes(dom.getElementById("in"), roots), is(true));
+		assertThat(checker.checkNodeUnderNodes(dom.getElementById("menu"), roots), is(true));
+		assertThat(checker.checkNodeUnderNodes(dom.getElementById("out"), roots), is(false));
+	}
+}
@@ -0,0 +1,54 @@
+package com.crawljax.core;
+
+import static com.crawljax.core.StaticHtmlCrawls.extract;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.crawljax.core.configuration.CrawlRules.CrawlRulesBuilder;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+import com.crawljax.test.RunWithWebServer;
+
+public class CandidateElementExclusionTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer("/site");
+
+	@Test
+	public void elementsAndChildrenOfElementsAreExcluded() {
+		CrawljaxConfigurationBuilder builder = SERVER.newConfigBuilder("underxpath.html");
+		CrawlRulesBuilder rules = builder.crawlRules();
+		rules.click("a");
+		rules.dontClick("a").underXPath("//A[@class=\"noClickClass\"]");
+		rules.dontClick("a").withAttribute("id", "noClickId");
+		rules.dontClickChildrenOf("div").withClass("noChildrenOfClass");
+		rules.dontClickChildrenOf("div").withId("noChildrenOfId");
+
+		assertThat(extract(builder.build(), SERVER, "underxpath.html"),
+		        containsInAnyOrder("This you can click"));
+	}
+
+	@Test
+	public void onlyTheMarkedSubtreesAreExcluded() {
+		CrawljaxConfigurationBuilder builder = SERVER.newConfigBuilder("static/exclusion.html");
+		CrawlRulesBuilder rules = builder.crawlRules();
+		rules.click("a");
+		rules.dontClick("a").withAttribute("class", "skip");
+		// The menu is DIV[1] and the last link is in DIV[10].
+		rules.dontClick("div").withAttribute("id", "menu");
+
+		assertThat(extract(builder.build(), SERVER, "static/exclusion.html"),
+		        containsInAnyOrder("Third", "Tenth"));
+	}
+
+	@Test
+	public void onlyElementsUnderTheXPathAreIncluded() {
+		CrawljaxConfigurationBuilder builder = SERVER.newConfigBuilder("static/exclusion.html");
+		builder.crawlRules().click("a").underXPath("//DIV[@id='menu'] | //A[@id='tenth']");
+
+		assertThat(extract(builder.build(), SERVER, "static/exclusion.html"),
+		        containsInAnyOrder("In the menu", "Tenth"));
+	}
+}
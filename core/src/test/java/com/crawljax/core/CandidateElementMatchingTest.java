@@ -0,0 +1,64 @@
+package com.crawljax.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.configuration.CrawlRules.CrawlRulesBuilder;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+
+public class CandidateElementMatchingTest {
+
+	private static final String DOM;
+
+	static {
+		StringBuilder dom = new StringBuilder("<html><body>");
+		for (int i = 0; i < 2000; i++) {
+			dom.append("<div class='row").append(i % 3).append("'><span>").append(i)
+			        .append("</span><a href='page").append(i).append(".html'>link ").append(i)
+			        .append("</a><button>button ").append(i).append("</button></div>");
+		}
+		DOM = dom.append("<a href='file.pdf'>download</a></body></html>").toString();
+	}
+
+	private static List<String> extract(int parallelExtractionThreshold) {
+		CrawljaxConfigurationBuilder builder =
+		        CrawljaxConfiguration.builderFor("http://localhost");
+		CrawlRulesBuilder rules = builder.crawlRules();
+		rules.click("button");
+		rules.click("a").underXPath("//DIV[@class='row1']");
+		rules.click("a");
+		rules.dontClickChildrenOf("div").withClass("row2");
+		rules.parallelExtractionThreshold(parallelExtractionThreshold);
+		CrawljaxConfiguration config = builder.build();
+		EmbeddedBrowser browser = mock(EmbeddedBrowser.class);
+		when(browser.getStrippedDomWithoutIframeContent()).thenReturn(DOM);
+		return StaticHtmlCrawls.extract(config, browser);
+	}
+
+	@Test
+	public void candidatesAreInTheOrderOfTheRulesAndTheDocument() {
+		List<String> texts = extract(0);
+
+		// The links under row1 are clicked once, by the first rule that matches them.
+		assertThat(texts, hasSize(1334 + 667 + 667));
+		assertThat(texts.subList(0, 3), contains("button 0", "button 1", "button 3"));
+		assertThat(texts.subList(1334, 1337), contains("link 1", "link 4", "link 7"));
+		assertThat(texts.subList(2001, 2004), contains("link 0", "link 3", "link 6"));
+		assertThat(texts.get(texts.size() - 1), is("link 1998"));
+	}
+
+	@Test
+	public void parallelMatchingFindsTheSameCandidatesInTheSameOrder() {
+		assertThat(extract(1), is(extract(0)));
+	}
+}
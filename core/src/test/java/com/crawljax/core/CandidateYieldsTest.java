@@ -0,0 +1,59 @@
+package com.crawljax.core;
+
+import static com.crawljax.core.StaticHtmlCrawls.eventCount;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.crawljax.core.configuration.CrawlRules.LowYieldPolicy;
+import com.crawljax.test.RunWithWebServer;
+
+public class CandidateYieldsTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer("/site");
+
+	private static CrawlSession crawl(LowYieldPolicy policy) {
+		return StaticHtmlCrawls.crawl(SERVER, "static/rows.html", rules -> {
+			rules.lowYieldCandidates(policy).lowYieldThreshold(3, 0.05);
+			rules.click("button");
+		});
+	}
+
+	@Test
+	public void candidatesThatDoNotChangeTheDomLowerTheYield() {
+		// The links only scroll the page, so they are fired but leave the DOM unchanged.
+		CrawlSession skipped = StaticHtmlCrawls.crawl(SERVER, "static/anchors.html", rules -> {
+			rules.lowYieldCandidates(LowYieldPolicy.SKIP).lowYieldThreshold(3, 0.05);
+			rules.click("a");
+		});
+
+		assertThat(eventCount(skipped, "low_yield_candidate_classes"), is(1L));
+		assertThat(eventCount(skipped, "skipped_low_yield_candidates"), is(5L));
+		assertThat(skipped.getStateFlowGraph().getNumberOfStates(), is(1));
+	}
+
+	@Test
+	public void candidatesOfLowYieldClassesAreSkipped() {
+		CrawlSession fired = crawl(LowYieldPolicy.FIRE);
+		CrawlSession skipped = crawl(LowYieldPolicy.SKIP);
+
+		assertThat(eventCount(fired, "skipped_low_yield_candidates"), is(0L));
+		// Without JavaScript clicking the buttons fails. Three of the eight expand buttons are
+		// fired, the close button is of another class.
+		assertThat(eventCount(skipped, "low_yield_candidate_classes"), is(1L));
+		assertThat(eventCount(skipped, "skipped_low_yield_candidates"), is(5L));
+		assertThat(skipped.getStateFlowGraph().getNumberOfStates(),
+		        is(fired.getStateFlowGraph().getNumberOfStates()));
+	}
+
+	@Test
+	public void candidatesOfLowYieldClassesAreDeferredOnce() {
+		CrawlSession deferred = crawl(LowYieldPolicy.DEFER);
+
+		assertThat(eventCount(deferred, "deferred_low_yield_candidates"), is(5L));
+		assertThat(eventCount(deferred, "skipped_low_yield_candidates"), is(0L));
+	}
+}
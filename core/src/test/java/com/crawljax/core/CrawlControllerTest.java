@@ -32,6 +32,7 @@ import com.crawljax.core.configuration.BrowserConfiguration;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.plugin.Plugins;
 import com.crawljax.core.plugin.PostCrawlingPlugin;
+import com.crawljax.core.state.DomInvariantChecker;
 import com.crawljax.core.state.InMemoryStateFlowGraph;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateVertex;
@@ -148,7 +149,8 @@ public class CrawlControllerTest {
 
 		Plugins plugins = new Plugins(config, new MetricRegistry());
 		controller = new CrawlController(executor, consumerFactory, config, consumersDoneLatch,
-		        crawlSessionProvider, plugins);
+		        crawlSessionProvider, plugins, new DomInvariantChecker(plugins),
+		        new LinkHarvester(config, new MetricRegistry()));
 
 	}
 
@@ -222,12 +224,15 @@ public class CrawlControllerTest {
 		consumersDoneLatch = mock(ExitNotifier.class);
 		crawlSessionProvider = mock(CrawlSessionProvider.class);
 		Plugins plugins = mock(Plugins.class);
+		LinkHarvester linkHarvester = mock(LinkHarvester.class);
 		when(consumerFactory.get()).thenThrow(RuntimeException.class);
 		controller = new CrawlController(
-				executor, consumerFactory, config, consumersDoneLatch, crawlSessionProvider, plugins);
+				executor, consumerFactory, config, consumersDoneLatch, crawlSessionProvider, plugins,
+				mock(DomInvariantChecker.class), linkHarvester);
 		try {
 			controller.call();
 		} catch (RuntimeException ignore) {}
 		verify(executor).shutdownNow();
+		verify(linkHarvester).shutdown();
 	}
 }
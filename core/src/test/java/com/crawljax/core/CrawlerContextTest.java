@@ -0,0 +1,84 @@
+package com.crawljax.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.browser.DetachedEmbeddedBrowser;
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.state.StateMachine;
+import com.crawljax.core.state.StateVertex;
+import com.crawljax.core.state.StateVertexImpl;
+
+public class CrawlerContextTest {
+
+	@Test(expected = CrawljaxException.class)
+	public void snapshotsDoNotShareTheBrowser() {
+		EmbeddedBrowser browser = mock(EmbeddedBrowser.class);
+		CrawlerContext context = new CrawlerContext(browser,
+		        CrawljaxConfiguration.builderFor("http://localhost").build(), () -> null,
+		        new ExitNotifier(0), new MetricRegistry());
+		StateMachine stateMachine = mock(StateMachine.class);
+		StateVertex state = new StateVertexImpl(1, "http://localhost/1", "state1",
+		        "<div>1</div>", "<div>stripped</div>");
+		when(stateMachine.getCurrentState()).thenReturn(state);
+		context.setStateMachine(stateMachine);
+
+		CrawlerContext snapshot = context.snapshot();
+
+		assertThat(snapshot.getCurrentState(), is(state));
+		assertThat(snapshot.getBrowser(), is(not(sameInstance(browser))));
+		assertThat(snapshot.getBrowser().getStrippedDom(), is("<div>1</div>"));
+		assertThat(snapshot.getBrowser().getCurrentUrl(), is("http://localhost/1"));
+		verifyNoMoreInteractions(browser);
+		snapshot.getBrowser().getScreenShot();
+	}
+
+	@Test
+	public void snapshotsShowTheGivenState() {
+		CrawlerContext context = new CrawlerContext(mock(EmbeddedBrowser.class),
+		        CrawljaxConfiguration.builderFor("http://localhost").build(), () -> null,
+		        new ExitNotifier(0), new MetricRegistry());
+		StateMachine stateMachine = mock(StateMachine.class);
+		when(stateMachine.getCurrentState()).thenReturn(new StateVertexImpl(1,
+		        "http://localhost/1", "state1", "<div>1</div>", "<div>1</div>"));
+		context.setStateMachine(stateMachine);
+		StateVertex next = new StateVertexImpl(2, "http://localhost/2", "state2",
+		        "<div>2</div>", "<div>stripped</div>");
+
+		CrawlerContext snapshot = context.snapshot(next);
+
+		assertThat(snapshot.getCurrentState(), is(next));
+		assertThat(snapshot.getBrowser().getCurrentUrl(), is("http://localhost/2"));
+		assertThat(snapshot.getBrowser().getStrippedDom(), is("<div>2</div>"));
+		assertThat(snapshot.snapshot(next), is(sameInstance(snapshot)));
+	}
+
+	@Test
+	public void snapshotsOfAnotherBrowserDoNotShareIt() {
+		CrawlerContext context = new CrawlerContext(mock(EmbeddedBrowser.class),
+		        CrawljaxConfiguration.builderFor("http://localhost").build(), () -> null,
+		        new ExitNotifier(0), new MetricRegistry());
+		EmbeddedBrowser linkBrowser = mock(EmbeddedBrowser.class);
+		StateVertex state = new StateVertexImpl(2, "http://localhost/2", "state2",
+		        "<div>2</div>", "<div>2</div>");
+		CrawlerContext linkContext = context.inBrowser(linkBrowser, state, null);
+
+		CrawlerContext snapshot = linkContext.snapshot(state);
+
+		assertThat(linkContext.getBrowser(), is(sameInstance(linkBrowser)));
+		assertThat(snapshot.getBrowser(), is(instanceOf(DetachedEmbeddedBrowser.class)));
+		assertThat(snapshot.getCurrentState(), is(state));
+		assertThat(snapshot.getBrowser().getStrippedDom(), is("<div>2</div>"));
+		verifyNoMoreInteractions(linkBrowser);
+	}
+}
@@ -17,10 +17,12 @@ import com.crawljax.condition.browserwaiter.WaitConditionChecker;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.plugin.Plugins;
 import com.crawljax.core.state.DefaultStateVertexFactory;
+import com.crawljax.core.state.DomInvariantChecker;
 import com.crawljax.core.state.Eventable;
 import com.crawljax.core.state.Identification;
 import com.crawljax.core.state.Identification.How;
 import com.crawljax.core.state.InMemoryStateFlowGraph;
+import com.crawljax.core.state.MutableStateFlowGraph;
 import com.crawljax.core.state.StateVertex;
 import com.crawljax.di.CoreModule.CandidateElementExtractorFactory;
 import com.crawljax.di.CoreModule.FormHandlerFactory;
@@ -87,7 +89,7 @@ public class CrawlerTest {
 	private InMemoryStateFlowGraph graph;
 
 	@Mock
-	private Provider<InMemoryStateFlowGraph> graphProvider;
+	private Provider<MutableStateFlowGraph> graphProvider;
 
 	@Mock(strictness = Strictness.LENIENT)
 	private Eventable eventToTransferToTarget;
@@ -128,7 +130,10 @@ public class CrawlerTest {
 		                stateComparator,
 		                candidateActionCache, formHandlerFactory, waitConditionChecker,
 		                elementExtractor, graphProvider, plugins, new DefaultStateVertexFactory(),
-		                exitNotifier);
+		                exitNotifier, new DomInvariantChecker(plugins),
+		                new LinkHarvester(config, new MetricRegistry()),
+		                new ExploredUrls(config, new MetricRegistry()),
+		                new CandidateYields(config, new MetricRegistry()));
 
 		setupStateFlowGraph();
 	}
@@ -0,0 +1,42 @@
+package com.crawljax.core;
+
+import static com.crawljax.core.StaticHtmlCrawls.eventCount;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.crawljax.core.configuration.CrawlRules.ExploredLinkPolicy;
+import com.crawljax.test.RunWithWebServer;
+
+public class ExploredUrlsTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer("/site");
+
+	private static CrawlSession crawl(ExploredLinkPolicy policy) {
+		return StaticHtmlCrawls.crawl(SERVER, "static/links.html",
+		        rules -> rules.exploredLinks(policy));
+	}
+
+	@Test
+	public void linksToExploredUrlsAreSkipped() {
+		CrawlSession fired = crawl(ExploredLinkPolicy.FIRE);
+		CrawlSession skipped = crawl(ExploredLinkPolicy.SKIP);
+
+		assertThat(eventCount(fired, "skipped_explored_links"), is(0L));
+		// The second link on the index and the hidden link on the form page go to simple.html.
+		assertThat(eventCount(skipped, "skipped_explored_links"), is(2L));
+		assertThat(skipped.getStateFlowGraph().getNumberOfStates(),
+		        is(fired.getStateFlowGraph().getNumberOfStates()));
+	}
+
+	@Test
+	public void linksToExploredUrlsAreDeferredOnce() {
+		CrawlSession deferred = crawl(ExploredLinkPolicy.DEFER);
+
+		assertThat(eventCount(deferred, "deferred_explored_links"), is(2L));
+		assertThat(eventCount(deferred, "skipped_explored_links"), is(0L));
+	}
+}
@@ -0,0 +1,195 @@
+package com.crawljax.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.JavaScriptCondition;
+import com.crawljax.core.LinkHarvester.HarvestedPage;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.Identification.How;
+import com.crawljax.metrics.MetricsModule;
+import com.crawljax.test.RunWithWebServer;
+import com.crawljax.util.DomUtils;
+import com.google.common.io.Resources;
+
+public class LinkHarvesterTest {
+
+	@ClassRule
+	public static final RunWithWebServer SERVER = new RunWithWebServer("/site");
+
+	private MetricRegistry registry;
+	private LinkHarvester harvester;
+	private Document links;
+	private String linksUrl;
+
+	@Before
+	public void setup() throws Exception {
+		registry = new MetricRegistry();
+		harvester = new LinkHarvester(SERVER.newConfigBuilder("static/links.html")
+		        .crawlRules().hybridCrawl(true).endRules().build(), registry);
+		links = DomUtils.asDocument(Resources.toString(
+		        Resources.getResource("site/static/links.html"), StandardCharsets.UTF_8));
+		linksUrl = SERVER.getSiteUrl() + "static/links.html";
+	}
+
+	@After
+	public void shutdown() {
+		harvester.shutdown();
+	}
+
+	private URI linkOf(String id) {
+		CandidateElement candidate = new CandidateElement(links.getElementById(id),
+		        new Identification(How.id, id), "");
+		return harvester.linkOf(candidate, linksUrl);
+	}
+
+	private long count(String name) {
+		return registry.counter(MetricsModule.LINKS_PREFIX + name).getCount();
+	}
+
+	@Test
+	public void onlyPlainInScopeLinksAreHarvested() {
+		assertThat(linkOf("static"), is(SERVER.getSiteUrl().resolve("simple.html")));
+		assertThat(linkOf("dynamic"), is(SERVER.getSiteUrl().resolve("static/form.html")));
+		assertThat(linkOf("handler"), is(nullValue()));
+		assertThat(linkOf("external"), is(nullValue()));
+		assertThat(linkOf("window"), is(nullValue()));
+		assertThat(linkOf("self"), is(nullValue()));
+	}
+
+	@Test
+	public void pagesAreFetchedOnceAndClassified() {
+		HarvestedPage simple = harvester.awaitPage(linkOf("static"));
+		assertThat(simple, is(notNullValue()));
+		assertThat(simple.needsBrowser(), is(false));
+		assertThat(harvester.harvest(linkOf("again")), is(sameInstance(
+		        harvester.harvest(linkOf("static")))));
+
+		HarvestedPage form = harvester.awaitPage(linkOf("dynamic"));
+		assertThat(form.needsBrowser(), is(true));
+
+		assertThat(count("fetched"), is(2L));
+		assertThat(count("duplicates"), is(2L));
+		assertThat(count("static_pages"), is(1L));
+		assertThat(count("dynamic_pages"), is(1L));
+	}
+
+	@Test
+	public void onlyTheHtmlOfStaticPagesIsKeptAside() {
+		HarvestedPage simple = harvester.harvest(linkOf("static")).join();
+		assertThat(simple.needsBrowser(), is(false));
+		assertThat(simple.getHtml(), is(nullValue()));
+		assertThat(harvester.awaitPage(linkOf("static")).getHtml(),
+		        containsString("Simple page"));
+		assertThat(harvester.awaitPage(linkOf("dynamic")).getHtml(), is(nullValue()));
+		assertThat(count("fetched"), is(2L));
+	}
+
+	@Test
+	public void pagesAreFetchedWithTheCredentialsAndCookiesOfTheCrawl() throws Exception {
+		String authorization = "Basic " + Base64.getEncoder().encodeToString(
+		        "user:pass word".getBytes(StandardCharsets.UTF_8));
+		Server server = new Server(0);
+		server.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, Request baseRequest, HttpServletRequest request,
+			        HttpServletResponse response) throws IOException {
+				baseRequest.setHandled(true);
+				boolean allowed = authorization.equals(request.getHeader("Authorization"))
+				        && (!target.equals("/session.html") || String.valueOf(
+				                request.getHeader("Cookie")).contains("session=crawl"));
+				response.setStatus(allowed ? 200 : 401);
+				response.setContentType("text/html");
+				response.getWriter().write("<html><body>" + target + "</body></html>");
+			}
+		});
+		server.start();
+		try {
+			URI site = URI.create("http://localhost:"
+			        + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/");
+			harvester = new LinkHarvester(CrawljaxConfiguration.builderFor(site)
+			        .setBasicAuth("user", "pass word").crawlRules().hybridCrawl(true)
+			        .endRules().build(), registry);
+			assertThat(harvester.awaitPage(site.resolve("index.html")), is(notNullValue()));
+
+			EmbeddedBrowser browser = mock(EmbeddedBrowser.class);
+			when(browser.getCookies()).thenReturn(null);
+			assertThat(harvester.useCookiesOf(browser), is(false));
+			HttpCookie session = new HttpCookie("session", "crawl");
+			session.setVersion(0);
+			when(browser.getCookies()).thenReturn(Collections.singletonList(session));
+			when(browser.getCurrentUrl()).thenReturn(site.toString());
+			assertThat(harvester.useCookiesOf(browser), is(true));
+			assertThat(harvester.awaitPage(site.resolve("session.html")), is(notNullValue()));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void missingPagesAreLeftToTheBrowser() {
+		assertThat(harvester.awaitPage(SERVER.getSiteUrl().resolve("missing.html")),
+		        is(nullValue()));
+		assertThat(count("failures"), is(1L));
+	}
+
+	@Test
+	public void staticPagesAreCrawledWithoutTheBrowser() {
+		CrawlSession session = StaticHtmlCrawls.crawl(SERVER, "static/links.html",
+		        rules -> rules.hybridCrawl(true));
+
+		assertThat(session.getStateFlowGraph().getNumberOfStates(), is(3));
+		assertThat(session.getRegistry().counter(MetricsModule.LINKS_PREFIX + "static_pages")
+		        .getCount(), is(1L));
+		assertThat(session.getRegistry().counter(MetricsModule.LINKS_PREFIX + "dynamic_pages")
+		        .getCount(), is(1L));
+	}
+
+	@Test
+	public void isDisabledWhenConditionsNeedTheBrowser() {
+		CrawljaxConfiguration config = SERVER.newConfigBuilder().crawlRules().hybridCrawl(true)
+		        .addInvariant("title", new JavaScriptCondition("document.title != ''"))
+		        .endRules().build();
+		assertThat(new LinkHarvester(config, registry).isEnabled(), is(false));
+		assertThat(harvester.isEnabled(), is(true));
+	}
+
+	@Test
+	public void isDisabledWhenTheBrowserCannotShareItsCookies() {
+		EmbeddedBrowser browser = mock(EmbeddedBrowser.class);
+		when(browser.getCookies()).thenReturn(null);
+
+		assertThat(harvester.useCookiesOf(browser), is(false));
+		assertThat(harvester.isEnabled(), is(false));
+	}
+}
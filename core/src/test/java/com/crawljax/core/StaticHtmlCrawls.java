@@ -0,0 +1,82 @@
+package com.crawljax.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.browser.EmbeddedBrowser.BrowserType;
+import com.crawljax.browser.StaticHtmlEmbeddedBrowser;
+import com.crawljax.condition.ConditionTypeChecker;
+import com.crawljax.condition.eventablecondition.EventableConditionChecker;
+import com.crawljax.core.configuration.BrowserConfiguration;
+import com.crawljax.core.configuration.CrawlRules.CrawlRulesBuilder;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+import com.crawljax.core.state.DefaultStateVertexFactory;
+import com.crawljax.core.state.StateVertex;
+import com.crawljax.forms.FormHandler;
+import com.crawljax.metrics.MetricsModule;
+import com.crawljax.test.RunWithWebServer;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * Crawls and candidate extractions for tests that do not need a real browser.
+ */
+final class StaticHtmlCrawls {
+
+	private static final StateVertex DUMMY_STATE = new DefaultStateVertexFactory()
+	        .createIndex("http://localhost", "", "");
+
+	private StaticHtmlCrawls() {
+	}
+
+	/**
+	 * Crawls the page of the site with the {@link BrowserType#STATIC_HTML} browser.
+	 */
+	static CrawlSession crawl(RunWithWebServer server, String page,
+	        Consumer<CrawlRulesBuilder> rules) {
+		CrawljaxConfigurationBuilder builder = server.newConfigBuilder(page)
+		        .setBrowserConfig(new BrowserConfiguration(BrowserType.STATIC_HTML));
+		rules.accept(builder.crawlRules());
+		return new CrawljaxRunner(builder.build()).call();
+	}
+
+	/**
+	 * @return the count of the event metric with the name.
+	 */
+	static long eventCount(CrawlSession session, String name) {
+		return session.getRegistry().counter(MetricsModule.EVENTS_PREFIX + name).getCount();
+	}
+
+	static CandidateElementExtractor newExtractor(CrawljaxConfiguration config,
+	        EmbeddedBrowser browser) {
+		return new CandidateElementExtractor(
+		        new CandidateElementManager(new EventableConditionChecker(config.getCrawlRules()),
+		                new ConditionTypeChecker<>(config.getCrawlRules().getPreCrawlConfig()
+		                        .getCrawlConditions())),
+		        browser, new FormHandler(browser, config.getCrawlRules()), config);
+	}
+
+	/**
+	 * @return the trimmed texts of the candidates of the page of the site.
+	 */
+	static List<String> extract(CrawljaxConfiguration config, RunWithWebServer server,
+	        String page) {
+		EmbeddedBrowser browser =
+		        new StaticHtmlEmbeddedBrowser(ImmutableSortedSet.<String> of(), null);
+		browser.goToUrl(server.getSiteUrl().resolve(page));
+		return extract(config, browser);
+	}
+
+	/**
+	 * @return the trimmed texts of the candidates of the current page of the browser.
+	 */
+	static List<String> extract(CrawljaxConfiguration config, EmbeddedBrowser browser) {
+		List<String> texts = new ArrayList<>();
+		for (CandidateElement candidate : newExtractor(config, browser).extract(DUMMY_STATE)) {
+			texts.add(candidate.getElement().getTextContent().trim());
+		}
+		return texts;
+	}
+}
@@ -0,0 +1,72 @@
+package com.crawljax.core.state;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import com.crawljax.core.ExitNotifier;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification.How;
+
+/**
+ * Runs the {@link StateFlowGraphTest} against the {@link CompactStateFlowGraph}.
+ */
+public class CompactStateFlowGraphTest extends StateFlowGraphTest {
+
+	@Override
+	CompactStateFlowGraph newStateFlowGraph() {
+		return new CompactStateFlowGraph(new ExitNotifier(0), new DefaultStateVertexFactory());
+	}
+
+	@Test
+	public void viewsDoNotChangeWhenTheGraphGrows() {
+		CompactStateFlowGraph graph = newStateFlowGraph();
+		StateVertex index = new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>");
+		StateVertex state1 = new StateVertexImpl(1, "state1", "<div>1</div>");
+		graph.putIndex(index);
+		graph.putIfAbsent(state1);
+		Eventable first = newEventable("/first");
+		graph.addEdge(index, state1, first);
+
+		Collection<Eventable> outgoing = graph.outgoing(index);
+		Collection<StateVertex> states = graph.states();
+		graph.putIfAbsent(new StateVertexImpl(2, "state2", "<div>2</div>"));
+		graph.addEdge(index, state1, newEventable("/second"));
+
+		assertThat(outgoing, contains(first));
+		assertThat(states, contains(index, state1));
+		assertThat(graph.outgoing(index).size(), is(2));
+		assertThat(graph.incoming(index), is(empty()));
+	}
+
+	@Test
+	public void adjacencySurvivesCompaction() {
+		CompactStateFlowGraph graph = newStateFlowGraph();
+		StateVertex index = new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>");
+		graph.putIndex(index);
+		StateVertex previous = index;
+		for (int i = 1; i <= 1000; i++) {
+			StateVertex next = new StateVertexImpl(i, "state" + i, "<div>" + i + "</div>");
+			graph.putIfAbsent(next);
+			graph.addEdge(previous, next, newEventable("/" + i));
+			graph.addEdge(index, next, newEventable("/index/" + i));
+			previous = next;
+		}
+
+		assertThat(graph.getNumberOfEdges(), is(2000));
+		assertThat(graph.outgoing(index).size(), is(1001));
+		assertThat(graph.getById(500).getName(), is("state500"));
+		assertThat(graph.getShortestPath(index, graph.getById(1000)).size(), is(1));
+		assertThat(graph.getShortestPath(graph.getById(10), graph.getById(20)).size(), is(10));
+		assertThat(graph.getShortestPath(graph.getById(20), graph.getById(10)), is(empty()));
+	}
+
+	private Eventable newEventable(String xpath) {
+		return new Eventable(new Identification(How.xpath, xpath), EventType.click);
+	}
+}
@@ -0,0 +1,134 @@
+package com.crawljax.core.state;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import com.codahale.metrics.MetricRegistry;
+import com.crawljax.core.CrawlSession;
+import com.crawljax.core.ExitNotifier;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification.How;
+import com.crawljax.util.DomUtils;
+import com.google.common.collect.ImmutableList;
+
+public class CrawlArchiveTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private StateVertex index;
+	private StateVertex state1;
+	private StateVertex state2;
+	private Eventable toState1;
+	private Eventable toState2;
+	private CrawlSession session;
+
+	@Before
+	public void setup() throws IOException {
+		InMemoryStateFlowGraph graph =
+		        new InMemoryStateFlowGraph(new ExitNotifier(0), new DefaultStateVertexFactory());
+		index = new StateVertexImpl(StateVertex.INDEX_ID, "http://example.com", "index",
+		        "<html><body><a id='next' href='#1'>next</a></body></html>", "index");
+		state1 = new StateVertexImpl(5, "http://example.com/#1", "state5", "<div>1</div>",
+		        "<div>1</div>");
+		state2 = new StateVertexImpl(2, "http://example.com/#2", "state2", "<div>2</div>",
+		        "<div>2</div>");
+		graph.putIndex(index);
+		graph.putIfAbsent(state1);
+		graph.putIfAbsent(state2);
+
+		Document document = DomUtils.asDocument(index.getDom());
+		toState1 = new Eventable(document.getElementById("next"), EventType.click);
+		toState2 = new Eventable(new Identification(How.xpath, "/HTML/BODY/DIV[2]"),
+		        EventType.hover, "frame");
+		graph.addEdge(index, state1, toState1);
+		graph.addEdge(state1, state2, toState2);
+
+		MetricRegistry registry = new MetricRegistry();
+		registry.counter("crawljax.events.unfired_actions").inc(3);
+		session = new CrawlSession(CrawljaxConfiguration.builderFor("http://example.com").build(),
+		        graph, index, registry);
+		session.addCrawlPath(ImmutableList.of(toState1, toState2));
+	}
+
+	@Test
+	public void archiveHasTheGraphOfTheSession() throws IOException {
+		MappedStateFlowGraph graph = writeAndOpen().getStateFlowGraph();
+
+		assertThat(graph.getNumberOfStates(), is(3));
+		assertThat(graph.getNumberOfEdges(), is(2));
+		assertThat(graph.getInitialState().getName(), is("index"));
+		assertThat(graph.getById(5).getDom(), is("<div>1</div>"));
+		assertThat(graph.getById(5).getUrl(), is("http://example.com/#1"));
+		assertThat(graph.getById(3), is(nullValue()));
+		assertThat(graph.getInitialState().getStrippedDom(), is("index"));
+		assertTrue(graph.getById(2).equals(state2));
+		assertThat(graph.getById(2).hashCode(), is(state2.hashCode()));
+
+		assertThat(graph.getOutgoingClickables(index), contains(toState1));
+		assertThat(graph.getIncomingClickable(state2), contains(toState2));
+		assertThat(graph.getShortestPath(index, state2), contains(toState1, toState2));
+		assertThat(graph.getShortestPath(state2, index), hasSize(0));
+		assertTrue(graph.canGoTo(state2, state1));
+		assertThat(graph.getAllPossiblePaths(index), hasSize(1));
+		assertThat(graph.getMeanStateStringSize(), is(session.getStateFlowGraph()
+		        .getMeanStateStringSize()));
+	}
+
+	@Test
+	public void archiveHasTheElementsOfTheEdges() throws IOException {
+		MappedStateFlowGraph graph = writeAndOpen().getStateFlowGraph();
+
+		Eventable edge = graph.edgeAt(0);
+		assertThat(edge.getElement().getTag(), is("A"));
+		assertThat(edge.getElement().getText(), is("next"));
+		assertThat(edge.getElement().getAttributeOrNull("href"), is("#1"));
+		assertThat(edge.getElement().getNode(), is(nullValue()));
+		assertThat(edge.getIdentification(), is(toState1.getIdentification()));
+
+		Eventable hover = graph.edgeAt(1);
+		assertThat(hover.getEventType(), is(EventType.hover));
+		assertThat(hover.getRelatedFrame(), is("frame"));
+		assertThat(hover.getElement(), is(nullValue()));
+		assertThat(hover, is(toState2));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void archiveHasThePathsAndCountersOfTheSession() throws IOException {
+		CrawlArchive archive = writeAndOpen();
+
+		assertThat(archive.getUrl(), is(URI.create("http://example.com")));
+		assertThat(archive.getStartTime(), is(session.getStartTime()));
+		assertThat(archive.getCrawlPaths(), contains(ImmutableList.of(toState1, toState2)));
+		assertThat(archive.getCounters().get("crawljax.events.unfired_actions"), is(3L));
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		File file = folder.newFile();
+		java.nio.file.Files.write(file.toPath(), new byte[CrawlArchive.HEADER_SIZE]);
+		CrawlArchive.open(file);
+	}
+
+	private CrawlArchive writeAndOpen() throws IOException {
+		File file = folder.newFile("crawl.bin");
+		CrawlArchive.write(session, file);
+		return CrawlArchive.open(file);
+	}
+}
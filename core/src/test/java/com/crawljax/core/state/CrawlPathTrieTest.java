@@ -0,0 +1,122 @@
+package com.crawljax.core.state;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification.How;
+import com.google.common.collect.ImmutableList;
+
+public class CrawlPathTrieTest {
+
+	private Eventable a;
+	private Eventable b;
+	private Eventable c;
+	private CrawlPathTrie trie;
+
+	@Before
+	public void setup() {
+		a = new Eventable(new Identification(How.xpath, "/a"), EventType.click);
+		b = new Eventable(new Identification(How.xpath, "/b"), EventType.click);
+		c = new Eventable(new Identification(How.xpath, "/c"), EventType.click);
+		trie = new CrawlPathTrie();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void sharedPrefixesAreStoredOnce() {
+		trie.add(ImmutableList.of(a, b));
+		trie.add(ImmutableList.of(a, b, c));
+		trie.add(ImmutableList.of(a, c));
+
+		assertThat(trie.size(), is(3));
+		assertThat(trie.getNumberOfNodes(), is(4));
+		assertThat(trie.asCollection(), containsInAnyOrder(
+		        ImmutableList.of(a, b), ImmutableList.of(a, b, c), ImmutableList.of(a, c)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void duplicateAndEmptyPathsAreCounted() {
+		trie.add(ImmutableList.<Eventable> of());
+		trie.add(ImmutableList.of(a));
+		trie.add(ImmutableList.of(a));
+
+		assertThat(trie.size(), is(3));
+		assertThat(trie.asCollection(), containsInAnyOrder(
+		        ImmutableList.<Eventable> of(), ImmutableList.of(a), ImmutableList.of(a)));
+	}
+
+	@Test
+	public void removeOnlyRemovesOneOccurrence() {
+		trie.add(ImmutableList.of(a, b));
+		trie.add(ImmutableList.of(a, b));
+
+		assertThat(trie.remove(ImmutableList.of(a)), is(false));
+		assertThat(trie.remove(ImmutableList.of(a, b)), is(true));
+		assertThat(trie.size(), is(1));
+		assertThat(trie.remove(ImmutableList.of(a, b)), is(true));
+		assertThat(trie.remove(ImmutableList.of(a, b)), is(false));
+		assertThat(trie.asCollection().isEmpty(), is(true));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void forEachPathStreamsAllPaths() {
+		trie.add(ImmutableList.of(a, b));
+		trie.add(ImmutableList.of(c));
+
+		final List<List<Eventable>> seen = new ArrayList<>();
+		trie.forEachPath(path -> seen.add(ImmutableList.copyOf(path)));
+
+		assertThat(seen, containsInAnyOrder(ImmutableList.of(a, b), ImmutableList.of(c)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pathsAreReturnedInTheOrderTheyWereAdded() {
+		trie.add(ImmutableList.of(c));
+		trie.add(ImmutableList.of(a, b, c));
+		trie.add(ImmutableList.of(a));
+		trie.add(ImmutableList.of(a, b));
+		trie.add(ImmutableList.of(c));
+		trie.remove(ImmutableList.of(c));
+
+		assertThat(trie.asCollection(), contains(ImmutableList.of(a, b, c), ImmutableList.of(a),
+		        ImmutableList.of(a, b), ImmutableList.of(c)));
+		final List<List<Eventable>> seen = new ArrayList<>();
+		trie.forEachPath(path -> seen.add(ImmutableList.copyOf(path)));
+		assertThat(seen, contains(ImmutableList.of(a, b, c), ImmutableList.of(a),
+		        ImmutableList.of(a, b), ImmutableList.of(c)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pathsCanBeRemovedInBulk() {
+		List<List<Eventable>> paths = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			List<Eventable> path = ImmutableList.of(a, new Eventable(
+			        new Identification(How.xpath, "/p" + i), EventType.click));
+			paths.add(path);
+			trie.add(path);
+		}
+		trie.add(ImmutableList.of(b));
+
+		for (List<Eventable> path : paths) {
+			assertThat(trie.remove(path), is(true));
+		}
+		trie.add(ImmutableList.of(c));
+
+		assertThat(trie.size(), is(2));
+		assertThat(trie.asCollection(), contains(ImmutableList.of(b), ImmutableList.of(c)));
+		assertThat(trie.remove(paths.get(0)), is(false));
+	}
+}
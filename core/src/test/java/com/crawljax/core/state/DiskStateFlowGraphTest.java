@@ -0,0 +1,126 @@
+package com.crawljax.core.state;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.crawljax.core.CandidateElement;
+import com.crawljax.core.ExitNotifier;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification.How;
+import com.crawljax.util.DomUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Runs the {@link StateFlowGraphTest} against the {@link DiskStateFlowGraph}, with a cache that
+ * only holds one state so most states are read back from disk.
+ */
+public class DiskStateFlowGraphTest extends StateFlowGraphTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<DiskStateFlowGraph> graphs = Lists.newArrayList();
+
+	@Override
+	DiskStateFlowGraph newStateFlowGraph() {
+		try {
+			DiskStateFlowGraph graph = new DiskStateFlowGraph(new ExitNotifier(0),
+			        new DefaultStateVertexFactory(), folder.newFolder(), 1);
+			graphs.add(graph);
+			return graph;
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@After
+	public void closeGraphs() throws IOException {
+		for (DiskStateFlowGraph graph : graphs) {
+			graph.close();
+		}
+	}
+
+	@Test
+	public void statesAreReadBackFromDisk() {
+		DiskStateFlowGraph graph = newStateFlowGraph();
+		StateVertex index = new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>");
+		StateVertex state1 = new StateVertexImpl(1, "state1", "<div>1</div>");
+		graph.putIndex(index);
+		graph.putIfAbsent(state1);
+		Eventable edge = new Eventable(new Identification(How.xpath, "/a"), EventType.click);
+		graph.addEdge(index, state1, edge);
+
+		StateVertex stored = graph.getById(1);
+		assertThat(stored, is(not(sameInstance(state1))));
+		assertThat(stored.getName(), is("state1"));
+		assertThat(stored.getDom(), is("<div>1</div>"));
+		assertThat(graph.getInitialState().getDom(), is("<div>index</div>"));
+		assertThat(edge.getTargetStateVertex(), is(sameInstance(stored)));
+		assertThat(graph.putIfAbsent(new StateVertexImpl(7, "clone", "<div>1</div>")),
+		        is(sameInstance(stored)));
+		assertThat(graph.getShortestPath(index, state1), hasSize(1));
+		assertThat(graph.getBytesOnDisk(), is(greaterThan(0L)));
+	}
+
+	@Test
+	public void candidateElementsSurviveEvictionWithoutTheirDocument() throws IOException {
+		DiskStateFlowGraph graph = newStateFlowGraph();
+		graph.putIndex(new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>"));
+		graph.putIfAbsent(new StateVertexImpl(1, "state1", "<div>1</div>"));
+		Identification identification = new Identification(How.xpath, "/HTML/BODY/A");
+		CandidateElement candidate = new CandidateElement(
+		        DomUtils.asDocument("<a href='#'>1</a>").getDocumentElement(), identification,
+		        "frame");
+		StateVertex stored = graph.getById(1);
+		stored.setElementsFound(new LinkedList<>(ImmutableList.of(candidate)));
+
+		assertThat(graph.getInitialState().getDom(), is("<div>index</div>"));
+		CandidateElement kept = Iterables.getOnlyElement(stored.getCandidateElements());
+		assertThat(kept.getIdentification(), is(identification));
+		assertThat(kept.getRelatedFrame(), is("frame"));
+		assertThat(kept.getElement(), is(nullValue()));
+	}
+
+	@Test
+	public void storedStatesEqualStatesWithTheSameStrippedDom() {
+		DiskStateFlowGraph graph = newStateFlowGraph();
+		graph.putIndex(new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>"));
+		graph.putIfAbsent(new StateVertexImpl(1, "state1", "<div>1</div>"));
+		StateVertex stored = graph.getById(1);
+		StateVertex clone = new StateVertexImpl(7, "clone", "<div>1</div>");
+		StateVertex other = new StateVertexImpl(1, "state1", "<div>2</div>");
+
+		assertThat(stored.equals(clone), is(true));
+		assertThat(clone.equals(stored), is(true));
+		assertThat(stored.equals(other), is(false));
+		assertThat(other.equals(stored), is(false));
+	}
+
+	@Test
+	public void unequalStatesAreComparedWithoutReadingTheDisk() throws IOException {
+		DiskStateFlowGraph graph = newStateFlowGraph();
+		graph.putIndex(new StateVertexImpl(StateVertex.INDEX_ID, "index", "<div>index</div>"));
+		graph.putIfAbsent(new StateVertexImpl(1, "state1", "<div>1</div>"));
+		StateVertex stored = graph.getById(1);
+		graph.close();
+
+		assertThat(stored.equals(new StateVertexImpl(1, "state1", "<div>2</div>")), is(false));
+		assertThat(stored.equals(graph.getInitialState()), is(false));
+	}
+}
@@ -4,6 +4,7 @@ import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -29,7 +30,15 @@ public class StateFlowGraphTest {
 	private StateVertex state3;
 	private StateVertex state4;
 	private StateVertex state5;
-	private InMemoryStateFlowGraph graph;
+	private MutableStateFlowGraph graph;
+
+	/**
+	 * @return the implementation under test.
+	 */
+	MutableStateFlowGraph newStateFlowGraph() {
+		return new InMemoryStateFlowGraph(new ExitNotifier(0),
+				new DefaultStateVertexFactory());
+	}
 
 	@Before
 	public void setup() {
@@ -43,8 +52,7 @@ public class StateFlowGraphTest {
 				"<table><div>state4</div></table>");
 		state5 = new StateVertexImpl(5, "STATE_FIVE",
 				"<table><div>state5</div></table>");
-		graph = new InMemoryStateFlowGraph(new ExitNotifier(0),
-				new DefaultStateVertexFactory());
+		graph = newStateFlowGraph();
 		graph.putIndex(index);
 	}
 
@@ -153,8 +161,7 @@ public class StateFlowGraphTest {
 				+ "<SCRIPT src='js/jquery-1.2.3.js' type='text/javascript'></SCRIPT>"
 				+ "<body><div id='firstdiv' class='orange'>";
 
-		InMemoryStateFlowGraph g = new InMemoryStateFlowGraph(new ExitNotifier(
-				0), new DefaultStateVertexFactory());
+		MutableStateFlowGraph g = newStateFlowGraph();
 		g.putIndex(new StateVertexImpl(1, "", HTML1));
 		g.putIfAbsent(new StateVertexImpl(2, "", HTML2));
 
@@ -293,4 +300,57 @@ public class StateFlowGraphTest {
 		}
 	}
 
+	@Test
+	public void snapshotsAreNotAffectedByLaterChanges() {
+		graph.putIfAbsent(state2);
+		Eventable toState2 = newXpathEventable("/index/2");
+		graph.addEdge(index, state2, toState2);
+
+		StateFlowGraphSnapshot snapshot = graph.snapshot();
+		graph.putIfAbsent(state3);
+		graph.addEdge(index, state3, newXpathEventable("/index/3"));
+		graph.addEdge(state2, state3, newXpathEventable("/2/3"));
+
+		assertThat(snapshot.getNumberOfStates(), is(2));
+		assertThat(snapshot.getAllEdges(), hasSize(1));
+		assertThat(snapshot.getOutgoingClickables(index), hasSize(1));
+		assertThat(snapshot.outgoing(index).iterator().next(), is(toState2));
+		assertThat(snapshot.indexOf(state3), is(-1));
+		assertFalse(snapshot.canGoTo(state2, state3));
+		assertTrue(graph.canGoTo(state2, state3));
+
+		StateFlowGraphSnapshot latest = graph.snapshot();
+		assertTrue(latest.getVersion() > snapshot.getVersion());
+		assertThat(latest.getOutgoingClickables(index), hasSize(2));
+		assertThat(latest.getShortestPath(index, state3), hasSize(1));
+		assertThat(latest.getById(3), is(state3));
+	}
+
+	@Test
+	public void snapshotIsReusedUntilTheGraphChanges() {
+		StateFlowGraphSnapshot snapshot = graph.snapshot();
+		assertThat(graph.snapshot(), is(sameInstance(snapshot)));
+
+		graph.putIfAbsent(state2);
+		StateFlowGraphSnapshot changed = graph.snapshot();
+		assertThat(changed, is(not(sameInstance(snapshot))));
+		assertThat(changed.getNumberOfStates(), is(2));
+		assertThat(graph.snapshot(), is(sameInstance(changed)));
+	}
+
+	@Test
+	public void everyChangePublishesTheNextVersion() {
+		long version = graph.snapshot().getVersion();
+
+		graph.putIfAbsent(state2);
+		assertThat(graph.snapshot().getVersion(), is(version + 1));
+		graph.addEdge(index, state2, newXpathEventable("/index/2"));
+		assertThat(graph.snapshot().getVersion(), is(version + 2));
+
+		StateFlowGraphSnapshot snapshot = graph.snapshot();
+		graph.putIfAbsent(new StateVertexImpl(7, "clone", state2.getStrippedDom()));
+		graph.addEdge(index, state2, newXpathEventable("/index/2"));
+		assertThat(graph.snapshot(), is(sameInstance(snapshot)));
+	}
+
 }
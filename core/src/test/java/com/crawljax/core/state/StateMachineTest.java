@@ -6,16 +6,25 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.codahale.metrics.MetricRegistry;
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.condition.Condition;
+import com.crawljax.condition.RegexCondition;
+import com.crawljax.condition.XPathCondition;
 import com.crawljax.condition.invariant.Invariant;
 import com.crawljax.core.CrawlSession;
 import com.crawljax.core.CrawlerContext;
@@ -322,4 +331,50 @@ public class StateMachineTest {
 		// New State so plugin execution
 		assertTrue("InvariantViolationPlugin are exeucted", hit);
 	}
+
+	@Test
+	public void domInvariantsAreCheckedInTheBackground() {
+		Invariant violated = new Invariant("violated", new XPathCondition("//SPAN"));
+		Invariant holds = new Invariant("holds", new RegexCondition("state2"));
+		DomInvariantChecker checker = new DomInvariantChecker(plugins, 2);
+		StateMachine smLocal = new StateMachine(newStateFlowGraph(),
+		        ImmutableList.of(violated, holds), plugins, comparator, checker);
+		CrawlerContext snapshot = mock(CrawlerContext.class);
+		StateVertex state2 = new StateVertexImpl(2, "state2", "<table><div>state2</div></table>");
+		when(context.snapshot(state2)).thenReturn(snapshot);
+
+		smLocal.swithToStateAndCheckIfClone(
+		        new Eventable(new Identification(How.xpath, "/bla"), EventType.click), state2,
+		        context);
+		checker.awaitTermination();
+
+		verify(plugins).runOnInvariantViolationPlugins(violated, snapshot);
+		verify(plugins, never()).runOnInvariantViolationPlugins(holds, snapshot);
+		verify(plugins, never()).runOnInvariantViolationPlugins(violated, context);
+	}
+
+	@Test
+	public void invariantViolationsAreReportedInTheNewState() {
+		Invariant violated = new Invariant("violated", new XPathCondition("//SPAN"));
+		DomInvariantChecker checker = new DomInvariantChecker(plugins, 1);
+		StateMachine smLocal = new StateMachine(newStateFlowGraph(),
+		        ImmutableList.of(violated), plugins, comparator, checker);
+		CrawlerContext crawlerContext = spy(new CrawlerContext(dummyBrowser,
+		        CrawljaxConfiguration.builderFor("http://localhost").build(), () -> session,
+		        new ExitNotifier(0), new MetricRegistry()));
+		StateVertex state2 = new StateVertexImpl(2, "http://localhost/2", "state2",
+		        "<table><div>state2</div></table>", "<table><div>state2</div></table>");
+
+		smLocal.swithToStateAndCheckIfClone(
+		        new Eventable(new Identification(How.xpath, "/bla"), EventType.click), state2,
+		        crawlerContext);
+		checker.awaitTermination();
+
+		ArgumentCaptor<CrawlerContext> reported = ArgumentCaptor.forClass(CrawlerContext.class);
+		verify(plugins).runOnInvariantViolationPlugins(eq(violated), reported.capture());
+		assertSame(state2, reported.getValue().getCurrentState());
+		assertEquals("http://localhost/2", reported.getValue().getBrowser().getCurrentUrl());
+		assertEquals("<table><div>state2</div></table>",
+		        reported.getValue().getBrowser().getStrippedDom());
+	}
 }
@@ -0,0 +1,61 @@
+package com.crawljax.forms;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CoveringArrayTest {
+
+	private static Set<String> pairsOf(List<int[]> rows) {
+		Set<String> pairs = new HashSet<>();
+		for (int[] row : rows) {
+			for (int i = 0; i < row.length; i++) {
+				for (int j = i + 1; j < row.length; j++) {
+					pairs.add(i + "=" + row[i] + "," + j + "=" + row[j]);
+				}
+			}
+		}
+		return pairs;
+	}
+
+	@Test
+	public void allPairsAreCoveredWithFewerRowsThanAllCombinations() {
+		int[] sizes = { 3, 3, 3, 3, 2, 2 };
+
+		List<int[]> rows = CoveringArray.of(sizes, 2);
+
+		// 6 pairs of 3x3, 8 pairs of 3x2 and 1 pair of 2x2 values
+		assertThat(pairsOf(rows), hasSize(6 * 9 + 8 * 6 + 4));
+		assertThat(rows.size(), is(lessThanOrEqualTo(12)));
+	}
+
+	@Test
+	public void strengthOneUsesEveryValueOnce() {
+		List<int[]> rows = CoveringArray.of(new int[] { 3, 1, 2 }, 1);
+
+		assertThat(rows, hasSize(3));
+		assertThat(rows.get(0), is(new int[] { 0, 0, 0 }));
+		assertThat(rows.get(2)[0], is(2));
+	}
+
+	@Test
+	public void strengthOfAllParametersGivesAllCombinations() {
+		List<int[]> rows = CoveringArray.of(new int[] { 2, 3 }, 5);
+
+		assertThat(rows, hasSize(6));
+		assertThat(pairsOf(rows), hasSize(6));
+	}
+
+	@Test
+	public void noParametersGiveNoRows() {
+		assertThat(CoveringArray.of(new int[0], 2), is(empty()));
+	}
+}
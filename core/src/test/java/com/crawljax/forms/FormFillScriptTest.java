@@ -0,0 +1,103 @@
+package com.crawljax.forms;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openqa.selenium.WebElement;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+import com.crawljax.core.configuration.Form;
+import com.crawljax.core.configuration.InputSpecification;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.Identification.How;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormFillScriptTest {
+
+	private static final String FORM = "<html><body><form><input id='name' type='text'>"
+	        + "<input id='search' type='text' onkeyup='suggest()'>"
+	        + "<input id='agree' type='checkbox'></form></body></html>";
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	@Mock
+	private WebElement element;
+
+	private FormHandler formHandler;
+
+	@Before
+	public void setup() {
+		CrawljaxConfigurationBuilder builder =
+		        CrawljaxConfiguration.builderFor("http://localhost");
+		InputSpecification inputSpec = new InputSpecification();
+		Form form = new Form();
+		form.field("name").setValues("Some Name");
+		form.field("search").setValues("crawler");
+		form.field("agree").setValues("1");
+		inputSpec.setValuesInForm(form);
+		builder.crawlRules().insertRandomDataInInputForms(false).setInputSpec(inputSpec)
+		        .fillFormsWithJavaScript(true);
+		formHandler = new FormHandler(browser, builder.build().getCrawlRules());
+		when(browser.getStrippedDom()).thenReturn(FORM);
+		when(browser.getStrippedDomWithoutIframeContent()).thenReturn(FORM);
+	}
+
+	@Test
+	public void fieldsAreFilledInWithOneScript() throws Exception {
+		when(browser.executeJavaScript(anyString())).thenReturn("11");
+
+		formHandler.handleFormElements();
+
+		ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+		verify(browser).executeJavaScript(script.capture());
+		assertThat(script.getValue(), containsString("document.getElementById('name')"));
+		assertThat(script.getValue(), containsString("s(e,'Some Name');f(e);"));
+		assertThat(script.getValue(), containsString(
+		        "Object.getOwnPropertyDescriptor(p,'value')"));
+		assertThat(script.getValue(), containsString("if(e.checked!=true){e.click();}"));
+		verify(browser, never()).getWebElement(new Identification(How.id, "name"));
+		verify(browser, never()).getWebElement(new Identification(How.id, "agree"));
+	}
+
+	@Test
+	public void fieldsWithKeyHandlersAndFieldsTheScriptMissedAreFilledInByWebDriver()
+	        throws Exception {
+		when(browser.executeJavaScript(anyString())).thenReturn("10");
+		when(browser.getWebElement(new Identification(How.id, "search"))).thenReturn(element);
+		when(browser.getWebElement(new Identification(How.id, "agree"))).thenReturn(element);
+
+		formHandler.handleFormElements();
+
+		verify(browser, never()).getWebElement(new Identification(How.id, "name"));
+		verify(element).sendKeys("crawler");
+		verify(element).click();
+	}
+
+	@Test
+	public void allFieldsAreFilledInByWebDriverWhenTheScriptFails() throws Exception {
+		when(browser.executeJavaScript(anyString())).thenThrow(new CrawljaxException("failed"));
+		when(browser.getWebElement(new Identification(How.id, "name"))).thenReturn(element);
+		when(browser.getWebElement(new Identification(How.id, "search"))).thenReturn(element);
+		when(browser.getWebElement(new Identification(How.id, "agree"))).thenReturn(element);
+
+		formHandler.handleFormElements();
+
+		verify(element).sendKeys("Some Name");
+		verify(element).sendKeys("crawler");
+		verify(element).click();
+	}
+}
@@ -0,0 +1,62 @@
+package com.crawljax.forms;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.CrawljaxConfiguration.CrawljaxConfigurationBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormHandlerCacheTest {
+
+	private static final String FORM = "<html><body><form><input id='name' type='text'>"
+	        + "<textarea name='comment'></textarea></form></body></html>";
+
+	private static final String OTHER_FORM =
+	        "<html><body><form><input id='email' type='text'></form></body></html>";
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	private FormHandler formHandler;
+
+	@Before
+	public void setup() {
+		CrawljaxConfigurationBuilder builder =
+		        CrawljaxConfiguration.builderFor("http://localhost");
+		builder.crawlRules().insertRandomDataInInputForms(true);
+		formHandler = new FormHandler(browser, builder.build().getCrawlRules());
+		when(browser.getInputWithRandomValue(any(FormInput.class)))
+		        .thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	public void formInputsAreDiscoveredOncePerDom() {
+		when(browser.getStrippedDom()).thenReturn(FORM, OTHER_FORM, FORM);
+
+		List<FormInput> first = formHandler.getFormInputs();
+		List<FormInput> other = formHandler.getFormInputs();
+		List<FormInput> revisited = formHandler.getFormInputs();
+
+		assertThat(first, hasSize(2));
+		assertThat(other, hasSize(1));
+		assertThat(other, not(sameInstance(first)));
+		assertThat(revisited, sameInstance(first));
+		verify(browser, times(3)).getInputWithRandomValue(any(FormInput.class));
+	}
+}
@@ -0,0 +1,83 @@
+package com.crawljax.forms;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.w3c.dom.Element;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.condition.eventablecondition.EventableCondition;
+import com.crawljax.core.CandidateElement;
+import com.crawljax.core.configuration.Form;
+import com.crawljax.core.configuration.InputSpecification;
+import com.crawljax.util.DomUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FormInputCombinationTest {
+
+	private static final String FORM = "<html><body><form><input id='a'><input id='b'>"
+	        + "<input id='c'><input id='d'><button id='submit'>Go</button></form></body></html>";
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	private List<Set<String>> combinations(int strength) throws Exception {
+		InputSpecification inputSpec = new InputSpecification().setCombinationStrength(strength);
+		Form form = new Form();
+		for (String field : new String[] { "a", "b", "c", "d" }) {
+			form.field(field).setValues(field + "1", field + "2", field + "3");
+		}
+		inputSpec.setValuesInForm(form);
+		when(browser.getStrippedDomWithoutIframeContent()).thenReturn(FORM);
+		Element submit = DomUtils.asDocument(FORM).getElementById("submit");
+		EventableCondition condition = new EventableCondition("submit",
+		        new ArrayList<>(inputSpec.getFormFieldNames().keySet()));
+
+		List<Set<String>> combinations = new ArrayList<>();
+		for (CandidateElement candidate : new FormInputValueHelper(inputSpec, false)
+		        .getCandidateElementsForInputs(browser, submit, condition)) {
+			Set<String> values = new HashSet<>();
+			for (FormInput input : candidate.getFormInputs()) {
+				values.add(input.getInputValues().iterator().next().getValue());
+			}
+			combinations.add(values);
+		}
+		return combinations;
+	}
+
+	@Test
+	public void eachValueIndexIsOneCandidateByDefault() throws Exception {
+		assertThat(combinations(1), hasSize(3));
+	}
+
+	@Test
+	public void pairwiseCandidatesCoverAllPairsOfValues() throws Exception {
+		List<Set<String>> combinations = combinations(2);
+
+		Set<String> pairs = new HashSet<>();
+		for (Set<String> values : combinations) {
+			for (String first : values) {
+				for (String second : values) {
+					if (first.compareTo(second) < 0) {
+						pairs.add(first + second);
+					}
+				}
+			}
+		}
+		assertThat(pairs, hasSize(6 * 9));
+		// all combinations would be 81 candidates
+		assertThat(combinations.size(), is(lessThanOrEqualTo(12)));
+	}
+}
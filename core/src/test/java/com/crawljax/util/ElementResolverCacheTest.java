@@ -0,0 +1,79 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.w3c.dom.Document;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.StateVertex;
+import com.crawljax.core.state.StateVertexImpl;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ElementResolverCacheTest {
+
+	private static final String ORIGINAL = "<HTML><HEAD></HEAD><BODY><A id=\"go\">Go</A>"
+	        + "</BODY></HTML>";
+	private static final String MOVED = "<HTML><HEAD></HEAD><BODY><DIV>News</DIV>"
+	        + "<P><A id=\"go\">Go</A></P></BODY></HTML>";
+
+	@Mock
+	private EmbeddedBrowser browser;
+
+	private Eventable eventable;
+	private ElementResolverCache cache;
+
+	@Before
+	public void setup() throws Exception {
+		Document dom = DomUtils.asDocument(ORIGINAL);
+		eventable = new Eventable(dom.getElementById("go"), EventType.click);
+		cache = new ElementResolverCache(browser);
+	}
+
+	@Test
+	public void theXPathFollowsTheElement() {
+		when(browser.getStrippedDom()).thenReturn(ORIGINAL, MOVED, MOVED, "<HTML></HTML>");
+
+		assertThat(cache.resolve(null, eventable), is("/HTML[1]/BODY[1]/A[1]"));
+		assertThat(cache.resolve(null, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		assertThat(cache.resolve(null, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		assertThat(cache.resolve(null, eventable), is(nullValue()));
+	}
+
+	@Test
+	public void resolutionsInAStateAreReusedWithoutReadingTheDom() {
+		StateVertex state = new StateVertexImpl(1, "http://localhost", "state1", MOVED, MOVED);
+		when(browser.getStrippedDom()).thenReturn(MOVED);
+
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		verify(browser, times(1)).getStrippedDom();
+
+		cache.forget(state, eventable);
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		verify(browser, times(2)).getStrippedDom();
+	}
+
+	@Test
+	public void resolutionsInAnotherDomAreNotRemembered() {
+		StateVertex state = new StateVertexImpl(1, "http://localhost", "state1", ORIGINAL,
+		        ORIGINAL);
+		when(browser.getStrippedDom()).thenReturn(MOVED, ORIGINAL);
+
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/P[1]/A[1]"));
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/A[1]"));
+		assertThat(cache.resolve(state, eventable), is("/HTML[1]/BODY[1]/A[1]"));
+		verify(browser, times(2)).getStrippedDom();
+	}
+}
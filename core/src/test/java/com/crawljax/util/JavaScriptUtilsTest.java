@@ -0,0 +1,14 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class JavaScriptUtilsTest {
+
+	@Test
+	public void stringsAreQuoted() {
+		assertThat(JavaScriptUtils.literal("it's a\\b\n\u2028"), is("'it\\'s a\\\\b\\n\\u2028'"));
+	}
+}
@@ -0,0 +1,92 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+public class MultiPatternTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MultiPatternTest.class);
+
+	@Test
+	public void matchesAreRemovedInOnePass() {
+		MultiPattern patterns =
+		        MultiPattern.compile(ImmutableList.of("[0-9]+", "<(a|b)>", "x+"), 0);
+
+		assertThat(patterns.isCombined(), is(true));
+		assertThat(patterns.removeAll("<a>12 xx<b>3<c>"), is(" <c>"));
+		assertThat(patterns.removeAll("nothing"), is("nothing"));
+	}
+
+	@Test
+	public void expressionsAreFoundWhereAnEarlierOneWins() {
+		MultiPattern patterns =
+		        MultiPattern.compile(ImmutableList.of("ab", "a", "abc", "z"), 0);
+
+		BitSet found = patterns.findEach("xabcx");
+
+		assertThat(found.toString(), is("{0, 1, 2}"));
+	}
+
+	@Test
+	public void expressionsWithBackReferencesAreMatchedOneAfterAnother() {
+		MultiPattern patterns =
+		        MultiPattern.compile(ImmutableList.of("(.)\\1", "b"), Pattern.DOTALL);
+
+		assertThat(patterns.isCombined(), is(false));
+		assertThat(patterns.removeAll("aabcc"), is(""));
+		assertThat(patterns.findEach("xyz").isEmpty(), is(true));
+	}
+
+	@Test
+	public void expressionsWithTheSameGroupNameAreMatchedOneAfterAnother() {
+		MultiPattern patterns = MultiPattern.compile(
+		        ImmutableList.of("date (?<d>\\d+)", "time (?<d>\\d+)"), 0);
+
+		assertThat(patterns.isCombined(), is(false));
+		assertThat(patterns.removeAll("date 12, time 34."), is(", ."));
+		assertThat(patterns.findEach("time 34").get(1), is(true));
+	}
+
+	@Test
+	public void onePassMatchesTheExpressionsOneAfterAnotherOnALargeDom() {
+		List<String> expressions = ImmutableList.of("[0-9]{1,2}:[0-9]{2}",
+		        "session=[a-z0-9]+", "id=\"tmp[0-9]+\"", "<!--.*?-->",
+		        "[0-9]{4}-[0-9]{2}-[0-9]{2}", "token-[A-F0-9]{8}");
+		StringBuilder dom = new StringBuilder("<html><body>");
+		for (int i = 0; i < 20000; i++) {
+			dom.append("<div id=\"tmp").append(i).append("\"> 12:3").append(i % 10)
+			        .append(" <!-- row ").append(i).append(" --> 2024-01-0").append(i % 10)
+			        .append(" <a href=\"?session=abc").append(i).append("\">token-0000BEEF</a>")
+			        .append("</div>\n");
+		}
+		String input = dom.append("</body></html>").toString();
+		MultiPattern patterns = MultiPattern.compile(expressions, Pattern.DOTALL);
+
+		long start = System.nanoTime();
+		String sequential = input;
+		for (String expression : expressions) {
+			sequential = Pattern.compile(expression, Pattern.DOTALL).matcher(sequential)
+			        .replaceAll("");
+		}
+		long sequentialTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		String combined = patterns.removeAll(input);
+		long combinedTime = System.nanoTime() - start;
+
+		assertThat(combined, is(sequential));
+		assertThat(patterns.findEach(input).cardinality(), is(expressions.size()));
+		LOG.info("Removing {} expressions from {} characters took {} ms one after another "
+		        + "and {} ms in one pass", expressions.size(), input.length(),
+		        sequentialTime / 1000000, combinedTime / 1000000);
+	}
+}
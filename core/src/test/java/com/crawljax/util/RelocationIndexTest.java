@@ -0,0 +1,66 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.crawljax.core.state.Element;
+
+public class RelocationIndexTest {
+
+	private Document before;
+	private Document after;
+
+	@Before
+	public void setup() throws Exception {
+		before = DomUtils.asDocument("<body><a id='home' href='/'>Home</a>"
+		        + "<a class='nav' href='/about'>About</a><a href='/contact'>Contact</a></body>");
+		after = DomUtils.asDocument("<body><div><a class='new' href='/news'>News</a>"
+		        + "<a href='/contact' target='_self'>CONTACT</a><a class='nav' href='/about'>"
+		        + "About us</a><a id='HOME' href='/home'>Start</a></div></body>");
+	}
+
+	private Element elementOf(String text) {
+		for (int i = 0; i < before.getElementsByTagName("A").getLength(); i++) {
+			Element element = new Element(before.getElementsByTagName("A").item(i));
+			if (element.getText().equals(text)) {
+				return element;
+			}
+		}
+		throw new AssertionError(text);
+	}
+
+	@Test
+	public void elementsAreFoundByAttributesIdOrText() {
+		RelocationIndex index = RelocationIndex.of(after);
+
+		assertThat(index.find(elementOf("About")),
+		        is(sameInstance(after.getElementsByTagName("A").item(2))));
+		assertThat(index.find(elementOf("Home")),
+		        is(sameInstance(after.getElementsByTagName("A").item(3))));
+		assertThat(index.find(elementOf("Contact")),
+		        is(sameInstance(after.getElementsByTagName("A").item(1))));
+	}
+
+	@Test
+	public void theFirstEquivalentElementIsFound() throws Exception {
+		Document twice = DomUtils.asDocument("<body><a href='/x'>Contact</a>"
+		        + "<a href='/contact'>Other</a></body>");
+
+		assertThat(RelocationIndex.of(twice).find(elementOf("Contact")),
+		        is(sameInstance(twice.getElementsByTagName("A").item(0))));
+	}
+
+	@Test
+	public void elementsWithoutEquivalentAreNotFound() throws Exception {
+		Document other = DomUtils.asDocument("<body><a href='/x'>Other</a></body>");
+
+		assertThat(RelocationIndex.of(other).find(elementOf("About")), is(nullValue()));
+		assertThat(RelocationIndex.of(other), is(sameInstance(RelocationIndex.of(other))));
+	}
+}
@@ -0,0 +1,51 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class UrlCanonicalizerTest {
+
+	@Test
+	public void schemeHostAndDefaultPortAreNormalized() {
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("HTTP://Example.COM:80"),
+		        is("http://example.com/"));
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("https://example.com:8443/A"),
+		        is("https://example.com:8443/A"));
+	}
+
+	@Test
+	public void parametersAreSortedAndFragmentsRemovedByDefault() {
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("http://example.com/a?b=2&a=1#top"),
+		        is("http://example.com/a?a=1&b=2"));
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("http://example.com/a?"),
+		        is("http://example.com/a"));
+	}
+
+	@Test
+	public void parametersAreStrippedByNameAndPrefix() {
+		UrlCanonicalizer canonicalizer =
+		        UrlCanonicalizer.builder().stripParameters("session", "utm_*").build();
+		assertThat(canonicalizer.canonicalize(
+		        "http://example.com/?utm_source=x&id=3&session=abc&utm_medium=y"),
+		        is("http://example.com/?id=3"));
+	}
+
+	@Test
+	public void caseAndFragmentsAndOrderCanBeKept() {
+		UrlCanonicalizer canonicalizer = UrlCanonicalizer.builder().sortParameters(false)
+		        .keepFragments(true).build();
+		assertThat(canonicalizer.canonicalize("http://example.com/A?b=2&a=1#top"),
+		        is("http://example.com/A?b=2&a=1#top"));
+		assertThat(UrlCanonicalizer.builder().lowerCasePath(true).build()
+		        .canonicalize("http://example.com/A/B"), is("http://example.com/a/b"));
+	}
+
+	@Test
+	public void unparsableUrlsAreKept() {
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("not a url"), is("not a url"));
+		assertThat(UrlCanonicalizer.DEFAULT.canonicalize("mailto:a@example.com"),
+		        is("mailto:a@example.com"));
+	}
+}
@@ -0,0 +1,59 @@
+package com.crawljax.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class XPathIndexTest {
+
+	private static final String HTML = "<body><div id='first'></div><div><span>text</span>"
+	        + "<ul id='list'></ul></div><div id='last'></div></body>";
+
+	private static Document newDocument() throws IOException {
+		Document dom = DomUtils.asDocument(HTML);
+		Element list = dom.getElementById("list");
+		for (int i = 0; i < 1000; i++) {
+			Element item = dom.createElement("LI");
+			item.setAttribute("id", "item" + i);
+			list.appendChild(item);
+		}
+		return dom;
+	}
+
+	@Test
+	public void xpathsAreTheSameAsTheOnesOfTheHelper() throws IOException {
+		Document expected = newDocument();
+		Document indexed = newDocument();
+		XPathIndex index = XPathIndex.of(indexed);
+
+		NodeList expectedElements = expected.getElementsByTagName("*");
+		NodeList indexedElements = indexed.getElementsByTagName("*");
+		assertThat(index.size(), is(indexedElements.getLength()));
+		for (int i = 0; i < indexedElements.getLength(); i++) {
+			String xpath = XPathHelper.getXPathExpression(expectedElements.item(i));
+			assertThat(index.getXPath(indexedElements.item(i)), is(xpath));
+			assertThat(index.getElement(xpath), is(sameInstance(indexedElements.item(i))));
+		}
+		assertThat(XPathHelper.getXPathExpression(indexed.getElementById("item999")),
+		        is("/HTML[1]/BODY[1]/DIV[2]/UL[1]/LI[1000]"));
+	}
+
+	@Test
+	public void theIndexIsKeptWithTheDocument() throws Exception {
+		Document dom = newDocument();
+		XPathIndex index = XPathIndex.of(dom);
+
+		assertThat(XPathIndex.of(dom), is(sameInstance(index)));
+		assertThat(index.getElement("/HTML[1]/BODY[1]/DIV[4]"), is(nullValue()));
+		assertThat(index.findElement("//DIV[@id='last']"),
+		        is(sameInstance(dom.getElementById("last"))));
+	}
+}
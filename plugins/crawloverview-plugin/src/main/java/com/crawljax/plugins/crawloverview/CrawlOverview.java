@@ -20,7 +20,7 @@ import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.ExitNotifier.ExitStatus;
 import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.state.Eventable;
-import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateFlowGraphSnapshot;
 import com.crawljax.core.state.StateVertex;
 import com.crawljax.plugins.crawloverview.model.CandidateElementPosition;
 import com.crawljax.plugins.crawloverview.model.OutPutModel;
@@ -174,8 +174,8 @@ public class CrawlOverview implements OnNewStatePlugin, PreStateCrawlingPlugin,
 	@Override
 	public void postCrawling(CrawlSession session, ExitStatus exitStatus) {
 		LOG.debug("postCrawling");
-		StateFlowGraph sfg = session.getStateFlowGraph();
-		result = outModelCache.close(session, exitStatus);
+		StateFlowGraphSnapshot sfg = session.getStateFlowGraph().snapshot();
+		result = outModelCache.close(session, sfg, exitStatus);
 		outputBuilder.write(result, session.getConfig());
 		StateWriter writer = new StateWriter(outputBuilder, sfg,
 		        ImmutableMap.copyOf(visitedStates));
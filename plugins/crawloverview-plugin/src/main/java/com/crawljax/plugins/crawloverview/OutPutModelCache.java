@@ -2,8 +2,8 @@ package com.crawljax.plugins.crawloverview;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
 import java.util.Date;
-import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import com.crawljax.core.CrawlSession;
 import com.crawljax.core.ExitNotifier.ExitStatus;
 import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.StateFlowGraphSnapshot;
 import com.crawljax.core.state.StateVertex;
 import com.crawljax.plugins.crawloverview.model.CandidateElementPosition;
 import com.crawljax.plugins.crawloverview.model.Edge;
@@ -53,28 +54,29 @@ class OutPutModelCache {
 	}
 
 	/**
+	 * @param sfg
+	 *            the snapshot of the state-flow graph the rest of the report is written from.
 	 * @return Makes the final calculations and retuns the {@link OutPutModel}.
 	 */
-	public OutPutModel close(CrawlSession session, ExitStatus exitStatus) {
-		ImmutableList<Edge> edgesCopy = asEdges(session.getStateFlowGraph()
-		        .getAllEdges());
+	public OutPutModel close(CrawlSession session, StateFlowGraphSnapshot sfg,
+	        ExitStatus exitStatus) {
+		ImmutableList<Edge> edgesCopy = asEdges(sfg.edges());
 		checkEdgesAndCountFans(edgesCopy);
 		ImmutableMap<String, State> statesCopy = buildStates();
 
-		if (statesCopy.size() != session.getStateFlowGraph().getAllStates()
-		        .size()) {
+		if (statesCopy.size() != sfg.getNumberOfStates()) {
 			LOG.error("Not all states from the session are in the result. This means there's a bug somewhere");
 			LOG.info(
 			        "Printing state difference. \nSession states: {} \nResult states: {}",
-			        statesCopy, session.getStateFlowGraph().getAllStates());
+			        statesCopy, sfg.states());
 		}
 
 		StateStatistics stateStats = new StateStatistics(statesCopy.values());
-		return new OutPutModel(statesCopy, edgesCopy, new Statistics(session,
+		return new OutPutModel(statesCopy, edgesCopy, new Statistics(session, sfg,
 		        stateStats, startDate, failedEvents.get()), exitStatus);
 	}
 
-	private ImmutableList<Edge> asEdges(Set<Eventable> allEdges) {
+	private ImmutableList<Edge> asEdges(Collection<Eventable> allEdges) {
 		ImmutableList.Builder<Edge> builder = ImmutableList.builder();
 		for (Eventable eventable : allEdges) {
 			builder.add(new Edge(eventable));
@@ -9,7 +9,7 @@ import javax.annotation.concurrent.Immutable;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
 import com.crawljax.core.CrawlSession;
-import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateFlowGraphSnapshot;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
@@ -25,14 +25,24 @@ public class Statistics {
 	private final StateStatistics stateStats;
 	private final int failedEvents;
 
+	/**
+	 * @deprecated use the constructor that takes the {@link StateFlowGraphSnapshot} the rest of
+	 *             the report is built from.
+	 */
+	@Deprecated
 	public Statistics(CrawlSession session, StateStatistics stateStats, Date startDate,
 	        int failedEvents) {
+		this(session, session.getStateFlowGraph().snapshot(), stateStats, startDate,
+		        failedEvents);
+	}
+
+	public Statistics(CrawlSession session, StateFlowGraphSnapshot stateFlowGraph,
+	        StateStatistics stateStats, Date startDate, int failedEvents) {
 		this.stateStats = stateStats;
 		this.failedEvents = failedEvents;
 		this.startDate = new Date(startDate.getTime());
-		StateFlowGraph stateFlowGraph = session.getStateFlowGraph();
 		this.duration = calculateDuration(session);
-		this.edges = stateFlowGraph.getAllEdges().size();
+		this.edges = stateFlowGraph.getNumberOfEdges();
 		this.crawlPaths = session.getCrawlPaths().size();
 		double bytes = stateFlowGraph.getMeanStateStringSize();
 		this.averageDomSize = new DecimalFormat().format(bytes / 1000) + " kB";